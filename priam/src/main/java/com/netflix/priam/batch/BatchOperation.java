@@ -0,0 +1,43 @@
+package com.netflix.priam.batch;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The operations a batch can run, named like the single-operation endpoints under /v1/cassadmin.
+ */
+public enum BatchOperation {
+    DISABLETHRIFT(true),
+    ENABLETHRIFT(true),
+    DISABLEGOSSIP(true),
+    ENABLEGOSSIP(true),
+    FLUSH(true),
+    DRAIN(true),
+    STOP(false),
+    START(false);
+
+    private final boolean jmx;
+
+    private BatchOperation(boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    /**
+     * Whether the operation is a JMX call, which consecutive ones share a session for, rather than acting on the
+     * Cassandra process.
+     */
+    public boolean isJmx() {
+        return jmx;
+    }
+
+    @JsonCreator
+    public static BatchOperation fromString(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,45 @@
+package com.netflix.priam.batch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The body of POST /v1/cassadmin/batch, eg.
+ * <pre>
+ * {"steps": [{"operation": "disablethrift"}, {"operation": "disablegossip"}, {"operation": "flush"},
+ *            {"operation": "drain"}, {"operation": "stop"}]}
+ * </pre>
+ * The steps run in order and the batch stops at the first failure unless {@code continueOnError} is set.
+ */
+public class BatchRequest {
+    @JsonProperty
+    private List<BatchStep> steps;
+
+    @JsonProperty
+    private boolean continueOnError;
+
+    public BatchRequest() {
+    }
+
+    public BatchRequest(List<BatchStep> steps, boolean continueOnError) {
+        this.steps = steps;
+        this.continueOnError = continueOnError;
+    }
+
+    public List<BatchStep> getSteps() {
+        return steps;
+    }
+
+    public boolean isContinueOnError() {
+        return continueOnError;
+    }
+
+    public void setSteps(List<BatchStep> steps) {
+        this.steps = steps;
+    }
+
+    public void setContinueOnError(boolean continueOnError) {
+        this.continueOnError = continueOnError;
+    }
+}
@@ -0,0 +1,37 @@
+package com.netflix.priam.batch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+@JsonPropertyOrder({"succeeded", "elapsedMs", "steps"})
+public class BatchResult {
+    private final List<BatchStepResult> steps;
+    private final long elapsedMs;
+
+    public BatchResult(List<BatchStepResult> steps, long elapsedMs) {
+        this.steps = steps;
+        this.elapsedMs = elapsedMs;
+    }
+
+    @JsonProperty
+    public boolean isSucceeded() {
+        for (BatchStepResult step : steps) {
+            if (step.getStatus() != BatchStepResult.Status.OK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @JsonProperty
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    @JsonProperty
+    public List<BatchStepResult> getSteps() {
+        return steps;
+    }
+}
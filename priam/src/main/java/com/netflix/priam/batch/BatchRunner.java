@@ -0,0 +1,178 @@
+package com.netflix.priam.batch;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.ICassandraProcess;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.jobs.JobDefinition;
+import com.netflix.priam.jobs.JobStep;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the steps of a {@link BatchRequest} in order.  Consecutive JMX operations share one pooled connection in a
+ * single call, so a shutdown sequence pays for one liveness check rather than one per step, and the deadline of that
+ * call grows with the number of steps in it.  Stop and start act on the process between calls.
+ */
+@Singleton
+public class BatchRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final JMXConnectionPool jmxConnectionPool;
+    private final JMXConfiguration jmxConfiguration;
+    private final ICassandraProcess cassProcess;
+
+    @Inject
+    public BatchRunner(JMXConnectionPool jmxConnectionPool, JMXConfiguration jmxConfiguration,
+                       ICassandraProcess cassProcess) {
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.jmxConfiguration = jmxConfiguration;
+        this.cassProcess = cassProcess;
+    }
+
+    public BatchResult run(BatchRequest request) {
+        long start = System.currentTimeMillis();
+        List<BatchStep> steps = request.getSteps();
+        AtomicReferenceArray<BatchStepResult> results = new AtomicReferenceArray<>(steps.size());
+        int next = 0;
+        while (next < steps.size()) {
+            if (!request.isContinueOnError() && hasFailed(results, next)) {
+                break;
+            }
+            if (steps.get(next).getOperation().isJmx()) {
+                int end = next;
+                while (end < steps.size() && steps.get(end).getOperation().isJmx()) {
+                    end++;
+                }
+                next = runSession(steps, next, end, results, request.isContinueOnError());
+            } else {
+                runProcessStep(steps.get(next), next, results);
+                next++;
+            }
+        }
+
+        List<BatchStepResult> stepResults = Lists.newArrayList();
+        for (int i = 0; i < steps.size(); i++) {
+            BatchStepResult result = results.get(i);
+            stepResults.add(result != null ? result : BatchStepResult.skipped(steps.get(i).getOperation()));
+        }
+        return new BatchResult(stepResults, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Runs steps {@code from} up to {@code to} in one JMX call.  If the call itself fails, say on the deadline or
+     * because Cassandra can't be reached, the step it was on fails with it.
+     *
+     * @return the index of the first step not attempted
+     */
+    private int runSession(final List<BatchStep> steps, final int from, final int to,
+                           final AtomicReferenceArray<BatchStepResult> results, final boolean continueOnError) {
+        final AtomicInteger current = new AtomicInteger(from);
+        final AtomicLong stepStart = new AtomicLong(System.currentTimeMillis());
+        try {
+            jmxConnectionPool.executeOperation(new JMXCallable<Void>() {
+                @Override
+                public Void call(JMXNodeTool nodeTool) throws Exception {
+                    for (int i = from; i < to && !Thread.currentThread().isInterrupted(); i++) {
+                        current.set(i);
+                        stepStart.set(System.currentTimeMillis());
+                        BatchStep step = steps.get(i);
+                        try {
+                            runJmxStep(nodeTool, step);
+                            results.compareAndSet(i, null, BatchStepResult.ok(step.getOperation(), elapsed(stepStart.get())));
+                        } catch (Exception e) {
+                            logger.warn("Batch step {} failed", step.getOperation(), e);
+                            results.compareAndSet(i, null,
+                                    BatchStepResult.failed(step.getOperation(), elapsed(stepStart.get()), e));
+                            if (!continueOnError) {
+                                break;
+                            }
+                        }
+                    }
+                    current.set(to);
+                    return null;
+                }
+            }, jmxConfiguration.getOperationTimeoutMS() * (to - from), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            int failed = Math.min(current.get(), to - 1);
+            logger.warn("Batch JMX session failed at step {}", steps.get(failed).getOperation(), e);
+            results.compareAndSet(failed, null,
+                    BatchStepResult.failed(steps.get(failed).getOperation(), elapsed(stepStart.get()), e));
+            return failed + 1;
+        }
+        return to;
+    }
+
+    private void runJmxStep(JMXNodeTool nodeTool, BatchStep step) throws Exception {
+        logger.info("Batch step {}", step.getOperation());
+        switch (step.getOperation()) {
+            case DISABLETHRIFT:
+                nodeTool.stopThriftServer();
+                break;
+            case ENABLETHRIFT:
+                nodeTool.startThriftServer();
+                break;
+            case DISABLEGOSSIP:
+                nodeTool.stopGossiping();
+                break;
+            case ENABLEGOSSIP:
+                nodeTool.startGossiping();
+                break;
+            case FLUSH:
+                JobDefinition flush = JobDefinition.flush(
+                        Optional.<Collection<String>>fromNullable(step.getKeyspaces()),
+                        Optional.<Collection<String>>fromNullable(step.getCfnames()), 1);
+                for (JobStep flushStep : flush.plan(nodeTool)) {
+                    flushStep.call(nodeTool);
+                }
+                break;
+            case DRAIN:
+                nodeTool.drain();
+                break;
+            default:
+                throw new IllegalArgumentException("Not a JMX operation: " + step.getOperation());
+        }
+    }
+
+    private void runProcessStep(BatchStep step, int index, AtomicReferenceArray<BatchStepResult> results) {
+        logger.info("Batch step {}", step.getOperation());
+        long stepStart = System.currentTimeMillis();
+        try {
+            if (step.getOperation() == BatchOperation.STOP) {
+                cassProcess.stop();
+            } else {
+                cassProcess.start(true);
+            }
+            results.set(index, BatchStepResult.ok(step.getOperation(), elapsed(stepStart)));
+        } catch (Exception e) {
+            logger.warn("Batch step {} failed", step.getOperation(), e);
+            results.set(index, BatchStepResult.failed(step.getOperation(), elapsed(stepStart), e));
+        }
+    }
+
+    private static boolean hasFailed(AtomicReferenceArray<BatchStepResult> results, int upTo) {
+        for (int i = 0; i < upTo; i++) {
+            BatchStepResult result = results.get(i);
+            if (result != null && result.getStatus() == BatchStepResult.Status.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long elapsed(long start) {
+        return System.currentTimeMillis() - start;
+    }
+}
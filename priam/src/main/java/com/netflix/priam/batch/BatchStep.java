@@ -0,0 +1,51 @@
+package com.netflix.priam.batch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One operation of a {@link BatchRequest}.  Keyspaces and column families only apply to flush, which flushes
+ * everything when they are left out.
+ */
+public class BatchStep {
+    @JsonProperty
+    private BatchOperation operation;
+
+    @JsonProperty
+    private List<String> keyspaces;
+
+    @JsonProperty
+    private List<String> cfnames;
+
+    public BatchStep() {
+    }
+
+    public BatchStep(BatchOperation operation) {
+        this.operation = operation;
+    }
+
+    public BatchOperation getOperation() {
+        return operation;
+    }
+
+    public List<String> getKeyspaces() {
+        return keyspaces;
+    }
+
+    public List<String> getCfnames() {
+        return cfnames;
+    }
+
+    public void setOperation(BatchOperation operation) {
+        this.operation = operation;
+    }
+
+    public void setKeyspaces(List<String> keyspaces) {
+        this.keyspaces = keyspaces;
+    }
+
+    public void setCfnames(List<String> cfnames) {
+        this.cfnames = cfnames;
+    }
+}
@@ -0,0 +1,55 @@
+package com.netflix.priam.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"operation", "status", "elapsedMs", "error"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchStepResult {
+    public enum Status {OK, FAILED, SKIPPED}
+
+    private final BatchOperation operation;
+    private final Status status;
+    private final Long elapsedMs;
+    private final String error;
+
+    private BatchStepResult(BatchOperation operation, Status status, Long elapsedMs, String error) {
+        this.operation = operation;
+        this.status = status;
+        this.elapsedMs = elapsedMs;
+        this.error = error;
+    }
+
+    public static BatchStepResult ok(BatchOperation operation, long elapsedMs) {
+        return new BatchStepResult(operation, Status.OK, elapsedMs, null);
+    }
+
+    public static BatchStepResult failed(BatchOperation operation, long elapsedMs, Throwable t) {
+        return new BatchStepResult(operation, Status.FAILED, elapsedMs, String.valueOf(t.getMessage()));
+    }
+
+    public static BatchStepResult skipped(BatchOperation operation) {
+        return new BatchStepResult(operation, Status.SKIPPED, null, null);
+    }
+
+    @JsonProperty
+    public BatchOperation getOperation() {
+        return operation;
+    }
+
+    @JsonProperty
+    public Status getStatus() {
+        return status;
+    }
+
+    @JsonProperty
+    public Long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    @JsonProperty
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,49 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class AdmissionConfiguration {
+    @JsonProperty
+    private int compactionLimit = 1;
+
+    @JsonProperty
+    private int streamingLimit = 1;
+
+    @JsonProperty
+    private int validationLimit = 1;
+
+    @JsonProperty
+    private int totalLimit = 2;
+
+    public int getCompactionLimit() {
+        return compactionLimit;
+    }
+
+    public int getStreamingLimit() {
+        return streamingLimit;
+    }
+
+    public int getValidationLimit() {
+        return validationLimit;
+    }
+
+    public int getTotalLimit() {
+        return totalLimit;
+    }
+
+    public void setCompactionLimit(int compactionLimit) {
+        this.compactionLimit = compactionLimit;
+    }
+
+    public void setStreamingLimit(int streamingLimit) {
+        this.streamingLimit = streamingLimit;
+    }
+
+    public void setValidationLimit(int validationLimit) {
+        this.validationLimit = validationLimit;
+    }
+
+    public void setTotalLimit(int totalLimit) {
+        this.totalLimit = totalLimit;
+    }
+}
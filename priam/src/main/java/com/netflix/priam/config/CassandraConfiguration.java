@@ -151,6 +151,39 @@ public class CassandraConfiguration {
     @JsonProperty
     private int nodeRepairMutexAcquireTimeOut;
 
+    @JsonProperty
+    private int nodeRepairSubranges;
+
+    @JsonProperty
+    private long nodeRepairKeysPerSubrange;
+
+    @JsonProperty
+    private int nodeRepairSubrangeRetries = 3;
+
+    @JsonProperty
+    private int nodeRepairFreshnessMinutes = 1440;
+
+    @JsonProperty
+    private int nodeRepairMaxConcurrent = 4;
+
+    @JsonProperty
+    private boolean nodeRepairPlanned;
+
+    @JsonProperty
+    private double nodeRepairGcGraceFraction = 0.5;
+
+    @JsonProperty
+    private int nodeRepairDefaultGcGraceSeconds = 864000;
+
+    @JsonProperty
+    private long nodeRepairSmallTableMB = 1024;
+
+    @JsonProperty
+    private long nodeRepairLargeTableMB = 102400;
+
+    @JsonProperty
+    private long nodeRepairBudgetMB;
+
     @JsonProperty
     private Map<String, String> extraConfigParams;
 
@@ -350,6 +383,50 @@ public class CassandraConfiguration {
         return nodeRepairMutexAcquireTimeOut;
     }
 
+    public int getNodeRepairSubranges() {
+        return nodeRepairSubranges;
+    }
+
+    public long getNodeRepairKeysPerSubrange() {
+        return nodeRepairKeysPerSubrange;
+    }
+
+    public int getNodeRepairSubrangeRetries() {
+        return nodeRepairSubrangeRetries;
+    }
+
+    public int getNodeRepairFreshnessMinutes() {
+        return nodeRepairFreshnessMinutes;
+    }
+
+    public int getNodeRepairMaxConcurrent() {
+        return nodeRepairMaxConcurrent;
+    }
+
+    public boolean isNodeRepairPlanned() {
+        return nodeRepairPlanned;
+    }
+
+    public double getNodeRepairGcGraceFraction() {
+        return nodeRepairGcGraceFraction;
+    }
+
+    public int getNodeRepairDefaultGcGraceSeconds() {
+        return nodeRepairDefaultGcGraceSeconds;
+    }
+
+    public long getNodeRepairSmallTableMB() {
+        return nodeRepairSmallTableMB;
+    }
+
+    public long getNodeRepairLargeTableMB() {
+        return nodeRepairLargeTableMB;
+    }
+
+    public long getNodeRepairBudgetMB() {
+        return nodeRepairBudgetMB;
+    }
+
     public Map<String, String> getExtraConfigParams() {
         return extraConfigParams;
     }
@@ -542,6 +619,50 @@ public class CassandraConfiguration {
         this.nodeRepairMutexAcquireTimeOut = nodeRepairMutexAcquireTimeOut;
     }
 
+    public void setNodeRepairSubranges(int nodeRepairSubranges) {
+        this.nodeRepairSubranges = nodeRepairSubranges;
+    }
+
+    public void setNodeRepairKeysPerSubrange(long nodeRepairKeysPerSubrange) {
+        this.nodeRepairKeysPerSubrange = nodeRepairKeysPerSubrange;
+    }
+
+    public void setNodeRepairSubrangeRetries(int nodeRepairSubrangeRetries) {
+        this.nodeRepairSubrangeRetries = nodeRepairSubrangeRetries;
+    }
+
+    public void setNodeRepairFreshnessMinutes(int nodeRepairFreshnessMinutes) {
+        this.nodeRepairFreshnessMinutes = nodeRepairFreshnessMinutes;
+    }
+
+    public void setNodeRepairMaxConcurrent(int nodeRepairMaxConcurrent) {
+        this.nodeRepairMaxConcurrent = nodeRepairMaxConcurrent;
+    }
+
+    public void setNodeRepairPlanned(boolean nodeRepairPlanned) {
+        this.nodeRepairPlanned = nodeRepairPlanned;
+    }
+
+    public void setNodeRepairGcGraceFraction(double nodeRepairGcGraceFraction) {
+        this.nodeRepairGcGraceFraction = nodeRepairGcGraceFraction;
+    }
+
+    public void setNodeRepairDefaultGcGraceSeconds(int nodeRepairDefaultGcGraceSeconds) {
+        this.nodeRepairDefaultGcGraceSeconds = nodeRepairDefaultGcGraceSeconds;
+    }
+
+    public void setNodeRepairSmallTableMB(long nodeRepairSmallTableMB) {
+        this.nodeRepairSmallTableMB = nodeRepairSmallTableMB;
+    }
+
+    public void setNodeRepairLargeTableMB(long nodeRepairLargeTableMB) {
+        this.nodeRepairLargeTableMB = nodeRepairLargeTableMB;
+    }
+
+    public void setNodeRepairBudgetMB(long nodeRepairBudgetMB) {
+        this.nodeRepairBudgetMB = nodeRepairBudgetMB;
+    }
+
     public void setNodeRepairTime(String nodeRepairTime) {
         this.nodeRepairTime = nodeRepairTime;
     }
@@ -0,0 +1,52 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+public class EventsConfiguration {
+    @JsonProperty
+    private boolean enabled = true;
+
+    @JsonProperty
+    private List<String> notificationSources = ImmutableList.of("org.apache.cassandra.db:type=StorageService");
+
+    @JsonProperty
+    private int historySize = 1000;
+
+    @JsonProperty
+    private long maxPollTimeoutMS = 30000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> getNotificationSources() {
+        return notificationSources;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public long getMaxPollTimeoutMS() {
+        return maxPollTimeoutMS;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setNotificationSources(List<String> notificationSources) {
+        this.notificationSources = notificationSources;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public void setMaxPollTimeoutMS(long maxPollTimeoutMS) {
+        this.maxPollTimeoutMS = maxPollTimeoutMS;
+    }
+}
@@ -0,0 +1,71 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class GossipConfiguration {
+    @JsonProperty
+    private boolean monitorEnabled = true;
+
+    @JsonProperty
+    private long pollIntervalMS = 10000;
+
+    @JsonProperty
+    private int historySize = 1000;
+
+    @JsonProperty
+    private long flapWindowMS = 10 * 60 * 1000;
+
+    @JsonProperty
+    private int flapThreshold = 4;
+
+    @JsonProperty
+    private long heartbeatStallMS = 30000;
+
+    public boolean isMonitorEnabled() {
+        return monitorEnabled;
+    }
+
+    public long getPollIntervalMS() {
+        return pollIntervalMS;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public long getFlapWindowMS() {
+        return flapWindowMS;
+    }
+
+    public int getFlapThreshold() {
+        return flapThreshold;
+    }
+
+    public long getHeartbeatStallMS() {
+        return heartbeatStallMS;
+    }
+
+    public void setMonitorEnabled(boolean monitorEnabled) {
+        this.monitorEnabled = monitorEnabled;
+    }
+
+    public void setPollIntervalMS(long pollIntervalMS) {
+        this.pollIntervalMS = pollIntervalMS;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public void setFlapWindowMS(long flapWindowMS) {
+        this.flapWindowMS = flapWindowMS;
+    }
+
+    public void setFlapThreshold(int flapThreshold) {
+        this.flapThreshold = flapThreshold;
+    }
+
+    public void setHeartbeatStallMS(long heartbeatStallMS) {
+        this.heartbeatStallMS = heartbeatStallMS;
+    }
+}
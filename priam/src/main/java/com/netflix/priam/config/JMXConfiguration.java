@@ -0,0 +1,115 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class JMXConfiguration {
+    @JsonProperty
+    private int connectionPoolSize = 2;
+
+    @JsonProperty
+    private long healthCheckIntervalMS = 5000;
+
+    @JsonProperty
+    private long minReconnectDelayMS = 1000;
+
+    @JsonProperty
+    private long maxReconnectDelayMS = 30000;
+
+    @JsonProperty
+    private int executorThreads = 8;
+
+    @JsonProperty
+    private int executorQueueSize = 16;
+
+    @JsonProperty
+    private int operationThreads = 4;
+
+    @JsonProperty
+    private long callTimeoutMS = 10000;
+
+    @JsonProperty
+    private long operationTimeoutMS = 24 * 60 * 60 * 1000;
+
+    @JsonProperty
+    private int retryAfterSeconds = 5;
+
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public long getHealthCheckIntervalMS() {
+        return healthCheckIntervalMS;
+    }
+
+    public long getMinReconnectDelayMS() {
+        return minReconnectDelayMS;
+    }
+
+    public long getMaxReconnectDelayMS() {
+        return maxReconnectDelayMS;
+    }
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public int getExecutorQueueSize() {
+        return executorQueueSize;
+    }
+
+    public int getOperationThreads() {
+        return operationThreads;
+    }
+
+    public long getCallTimeoutMS() {
+        return callTimeoutMS;
+    }
+
+    public long getOperationTimeoutMS() {
+        return operationTimeoutMS;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setConnectionPoolSize(int connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    public void setHealthCheckIntervalMS(long healthCheckIntervalMS) {
+        this.healthCheckIntervalMS = healthCheckIntervalMS;
+    }
+
+    public void setMinReconnectDelayMS(long minReconnectDelayMS) {
+        this.minReconnectDelayMS = minReconnectDelayMS;
+    }
+
+    public void setMaxReconnectDelayMS(long maxReconnectDelayMS) {
+        this.maxReconnectDelayMS = maxReconnectDelayMS;
+    }
+
+    public void setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+    }
+
+    public void setExecutorQueueSize(int executorQueueSize) {
+        this.executorQueueSize = executorQueueSize;
+    }
+
+    public void setOperationThreads(int operationThreads) {
+        this.operationThreads = operationThreads;
+    }
+
+    public void setCallTimeoutMS(long callTimeoutMS) {
+        this.callTimeoutMS = callTimeoutMS;
+    }
+
+    public void setOperationTimeoutMS(long operationTimeoutMS) {
+        this.operationTimeoutMS = operationTimeoutMS;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
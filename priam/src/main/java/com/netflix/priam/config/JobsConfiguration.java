@@ -0,0 +1,49 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class JobsConfiguration {
+    @JsonProperty
+    private int executorThreads = 2;
+
+    @JsonProperty
+    private int historySize = 100;
+
+    @JsonProperty
+    private int defaultParallelism = 1;
+
+    @JsonProperty
+    private long syncWaitMS = 30000;
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    public long getSyncWaitMS() {
+        return syncWaitMS;
+    }
+
+    public void setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public void setDefaultParallelism(int defaultParallelism) {
+        this.defaultParallelism = defaultParallelism;
+    }
+
+    public void setSyncWaitMS(long syncWaitMS) {
+        this.syncWaitMS = syncWaitMS;
+    }
+}
@@ -41,6 +41,56 @@ public class PriamConfiguration extends Configuration {
     @Valid
     private MonitoringConfiguration monitoring = new MonitoringConfiguration();
 
+    @JsonProperty
+    @NotNull
+    @Valid
+    private JMXConfiguration jmx = new JMXConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private StatsConfiguration stats = new StatsConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private EventsConfiguration events = new EventsConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private JobsConfiguration jobs = new JobsConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private RingFanOutConfiguration ringFanOut = new RingFanOutConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private GossipConfiguration gossip = new GossipConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private RollingConfiguration rolling = new RollingConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private AdmissionConfiguration admission = new AdmissionConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private ResponseCacheConfiguration responseCache = new ResponseCacheConfiguration();
+
+    @JsonProperty
+    @NotNull
+    @Valid
+    private RepairThrottleConfiguration repairThrottle = new RepairThrottleConfiguration();
+
     @JsonProperty
     private List<String> ostrichServiceNames = Collections.emptyList();
 
@@ -71,6 +121,46 @@ public class PriamConfiguration extends Configuration {
         return monitoring;
     }
 
+    public JMXConfiguration getJmxConfiguration() {
+        return jmx;
+    }
+
+    public StatsConfiguration getStatsConfiguration() {
+        return stats;
+    }
+
+    public EventsConfiguration getEventsConfiguration() {
+        return events;
+    }
+
+    public JobsConfiguration getJobsConfiguration() {
+        return jobs;
+    }
+
+    public RingFanOutConfiguration getRingFanOutConfiguration() {
+        return ringFanOut;
+    }
+
+    public GossipConfiguration getGossipConfiguration() {
+        return gossip;
+    }
+
+    public RollingConfiguration getRollingConfiguration() {
+        return rolling;
+    }
+
+    public AdmissionConfiguration getAdmissionConfiguration() {
+        return admission;
+    }
+
+    public ResponseCacheConfiguration getResponseCacheConfiguration() {
+        return responseCache;
+    }
+
+    public RepairThrottleConfiguration getRepairThrottleConfiguration() {
+        return repairThrottle;
+    }
+
     public int getJvmMutexPort() {
         return jvmMutexPort;
     }
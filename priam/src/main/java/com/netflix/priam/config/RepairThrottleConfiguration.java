@@ -0,0 +1,137 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RepairThrottleConfiguration {
+    @JsonProperty
+    private boolean enabled = true;
+
+    @JsonProperty
+    private int pendingCompactionsHigh = 30;
+
+    @JsonProperty
+    private int pendingCompactionsLow = 10;
+
+    @JsonProperty
+    private int droppedMessagesHigh = 0;
+
+    @JsonProperty
+    private int blockedTasksHigh = 0;
+
+    @JsonProperty
+    private long readLatencyHighMicros = 50000;
+
+    @JsonProperty
+    private long readLatencyLowMicros = 20000;
+
+    @JsonProperty
+    private long pauseMS = 30000;
+
+    @JsonProperty
+    private long maxPauseMS = 1800000;
+
+    @JsonProperty
+    private long yieldMS = 5000;
+
+    @JsonProperty
+    private int maxSplitFactor = 8;
+
+    @JsonProperty
+    private int healthyUnitsToSpeedUp = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCompactionsHigh() {
+        return pendingCompactionsHigh;
+    }
+
+    public int getPendingCompactionsLow() {
+        return pendingCompactionsLow;
+    }
+
+    public int getDroppedMessagesHigh() {
+        return droppedMessagesHigh;
+    }
+
+    public int getBlockedTasksHigh() {
+        return blockedTasksHigh;
+    }
+
+    public long getReadLatencyHighMicros() {
+        return readLatencyHighMicros;
+    }
+
+    public long getReadLatencyLowMicros() {
+        return readLatencyLowMicros;
+    }
+
+    public long getPauseMS() {
+        return pauseMS;
+    }
+
+    public long getMaxPauseMS() {
+        return maxPauseMS;
+    }
+
+    public long getYieldMS() {
+        return yieldMS;
+    }
+
+    public int getMaxSplitFactor() {
+        return maxSplitFactor;
+    }
+
+    public int getHealthyUnitsToSpeedUp() {
+        return healthyUnitsToSpeedUp;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setPendingCompactionsHigh(int pendingCompactionsHigh) {
+        this.pendingCompactionsHigh = pendingCompactionsHigh;
+    }
+
+    public void setPendingCompactionsLow(int pendingCompactionsLow) {
+        this.pendingCompactionsLow = pendingCompactionsLow;
+    }
+
+    public void setDroppedMessagesHigh(int droppedMessagesHigh) {
+        this.droppedMessagesHigh = droppedMessagesHigh;
+    }
+
+    public void setBlockedTasksHigh(int blockedTasksHigh) {
+        this.blockedTasksHigh = blockedTasksHigh;
+    }
+
+    public void setReadLatencyHighMicros(long readLatencyHighMicros) {
+        this.readLatencyHighMicros = readLatencyHighMicros;
+    }
+
+    public void setReadLatencyLowMicros(long readLatencyLowMicros) {
+        this.readLatencyLowMicros = readLatencyLowMicros;
+    }
+
+    public void setPauseMS(long pauseMS) {
+        this.pauseMS = pauseMS;
+    }
+
+    public void setMaxPauseMS(long maxPauseMS) {
+        this.maxPauseMS = maxPauseMS;
+    }
+
+    public void setYieldMS(long yieldMS) {
+        this.yieldMS = yieldMS;
+    }
+
+    public void setMaxSplitFactor(int maxSplitFactor) {
+        this.maxSplitFactor = maxSplitFactor;
+    }
+
+    public void setHealthyUnitsToSpeedUp(int healthyUnitsToSpeedUp) {
+        this.healthyUnitsToSpeedUp = healthyUnitsToSpeedUp;
+    }
+}
@@ -0,0 +1,60 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ResponseCacheConfiguration {
+    @JsonProperty
+    private long ringTtlMS = 5000;
+
+    @JsonProperty
+    private long infoTtlMS = 5000;
+
+    @JsonProperty
+    private long versionTtlMS = 60000;
+
+    @JsonProperty
+    private long statusThriftTtlMS = 1000;
+
+    @JsonProperty
+    private long instancesTtlMS = 10000;
+
+    public long getRingTtlMS() {
+        return ringTtlMS;
+    }
+
+    public long getInfoTtlMS() {
+        return infoTtlMS;
+    }
+
+    public long getVersionTtlMS() {
+        return versionTtlMS;
+    }
+
+    public long getStatusThriftTtlMS() {
+        return statusThriftTtlMS;
+    }
+
+    public long getInstancesTtlMS() {
+        return instancesTtlMS;
+    }
+
+    public void setRingTtlMS(long ringTtlMS) {
+        this.ringTtlMS = ringTtlMS;
+    }
+
+    public void setInfoTtlMS(long infoTtlMS) {
+        this.infoTtlMS = infoTtlMS;
+    }
+
+    public void setVersionTtlMS(long versionTtlMS) {
+        this.versionTtlMS = versionTtlMS;
+    }
+
+    public void setStatusThriftTtlMS(long statusThriftTtlMS) {
+        this.statusThriftTtlMS = statusThriftTtlMS;
+    }
+
+    public void setInstancesTtlMS(long instancesTtlMS) {
+        this.instancesTtlMS = instancesTtlMS;
+    }
+}
@@ -0,0 +1,38 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RingFanOutConfiguration {
+    @JsonProperty
+    private int maxConcurrentRequests = 16;
+
+    @JsonProperty
+    private long nodeTimeoutMS = 5000;
+
+    @JsonProperty
+    private long deadlineMS = 10000;
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public long getNodeTimeoutMS() {
+        return nodeTimeoutMS;
+    }
+
+    public long getDeadlineMS() {
+        return deadlineMS;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setNodeTimeoutMS(long nodeTimeoutMS) {
+        this.nodeTimeoutMS = nodeTimeoutMS;
+    }
+
+    public void setDeadlineMS(long deadlineMS) {
+        this.deadlineMS = deadlineMS;
+    }
+}
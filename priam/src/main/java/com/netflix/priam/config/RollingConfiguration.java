@@ -0,0 +1,71 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RollingConfiguration {
+    @JsonProperty
+    private long gatePollMS = 30000;
+
+    @JsonProperty
+    private long gateTimeoutMS = 60 * 60 * 1000;
+
+    @JsonProperty
+    private int maxPendingCompactions = 20;
+
+    @JsonProperty
+    private long jobPollMS = 10000;
+
+    @JsonProperty
+    private long resumeCheckMS = 60000;
+
+    @JsonProperty
+    private long nodeCallTimeoutMS = 60000;
+
+    public long getGatePollMS() {
+        return gatePollMS;
+    }
+
+    public long getGateTimeoutMS() {
+        return gateTimeoutMS;
+    }
+
+    public int getMaxPendingCompactions() {
+        return maxPendingCompactions;
+    }
+
+    public long getJobPollMS() {
+        return jobPollMS;
+    }
+
+    public long getResumeCheckMS() {
+        return resumeCheckMS;
+    }
+
+    public long getNodeCallTimeoutMS() {
+        return nodeCallTimeoutMS;
+    }
+
+    public void setGatePollMS(long gatePollMS) {
+        this.gatePollMS = gatePollMS;
+    }
+
+    public void setGateTimeoutMS(long gateTimeoutMS) {
+        this.gateTimeoutMS = gateTimeoutMS;
+    }
+
+    public void setMaxPendingCompactions(int maxPendingCompactions) {
+        this.maxPendingCompactions = maxPendingCompactions;
+    }
+
+    public void setJobPollMS(long jobPollMS) {
+        this.jobPollMS = jobPollMS;
+    }
+
+    public void setResumeCheckMS(long resumeCheckMS) {
+        this.resumeCheckMS = resumeCheckMS;
+    }
+
+    public void setNodeCallTimeoutMS(long nodeCallTimeoutMS) {
+        this.nodeCallTimeoutMS = nodeCallTimeoutMS;
+    }
+}
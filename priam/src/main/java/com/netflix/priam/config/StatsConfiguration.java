@@ -0,0 +1,71 @@
+package com.netflix.priam.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StatsConfiguration {
+    @JsonProperty
+    private boolean collectorEnabled = true;
+
+    @JsonProperty
+    private long collectionIntervalMS = 10000;
+
+    @JsonProperty
+    private long defaultMaxStalenessMS = 30000;
+
+    @JsonProperty
+    private long historyRetentionMS = 24 * 60 * 60 * 1000;
+
+    @JsonProperty
+    private int historyMaxSeries = 512;
+
+    @JsonProperty
+    private long streamingRateWindowMS = 60000;
+
+    public boolean isCollectorEnabled() {
+        return collectorEnabled;
+    }
+
+    public long getCollectionIntervalMS() {
+        return collectionIntervalMS;
+    }
+
+    public long getDefaultMaxStalenessMS() {
+        return defaultMaxStalenessMS;
+    }
+
+    public long getHistoryRetentionMS() {
+        return historyRetentionMS;
+    }
+
+    public int getHistoryMaxSeries() {
+        return historyMaxSeries;
+    }
+
+    public long getStreamingRateWindowMS() {
+        return streamingRateWindowMS;
+    }
+
+    public void setCollectorEnabled(boolean collectorEnabled) {
+        this.collectorEnabled = collectorEnabled;
+    }
+
+    public void setCollectionIntervalMS(long collectionIntervalMS) {
+        this.collectionIntervalMS = collectionIntervalMS;
+    }
+
+    public void setDefaultMaxStalenessMS(long defaultMaxStalenessMS) {
+        this.defaultMaxStalenessMS = defaultMaxStalenessMS;
+    }
+
+    public void setHistoryRetentionMS(long historyRetentionMS) {
+        this.historyRetentionMS = historyRetentionMS;
+    }
+
+    public void setHistoryMaxSeries(int historyMaxSeries) {
+        this.historyMaxSeries = historyMaxSeries;
+    }
+
+    public void setStreamingRateWindowMS(long streamingRateWindowMS) {
+        this.streamingRateWindowMS = streamingRateWindowMS;
+    }
+}
@@ -21,25 +21,40 @@ import com.google.common.base.Optional;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.netflix.priam.aws.AWSMembership;
 import com.netflix.priam.aws.SDBInstanceRegistry;
+import com.netflix.priam.config.AdmissionConfiguration;
 import com.netflix.priam.config.AmazonConfiguration;
 import com.netflix.priam.config.BackupConfiguration;
 import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.EventsConfiguration;
+import com.netflix.priam.config.GossipConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.config.JobsConfiguration;
 import com.netflix.priam.config.MonitoringConfiguration;
 import com.netflix.priam.config.PriamConfiguration;
+import com.netflix.priam.config.RepairThrottleConfiguration;
+import com.netflix.priam.config.ResponseCacheConfiguration;
+import com.netflix.priam.config.RingFanOutConfiguration;
+import com.netflix.priam.config.RollingConfiguration;
+import com.netflix.priam.config.StatsConfiguration;
 import com.netflix.priam.config.ZooKeeperConfiguration;
 import com.netflix.priam.dropwizard.managers.ServiceRegistryManager;
 import com.netflix.priam.identity.IMembership;
 import com.netflix.priam.identity.IPriamInstanceRegistry;
+import com.netflix.priam.ring.RingFanOut;
+import com.netflix.priam.rolling.RollingOrchestrator;
 import com.netflix.priam.utils.Sleeper;
 import com.netflix.priam.utils.ThreadSleeper;
 import com.netflix.priam.utils.TokenManager;
 import com.netflix.priam.utils.TokenManagerProvider;
 import com.sun.jersey.api.client.Client;
 import com.yammer.dropwizard.client.JerseyClientBuilder;
+import com.yammer.dropwizard.client.JerseyClientConfiguration;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.config.HttpConfiguration;
+import com.yammer.dropwizard.util.Duration;
 import org.apache.curator.framework.CuratorFramework;
 
 public class PriamGuiceModule extends AbstractModule {
@@ -61,6 +76,16 @@ public class PriamGuiceModule extends AbstractModule {
         bind(BackupConfiguration.class).toInstance(priamConfiguration.getBackupConfiguration());
         bind(ZooKeeperConfiguration.class).toInstance(priamConfiguration.getZooKeeperConfiguration());
         bind(MonitoringConfiguration.class).toInstance(priamConfiguration.getMonitoringConfiguration());
+        bind(JMXConfiguration.class).toInstance(priamConfiguration.getJmxConfiguration());
+        bind(StatsConfiguration.class).toInstance(priamConfiguration.getStatsConfiguration());
+        bind(EventsConfiguration.class).toInstance(priamConfiguration.getEventsConfiguration());
+        bind(JobsConfiguration.class).toInstance(priamConfiguration.getJobsConfiguration());
+        bind(RingFanOutConfiguration.class).toInstance(priamConfiguration.getRingFanOutConfiguration());
+        bind(GossipConfiguration.class).toInstance(priamConfiguration.getGossipConfiguration());
+        bind(RollingConfiguration.class).toInstance(priamConfiguration.getRollingConfiguration());
+        bind(AdmissionConfiguration.class).toInstance(priamConfiguration.getAdmissionConfiguration());
+        bind(ResponseCacheConfiguration.class).toInstance(priamConfiguration.getResponseCacheConfiguration());
+        bind(RepairThrottleConfiguration.class).toInstance(priamConfiguration.getRepairThrottleConfiguration());
 
         bind(IPriamInstanceRegistry.class).to(SDBInstanceRegistry.class).asEagerSingleton();
         bind(IMembership.class).to(AWSMembership.class).asEagerSingleton();
@@ -92,4 +117,49 @@ public class PriamGuiceModule extends AbstractModule {
                 .using(environment)
                 .build();
     }
+
+    /**
+     * For {@link RingFanOut}, which bounds each node by its own timeout.  The read timeout is a second longer, so a
+     * slow node is reported as timed out rather than failed, and never shorter than the shared client's.
+     */
+    @Provides
+    @Singleton
+    @Named(RingFanOut.CLIENT)
+    Client provideRingFanOutClient() {
+        return newJerseyClient(priamConfiguration.getRingFanOutConfiguration().getNodeTimeoutMS() + 1000);
+    }
+
+    /**
+     * For {@link RollingOrchestrator}, whose calls to stop and start Cassandra wait for the scripts to run.
+     */
+    @Provides
+    @Singleton
+    @Named(RollingOrchestrator.CLIENT)
+    Client provideRollingClient() {
+        return newJerseyClient(priamConfiguration.getRollingConfiguration().getNodeCallTimeoutMS());
+    }
+
+    /**
+     * A client like the shared one, but whose read timeout is at least {@code timeoutMillis}.
+     */
+    private Client newJerseyClient(long timeoutMillis) {
+        JerseyClientConfiguration shared = priamConfiguration.getHttpClientConfiguration();
+        JerseyClientConfiguration configuration = new JerseyClientConfiguration();
+        configuration.setTimeout(Duration.milliseconds(Math.max(timeoutMillis, shared.getTimeout().toMilliseconds())));
+        configuration.setConnectionTimeout(shared.getConnectionTimeout());
+        configuration.setTimeToLive(shared.getTimeToLive());
+        configuration.setCookiesEnabled(shared.isCookiesEnabled());
+        configuration.setMaxConnections(shared.getMaxConnections());
+        configuration.setMaxConnectionsPerRoute(shared.getMaxConnectionsPerRoute());
+        configuration.setKeepAlive(shared.getKeepAlive());
+        configuration.setRetries(shared.getRetries());
+        configuration.setMinThreads(shared.getMinThreads());
+        configuration.setMaxThreads(shared.getMaxThreads());
+        configuration.setGzipEnabled(shared.isGzipEnabled());
+        configuration.setGzipEnabledForRequests(shared.isGzipEnabledForRequests());
+        return new JerseyClientBuilder()
+                .using(configuration)
+                .using(environment)
+                .build();
+    }
 }
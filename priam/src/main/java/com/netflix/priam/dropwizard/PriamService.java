@@ -9,14 +9,27 @@ import com.netflix.priam.defaultimpl.PriamGuiceModule;
 import com.netflix.priam.dropwizard.managers.ManagedCloseable;
 import com.netflix.priam.dropwizard.managers.ServiceMonitorManager;
 import com.netflix.priam.dropwizard.managers.ServiceRegistryManager;
+import com.netflix.priam.events.CassandraNotificationListener;
+import com.netflix.priam.gossip.GossipMonitor;
+import com.netflix.priam.jobs.JobManager;
+import com.netflix.priam.resources.AdmissionResource;
 import com.netflix.priam.resources.CassandraAdminResource;
 import com.netflix.priam.resources.CassandraConfigResource;
+import com.netflix.priam.resources.CassandraEventResource;
+import com.netflix.priam.resources.GossipResource;
+import com.netflix.priam.resources.JobResource;
+import com.netflix.priam.resources.MetricsHistoryResource;
 import com.netflix.priam.resources.MonitoringEnablementResource;
 import com.netflix.priam.resources.PriamInstanceResource;
+import com.netflix.priam.resources.PrometheusMetricsResource;
+import com.netflix.priam.resources.RollingResource;
+import com.netflix.priam.rolling.RollingOrchestrator;
+import com.netflix.priam.stats.NodeStatsCollector;
 import com.netflix.priam.tools.CopyInstanceData;
 import com.netflix.priam.tools.DeleteInstanceData;
 import com.netflix.priam.tools.ListClusters;
 import com.netflix.priam.tools.ListInstanceData;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.yammer.dropwizard.Service;
 import com.yammer.dropwizard.config.Bootstrap;
 import com.yammer.dropwizard.config.Environment;
@@ -52,14 +65,27 @@ public class PriamService extends Service<PriamConfiguration> {
         try {
             config.getAmazonConfiguration().discoverConfiguration(injector.getInstance(AWSCredentialsProvider.class));
 
+            environment.manage(injector.getInstance(JMXConnectionPool.class));
+            environment.manage(injector.getInstance(CassandraNotificationListener.class));
             environment.manage(injector.getInstance(PriamServer.class));
             environment.manage(injector.getInstance(ServiceRegistryManager.class));
+            environment.manage(injector.getInstance(NodeStatsCollector.class));
+            environment.manage(injector.getInstance(GossipMonitor.class));
+            environment.manage(injector.getInstance(JobManager.class));
+            environment.manage(injector.getInstance(RollingOrchestrator.class));
             environment.manage(injector.getInstance(ServiceMonitorManager.class));
 
+            environment.addResource(injector.getInstance(AdmissionResource.class));
             environment.addResource(injector.getInstance(CassandraAdminResource.class));
             environment.addResource(injector.getInstance(CassandraConfigResource.class));
+            environment.addResource(injector.getInstance(CassandraEventResource.class));
+            environment.addResource(injector.getInstance(GossipResource.class));
+            environment.addResource(injector.getInstance(JobResource.class));
             environment.addResource(injector.getInstance(PriamInstanceResource.class));
+            environment.addResource(injector.getInstance(MetricsHistoryResource.class));
             environment.addResource(injector.getInstance(MonitoringEnablementResource.class));
+            environment.addResource(injector.getInstance(RollingResource.class));
+            environment.addResource(injector.getInstance(PrometheusMetricsResource.class));
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             throw new RuntimeException(e.getMessage(), e);
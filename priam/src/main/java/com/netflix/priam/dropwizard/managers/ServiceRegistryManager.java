@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.io.Closeables;
 import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -16,6 +17,10 @@ import com.google.inject.Singleton;
 import com.netflix.priam.config.AmazonConfiguration;
 import com.netflix.priam.config.CassandraConfiguration;
 import com.netflix.priam.config.PriamConfiguration;
+import com.netflix.priam.events.CassandraEvent;
+import com.netflix.priam.events.CassandraEventBus;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.netflix.priam.utils.JMXNodeTool;
 import com.yammer.dropwizard.config.HttpConfiguration;
 import com.yammer.dropwizard.lifecycle.Managed;
@@ -48,22 +53,38 @@ public class ServiceRegistryManager implements Managed {
     private final CassandraConfiguration casConfiguration;
     private final AmazonConfiguration awsConfiguration;
     private final Optional<CuratorFramework> zkConnection;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final CassandraEventBus eventBus;
     private final ScheduledExecutorService executor;
     private final List<ServiceEndPoint> endPoints = Lists.newArrayList();
     private ServiceRegistry zkRegistry;
     private final HttpConfiguration httpConfiguration;
     private boolean registered;
+    private final Runnable updateTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                update();
+            } catch (Throwable t) {
+                logger.error("Unable to update ZooKeeper registration: {}", t);
+            }
+        }
+    };
 
     @Inject
     public ServiceRegistryManager(PriamConfiguration priamConfiguration,
                                   CassandraConfiguration casConfiguration,
                                   AmazonConfiguration awsConfiguration,
                                   Optional<CuratorFramework> zkConnection,
-                                  HttpConfiguration httpConfiguration) {
+                                  HttpConfiguration httpConfiguration,
+                                  JMXConnectionPool jmxConnectionPool,
+                                  CassandraEventBus eventBus) {
         this.priamConfiguration = priamConfiguration;
         this.casConfiguration = casConfiguration;
         this.awsConfiguration = awsConfiguration;
         this.zkConnection = zkConnection;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.eventBus = eventBus;
         this.httpConfiguration = httpConfiguration;
 
         String nameFormat = "ServiceRegistryManager-%d";
@@ -103,22 +124,29 @@ public class ServiceRegistryManager implements Managed {
         zkRegistry = new ZooKeeperServiceRegistry(zkConnection.get());
 
         // Ping Cassandra every few seconds and register/deregister Cassandra when the thrift API is available.
-        executor.scheduleWithFixedDelay(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    update();
-                } catch (Throwable t) {
-                    logger.error("Unable to update ZooKeeper registration: {}", t);
-                }
-            }
-        }, 5, 10, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(updateTask, 5, 10, TimeUnit.SECONDS);
+
+        // Re-check right away when JMX connectivity changes instead of waiting for the next ping.
+        eventBus.register(this);
+    }
+
+    @Subscribe
+    public void onCassandraEvent(CassandraEvent event) {
+        String type = event.getType();
+        if (CassandraEvent.JMX_CONNECTED.equals(type) || CassandraEvent.JMX_DISCONNECTED.equals(type)) {
+            executor.execute(updateTask);
+        }
     }
 
     private synchronized void update() {
         boolean alive;
         try {
-            alive = JMXNodeTool.instance(casConfiguration).isThriftServerRunning();
+            alive = jmxConnectionPool.execute(new JMXCallable<Boolean>() {
+                @Override
+                public Boolean call(JMXNodeTool nodeTool) throws Exception {
+                    return nodeTool.isThriftServerRunning();
+                }
+            });
         } catch (Exception e) {
             logger.info("Unable to use JMX to determine Cassandra thrift server status.", e);
             alive = false;
@@ -144,6 +172,9 @@ public class ServiceRegistryManager implements Managed {
 
     @Override
     public synchronized void stop() throws Exception {
+        if (zkRegistry != null) {
+            eventBus.unregister(this);
+        }
         executor.shutdown();
         try {
             executor.awaitTermination(5, TimeUnit.SECONDS);
@@ -0,0 +1,77 @@
+package com.netflix.priam.events;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.base.Objects;
+
+/**
+ * A notification from Cassandra's JMX interface, or a change in Priam's own JMX subscription, as published on the
+ * {@link CassandraEventBus}.
+ */
+@JsonPropertyOrder({"sequence", "timestamp", "source", "type", "message", "userData"})
+public class CassandraEvent {
+    /** Published by Priam when its notification subscription is (re-)established. */
+    public static final String JMX_CONNECTED = "priam.jmx.connected";
+
+    /** Published by Priam when its notification subscription is lost, eg. because Cassandra stopped. */
+    public static final String JMX_DISCONNECTED = "priam.jmx.disconnected";
+
+    /** Type used by Cassandra's StorageService for repair session progress. */
+    public static final String REPAIR = "repair";
+
+    private final long sequence;
+    private final long timestamp;
+    private final String source;
+    private final String type;
+    private final String message;
+    private final Object userData;
+
+    public CassandraEvent(long sequence, long timestamp, String source, String type, String message, Object userData) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.source = source;
+        this.type = type;
+        this.message = message;
+        this.userData = userData;
+    }
+
+    @JsonProperty
+    public long getSequence() {
+        return sequence;
+    }
+
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public String getSource() {
+        return source;
+    }
+
+    @JsonProperty
+    public String getType() {
+        return type;
+    }
+
+    @JsonProperty
+    public String getMessage() {
+        return message;
+    }
+
+    @JsonProperty
+    public Object getUserData() {
+        return userData;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("sequence", sequence)
+                .add("source", source)
+                .add("type", type)
+                .add("message", message)
+                .toString();
+    }
+}
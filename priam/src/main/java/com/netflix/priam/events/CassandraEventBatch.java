@@ -0,0 +1,39 @@
+package com.netflix.priam.events;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * The result of a long-poll against the {@link CassandraEventBus}.  Clients pass {@link #getNext()} as the cursor of
+ * their next poll.  If {@link #isMissed()} is true, events between the previous cursor and the first returned event
+ * were evicted from the history before they could be delivered.
+ */
+@JsonPropertyOrder({"next", "missed", "events"})
+public class CassandraEventBatch {
+    private final List<CassandraEvent> events;
+    private final long next;
+    private final boolean missed;
+
+    public CassandraEventBatch(List<CassandraEvent> events, long next, boolean missed) {
+        this.events = events;
+        this.next = next;
+        this.missed = missed;
+    }
+
+    @JsonProperty
+    public List<CassandraEvent> getEvents() {
+        return events;
+    }
+
+    @JsonProperty
+    public long getNext() {
+        return next;
+    }
+
+    @JsonProperty
+    public boolean isMissed() {
+        return missed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.netflix.priam.events;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.EventsConfiguration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Delivers {@link CassandraEvent}s to in-process subscribers and retains a bounded history for long-polling clients.
+ * <p/>
+ * In-process subscribers register an object with {@link com.google.common.eventbus.Subscribe} methods.  Events are
+ * dispatched on a dedicated thread so a slow subscriber never stalls the JMX notification thread.
+ */
+@Singleton
+public class CassandraEventBus {
+    private final EventBus eventBus;
+    private final int historySize;
+    private final Deque<CassandraEvent> history = new ArrayDeque<>();
+    private long lastSequence;
+
+    @Inject
+    public CassandraEventBus(EventsConfiguration eventsConfiguration) {
+        String nameFormat = "CassandraEventBus-%d";
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+        eventBus = new AsyncEventBus("cassandra", Executors.newSingleThreadExecutor(threadFactory));
+        historySize = Math.max(1, eventsConfiguration.getHistorySize());
+    }
+
+    public void register(Object subscriber) {
+        eventBus.register(subscriber);
+    }
+
+    public void unregister(Object subscriber) {
+        eventBus.unregister(subscriber);
+    }
+
+    public CassandraEvent publish(String source, String type, String message, Object userData) {
+        CassandraEvent event;
+        synchronized (this) {
+            event = new CassandraEvent(++lastSequence, System.currentTimeMillis(), source, type, message, userData);
+            if (history.size() == historySize) {
+                history.removeFirst();
+            }
+            history.addLast(event);
+            notifyAll();
+        }
+        eventBus.post(event);
+        return event;
+    }
+
+    /**
+     * Returns the retained events with a sequence number greater than {@code since}, waiting up to
+     * {@code timeoutMillis} for one to be published if there are none yet.  A cursor from before a Priam restart is
+     * ahead of the current sequence, in which case the whole history is returned so the client can resynchronize.
+     */
+    public synchronized CassandraEventBatch poll(long since, long timeoutMillis) throws InterruptedException {
+        if (since > lastSequence) {
+            since = 0;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastSequence <= since) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return new CassandraEventBatch(ImmutableList.<CassandraEvent>of(), lastSequence, false);
+            }
+            wait(remaining);
+        }
+
+        ImmutableList.Builder<CassandraEvent> events = ImmutableList.builder();
+        for (CassandraEvent event : history) {
+            if (event.getSequence() > since) {
+                events.add(event);
+            }
+        }
+        boolean missed = history.getFirst().getSequence() > since + 1;
+        return new CassandraEventBatch(events.build(), lastSequence, missed);
+    }
+
+    public synchronized List<CassandraEvent> getHistory() {
+        return ImmutableList.copyOf(history);
+    }
+}
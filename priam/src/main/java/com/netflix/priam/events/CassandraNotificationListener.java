@@ -0,0 +1,164 @@
+package com.netflix.priam.events;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.EventsConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscribes to JMX notifications from Cassandra and republishes them on the {@link CassandraEventBus}.
+ * <p/>
+ * Notification subscriptions are tied to a JMX connection, so this uses its own connection rather than one from the
+ * {@link com.netflix.priam.utils.JMXConnectionPool}.  The connection is checked on the pool's health check interval
+ * and the subscriptions are re-established after Cassandra restarts.  Cassandra 1.2 only emits notifications from
+ * the StorageService (repair progress), other configured sources are skipped if they don't emit notifications.
+ */
+@Singleton
+public class CassandraNotificationListener implements Managed, NotificationListener {
+    private static final Logger logger = LoggerFactory.getLogger(CassandraNotificationListener.class);
+
+    private final CassandraConfiguration cassandraConfiguration;
+    private final JMXConfiguration jmxConfiguration;
+    private final EventsConfiguration eventsConfiguration;
+    private final CassandraEventBus eventBus;
+    private final ScheduledExecutorService executor;
+    private JMXNodeTool nodeTool;
+
+    @Inject
+    public CassandraNotificationListener(CassandraConfiguration cassandraConfiguration, JMXConfiguration jmxConfiguration,
+                                         EventsConfiguration eventsConfiguration, CassandraEventBus eventBus) {
+        this.cassandraConfiguration = cassandraConfiguration;
+        this.jmxConfiguration = jmxConfiguration;
+        this.eventsConfiguration = eventsConfiguration;
+        this.eventBus = eventBus;
+
+        String nameFormat = "CassandraNotificationListener-%d";
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!eventsConfiguration.isEnabled()) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    check();
+                } catch (Throwable t) {
+                    logger.error("Unable to check the JMX notification subscription: {}", t);
+                }
+            }
+        }, 0, jmxConfiguration.getHealthCheckIntervalMS(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+        disconnect();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        eventBus.publish(String.valueOf(notification.getSource()), notification.getType(),
+                notification.getMessage(), toJsonValue(notification.getUserData()));
+    }
+
+    private void check() {
+        if (nodeTool != null) {
+            try {
+                nodeTool.isInitialized();
+                return;
+            } catch (Throwable t) {
+                logger.info("Lost the JMX notification subscription: {}", t.toString());
+                disconnect();
+                eventBus.publish(null, CassandraEvent.JMX_DISCONNECTED, t.toString(), null);
+            }
+        }
+        connect();
+    }
+
+    private void connect() {
+        try {
+            nodeTool = new JMXNodeTool("localhost", cassandraConfiguration.getJmxPort());
+        } catch (Exception e) {
+            logger.debug("Unable to connect to JMX for notifications: {}", e.toString());
+            return;
+        }
+        List<String> subscribed = Lists.newArrayList();
+        try {
+            for (String source : eventsConfiguration.getNotificationSources()) {
+                if (nodeTool.addNotificationListener(new ObjectName(source), this)) {
+                    subscribed.add(source);
+                } else {
+                    logger.debug("MBean {} doesn't emit notifications, skipping", source);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to subscribe to JMX notifications: {}", e.toString());
+            disconnect();
+            return;
+        }
+        logger.info("Subscribed to JMX notifications from {}", subscribed);
+        eventBus.publish(null, CassandraEvent.JMX_CONNECTED, "Subscribed to " + subscribed, null);
+    }
+
+    private void disconnect() {
+        JMXNodeTool current = nodeTool;
+        nodeTool = null;
+        if (current != null) {
+            try {
+                Closeables.close(current, true);
+            } catch (IOException e) {
+                // Can't happen, swallowIOException is true
+            }
+        }
+    }
+
+    /**
+     * Cassandra attaches arbitrary objects to notifications (eg. {@code int[]} for repair status), convert the common
+     * ones to something Jackson serializes sensibly.
+     */
+    private static Object toJsonValue(Object userData) {
+        if (userData == null || userData instanceof String || userData instanceof Number ||
+                userData instanceof Boolean || userData instanceof Map) {
+            return userData;
+        } else if (userData instanceof int[]) {
+            return Ints.asList((int[]) userData);
+        } else if (userData instanceof long[]) {
+            return Longs.asList((long[]) userData);
+        } else if (userData instanceof Object[]) {
+            return Arrays.asList((Object[]) userData);
+        }
+        return userData.toString();
+    }
+}
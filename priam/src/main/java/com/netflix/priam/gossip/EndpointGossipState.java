@@ -0,0 +1,111 @@
+package com.netflix.priam.gossip;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * What gossip knows about one endpoint, as {@code nodetool gossipinfo} prints it.
+ */
+@JsonPropertyOrder({"endpoint", "generation", "heartbeat", "status", "load", "schema", "dc", "rack", "releaseVersion",
+        "applicationStates"})
+public class EndpointGossipState {
+    public static final String STATUS = "STATUS";
+    public static final String LOAD = "LOAD";
+    public static final String SCHEMA = "SCHEMA";
+    public static final String DC = "DC";
+    public static final String RACK = "RACK";
+    public static final String RELEASE_VERSION = "RELEASE_VERSION";
+
+    private final String endpoint;
+    private final int generation;
+    private final int heartbeat;
+    private final Map<String, String> applicationStates;
+
+    public EndpointGossipState(String endpoint, int generation, int heartbeat, Map<String, String> applicationStates) {
+        this.endpoint = endpoint;
+        this.generation = generation;
+        this.heartbeat = heartbeat;
+        this.applicationStates = ImmutableMap.copyOf(applicationStates);
+    }
+
+    @JsonProperty
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * The time the node last started, in seconds since the epoch.  A new generation means the node restarted.
+     */
+    @JsonProperty
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Advances about once a second while the node is gossiping.
+     */
+    @JsonProperty
+    public int getHeartbeat() {
+        return heartbeat;
+    }
+
+    /**
+     * The status without its tokens, eg. NORMAL, LEAVING or removed.
+     */
+    @JsonProperty
+    public String getStatus() {
+        String status = applicationStates.get(STATUS);
+        if (status == null) {
+            return null;
+        }
+        int comma = status.indexOf(',');
+        return comma >= 0 ? status.substring(0, comma) : status;
+    }
+
+    @JsonProperty
+    public Double getLoad() {
+        String load = applicationStates.get(LOAD);
+        try {
+            return load != null ? Double.valueOf(load) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @JsonProperty
+    public String getSchema() {
+        return applicationStates.get(SCHEMA);
+    }
+
+    @JsonProperty("dc")
+    public String getDataCenter() {
+        return applicationStates.get(DC);
+    }
+
+    @JsonProperty
+    public String getRack() {
+        return applicationStates.get(RACK);
+    }
+
+    @JsonProperty
+    public String getReleaseVersion() {
+        return applicationStates.get(RELEASE_VERSION);
+    }
+
+    /**
+     * Every application state as gossiped, including the ones with typed getters.
+     */
+    @JsonProperty
+    public Map<String, String> getApplicationStates() {
+        return applicationStates;
+    }
+
+    @JsonIgnore
+    public String getApplicationState(String name) {
+        return applicationStates.get(name);
+    }
+}
@@ -0,0 +1,59 @@
+package com.netflix.priam.gossip;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * One change to an endpoint's gossip state between two polls of the {@link GossipMonitor}.
+ */
+@JsonPropertyOrder({"timestamp", "endpoint", "field", "previous", "current"})
+public class GossipChange {
+    /** The endpoint joined or left gossip.  The values are "present" or null. */
+    public static final String ENDPOINT = "endpoint";
+    /** The node restarted. */
+    public static final String GENERATION = "generation";
+    /** The failure detector marked the node UP or DOWN. */
+    public static final String LIVENESS = "liveness";
+
+    private final long timestamp;
+    private final String endpoint;
+    private final String field;
+    private final String previous;
+    private final String current;
+
+    public GossipChange(long timestamp, String endpoint, String field, String previous, String current) {
+        this.timestamp = timestamp;
+        this.endpoint = endpoint;
+        this.field = field;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * {@link #ENDPOINT}, {@link #GENERATION}, {@link #LIVENESS} or the name of an application state such as STATUS.
+     */
+    @JsonProperty
+    public String getField() {
+        return field;
+    }
+
+    @JsonProperty
+    public String getPrevious() {
+        return previous;
+    }
+
+    @JsonProperty
+    public String getCurrent() {
+        return current;
+    }
+}
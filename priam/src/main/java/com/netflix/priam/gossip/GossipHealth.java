@@ -0,0 +1,126 @@
+package com.netflix.priam.gossip;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signs of trouble in the ring that gossip shows before clients do: nodes that keep going down or restarting,
+ * heartbeats that stopped advancing, and live nodes that disagree on the schema.
+ */
+@JsonPropertyOrder({"timestamp", "flapping", "stalledHeartbeats", "schemaAgreement", "schemaVersions"})
+public class GossipHealth {
+    private final long timestamp;
+    private final List<FlappingEndpoint> flapping;
+    private final List<StalledEndpoint> stalledHeartbeats;
+    private final Map<String, List<String>> schemaVersions;
+
+    public GossipHealth(long timestamp, List<FlappingEndpoint> flapping, List<StalledEndpoint> stalledHeartbeats,
+                        Map<String, List<String>> schemaVersions) {
+        this.timestamp = timestamp;
+        this.flapping = ImmutableList.copyOf(flapping);
+        this.stalledHeartbeats = ImmutableList.copyOf(stalledHeartbeats);
+        this.schemaVersions = ImmutableMap.copyOf(schemaVersions);
+    }
+
+    /**
+     * When the gossip state this is based on was read.
+     */
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public List<FlappingEndpoint> getFlapping() {
+        return flapping;
+    }
+
+    @JsonProperty
+    public List<StalledEndpoint> getStalledHeartbeats() {
+        return stalledHeartbeats;
+    }
+
+    @JsonProperty
+    public boolean isSchemaAgreement() {
+        return schemaVersions.size() <= 1;
+    }
+
+    /**
+     * The live endpoints on each schema version.
+     */
+    @JsonProperty
+    public Map<String, List<String>> getSchemaVersions() {
+        return schemaVersions;
+    }
+
+    @JsonPropertyOrder({"endpoint", "transitions"})
+    public static class FlappingEndpoint {
+        private final String endpoint;
+        private final int transitions;
+
+        public FlappingEndpoint(String endpoint, int transitions) {
+            this.endpoint = endpoint;
+            this.transitions = transitions;
+        }
+
+        @JsonProperty
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Liveness changes and restarts within the flap window.
+         */
+        @JsonProperty
+        public int getTransitions() {
+            return transitions;
+        }
+    }
+
+    @JsonPropertyOrder({"endpoint", "heartbeat", "stalledMs", "up"})
+    public static class StalledEndpoint {
+        private final String endpoint;
+        private final int heartbeat;
+        private final long stalledMillis;
+        private final boolean up;
+
+        public StalledEndpoint(String endpoint, int heartbeat, long stalledMillis, boolean up) {
+            this.endpoint = endpoint;
+            this.heartbeat = heartbeat;
+            this.stalledMillis = stalledMillis;
+            this.up = up;
+        }
+
+        @JsonProperty
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        @JsonProperty
+        public int getHeartbeat() {
+            return heartbeat;
+        }
+
+        /**
+         * How long ago the heartbeat last advanced, as far as this node has seen.
+         */
+        @JsonProperty("stalledMs")
+        public long getStalledMillis() {
+            return stalledMillis;
+        }
+
+        /**
+         * A stalled node that is still marked up is the interesting case: it is about to be marked down, or gossip on
+         * this node is behind.
+         */
+        @JsonProperty
+        public boolean isUp() {
+            return up;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.netflix.priam.gossip;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the output of FailureDetector.getAllEndpointStates, which is an endpoint line followed by indented
+ * {@code name:value} lines:
+ * <pre>
+ * /10.0.0.1
+ *   generation:1400000000
+ *   heartbeat:1234
+ *   SCHEMA:59adb24e-f3cd-3e02-97f0-5b395827453f
+ * </pre>
+ * Only the first colon of a line separates the name from the value, so values that contain colons, such as IPv6
+ * addresses, come through whole.
+ */
+public class GossipInfoParser {
+    private static final Logger logger = LoggerFactory.getLogger(GossipInfoParser.class);
+
+    private static final String GENERATION = "generation";
+    private static final String HEARTBEAT = "heartbeat";
+
+    private GossipInfoParser() {
+    }
+
+    public static List<EndpointGossipState> parse(String gossipInfo) {
+        List<EndpointGossipState> states = Lists.newArrayList();
+        String endpoint = null;
+        int generation = 0;
+        int heartbeat = 0;
+        Map<String, String> applicationStates = Maps.newLinkedHashMap();
+        for (String line : gossipInfo.split("\n")) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (endpoint != null) {
+                    states.add(new EndpointGossipState(endpoint, generation, heartbeat, applicationStates));
+                }
+                endpoint = endpoint(line.trim());
+                generation = 0;
+                heartbeat = 0;
+                applicationStates = Maps.newLinkedHashMap();
+                continue;
+            }
+
+            String trimmed = line.trim();
+            int colon = trimmed.indexOf(':');
+            if (endpoint == null || colon < 0) {
+                logger.debug("Skipping unexpected gossip info line: {}", line);
+                continue;
+            }
+            String name = trimmed.substring(0, colon);
+            String value = trimmed.substring(colon + 1);
+            if (GENERATION.equals(name)) {
+                generation = parseInt(value);
+            } else if (HEARTBEAT.equals(name)) {
+                heartbeat = parseInt(value);
+            } else {
+                applicationStates.put(name, value);
+            }
+        }
+        if (endpoint != null) {
+            states.add(new EndpointGossipState(endpoint, generation, heartbeat, applicationStates));
+        }
+        return states;
+    }
+
+    /**
+     * InetAddress.toString() gives {@code hostname/address}, with an empty hostname when it isn't resolved.
+     */
+    private static String endpoint(String line) {
+        int slash = line.indexOf('/');
+        return slash >= 0 ? line.substring(slash + 1) : line;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.netflix.priam.gossip;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.GossipConfiguration;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the gossip state of every endpoint and keeps a bounded history of what changed between polls.
+ * <p/>
+ * Only changes worth knowing about are kept: endpoints joining and leaving, restarts, liveness, and the STATUS, SCHEMA,
+ * RELEASE_VERSION, DC and RACK states.  Heartbeats and load change on every poll, so only the time each heartbeat last
+ * advanced is tracked.
+ */
+@Singleton
+public class GossipMonitor implements Managed {
+    private static final Logger logger = LoggerFactory.getLogger(GossipMonitor.class);
+
+    private static final List<String> TRACKED_STATES = ImmutableList.of(EndpointGossipState.STATUS,
+            EndpointGossipState.SCHEMA, EndpointGossipState.RELEASE_VERSION, EndpointGossipState.DC,
+            EndpointGossipState.RACK);
+
+    private final GossipConfiguration gossipConfiguration;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this
+    private final Map<String, TrackedEndpoint> endpoints = Maps.newLinkedHashMap();
+    private final Deque<GossipChange> history = new ArrayDeque<>();
+    private long sampledAt;
+
+    @Inject
+    public GossipMonitor(GossipConfiguration gossipConfiguration, JMXConnectionPool jmxConnectionPool) {
+        this.gossipConfiguration = gossipConfiguration;
+        this.jmxConnectionPool = jmxConnectionPool;
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("GossipMonitor-%d").setDaemon(true).build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!gossipConfiguration.isMonitorEnabled()) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    poll();
+                } catch (Throwable t) {
+                    // Heartbeats will show as stalled if this goes on
+                    logger.debug("Unable to read gossip info: {}", t.toString());
+                }
+            }
+        }, 0, gossipConfiguration.getPollIntervalMS(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Returns the gossip state of every endpoint, read live when the last poll is older than {@code maxStalenessMillis}
+     * (or two poll intervals when that is null).
+     */
+    public List<EndpointGossipState> getStates(Long maxStalenessMillis) throws Exception {
+        long maxStaleness = maxStalenessMillis != null ? maxStalenessMillis : 2 * gossipConfiguration.getPollIntervalMS();
+        synchronized (this) {
+            if (sampledAt > 0 && System.currentTimeMillis() - sampledAt <= maxStaleness) {
+                return currentStates();
+            }
+        }
+        poll();
+        synchronized (this) {
+            return currentStates();
+        }
+    }
+
+    /**
+     * Returns the recorded changes, newest first, optionally only those of one endpoint or since a time.
+     */
+    public synchronized List<GossipChange> getChanges(String endpoint, long sinceMillis) {
+        List<GossipChange> changes = Lists.newArrayList();
+        for (Iterator<GossipChange> iterator = history.descendingIterator(); iterator.hasNext(); ) {
+            GossipChange change = iterator.next();
+            if (change.getTimestamp() < sinceMillis) {
+                break;
+            }
+            if (endpoint == null || endpoint.equals(change.getEndpoint())) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    public GossipHealth getHealth() throws Exception {
+        getStates(null);
+        return getHealth(System.currentTimeMillis());
+    }
+
+    synchronized GossipHealth getHealth(long now) {
+        Map<String, Integer> transitions = Maps.newTreeMap();
+        for (GossipChange change : history) {
+            if (now - change.getTimestamp() > gossipConfiguration.getFlapWindowMS()) {
+                continue;
+            }
+            if (GossipChange.LIVENESS.equals(change.getField()) || GossipChange.GENERATION.equals(change.getField())) {
+                Integer count = transitions.get(change.getEndpoint());
+                transitions.put(change.getEndpoint(), count != null ? count + 1 : 1);
+            }
+        }
+        List<GossipHealth.FlappingEndpoint> flapping = Lists.newArrayList();
+        for (Map.Entry<String, Integer> entry : transitions.entrySet()) {
+            if (entry.getValue() >= gossipConfiguration.getFlapThreshold()) {
+                flapping.add(new GossipHealth.FlappingEndpoint(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<GossipHealth.StalledEndpoint> stalled = Lists.newArrayList();
+        Map<String, List<String>> schemaVersions = Maps.newTreeMap();
+        for (TrackedEndpoint tracked : endpoints.values()) {
+            String endpoint = tracked.state.getEndpoint();
+            long stalledMillis = sampledAt - tracked.heartbeatAdvancedAt;
+            if (stalledMillis >= gossipConfiguration.getHeartbeatStallMS()) {
+                stalled.add(new GossipHealth.StalledEndpoint(endpoint, tracked.state.getHeartbeat(), stalledMillis, tracked.up));
+            }
+            String schema = tracked.state.getSchema();
+            if (tracked.up && schema != null) {
+                if (!schemaVersions.containsKey(schema)) {
+                    schemaVersions.put(schema, Lists.<String>newArrayList());
+                }
+                schemaVersions.get(schema).add(endpoint);
+            }
+        }
+        return new GossipHealth(sampledAt, flapping, stalled, schemaVersions);
+    }
+
+    void poll() throws Exception {
+        final List<EndpointGossipState> states = Lists.newArrayList();
+        final Set<String> unreachable = Sets.newHashSet();
+        jmxConnectionPool.execute(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodeTool) throws Exception {
+                states.addAll(GossipInfoParser.parse(nodeTool.getGossipInfo()));
+                unreachable.addAll(nodeTool.getUnreachableNodes());
+                return null;
+            }
+        });
+        update(states, unreachable, System.currentTimeMillis());
+    }
+
+    /**
+     * Records what changed since the previous poll.  The first poll only establishes the baseline.
+     */
+    synchronized void update(List<EndpointGossipState> states, Collection<String> unreachable, long now) {
+        boolean baseline = sampledAt == 0;
+        Set<String> seen = Sets.newHashSet();
+        for (EndpointGossipState state : states) {
+            String endpoint = state.getEndpoint();
+            seen.add(endpoint);
+            boolean up = !unreachable.contains(endpoint);
+            TrackedEndpoint previous = endpoints.get(endpoint);
+            if (previous == null) {
+                if (!baseline) {
+                    record(new GossipChange(now, endpoint, GossipChange.ENDPOINT, null, "present"));
+                }
+                endpoints.put(endpoint, new TrackedEndpoint(state, up, now));
+                continue;
+            }
+
+            if (state.getGeneration() != previous.state.getGeneration()) {
+                record(new GossipChange(now, endpoint, GossipChange.GENERATION,
+                        Integer.toString(previous.state.getGeneration()), Integer.toString(state.getGeneration())));
+            }
+            if (up != previous.up) {
+                record(new GossipChange(now, endpoint, GossipChange.LIVENESS, liveness(previous.up), liveness(up)));
+            }
+            for (String name : TRACKED_STATES) {
+                String before = previous.state.getApplicationState(name);
+                String after = state.getApplicationState(name);
+                if (!Objects.equal(before, after)) {
+                    record(new GossipChange(now, endpoint, name, before, after));
+                }
+            }
+
+            boolean advanced = state.getGeneration() != previous.state.getGeneration()
+                    || state.getHeartbeat() > previous.state.getHeartbeat();
+            endpoints.put(endpoint, new TrackedEndpoint(state, up, advanced ? now : previous.heartbeatAdvancedAt));
+        }
+
+        for (Iterator<String> iterator = endpoints.keySet().iterator(); iterator.hasNext(); ) {
+            String endpoint = iterator.next();
+            if (!seen.contains(endpoint)) {
+                iterator.remove();
+                record(new GossipChange(now, endpoint, GossipChange.ENDPOINT, "present", null));
+            }
+        }
+        sampledAt = now;
+    }
+
+    private List<EndpointGossipState> currentStates() {
+        List<EndpointGossipState> states = Lists.newArrayListWithCapacity(endpoints.size());
+        for (TrackedEndpoint tracked : endpoints.values()) {
+            states.add(tracked.state);
+        }
+        return states;
+    }
+
+    private void record(GossipChange change) {
+        logger.info("Gossip {} of {} changed from {} to {}", change.getField(), change.getEndpoint(),
+                change.getPrevious(), change.getCurrent());
+        history.addLast(change);
+        while (history.size() > Math.max(0, gossipConfiguration.getHistorySize())) {
+            history.removeFirst();
+        }
+    }
+
+    private static String liveness(boolean up) {
+        return up ? "UP" : "DOWN";
+    }
+
+    private static class TrackedEndpoint {
+        private final EndpointGossipState state;
+        private final boolean up;
+        private final long heartbeatAdvancedAt;
+
+        TrackedEndpoint(EndpointGossipState state, boolean up, long heartbeatAdvancedAt) {
+            this.state = state;
+            this.up = up;
+            this.heartbeatAdvancedAt = heartbeatAdvancedAt;
+        }
+    }
+}
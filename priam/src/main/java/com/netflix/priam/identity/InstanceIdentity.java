@@ -21,6 +21,8 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.priam.config.AmazonConfiguration;
 import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.netflix.priam.utils.JMXNodeTool;
 import com.netflix.priam.utils.RetryableCallable;
 import com.netflix.priam.utils.Sleeper;
@@ -48,6 +50,7 @@ public class InstanceIdentity {
     private final AmazonConfiguration amazonConfiguration;
     private final TokenManager tokenManager;
     private final Sleeper sleeper;
+    private final JMXConnectionPool jmxConnectionPool;
 
     private PriamInstance myInstance;
     private boolean isReplace = false;
@@ -55,13 +58,15 @@ public class InstanceIdentity {
 
     @Inject
     public InstanceIdentity(CassandraConfiguration cassandraConfiguration, AmazonConfiguration amazonConfiguration,
-                            IPriamInstanceRegistry instanceRegistry, IMembership membership, TokenManager tokenManager, Sleeper sleeper) throws Exception {
+                            IPriamInstanceRegistry instanceRegistry, IMembership membership, TokenManager tokenManager, Sleeper sleeper,
+                            JMXConnectionPool jmxConnectionPool) throws Exception {
         this.instanceRegistry = instanceRegistry;
         this.membership = membership;
         this.cassandraConfiguration = cassandraConfiguration;
         this.amazonConfiguration = amazonConfiguration;
         this.tokenManager = tokenManager;
         this.sleeper = sleeper;
+        this.jmxConnectionPool = jmxConnectionPool;
         init();
     }
 
@@ -259,8 +264,13 @@ public class InstanceIdentity {
      * replacement assigns the old token from SimpleDB.
      */
     public void updateToken() throws Exception {
-        JMXNodeTool nodetool = JMXNodeTool.instance(cassandraConfiguration);
-        myInstance.setToken(tokenManager.sanitizeToken(nodetool.getTokens().get(0)));
+        String token = jmxConnectionPool.execute(new JMXCallable<String>() {
+            @Override
+            public String call(JMXNodeTool nodeTool) throws Exception {
+                return nodeTool.getTokens().get(0);
+            }
+        });
+        myInstance.setToken(tokenManager.sanitizeToken(token));
         instanceRegistry.update(myInstance);
     }
 }
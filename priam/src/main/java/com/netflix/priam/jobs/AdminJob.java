@@ -0,0 +1,222 @@
+package com.netflix.priam.jobs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-running maintenance operation submitted to the {@link JobManager}.  The job serializes as its current status,
+ * so clients poll it by ID instead of holding an HTTP connection for the length of the operation.
+ */
+@JsonPropertyOrder({"id", "type", "parameters", "priority", "state", "submittedAt", "startedAt", "finishedAt", "completedSteps",
+        "totalSteps", "currentSteps", "error"})
+public class AdminJob {
+    public static enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final long id;
+    private final JobDefinition definition;
+    private final Priority priority;
+    private final long submittedAt;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicInteger completedSteps = new AtomicInteger();
+    private final Set<String> currentSteps = Sets.newLinkedHashSet();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int totalSteps;
+    private volatile Throwable failure;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+    private AdmissionController.Ticket ticket;
+
+    AdminJob(long id, JobDefinition definition, Priority priority) {
+        this.id = id;
+        this.definition = definition;
+        this.priority = priority;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    @JsonProperty
+    public long getId() {
+        return id;
+    }
+
+    @JsonProperty
+    public JobType getType() {
+        return definition.getType();
+    }
+
+    @JsonProperty
+    public Map<String, String> getParameters() {
+        return definition.getParameters();
+    }
+
+    @JsonProperty
+    public Priority getPriority() {
+        return priority;
+    }
+
+    @JsonProperty
+    public State getState() {
+        return state;
+    }
+
+    @JsonProperty
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    @JsonProperty
+    public Long getStartedAt() {
+        return startedAt != 0 ? startedAt : null;
+    }
+
+    @JsonProperty
+    public Long getFinishedAt() {
+        return finishedAt != 0 ? finishedAt : null;
+    }
+
+    @JsonProperty
+    public int getCompletedSteps() {
+        return completedSteps.get();
+    }
+
+    /**
+     * The number of steps, known once the job has started.
+     */
+    @JsonProperty
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * The steps in progress, more than one if the job runs steps in parallel.
+     */
+    @JsonProperty
+    public List<String> getCurrentSteps() {
+        synchronized (currentSteps) {
+            return ImmutableList.copyOf(currentSteps);
+        }
+    }
+
+    @JsonProperty
+    public String getError() {
+        return failure != null ? failure.toString() : null;
+    }
+
+    @JsonIgnore
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @JsonIgnore
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Blocks until the job finishes, for the legacy endpoints that reply only once the operation is done.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    @JsonIgnore
+    JobDefinition getDefinition() {
+        return definition;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Hands the job the admission ticket it runs under.  Returns false, releasing the ticket, if the job was cancelled
+     * in the meantime.
+     */
+    synchronized boolean admitted(AdmissionController.Ticket ticket) {
+        if (state.isFinished()) {
+            ticket.close();
+            return false;
+        }
+        this.ticket = ticket;
+        return true;
+    }
+
+    synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    void planned(int steps) {
+        totalSteps = steps;
+    }
+
+    void stepStarted(String step) {
+        synchronized (currentSteps) {
+            currentSteps.add(step);
+        }
+    }
+
+    void stepFinished(String step, boolean completed) {
+        synchronized (currentSteps) {
+            currentSteps.remove(step);
+        }
+        if (completed) {
+            completedSteps.incrementAndGet();
+        }
+    }
+
+    /**
+     * Flags the job for cancellation and interrupts its thread.  Returns true if the job was still running, in which
+     * case the operation in Cassandra should be stopped too.
+     */
+    synchronized boolean cancel() {
+        if (state.isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (future != null) {
+            future.cancel(true);
+        }
+        if (state == State.QUEUED) {
+            finish(State.CANCELLED, null);
+            return false;
+        }
+        return true;
+    }
+
+    synchronized void finish(State finalState, Throwable cause) {
+        if (state.isFinished()) {
+            return;
+        }
+        state = finalState;
+        failure = cause;
+        finishedAt = System.currentTimeMillis();
+        if (ticket != null) {
+            ticket.close();
+        }
+        finished.countDown();
+    }
+}
@@ -0,0 +1,323 @@
+package com.netflix.priam.jobs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.AdmissionConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Limits how many heavyweight maintenance operations run on the node at once, per {@link ResourceClass} and in total,
+ * so a repair, a cleanup and a compaction can't all load the disks at the same time.
+ * <p/>
+ * Operations either take a free slot right away or are rejected, naming what holds the slots, or they wait.  Waiting
+ * operations are let in by priority, then in arrival order.  A waiting operation never holds up one of a class that
+ * has room, unless the only thing missing is a slot of the total that it is ahead in line for.
+ * <p/>
+ * Operations wait either in a blocked thread, see {@link #acquire}, or without one, see {@link #enqueue}, in which
+ * case they are handed their ticket by whichever thread frees the slot.
+ */
+@Singleton
+public class AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private final AdmissionConfiguration configuration;
+
+    // Guarded by this
+    private final List<Ticket> running = Lists.newArrayList();
+    private final Set<Ticket> waiting = new TreeSet<>(new Comparator<Ticket>() {
+        @Override
+        public int compare(Ticket a, Ticket b) {
+            return ComparisonChain.start()
+                    .compare(b.priority, a.priority)
+                    .compare(a.sequence, b.sequence)
+                    .result();
+        }
+    });
+    private long nextSequence;
+
+    @Inject
+    public AdmissionController(AdmissionConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Takes a slot if one is free and nothing is waiting for it.
+     *
+     * @throws AdmissionRejectedException naming the operations holding the slots
+     */
+    public synchronized Ticket tryAcquire(ResourceClass resourceClass, String operation)
+            throws AdmissionRejectedException {
+        Ticket ticket = new Ticket(nextSequence++, resourceClass, operation, Priority.NORMAL);
+        if (!hasRoom(resourceClass) || !waitingFor(resourceClass).isEmpty()) {
+            throw new AdmissionRejectedException(resourceClass, blocking(resourceClass));
+        }
+        return admit(ticket);
+    }
+
+    /**
+     * Waits for a slot, behind operations of higher priority and those of the same priority that came first.
+     *
+     * @throws InterruptedException if interrupted while waiting, in which case no slot is held
+     */
+    public Ticket acquire(ResourceClass resourceClass, String operation, Priority priority)
+            throws InterruptedException {
+        try {
+            return awaitTurn(resourceClass, operation, priority);
+        } finally {
+            // The ticket may have been ahead of, or what held up, one that is enqueued
+            dispatch();
+        }
+    }
+
+    /**
+     * Queues for a slot like {@link #acquire}, but without holding a thread while waiting.  The returned future
+     * completes with the ticket once the operation is let in.  Cancelling the future gives up its place in line, and
+     * if it was let in concurrently the slot is released.
+     */
+    public ListenableFuture<Ticket> enqueue(ResourceClass resourceClass, String operation, Priority priority) {
+        final SettableFuture<Ticket> admission = SettableFuture.create();
+        final Ticket ticket;
+        synchronized (this) {
+            ticket = new Ticket(nextSequence++, resourceClass, operation, priority);
+            ticket.admission = admission;
+            waiting.add(ticket);
+        }
+        admission.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (admission.isCancelled()) {
+                    release(ticket);
+                }
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        dispatch();
+        return admission;
+    }
+
+    private synchronized Ticket awaitTurn(ResourceClass resourceClass, String operation, Priority priority)
+            throws InterruptedException {
+        Ticket ticket = new Ticket(nextSequence++, resourceClass, operation, priority);
+        waiting.add(ticket);
+        try {
+            while (!isNext(ticket)) {
+                logger.debug("{} waiting for {} behind {}", operation, resourceClass, blocking(resourceClass));
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            // The ticket may have been what held up the next one
+            notifyAll();
+            throw e;
+        }
+        waiting.remove(ticket);
+        // The ticket may have been ahead of one whose class has room
+        notifyAll();
+        return admit(ticket);
+    }
+
+    /**
+     * Lets in the enqueued operations whose turn it is.  Their futures are completed outside the lock, so what they
+     * go on to do can't hold up the controller.
+     */
+    private void dispatch() {
+        List<Ticket> admitted = Lists.newArrayList();
+        synchronized (this) {
+            Ticket next;
+            while ((next = nextEnqueued()) != null) {
+                waiting.remove(next);
+                admitted.add(admit(next));
+            }
+            if (!admitted.isEmpty()) {
+                // Threads waiting behind the admitted tickets may be next now
+                notifyAll();
+            }
+        }
+        for (Ticket ticket : admitted) {
+            if (!ticket.admission.set(ticket)) {
+                // Cancelled while being let in
+                ticket.close();
+            }
+        }
+    }
+
+    private Ticket nextEnqueued() {
+        for (Ticket ticket : waiting) {
+            if (ticket.admission != null && isNext(ticket)) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    public synchronized List<Ticket> getRunning() {
+        return ImmutableList.copyOf(running);
+    }
+
+    /**
+     * The waiting operations, in the order they will be let in as slots of their class free up.
+     */
+    public synchronized List<Ticket> getWaiting() {
+        return ImmutableList.copyOf(waiting);
+    }
+
+    private Ticket admit(Ticket ticket) {
+        ticket.admittedAt = System.currentTimeMillis();
+        running.add(ticket);
+        logger.info("{} admitted as {}", ticket.operation, ticket.resourceClass);
+        return ticket;
+    }
+
+    private void release(Ticket ticket) {
+        synchronized (this) {
+            if (running.remove(ticket)) {
+                logger.info("{} released {}", ticket.operation, ticket.resourceClass);
+            } else if (waiting.remove(ticket)) {
+                logger.info("{} gave up waiting for {}", ticket.operation, ticket.resourceClass);
+            } else {
+                return;
+            }
+            notifyAll();
+        }
+        dispatch();
+    }
+
+    /**
+     * Whether the ticket may go now: its class has room, and no ticket ahead of it could go instead.
+     */
+    private boolean isNext(Ticket ticket) {
+        if (!hasRoom(ticket.resourceClass)) {
+            return false;
+        }
+        for (Ticket ahead : waiting) {
+            if (ahead == ticket) {
+                return true;
+            }
+            if (hasRoom(ahead.resourceClass)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasRoom(ResourceClass resourceClass) {
+        return running.size() < configuration.getTotalLimit() && runningIn(resourceClass).size() < limit(resourceClass);
+    }
+
+    private int limit(ResourceClass resourceClass) {
+        switch (resourceClass) {
+            case COMPACTION:
+                return configuration.getCompactionLimit();
+            case STREAMING:
+                return configuration.getStreamingLimit();
+            default:
+                return configuration.getValidationLimit();
+        }
+    }
+
+    private List<Ticket> runningIn(ResourceClass resourceClass) {
+        List<Ticket> tickets = Lists.newArrayList();
+        for (Ticket ticket : running) {
+            if (ticket.resourceClass == resourceClass) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+
+    private List<Ticket> waitingFor(ResourceClass resourceClass) {
+        List<Ticket> tickets = Lists.newArrayList();
+        for (Ticket ticket : waiting) {
+            if (ticket.resourceClass == resourceClass) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * The operations keeping {@code resourceClass} from taking a slot: those of the class when the class is full,
+     * otherwise everything holding a slot of the total, followed by those waiting in line for the class.
+     */
+    private List<String> blocking(ResourceClass resourceClass) {
+        List<Ticket> tickets = runningIn(resourceClass);
+        if (tickets.size() < limit(resourceClass)) {
+            tickets = running;
+        }
+        List<String> operations = Lists.newArrayList();
+        for (Ticket ticket : tickets) {
+            operations.add(ticket.operation);
+        }
+        for (Ticket ticket : waitingFor(resourceClass)) {
+            operations.add(ticket.operation + " (waiting)");
+        }
+        return operations;
+    }
+
+    /**
+     * A slot held, or waited for, by one operation.  Closing it frees the slot, or gives up an enqueued operation's
+     * place in line.  Closing more than once is harmless.
+     */
+    @JsonPropertyOrder({"resourceClass", "operation", "priority", "requestedAt", "admittedAt"})
+    public class Ticket implements AutoCloseable {
+        private final long sequence;
+        private final ResourceClass resourceClass;
+        private final String operation;
+        private final Priority priority;
+        private final long requestedAt;
+        private volatile long admittedAt;
+        // Set if enqueued rather than waiting in a thread
+        private SettableFuture<Ticket> admission;
+
+        private Ticket(long sequence, ResourceClass resourceClass, String operation, Priority priority) {
+            this.sequence = sequence;
+            this.resourceClass = resourceClass;
+            this.operation = operation;
+            this.priority = priority;
+            this.requestedAt = System.currentTimeMillis();
+        }
+
+        @JsonProperty
+        public ResourceClass getResourceClass() {
+            return resourceClass;
+        }
+
+        @JsonProperty
+        public String getOperation() {
+            return operation;
+        }
+
+        @JsonProperty
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @JsonProperty
+        public long getRequestedAt() {
+            return requestedAt;
+        }
+
+        @JsonProperty
+        public Long getAdmittedAt() {
+            return admittedAt != 0 ? admittedAt : null;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.netflix.priam.jobs;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Thrown when an operation that may not wait can't be admitted right away.
+ */
+public class AdmissionRejectedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final ResourceClass resourceClass;
+    private final List<String> blocking;
+
+    public AdmissionRejectedException(ResourceClass resourceClass, List<String> blocking) {
+        super(resourceClass + " is busy with " + blocking);
+        this.resourceClass = resourceClass;
+        this.blocking = ImmutableList.copyOf(blocking);
+    }
+
+    public ResourceClass getResourceClass() {
+        return resourceClass;
+    }
+
+    /**
+     * The operations holding the slots the rejected operation needed.
+     */
+    public List<String> getBlocking() {
+        return blocking;
+    }
+}
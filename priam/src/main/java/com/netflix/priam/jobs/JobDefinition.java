@@ -0,0 +1,231 @@
+package com.netflix.priam.jobs;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.netflix.priam.utils.JMXNodeTool;
+import org.apache.commons.lang.StringUtils;
+
+import javax.management.ObjectName;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes what an {@link AdminJob} does.  The steps are planned against the live node when the job starts, so a job
+ * that sat in the queue still sees the keyspaces that exist when it runs.
+ */
+public abstract class JobDefinition {
+    private static final String LIVE_DISK_SPACE_USED = "LiveDiskSpaceUsed";
+
+    private final JobType type;
+    private final Map<String, String> parameters;
+    private final int parallelism;
+
+    protected JobDefinition(JobType type, Map<String, String> parameters) {
+        this(type, parameters, 1);
+    }
+
+    protected JobDefinition(JobType type, Map<String, String> parameters, int parallelism) {
+        this.type = type;
+        this.parameters = ImmutableMap.copyOf(parameters);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    /**
+     * The request parameters, reported with the job status.
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * The number of steps to run at once, as requested.  The {@link JobManager} may run fewer.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Lists the steps of the job.  Called once, as a short JMX call of its own, before the first step runs.
+     */
+    public abstract List<JobStep> plan(JMXNodeTool nodeTool) throws Exception;
+
+    public static JobDefinition flush(Optional<Collection<String>> keyspaces, Optional<Collection<String>> columnFamilies,
+                                      int parallelism) {
+        return perColumnFamily(JobType.FLUSH, keyspaces, columnFamilies, parallelism, false, new ColumnFamilyOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace, String columnFamily) throws Exception {
+                nodeTool.forceTableFlush(keyspace, columnFamily);
+            }
+        });
+    }
+
+    public static JobDefinition compact(Optional<Collection<String>> keyspaces, Optional<Collection<String>> columnFamilies,
+                                        int parallelism) {
+        return perColumnFamily(JobType.COMPACT, keyspaces, columnFamilies, parallelism, false, new ColumnFamilyOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace, String columnFamily) throws Exception {
+                nodeTool.forceTableCompaction(keyspace, columnFamily);
+            }
+        });
+    }
+
+    public static JobDefinition cleanup(Optional<Collection<String>> keyspaces, Optional<Collection<String>> columnFamilies,
+                                        int parallelism) {
+        // It is an error to attempt to cleanup the system keyspace
+        return perColumnFamily(JobType.CLEANUP, keyspaces, columnFamilies, parallelism, true, new ColumnFamilyOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace, String columnFamily) throws Exception {
+                nodeTool.forceTableCleanup(keyspace, columnFamily);
+            }
+        });
+    }
+
+    public static JobDefinition scrub(Optional<Collection<String>> keyspaces, final String... columnFamilies) {
+        Map<String, String> parameters = ImmutableMap.of(
+                "keyspaces", keyspaces.isPresent() ? StringUtils.join(keyspaces.get(), ",") : "",
+                "cfnames", StringUtils.join(columnFamilies, ","));
+        return perKeyspace(JobType.SCRUB, parameters, keyspaces, false, new KeyspaceOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace) throws Exception {
+                nodeTool.scrub(false, keyspace, columnFamilies);
+            }
+        });
+    }
+
+    public static JobDefinition upgradeSSTables(Optional<Collection<String>> keyspaces, final boolean excludeCurrentVersion,
+                                                final String... columnFamilies) {
+        Map<String, String> parameters = ImmutableMap.of(
+                "keyspaces", keyspaces.isPresent() ? StringUtils.join(keyspaces.get(), ",") : "",
+                "cfnames", StringUtils.join(columnFamilies, ","),
+                "excludeCurrentVersion", Boolean.toString(excludeCurrentVersion));
+        return perKeyspace(JobType.UPGRADESSTABLES, parameters, keyspaces, false, new KeyspaceOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace) throws Exception {
+                nodeTool.upgradeSSTables(keyspace, excludeCurrentVersion, columnFamilies);
+            }
+        });
+    }
+
+    public static JobDefinition repair(final boolean isSequential, final boolean localDataCenterOnly, final boolean primaryRange) {
+        Map<String, String> parameters = ImmutableMap.of(
+                "sequential", Boolean.toString(isSequential),
+                "localDC", Boolean.toString(localDataCenterOnly),
+                "primaryRange", Boolean.toString(primaryRange));
+        return perKeyspace(JobType.REPAIR, parameters, Optional.<Collection<String>>absent(), false, new KeyspaceOperation() {
+            @Override
+            public void run(JMXNodeTool nodeTool, String keyspace) throws Exception {
+                nodeTool.repair(keyspace, isSequential, localDataCenterOnly, primaryRange);
+            }
+        });
+    }
+
+    public static JobDefinition drain() {
+        return new JobDefinition(JobType.DRAIN, ImmutableMap.<String, String>of()) {
+            @Override
+            public List<JobStep> plan(JMXNodeTool nodeTool) {
+                return ImmutableList.<JobStep>of(new JobStep("drain") {
+                    @Override
+                    public Void call(JMXNodeTool nodetool) throws Exception {
+                        nodetool.drain();
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    private interface ColumnFamilyOperation {
+        void run(JMXNodeTool nodeTool, String keyspace, String columnFamily) throws Exception;
+    }
+
+    /**
+     * A job with one step per column family, limited to the given keyspaces and column families, largest first by
+     * live disk space.  The large column families dominate the run time, so starting them first keeps the parallel
+     * steps busy until the end instead of leaving one big compaction running alone.
+     */
+    private static JobDefinition perColumnFamily(JobType type, final Optional<Collection<String>> keyspaces,
+                                                 final Optional<Collection<String>> columnFamilies, int parallelism,
+                                                 final boolean skipSystem, final ColumnFamilyOperation operation) {
+        Map<String, String> parameters = ImmutableMap.of(
+                "keyspaces", keyspaces.isPresent() ? StringUtils.join(keyspaces.get(), ",") : "",
+                "cfnames", columnFamilies.isPresent() ? StringUtils.join(columnFamilies.get(), ",") : "",
+                "parallelism", Integer.toString(parallelism));
+        return new JobDefinition(type, parameters, parallelism) {
+            @Override
+            public List<JobStep> plan(JMXNodeTool nodeTool) throws Exception {
+                Map<ObjectName, Long> sizes = Maps.newHashMap();
+                for (Map.Entry<ObjectName, Map<String, Object>> entry : nodeTool.getColumnFamilyAttributes(LIVE_DISK_SPACE_USED).entrySet()) {
+                    String keyspace = entry.getKey().getKeyProperty("keyspace");
+                    String columnFamily = entry.getKey().getKeyProperty("columnfamily");
+                    if ((keyspaces.isPresent() && !keyspaces.get().contains(keyspace))
+                            || (columnFamilies.isPresent() && !columnFamilies.get().contains(columnFamily))
+                            || (skipSystem && "system".equalsIgnoreCase(keyspace))) {
+                        continue;
+                    }
+                    Object size = entry.getValue().get(LIVE_DISK_SPACE_USED);
+                    sizes.put(entry.getKey(), size instanceof Number ? ((Number) size).longValue() : 0L);
+                }
+
+                List<JobStep> steps = Lists.newArrayList();
+                Ordering<ObjectName> largestFirst = Ordering.natural().reverse().onResultOf(Functions.forMap(sizes))
+                        .compound(Ordering.<ObjectName>natural());
+                for (ObjectName name : largestFirst.sortedCopy(sizes.keySet())) {
+                    final String keyspace = name.getKeyProperty("keyspace");
+                    final String columnFamily = name.getKeyProperty("columnfamily");
+                    steps.add(new JobStep(keyspace + "." + columnFamily) {
+                        @Override
+                        public Void call(JMXNodeTool nodetool) throws Exception {
+                            operation.run(nodetool, keyspace, columnFamily);
+                            return null;
+                        }
+                    });
+                }
+                return steps;
+            }
+        };
+    }
+
+    private interface KeyspaceOperation {
+        void run(JMXNodeTool nodeTool, String keyspace) throws Exception;
+    }
+
+    /**
+     * A job with one step per keyspace, limited to {@code keyspaces} if given.
+     */
+    private static JobDefinition perKeyspace(JobType type, Map<String, String> parameters,
+                                             final Optional<Collection<String>> keyspaces, final boolean skipSystem,
+                                             final KeyspaceOperation operation) {
+        return new JobDefinition(type, parameters) {
+            @Override
+            public List<JobStep> plan(JMXNodeTool nodeTool) {
+                List<JobStep> steps = Lists.newArrayList();
+                for (final String keyspace : nodeTool.getKeyspaces()) {
+                    if (keyspaces.isPresent() && !keyspaces.get().contains(keyspace)) {
+                        continue;
+                    }
+                    if (skipSystem && "system".equalsIgnoreCase(keyspace)) {
+                        continue;
+                    }
+                    steps.add(new JobStep(keyspace) {
+                        @Override
+                        public Void call(JMXNodeTool nodetool) throws Exception {
+                            operation.run(nodetool, keyspace);
+                            return null;
+                        }
+                    });
+                }
+                return steps;
+            }
+        };
+    }
+}
@@ -0,0 +1,388 @@
+package com.netflix.priam.jobs;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.config.JobsConfiguration;
+import com.netflix.priam.stats.CompactionStats;
+import com.netflix.priam.stats.CompactionTask;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.stats.NodeStatsSnapshot;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs long-running maintenance operations such as compaction, cleanup and repair in the background.
+ * <p/>
+ * Jobs run on a small dedicated executor, so a cleanup that takes hours holds neither an HTTP request thread nor a
+ * slot that the token and seed endpoints need.  Jobs beyond the executor size wait in the queue.  Flush and drain,
+ * which the {@link AdmissionController} doesn't limit, have an executor of their own so they never queue behind
+ * compactions holding every thread.  Finished jobs are kept in a bounded history so clients can collect the outcome
+ * after the fact.
+ * <p/>
+ * The steps of all running heavyweight jobs together are limited to half the JMX operation threads, so however many
+ * jobs run at once they leave room for repair, drain and move.  Flush and drain steps don't count against the limit,
+ * so a parallel compaction never keeps them waiting.
+ */
+@Singleton
+public class JobManager implements Managed {
+    private static final Logger logger = LoggerFactory.getLogger(JobManager.class);
+
+    private final JobsConfiguration jobsConfiguration;
+    private final CassandraConfiguration cassandraConfiguration;
+    private final JMXConfiguration jmxConfiguration;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final NodeStatsCollector statsCollector;
+    private final AdmissionController admissionController;
+    private final ExecutorService executor;
+    private final ExecutorService lightExecutor;
+    private final int maxConcurrentSteps;
+    private final Semaphore stepPermits;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, AdminJob> jobs = Maps.newLinkedHashMap();
+
+    @Inject
+    public JobManager(JobsConfiguration jobsConfiguration, CassandraConfiguration cassandraConfiguration,
+                      JMXConfiguration jmxConfiguration, JMXConnectionPool jmxConnectionPool,
+                      NodeStatsCollector statsCollector, AdmissionController admissionController) {
+        this.jobsConfiguration = jobsConfiguration;
+        this.cassandraConfiguration = cassandraConfiguration;
+        this.jmxConfiguration = jmxConfiguration;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.statsCollector = statsCollector;
+        this.admissionController = admissionController;
+
+        int threads = Math.max(1, jobsConfiguration.getExecutorThreads());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("JobManager-%d").setDaemon(true).build();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        ThreadFactory lightThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("JobManager-light-%d")
+                .setDaemon(true)
+                .build();
+        lightExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), lightThreadFactory);
+
+        maxConcurrentSteps = Math.max(1, jmxConfiguration.getOperationThreads() / 2);
+        stepPermits = new Semaphore(maxConcurrentSteps, true);
+    }
+
+    @Override
+    public void start() throws Exception {
+        // Nothing to start, jobs are only run on request
+    }
+
+    @Override
+    public void stop() throws Exception {
+        for (AdminJob job : list()) {
+            job.cancel();
+        }
+        executor.shutdownNow();
+        lightExecutor.shutdownNow();
+    }
+
+    public AdminJob submit(JobDefinition definition) throws AdmissionRejectedException {
+        return submit(definition, Priority.NORMAL, false);
+    }
+
+    /**
+     * Submits the job, which runs under the {@link AdmissionController} if it is heavyweight.  With {@code queue} a
+     * job that can't be admitted right away waits its turn, by priority, in the QUEUED state.  Otherwise it is
+     * rejected.
+     * <p/>
+     * A queued job waits with the admission controller, not on the executor, and is only handed to the executor once
+     * admitted.  So jobs waiting for a slot never keep jobs that need none, like flush or drain, from running.
+     *
+     * @throws AdmissionRejectedException naming the operations the job would have had to wait for
+     */
+    public AdminJob submit(JobDefinition definition, Priority priority, boolean queue) throws AdmissionRejectedException {
+        final AdminJob job = new AdminJob(nextId.getAndIncrement(), definition, priority);
+        ResourceClass resourceClass = definition.getType().getResourceClass();
+        ListenableFuture<AdmissionController.Ticket> admission = null;
+        if (resourceClass != null) {
+            if (queue) {
+                admission = admissionController.enqueue(resourceClass, describe(job), priority);
+                // Cancelling the job gives up its place in line
+                job.setFuture(admission);
+            } else {
+                job.admitted(admissionController.tryAcquire(resourceClass, describe(job)));
+            }
+        }
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        logger.info("Job {} ({}) submitted", job.getId(), job.getType());
+        if (admission == null) {
+            dispatch(job);
+        } else {
+            Futures.addCallback(admission, new FutureCallback<AdmissionController.Ticket>() {
+                @Override
+                public void onSuccess(AdmissionController.Ticket ticket) {
+                    if (job.admitted(ticket)) {
+                        dispatch(job);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    // Cancelled while queued, the job is finished already
+                }
+            });
+        }
+        return job;
+    }
+
+    public Optional<AdminJob> get(long id) {
+        synchronized (jobs) {
+            trimHistory();
+            return Optional.fromNullable(jobs.get(id));
+        }
+    }
+
+    /**
+     * Returns the queued, running and recently finished jobs, newest first.
+     */
+    public List<AdminJob> list() {
+        synchronized (jobs) {
+            trimHistory();
+            return Lists.reverse(ImmutableList.copyOf(jobs.values()));
+        }
+    }
+
+    /**
+     * Cancels the job.  A queued job never starts.  A running job stops before its next step, and the operation
+     * already running in Cassandra is stopped where Cassandra allows it.  This stops every compaction of the same type
+     * or every repair session, not only the ones started by this job.
+     */
+    public Optional<AdminJob> cancel(long id) throws Exception {
+        Optional<AdminJob> job = get(id);
+        if (job.isPresent() && job.get().cancel()) {
+            logger.info("Job {} ({}) cancelled", id, job.get().getType());
+            stopInCassandra(job.get().getType());
+        }
+        return job;
+    }
+
+    /**
+     * Returns the progress of the job, including the matching compactions from a snapshot no older than
+     * {@code maxStalenessMillis} (or a live read).
+     */
+    public JobProgress getProgress(AdminJob job, Long maxStalenessMillis) throws Exception {
+        String compactionType = job.getType().getCompactionType();
+        if (job.getState() != AdminJob.State.RUNNING || compactionType == null) {
+            return new JobProgress(job, ImmutableList.<CompactionTask>of());
+        }
+
+        CompactionStats compactionStats;
+        Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot(maxStalenessMillis);
+        if (snapshot.isPresent()) {
+            compactionStats = snapshot.get().getCompactionStats();
+        } else {
+            compactionStats = jmxConnectionPool.execute(new JMXCallable<CompactionStats>() {
+                @Override
+                public CompactionStats call(JMXNodeTool nodeTool) throws Exception {
+                    return nodeTool.compactionStats();
+                }
+            });
+        }
+
+        List<CompactionTask> compactions = Lists.newArrayList();
+        for (CompactionTask compaction : compactionStats.getCompactions()) {
+            if (compactionType.equalsIgnoreCase(compaction.getTaskType())) {
+                compactions.add(compaction);
+            }
+        }
+        return new JobProgress(job, compactions);
+    }
+
+    private void dispatch(final AdminJob job) {
+        ExecutorService jobExecutor = job.getType().getResourceClass() != null ? executor : lightExecutor;
+        job.setFuture(jobExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                JobManager.this.run(job);
+            }
+        }));
+    }
+
+    void run(final AdminJob job) {
+        if (!job.start()) {
+            return;
+        }
+        logger.info("Job {} ({}) started", job.getId(), job.getType());
+        try {
+            List<JobStep> steps = jmxConnectionPool.execute(new JMXCallable<List<JobStep>>() {
+                @Override
+                public List<JobStep> call(JMXNodeTool nodeTool) throws Exception {
+                    return job.getDefinition().plan(nodeTool);
+                }
+            });
+            job.planned(steps.size());
+            runSteps(job, steps);
+            job.finish(AdminJob.State.SUCCEEDED, null);
+            logger.info("Job {} ({}) succeeded", job.getId(), job.getType());
+        } catch (Exception e) {
+            if (job.isCancelRequested()) {
+                job.finish(AdminJob.State.CANCELLED, null);
+            } else {
+                logger.error("Job {} ({}) failed", job.getId(), job.getType(), e);
+                job.finish(AdminJob.State.FAILED, e);
+            }
+        } finally {
+            trimHistory();
+        }
+    }
+
+    private static String describe(AdminJob job) {
+        return job.getType() + " job " + job.getId();
+    }
+
+    /**
+     * Runs the steps in order, up to {@link #getParallelism} at once.  After a failure no further steps are started.
+     */
+    private void runSteps(final AdminJob job, List<JobStep> steps) throws Exception {
+        final Queue<JobStep> pending = new ConcurrentLinkedQueue<>(steps);
+        int parallelism = Math.min(getParallelism(job.getDefinition()), steps.size());
+        if (parallelism <= 1) {
+            runSteps(job, pending);
+            return;
+        }
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("JobManager-job-" + job.getId() + "-%d")
+                .setDaemon(true)
+                .build();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, threadFactory);
+        try {
+            List<Future<Void>> futures = Lists.newArrayList();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(workers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        runSteps(job, pending);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwables.propagateIfPossible(e.getCause(), Exception.class);
+                    throw Throwables.propagate(e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void runSteps(AdminJob job, Queue<JobStep> pending) throws Exception {
+        JobStep step;
+        while ((step = pending.poll()) != null) {
+            if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            boolean limited = job.getType().getResourceClass() != null;
+            if (limited) {
+                stepPermits.acquire();
+            }
+            job.stepStarted(step.getName());
+            boolean completed = false;
+            try {
+                jmxConnectionPool.executeOperation(step, jmxConfiguration.getOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+                completed = true;
+            } catch (Exception e) {
+                pending.clear();
+                throw e;
+            } finally {
+                job.stepFinished(step.getName(), completed);
+                if (limited) {
+                    stepPermits.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * The requested parallelism, capped at Cassandra's concurrent compactors (which defaults to the number of cores)
+     * and at the steps all jobs may run at once.  Workers beyond what the other running jobs leave free wait for a
+     * step permit.
+     */
+    int getParallelism(JobDefinition definition) {
+        Integer concurrentCompactors = cassandraConfiguration.getConcurrentCompactors();
+        int compactors = concurrentCompactors != null ? concurrentCompactors : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(definition.getParallelism(), Math.min(compactors, maxConcurrentSteps)));
+    }
+
+    private void stopInCassandra(final JobType type) throws Exception {
+        if (type != JobType.REPAIR && type.getCompactionType() == null) {
+            return;
+        }
+        jmxConnectionPool.execute(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodeTool) throws Exception {
+                if (type == JobType.REPAIR) {
+                    nodeTool.forceTerminateAllRepairSessions();
+                } else {
+                    nodeTool.stopCompaction(type.getCompactionType());
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Drops the oldest finished jobs beyond the configured history size.  Queued and running jobs are always kept.
+     * Also called on reads, since a job is visibly finished slightly before its thread gets here.
+     */
+    private void trimHistory() {
+        synchronized (jobs) {
+            int finished = 0;
+            for (AdminJob job : jobs.values()) {
+                if (job.getState().isFinished()) {
+                    finished++;
+                }
+            }
+            Iterator<AdminJob> iterator = jobs.values().iterator();
+            while (finished > jobsConfiguration.getHistorySize() && iterator.hasNext()) {
+                if (iterator.next().getState().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+}
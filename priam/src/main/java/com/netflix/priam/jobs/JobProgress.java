@@ -0,0 +1,76 @@
+package com.netflix.priam.jobs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.netflix.priam.stats.CompactionTask;
+
+import java.util.List;
+
+/**
+ * How far an {@link AdminJob} has got.  Steps are counted by Priam.  Where Cassandra reports the operation in
+ * compactionstats the matching compactions and their byte counts are included as well.
+ */
+@JsonPropertyOrder({"id", "state", "completedSteps", "totalSteps", "currentSteps", "bytesComplete", "totalBytes",
+        "compactions"})
+public class JobProgress {
+    private final AdminJob job;
+    private final List<CompactionTask> compactions;
+    private final long bytesComplete;
+    private final long totalBytes;
+
+    public JobProgress(AdminJob job, List<CompactionTask> compactions) {
+        this.job = job;
+        this.compactions = compactions;
+        long complete = 0;
+        long total = 0;
+        for (CompactionTask compaction : compactions) {
+            complete += compaction.getBytesComplete();
+            total += compaction.getTotalBytes();
+        }
+        this.bytesComplete = complete;
+        this.totalBytes = total;
+    }
+
+    @JsonProperty
+    public long getId() {
+        return job.getId();
+    }
+
+    @JsonProperty
+    public AdminJob.State getState() {
+        return job.getState();
+    }
+
+    @JsonProperty
+    public int getCompletedSteps() {
+        return job.getCompletedSteps();
+    }
+
+    @JsonProperty
+    public int getTotalSteps() {
+        return job.getTotalSteps();
+    }
+
+    @JsonProperty
+    public List<String> getCurrentSteps() {
+        return job.getCurrentSteps();
+    }
+
+    /**
+     * Bytes processed by the running compactions of this job's type.
+     */
+    @JsonProperty
+    public long getBytesComplete() {
+        return bytesComplete;
+    }
+
+    @JsonProperty
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @JsonProperty
+    public List<CompactionTask> getCompactions() {
+        return compactions;
+    }
+}
@@ -0,0 +1,19 @@
+package com.netflix.priam.jobs;
+
+import com.netflix.priam.utils.JMXCallable;
+
+/**
+ * One JMX call of an {@link AdminJob}, eg. the compaction of a single keyspace.  Progress is reported, and
+ * cancellation takes effect, between steps.
+ */
+public abstract class JobStep implements JMXCallable<Void> {
+    private final String name;
+
+    protected JobStep(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,38 @@
+package com.netflix.priam.jobs;
+
+/**
+ * The long-running maintenance operations that run as {@link AdminJob}s.
+ */
+public enum JobType {
+    FLUSH(null, null),
+    COMPACT("COMPACTION", ResourceClass.COMPACTION),
+    CLEANUP("CLEANUP", ResourceClass.COMPACTION),
+    SCRUB("SCRUB", ResourceClass.COMPACTION),
+    UPGRADESSTABLES("UPGRADE_SSTABLES", ResourceClass.COMPACTION),
+    REPAIR("VALIDATION", ResourceClass.VALIDATION),
+    DRAIN(null, null);
+
+    private final String compactionType;
+    private final ResourceClass resourceClass;
+
+    JobType(String compactionType, ResourceClass resourceClass) {
+        this.compactionType = compactionType;
+        this.resourceClass = resourceClass;
+    }
+
+    /**
+     * The Cassandra compaction type the operation shows up as in compactionstats, or null if it doesn't.  Repair
+     * shows up as the validation compactions that build its merkle trees.
+     */
+    public String getCompactionType() {
+        return compactionType;
+    }
+
+    /**
+     * The resource the operation is admitted under by the {@link AdmissionController}, or null if it is light enough
+     * to always run.
+     */
+    public ResourceClass getResourceClass() {
+        return resourceClass;
+    }
+}
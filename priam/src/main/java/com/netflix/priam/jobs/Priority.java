@@ -0,0 +1,8 @@
+package com.netflix.priam.jobs;
+
+/**
+ * The order in which operations waiting for the {@link AdmissionController} are let in.
+ */
+public enum Priority {
+    LOW, NORMAL, HIGH
+}
@@ -0,0 +1,20 @@
+package com.netflix.priam.jobs;
+
+/**
+ * The node resource a heavyweight maintenance operation loads, which the {@link AdmissionController} limits
+ * concurrency by.
+ */
+public enum ResourceClass {
+    /**
+     * Rewriting sstables: compaction, cleanup, scrub and upgradesstables.
+     */
+    COMPACTION,
+    /**
+     * Moving data between nodes, eg. a move.
+     */
+    STREAMING,
+    /**
+     * Building merkle trees for repair.
+     */
+    VALIDATION
+}
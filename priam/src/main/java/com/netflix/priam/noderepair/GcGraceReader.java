@@ -0,0 +1,56 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.AmazonConfiguration;
+import com.netflix.priam.config.CassandraConfiguration;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.InvalidRequestException;
+import org.apache.cassandra.thrift.KsDef;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+
+/**
+ * Reads gc_grace_seconds of every column family from the local node's schema.  Cassandra 1.2 doesn't expose it over
+ * JMX, so this asks Thrift, which listens on the private IP.
+ */
+@Singleton
+public class GcGraceReader {
+    private static final int TIMEOUT_MS = 10000;
+
+    private final CassandraConfiguration cassandraConfiguration;
+    private final AmazonConfiguration amazonConfiguration;
+
+    @Inject
+    public GcGraceReader(CassandraConfiguration cassandraConfiguration, AmazonConfiguration amazonConfiguration) {
+        this.cassandraConfiguration = cassandraConfiguration;
+        this.amazonConfiguration = amazonConfiguration;
+    }
+
+    /**
+     * gc_grace_seconds by keyspace and column family.
+     */
+    public Table<String, String, Integer> read() throws TException, InvalidRequestException {
+        TTransport transport = new TFramedTransport(new TSocket(amazonConfiguration.getPrivateIP(),
+                cassandraConfiguration.getThriftPort(), TIMEOUT_MS));
+        transport.open();
+        try {
+            Cassandra.Client client = new Cassandra.Client(new TBinaryProtocol(transport));
+            Table<String, String, Integer> gcGraceSeconds = HashBasedTable.create();
+            for (KsDef keyspace : client.describe_keyspaces()) {
+                for (CfDef columnFamily : keyspace.getCf_defs()) {
+                    gcGraceSeconds.put(keyspace.getName(), columnFamily.getName(), columnFamily.getGc_grace_seconds());
+                }
+            }
+            return gcGraceSeconds;
+        } finally {
+            transport.close();
+        }
+    }
+}
@@ -2,37 +2,82 @@ package com.netflix.priam.noderepair;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.priam.config.AmazonConfiguration;
 import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.jobs.AdmissionController;
+import com.netflix.priam.jobs.Priority;
+import com.netflix.priam.jobs.ResourceClass;
 import com.netflix.priam.scheduler.Task;
+import com.netflix.priam.stats.KeyEstimate;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.netflix.priam.utils.JMXNodeTool;
+import com.netflix.priam.utils.Sleeper;
+import com.netflix.priam.utils.TokenManager;
+import com.netflix.priam.utils.TokenRange;
+import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.joda.time.Duration;
+import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.ObjectName;
+import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 @Singleton
 public final class NodeRepair extends Task {
     public static final String JOBNAME = "NodeRepair";
     private static final Logger logger = LoggerFactory.getLogger(NodeRepair.class);
+    private static final long SUBRANGE_RETRY_DELAY_MS = 10000;
+    private static final long BYTES_PER_MB = 1024L * 1024;
 
     private final CassandraConfiguration cassandraConfig;
     private final Optional<CuratorFramework> curator;
     private final AmazonConfiguration amazonConfiguration;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final JMXConfiguration jmxConfiguration;
+    private final AdmissionController admissionController;
+    private final TokenManager tokenManager;
+    private final SubrangeSplitter subrangeSplitter;
+    private final RepairThrottle throttle;
+    private final GcGraceReader gcGraceReader;
+    private final Sleeper sleeper;
     private final Duration nodeRepairMutexAcquireTimeOut;
 
     @Inject
-    public NodeRepair(CassandraConfiguration cassandraConfig, Optional<CuratorFramework> curator, AmazonConfiguration amazonConfiguration) {
+    public NodeRepair(CassandraConfiguration cassandraConfig, Optional<CuratorFramework> curator, AmazonConfiguration amazonConfiguration,
+                      JMXConnectionPool jmxConnectionPool, JMXConfiguration jmxConfiguration,
+                      AdmissionController admissionController, TokenManager tokenManager, RepairThrottle throttle,
+                      GcGraceReader gcGraceReader, Sleeper sleeper) {
         this.cassandraConfig = cassandraConfig;
         this.curator = curator;
         this.amazonConfiguration = amazonConfiguration;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.jmxConfiguration = jmxConfiguration;
+        this.admissionController = admissionController;
+        this.tokenManager = tokenManager;
+        this.subrangeSplitter = new SubrangeSplitter(tokenManager, cassandraConfig.getNodeRepairSubranges(),
+                cassandraConfig.getNodeRepairKeysPerSubrange());
+        this.throttle = throttle;
+        this.gcGraceReader = gcGraceReader;
+        this.sleeper = sleeper;
         this.nodeRepairMutexAcquireTimeOut = Duration.standardMinutes(cassandraConfig.getNodeRepairMutexAcquireTimeOut());
     }
 
@@ -41,36 +86,12 @@ public final class NodeRepair extends Task {
             if (!curator.isPresent()) {
                 return;
             }
-            JMXNodeTool jmxNodeTool = new JMXNodeTool(cassandraConfig);
-
             logger.info("started node repairing");
-            Queue<String> keyspaceQueue = new LinkedList<>();
-            keyspaceQueue.addAll(jmxNodeTool.getKeyspaces());
-            logger.info("{} keyspaces are yet to repair", keyspaceQueue.size());
-
-            //while there are unrepaired keyspaces
-            while (keyspaceQueue.size() > 0) {
-                String keyspace = keyspaceQueue.remove();
-                //get mutex for the keyspace
-                InterProcessMutex mutex = new InterProcessMutex(curator.get(), getMutexPath(keyspace));
-                try {
-                    logger.info("node repair is trying to get lock of keyspace {}, thread: {}", keyspace, Thread.currentThread().getId());
-                    if (mutex.acquire(nodeRepairMutexAcquireTimeOut.getStandardMinutes(), TimeUnit.MINUTES)) {
-                        logger.info("starting node repair of keyspace {}, thread: {}", keyspace, Thread.currentThread().getId());
-                        jmxNodeTool.repair(keyspace, true, true, true);
-                        logger.info("node repair of keyspace {} is done, thread: {}", keyspace, Thread.currentThread().getId());
-                    } else {
-                        logger.info("time out occurred acquiring lock for keyspace {}, thread: {}", keyspace, Thread.currentThread().getId());
-                        //add the keyspace back to the Queue
-                        keyspaceQueue.add(keyspace);
-                        Thread.sleep(2000);
-                    }
-                } catch (Exception e) {
-                    throw Throwables.propagate(e);
-                } finally {
-                    //release the mutex regardless of mutex was acquired or not
-                    try { mutex.release(); } catch (Throwable e) { /* don't care */ }
-                }
+            RepairLocks locks = new RepairLocks(curator.get(), getBasePath(), cassandraConfig.getNodeRepairMaxConcurrent());
+            if (cassandraConfig.isNodeRepairPlanned()) {
+                repairPlanned(locks);
+            } else {
+                repairKeyspaces(locks);
             }
             logger.info("successfully finished node repair");
         } catch (Exception e) {
@@ -78,8 +99,397 @@ public final class NodeRepair extends Task {
         }
     }
 
-    private String getMutexPath(String keyspace) {
-        return "/applications/priam/noderepair/" + amazonConfiguration.getRegionName() + "/" + cassandraConfig.getClusterName() + "/" + keyspace;
+    private void repairKeyspaces(RepairLocks locks) throws Exception {
+        final RepairCheckpoints checkpoints = new RepairCheckpoints(curator.get(), getCheckpointPath(),
+                TimeUnit.MINUTES.toMillis(cassandraConfig.getNodeRepairFreshnessMinutes()));
+        checkpoints.begin();
+        Queue<String> keyspaceQueue = new LinkedList<>();
+        keyspaceQueue.addAll(jmxConnectionPool.execute(new JMXCallable<List<String>>() {
+            @Override
+            public List<String> call(JMXNodeTool nodeTool) throws Exception {
+                return nodeTool.getKeyspaces();
+            }
+        }));
+        logger.info("{} keyspaces are yet to repair", keyspaceQueue.size());
+
+        //while there are unrepaired keyspaces
+        while (keyspaceQueue.size() > 0) {
+            final String keyspace = keyspaceQueue.remove();
+            if (isSubrangeRepair()) {
+                repairSubranges(locks, keyspace, checkpoints);
+                continue;
+            }
+            if (checkpoints.isRepaired(keyspace, null)) {
+                logger.info("keyspace {} was repaired before this run was interrupted, skipping it", keyspace);
+                continue;
+            }
+            throttle.awaitCapacity();
+            Optional<Boolean> repaired = repairLocked(locks, keyspace, "keyspace " + keyspace, new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    jmxConnectionPool.executeOperation(new JMXCallable<Void>() {
+                        @Override
+                        public Void call(JMXNodeTool nodeTool) throws Exception {
+                            nodeTool.repair(keyspace, true, true, true);
+                            return null;
+                        }
+                    }, jmxConfiguration.getOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+                    return true;
+                }
+            });
+            if (repaired.isPresent()) {
+                checkpoints.repaired(keyspace, null);
+            } else {
+                //add the keyspace back to the Queue
+                keyspaceQueue.add(keyspace);
+                Thread.sleep(2000);
+            }
+        }
+        checkpoints.finish();
+    }
+
+    /**
+     * Repairs just the column families the {@link RepairPlanner} finds due, most urgent first.
+     */
+    private void repairPlanned(RepairLocks locks) throws Exception {
+        final RepairHistory history = new RepairHistory(curator.get(), getHistoryPath());
+        RepairPlanner planner = new RepairPlanner(cassandraConfig.getNodeRepairGcGraceFraction(), getRunIntervalMillis(),
+                cassandraConfig.getNodeRepairSmallTableMB() * BYTES_PER_MB,
+                cassandraConfig.getNodeRepairLargeTableMB() * BYTES_PER_MB,
+                cassandraConfig.getNodeRepairBudgetMB() * BYTES_PER_MB);
+        Queue<RepairPlanner.Step> steps = new LinkedList<>(
+                planner.plan(getRepairCandidates(), history.read(), System.currentTimeMillis()));
+        logger.info("planned {} repair sessions: {}", steps.size(), steps);
+
+        while (steps.size() > 0) {
+            RepairPlanner.Step step = steps.remove();
+            if (!repairStep(locks, step, history)) {
+                steps.add(step);
+                Thread.sleep(2000);
+            }
+        }
+    }
+
+    /**
+     * Runs the repair once the node has an admission slot for it and the replicas of the keyspace are locked.  Callers
+     * wait for the {@link RepairThrottle} before calling this, so a paused repair never holds the slot, the replicas
+     * or a lease that other nodes' repairs are waiting for.
+     *
+     * @return what the repair returned, or absent if the locks could not be had in time and the repair didn't run
+     */
+    private <T> Optional<T> repairLocked(RepairLocks locks, String keyspace, String what, Callable<T> repair)
+            throws Exception {
+        //wait for the node to have room for a repair, behind operations started by hand
+        AdmissionController.Ticket ticket = admissionController.acquire(ResourceClass.VALIDATION,
+                "scheduled repair of " + what, Priority.LOW);
+        Optional<RepairLocks.Held> held = Optional.absent();
+        try {
+            //lock the replicas the repair involves, so repairs sharing none of them run at the same time
+            Set<String> replicas = getReplicas(keyspace);
+            logger.info("node repair is trying to lock replicas {} of keyspace {}, thread: {}", replicas, keyspace, Thread.currentThread().getId());
+            held = locks.acquire(replicas, nodeRepairMutexAcquireTimeOut.getStandardMinutes(), TimeUnit.MINUTES);
+            if (!held.isPresent()) {
+                logger.info("time out occurred acquiring lock for {}, thread: {}", what, Thread.currentThread().getId());
+                return Optional.absent();
+            }
+            logger.info("starting node repair of {}, thread: {}", what, Thread.currentThread().getId());
+            T result = repair.call();
+            logger.info("node repair of {} is done, thread: {}", what, Thread.currentThread().getId());
+            return Optional.of(result);
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        } finally {
+            if (held.isPresent()) {
+                held.get().close();
+            }
+            ticket.close();
+        }
+    }
+
+    /**
+     * The column families of this node with their gc_grace_seconds and size.  The system keyspace is local to each
+     * node, so there is nothing to repair in it.
+     */
+    private List<RepairCandidate> getRepairCandidates() throws Exception {
+        Table<String, String, Integer> gcGraceSeconds;
+        try {
+            gcGraceSeconds = gcGraceReader.read();
+        } catch (Exception e) {
+            logger.warn("Unable to read gc_grace_seconds from the schema, assuming {} for every column family",
+                    cassandraConfig.getNodeRepairDefaultGcGraceSeconds(), e);
+            gcGraceSeconds = ImmutableTable.of();
+        }
+        Map<ObjectName, Map<String, Object>> sizes = jmxConnectionPool.execute(new JMXCallable<Map<ObjectName, Map<String, Object>>>() {
+            @Override
+            public Map<ObjectName, Map<String, Object>> call(JMXNodeTool nodeTool) throws Exception {
+                return nodeTool.getColumnFamilyAttributes("LiveDiskSpaceUsed");
+            }
+        });
+        List<RepairCandidate> candidates = Lists.newArrayList();
+        for (Map.Entry<ObjectName, Map<String, Object>> entry : sizes.entrySet()) {
+            String keyspace = entry.getKey().getKeyProperty("keyspace");
+            String columnFamily = entry.getKey().getKeyProperty("columnfamily");
+            if ("system".equalsIgnoreCase(keyspace)) {
+                continue;
+            }
+            Integer gcGrace = gcGraceSeconds.get(keyspace, columnFamily);
+            Object size = entry.getValue().get("LiveDiskSpaceUsed");
+            candidates.add(new RepairCandidate(keyspace, columnFamily,
+                    gcGrace != null ? gcGrace : cassandraConfig.getNodeRepairDefaultGcGraceSeconds(),
+                    size instanceof Number ? ((Number) size).longValue() : 0));
+        }
+        return candidates;
+    }
+
+    /**
+     * Repairs the column families of the step, or the slice of the primary range the step is for, and records it in
+     * the history.  A slice is only recorded when all its subranges are repaired, otherwise the next run retries it.
+     *
+     * @return false if the locks for the whole column families could not be had in time, and nothing was repaired
+     */
+    private boolean repairStep(RepairLocks locks, final RepairPlanner.Step step, RepairHistory history)
+            throws Exception {
+        long startedAt = System.currentTimeMillis();
+        final List<String> columnFamilies = step.getColumnFamilies();
+        if (step.getSlices() == 1) {
+            throttle.awaitCapacity();
+            Optional<Boolean> repaired = repairLocked(locks, step.getKeyspace(), step.toString(),
+                    new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            jmxConnectionPool.executeOperation(new JMXCallable<Void>() {
+                                @Override
+                                public Void call(JMXNodeTool nodeTool) throws Exception {
+                                    nodeTool.repair(step.getKeyspace(), columnFamilies, true, true);
+                                    return null;
+                                }
+                            }, jmxConfiguration.getOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+                            return true;
+                        }
+                    });
+            if (!repaired.isPresent()) {
+                return false;
+            }
+        } else {
+            List<TokenRange> subranges = getSlice(step);
+            for (int i = 0; i < subranges.size(); i++) {
+                TokenRange subrange = subranges.get(i);
+                if (!repairSubrange(locks, step.getKeyspace(), columnFamilies, subrange, i + 1, subranges.size())) {
+                    logger.error("slice {} of {} of {} is incomplete, the next run retries it",
+                            step.getSlice() + 1, step.getSlices(), columnFamilies);
+                    return true;
+                }
+            }
+        }
+        history.repaired(step.getKeyspace(), columnFamilies, step.getSlice(), step.getSlices(), startedAt);
+        return true;
+    }
+
+    /**
+     * Splits each primary range into as many subranges as the step has slices, and takes every slice-th of them, so
+     * every slice covers about the same amount of data.
+     */
+    private List<TokenRange> getSlice(final RepairPlanner.Step step) throws Exception {
+        List<TokenRange> subranges = jmxConnectionPool.execute(new JMXCallable<List<TokenRange>>() {
+            @Override
+            public List<TokenRange> call(JMXNodeTool nodeTool) throws Exception {
+                return new SubrangeSplitter(tokenManager, step.getSlices(), 0).split(
+                        nodeTool.getRangeToEndpointMap(step.getKeyspace()), nodeTool.getTokens(),
+                        nodeTool.getEndpoint(), 0);
+            }
+        });
+        List<TokenRange> slice = Lists.newArrayList();
+        for (int i = step.getSlice(); i < subranges.size(); i += step.getSlices()) {
+            slice.add(subranges.get(i));
+        }
+        return slice;
+    }
+
+    /**
+     * How long from one scheduled run to the next, going by the cron expression.  A day if it can't be parsed.
+     */
+    private long getRunIntervalMillis() {
+        try {
+            CronExpression cron = new CronExpression(getCronTime());
+            Date next = cron.getNextValidTimeAfter(new Date());
+            return cron.getNextValidTimeAfter(next).getTime() - next.getTime();
+        } catch (Exception e) {
+            logger.warn("Unable to work out the interval of the node repair schedule {}, assuming a day", getCronTime(), e);
+            return TimeUnit.DAYS.toMillis(1);
+        }
+    }
+
+    /**
+     * The replicas in this data center of the ranges this node is primary for.  Repair only involves the local data
+     * center, and nodes of other regions lock under a path of their own.
+     */
+    private Set<String> getReplicas(final String keyspace) throws Exception {
+        return jmxConnectionPool.execute(new JMXCallable<Set<String>>() {
+            @Override
+            public Set<String> call(JMXNodeTool nodeTool) throws Exception {
+                EndpointSnitchInfoMBean snitch = nodeTool.getEndpointSnitchInfoProxy();
+                String localDataCenter = snitch.getDatacenter(nodeTool.getEndpoint());
+                Set<String> replicas = Sets.newTreeSet();
+                for (String replica : RepairLocks.replicas(nodeTool.getRangeToEndpointMap(keyspace), nodeTool.getTokens())) {
+                    if (localDataCenter.equals(snitch.getDatacenter(replica))) {
+                        replicas.add(replica);
+                    }
+                }
+                return replicas;
+            }
+        });
+    }
+
+    private boolean isSubrangeRepair() {
+        return cassandraConfig.getNodeRepairSubranges() > 0 || subrangeSplitter.isSizedByKeys();
+    }
+
+    /**
+     * Repairs the primary ranges of the keyspace a subrange at a time, retrying each subrange on its own.  A subrange
+     * that still fails is logged and skipped so the rest of the keyspace is repaired regardless.  A resumed run repairs
+     * the subranges planned before it was interrupted, skipping the ones already repaired.
+     */
+    private void repairSubranges(RepairLocks locks, final String keyspace, RepairCheckpoints checkpoints)
+            throws Exception {
+        if ("system".equalsIgnoreCase(keyspace)) {
+            return; // Local to each node, there's nothing to repair
+        }
+        Optional<List<TokenRange>> planned = checkpoints.getPlanned(keyspace);
+        List<TokenRange> subranges;
+        if (planned.isPresent()) {
+            subranges = planned.get();
+            logger.info("resuming keyspace {} as the {} subranges planned before the run was interrupted",
+                    keyspace, subranges.size());
+        } else {
+            subranges = jmxConnectionPool.execute(new JMXCallable<List<TokenRange>>() {
+                @Override
+                public List<TokenRange> call(JMXNodeTool nodeTool) throws Exception {
+                    long estimatedKeys = 0;
+                    if (subrangeSplitter.isSizedByKeys()) {
+                        for (KeyEstimate estimate : nodeTool.estimateKeys(
+                                Optional.<Collection<String>>of(ImmutableList.of(keyspace)))) {
+                            estimatedKeys += estimate.getEstimatedSize();
+                        }
+                    }
+                    return subrangeSplitter.split(nodeTool.getRangeToEndpointMap(keyspace), nodeTool.getTokens(),
+                            nodeTool.getEndpoint(), estimatedKeys);
+                }
+            });
+            checkpoints.planned(keyspace, subranges);
+            logger.info("repairing keyspace {} as {} subranges", keyspace, subranges.size());
+        }
+        int failed = 0;
+        int skipped = 0;
+        for (int i = 0; i < subranges.size(); i++) {
+            TokenRange range = subranges.get(i);
+            if (checkpoints.isRepaired(keyspace, range)) {
+                skipped++;
+            } else if (repairSubrange(locks, keyspace, ImmutableList.<String>of(), range, i + 1, subranges.size())) {
+                checkpoints.repaired(keyspace, range);
+            } else {
+                failed++;
+            }
+        }
+        if (skipped > 0) {
+            logger.info("skipped {} subranges of keyspace {} repaired before the run was interrupted", skipped, keyspace);
+        }
+        if (failed > 0) {
+            logger.error("{} of {} subranges of keyspace {} could not be repaired", failed, subranges.size(), keyspace);
+        }
+    }
+
+    /**
+     * Repairs a subrange of the column families, or of the whole keyspace if none are given, once the node has room
+     * for it.  While the node is loaded the subrange is repaired in smaller parts, each waiting its turn, and it only
+     * counts as repaired when every part is.  The replicas are locked for each part on its own, only once the node has
+     * room for it.
+     */
+    private boolean repairSubrange(RepairLocks locks, String keyspace, List<String> columnFamilies, TokenRange range,
+                                   int number, int count) throws Exception {
+        long start = System.currentTimeMillis();
+        List<TokenRange> parts = ImmutableList.of(range);
+        int splitFactor = throttle.awaitCapacity();
+        if (splitFactor > 1) {
+            List<String> boundaries = tokenManager.splitRange(range.getStart(), range.getEnd(), splitFactor);
+            parts = Lists.newArrayList();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                parts.add(new TokenRange(boundaries.get(i), boundaries.get(i + 1)));
+            }
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                throttle.awaitCapacity();
+            }
+            if (!repairRangeLocked(locks, keyspace, columnFamilies, parts.get(i))) {
+                return false;
+            }
+        }
+        logger.info("repaired subrange {} of {} {} of keyspace {} in {} parts in {}ms",
+                number, count, range, keyspace, parts.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Repairs the range while holding the locks of its replicas, waiting for them however long it takes.  Unlike a
+     * whole keyspace, a subrange isn't put back in the queue to let other keyspaces go first.
+     */
+    private boolean repairRangeLocked(RepairLocks locks, final String keyspace, final List<String> columnFamilies,
+                                      final TokenRange range) throws Exception {
+        while (true) {
+            Optional<Boolean> repaired = repairLocked(locks, keyspace, "subrange " + range + " of keyspace " + keyspace,
+                    new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return repairRange(keyspace, columnFamilies, range);
+                        }
+                    });
+            if (repaired.isPresent()) {
+                return repaired.get();
+            }
+            Thread.sleep(2000);
+        }
+    }
+
+    private boolean repairRange(final String keyspace, List<String> columnFamilies, final TokenRange range)
+            throws InterruptedException {
+        final String[] columnFamilyNames = columnFamilies.toArray(new String[columnFamilies.size()]);
+        int retries = cassandraConfig.getNodeRepairSubrangeRetries();
+        for (int attempt = 0; ; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+                jmxConnectionPool.executeOperation(new JMXCallable<Void>() {
+                    @Override
+                    public Void call(JMXNodeTool nodeTool) throws Exception {
+                        nodeTool.repairRange(keyspace, range, true, true, columnFamilyNames);
+                        return null;
+                    }
+                }, jmxConfiguration.getOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (InterruptedException e) {
+                // The task is being stopped, not the repair failing
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= retries) {
+                    logger.error("giving up on subrange {} of keyspace {} after {} attempts", range, keyspace, attempt + 1, e);
+                    return false;
+                }
+                logger.warn("repair of subrange {} of keyspace {} failed after {}ms, retrying",
+                        range, keyspace, System.currentTimeMillis() - start, e);
+                sleeper.sleep(SUBRANGE_RETRY_DELAY_MS * (attempt + 1));
+            }
+        }
+    }
+
+    private String getHistoryPath() {
+        return getBasePath() + "/_history/" + amazonConfiguration.getPrivateIP();
+    }
+
+    private String getCheckpointPath() {
+        return getBasePath() + "/_checkpoints/" + amazonConfiguration.getPrivateIP();
+    }
+
+    private String getBasePath() {
+        return "/applications/priam/noderepair/" + amazonConfiguration.getRegionName() + "/" + cassandraConfig.getClusterName();
     }
 
     @Override
@@ -0,0 +1,49 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.base.Objects;
+
+/**
+ * A column family the {@link RepairPlanner} may schedule, with what decides how urgent and how costly its repair is.
+ */
+public class RepairCandidate {
+    private final String keyspace;
+    private final String columnFamily;
+    private final int gcGraceSeconds;
+    private final long sizeBytes;
+
+    public RepairCandidate(String keyspace, String columnFamily, int gcGraceSeconds, long sizeBytes) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.gcGraceSeconds = gcGraceSeconds;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public int getGcGraceSeconds() {
+        return gcGraceSeconds;
+    }
+
+    /**
+     * Live data of the column family on this node.
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("keyspace", keyspace)
+                .add("columnFamily", columnFamily)
+                .add("gcGraceSeconds", gcGraceSeconds)
+                .add("sizeBytes", sizeBytes)
+                .toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.netflix.priam.noderepair;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.netflix.priam.utils.TokenRange;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * What the current or last scheduled repair run of one node has done for one keyspace, as kept in ZooKeeper.  Repair
+ * covers every column family of the keyspace at once, so progress is kept by token range.  A null range stands for the
+ * whole primary range, which is what gets repaired when subrange repair is off.
+ * <p/>
+ * With subrange repair the subranges the run planned are kept too.  Subranges sized by key estimates come out
+ * differently every time they are planned, so a resumed run repairs the ones it planned in the first place.
+ */
+@JsonPropertyOrder({"keyspace", "startedAt", "updatedAt", "planned", "repaired"})
+public class RepairCheckpoint {
+    @JsonProperty
+    private String keyspace;
+
+    @JsonProperty
+    private long startedAt;
+
+    @JsonProperty
+    private long updatedAt;
+
+    @JsonProperty
+    private List<TokenRange> planned;
+
+    @JsonProperty
+    private List<RepairedRange> repaired = Lists.newArrayList();
+
+    // For Jackson
+    RepairCheckpoint() {
+    }
+
+    public RepairCheckpoint(String keyspace) {
+        this.keyspace = keyspace;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    /**
+     * When the run the repaired ranges belong to started.
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public List<RepairedRange> getRepaired() {
+        return repaired;
+    }
+
+    /**
+     * The subranges planned by the run that started at {@code runStartedAt}, if it planned any.
+     */
+    public Optional<List<TokenRange>> getPlanned(long runStartedAt) {
+        return startedAt == runStartedAt ? Optional.fromNullable(planned) : Optional.<List<TokenRange>>absent();
+    }
+
+    /**
+     * Records the subranges the run that started at {@code runStartedAt} is about to repair, dropping what earlier
+     * runs repaired.
+     */
+    public void planned(List<TokenRange> subranges, long runStartedAt, long now) {
+        dropEarlierRuns(runStartedAt);
+        planned = Lists.newArrayList(subranges);
+        updatedAt = now;
+    }
+
+    /**
+     * Whether the range was repaired by the run that started at {@code runStartedAt}.
+     */
+    public boolean isRepaired(TokenRange range, long runStartedAt) {
+        for (RepairedRange repairedRange : repaired) {
+            if (Objects.equal(repairedRange.getRange(), range) && repairedRange.getRepairedAt() >= runStartedAt) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that the run that started at {@code runStartedAt} just repaired the range, dropping what earlier runs
+     * repaired.
+     */
+    public void repaired(TokenRange range, long runStartedAt, long now) {
+        dropEarlierRuns(runStartedAt);
+        for (Iterator<RepairedRange> it = repaired.iterator(); it.hasNext(); ) {
+            if (Objects.equal(it.next().getRange(), range)) {
+                it.remove();
+            }
+        }
+        repaired.add(new RepairedRange(range, now));
+        updatedAt = now;
+    }
+
+    private void dropEarlierRuns(long runStartedAt) {
+        if (startedAt != runStartedAt) {
+            planned = null;
+            startedAt = runStartedAt;
+        }
+        for (Iterator<RepairedRange> it = repaired.iterator(); it.hasNext(); ) {
+            if (it.next().getRepairedAt() < runStartedAt) {
+                it.remove();
+            }
+        }
+    }
+
+    public static class RepairedRange {
+        private final TokenRange range;
+        private final long repairedAt;
+
+        @JsonCreator
+        public RepairedRange(@JsonProperty("range") TokenRange range, @JsonProperty("repairedAt") long repairedAt) {
+            this.range = range;
+            this.repairedAt = repairedAt;
+        }
+
+        @JsonProperty
+        public TokenRange getRange() {
+            return range;
+        }
+
+        @JsonProperty
+        public long getRepairedAt() {
+            return repairedAt;
+        }
+    }
+}
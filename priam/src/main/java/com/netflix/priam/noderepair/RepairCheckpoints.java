@@ -0,0 +1,220 @@
+package com.netflix.priam.noderepair;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.netflix.priam.utils.TokenRange;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link RepairCheckpoint} of each keyspace in ZooKeeper, so a repair interrupted by a restart or a failed
+ * session resumes on the next run instead of starting over from the first keyspace.
+ * <p/>
+ * Only ranges repaired by the current run, or by the interrupted run it resumes, are skipped.  A run that finished
+ * leaves nothing to skip, so every scheduled run repairs everything however close together runs are.  An interrupted
+ * run is only resumed within {@code resumeMillis} of its start, after which the next run starts over.
+ * <p/>
+ * Checkpoints only save work.  If ZooKeeper can't be read the range is repaired again, and if it can't be written
+ * the repair carries on without the checkpoint.
+ */
+public class RepairCheckpoints {
+    private static final Logger logger = LoggerFactory.getLogger(RepairCheckpoints.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final CuratorFramework curator;
+    private final String basePath;
+    private final long resumeMillis;
+    private long runStartedAt;
+
+    /**
+     * @param basePath the ZooKeeper path of this node's checkpoints, which holds the current run and under which each
+     *                 keyspace gets a node
+     */
+    public RepairCheckpoints(CuratorFramework curator, String basePath, long resumeMillis) {
+        this.curator = curator;
+        this.basePath = basePath;
+        this.resumeMillis = resumeMillis;
+    }
+
+    public boolean isEnabled() {
+        return resumeMillis > 0;
+    }
+
+    /**
+     * Starts a run, or resumes the last one if it was interrupted recently enough.
+     */
+    public void begin() {
+        long now = System.currentTimeMillis();
+        runStartedAt = now;
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Run run = readRun();
+            if (run != null && run.finishedAt == 0 && now - run.startedAt < resumeMillis) {
+                runStartedAt = run.startedAt;
+                logger.info("resuming the repair run started at {}", runStartedAt);
+                return;
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to read the current repair run", e);
+        }
+        writeRun(new Run(now, 0));
+    }
+
+    /**
+     * Records that the run repaired everything, so the next run starts over.
+     */
+    public void finish() {
+        if (isEnabled()) {
+            writeRun(new Run(runStartedAt, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * The subranges of the keyspace the current run planned, before it was interrupted if it is resumed.
+     */
+    public Optional<List<TokenRange>> getPlanned(String keyspace) {
+        Optional<RepairCheckpoint> checkpoint = read(keyspace);
+        return checkpoint.isPresent() ? checkpoint.get().getPlanned(runStartedAt) : Optional.<List<TokenRange>>absent();
+    }
+
+    /**
+     * Records the subranges of the keyspace the current run is about to repair.
+     */
+    public void planned(String keyspace, final List<TokenRange> subranges) {
+        update(keyspace, new Update() {
+            @Override
+            public void apply(RepairCheckpoint checkpoint, long now) {
+                checkpoint.planned(subranges, runStartedAt, now);
+            }
+        });
+    }
+
+    /**
+     * Whether the range of the keyspace, or its whole primary range if null, was repaired by the current run.
+     */
+    public boolean isRepaired(String keyspace, TokenRange range) {
+        Optional<RepairCheckpoint> checkpoint = read(keyspace);
+        return checkpoint.isPresent() && checkpoint.get().isRepaired(range, runStartedAt);
+    }
+
+    /**
+     * Records that the range of the keyspace, or its whole primary range if null, was just repaired.
+     */
+    public void repaired(String keyspace, final TokenRange range) {
+        update(keyspace, new Update() {
+            @Override
+            public void apply(RepairCheckpoint checkpoint, long now) {
+                checkpoint.repaired(range, runStartedAt, now);
+            }
+        });
+    }
+
+    private Optional<RepairCheckpoint> read(String keyspace) {
+        if (!isEnabled()) {
+            return Optional.absent();
+        }
+        try {
+            byte[] data = curator.getData().forPath(path(keyspace));
+            return Optional.of(OBJECT_MAPPER.readValue(data, RepairCheckpoint.class));
+        } catch (KeeperException.NoNodeException e) {
+            return Optional.absent();
+        } catch (Exception e) {
+            logger.warn("Unable to read the repair checkpoint of keyspace {}", keyspace, e);
+            return Optional.absent();
+        }
+    }
+
+    private void update(String keyspace, Update update) {
+        if (!isEnabled()) {
+            return;
+        }
+        String path = path(keyspace);
+        try {
+            // Only the node itself writes its checkpoints, but don't lose an update if that ever changes
+            while (true) {
+                Stat stat = new Stat();
+                RepairCheckpoint checkpoint;
+                try {
+                    checkpoint = OBJECT_MAPPER.readValue(curator.getData().storingStatIn(stat).forPath(path),
+                            RepairCheckpoint.class);
+                } catch (KeeperException.NoNodeException e) {
+                    checkpoint = new RepairCheckpoint(keyspace);
+                    stat = null;
+                }
+                update.apply(checkpoint, System.currentTimeMillis());
+                byte[] data = OBJECT_MAPPER.writeValueAsBytes(checkpoint);
+                try {
+                    if (stat == null) {
+                        curator.create().creatingParentsIfNeeded().forPath(path, data);
+                    } else {
+                        curator.setData().withVersion(stat.getVersion()).forPath(path, data);
+                    }
+                    return;
+                } catch (KeeperException.NodeExistsException | KeeperException.BadVersionException e) {
+                    logger.debug("Repair checkpoint of keyspace {} changed while updating it, retrying", keyspace);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to save the repair checkpoint of keyspace {}", keyspace, e);
+        }
+    }
+
+    private Run readRun() throws Exception {
+        try {
+            byte[] data = curator.getData().forPath(basePath);
+            // The node is empty if it was only created as the parent of a keyspace checkpoint
+            return data != null && data.length > 0 ? OBJECT_MAPPER.readValue(data, Run.class) : null;
+        } catch (KeeperException.NoNodeException e) {
+            return null;
+        }
+    }
+
+    private void writeRun(Run run) {
+        try {
+            byte[] data = OBJECT_MAPPER.writeValueAsBytes(run);
+            try {
+                curator.setData().forPath(basePath, data);
+            } catch (KeeperException.NoNodeException e) {
+                curator.create().creatingParentsIfNeeded().forPath(basePath, data);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to save the current repair run", e);
+        }
+    }
+
+    private String path(String keyspace) {
+        return basePath + "/" + keyspace;
+    }
+
+    private interface Update {
+        void apply(RepairCheckpoint checkpoint, long now);
+    }
+
+    /**
+     * When the node's current or last run started and, once it repaired everything, finished.
+     */
+    static class Run {
+        @JsonProperty
+        long startedAt;
+
+        @JsonProperty
+        long finishedAt;
+
+        // For Jackson
+        Run() {
+        }
+
+        Run(long startedAt, long finishedAt) {
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.netflix.priam.noderepair;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps the {@link TableHistory} of every column family of a node in one ZooKeeper node, keyed by
+ * {@code keyspace.columnfamily}, for the {@link RepairPlanner} to work out what is due.
+ * <p/>
+ * If the history can't be read every column family looks never repaired, so the planner errs on repairing too much.
+ */
+public class RepairHistory {
+    private static final Logger logger = LoggerFactory.getLogger(RepairHistory.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, TableHistory>> TYPE = new TypeReference<Map<String, TableHistory>>() {
+    };
+
+    private final CuratorFramework curator;
+    private final String path;
+
+    public RepairHistory(CuratorFramework curator, String path) {
+        this.curator = curator;
+        this.path = path;
+    }
+
+    public static String key(String keyspace, String columnFamily) {
+        return keyspace + "." + columnFamily;
+    }
+
+    public Map<String, TableHistory> read() {
+        try {
+            return OBJECT_MAPPER.readValue(curator.getData().forPath(path), TYPE);
+        } catch (KeeperException.NoNodeException e) {
+            return Maps.newHashMap();
+        } catch (Exception e) {
+            logger.warn("Unable to read the repair history", e);
+            return Maps.newHashMap();
+        }
+    }
+
+    /**
+     * Records that the slice of the column families, which started at {@code startedAt}, was repaired.
+     */
+    public void repaired(String keyspace, Collection<String> columnFamilies, int slice, int slices, long startedAt) {
+        try {
+            // Only the node itself writes its history, but don't lose an update if that ever changes
+            while (true) {
+                Stat stat = new Stat();
+                Map<String, TableHistory> history;
+                try {
+                    history = OBJECT_MAPPER.readValue(curator.getData().storingStatIn(stat).forPath(path), TYPE);
+                } catch (KeeperException.NoNodeException e) {
+                    history = Maps.newHashMap();
+                    stat = null;
+                }
+                for (String columnFamily : columnFamilies) {
+                    TableHistory table = history.get(key(keyspace, columnFamily));
+                    if (table == null) {
+                        history.put(key(keyspace, columnFamily), table = new TableHistory());
+                    }
+                    table.repaired(slice, slices, startedAt);
+                }
+                byte[] data = OBJECT_MAPPER.writeValueAsBytes(history);
+                try {
+                    if (stat == null) {
+                        curator.create().creatingParentsIfNeeded().forPath(path, data);
+                    } else {
+                        curator.setData().withVersion(stat.getVersion()).forPath(path, data);
+                    }
+                    return;
+                } catch (KeeperException.NodeExistsException | KeeperException.BadVersionException e) {
+                    logger.debug("Repair history changed while updating it, retrying");
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to save the repair history of {} {}", keyspace, columnFamilies, e);
+        }
+    }
+}
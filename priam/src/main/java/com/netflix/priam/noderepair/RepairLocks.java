@@ -0,0 +1,123 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.netflix.priam.utils.TokenRange;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
+import org.apache.curator.framework.recipes.locks.Lease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates scheduled repairs across the nodes of the region.  A repair locks every replica of the ranges it repairs,
+ * so nodes whose replica sets don't overlap repair at the same time while no node takes part in two repairs at once.
+ * A repair also holds one of a fixed number of leases, which caps how many run at once however the replicas fall.
+ * <p/>
+ * Every node must be configured with the same number of leases.
+ */
+public class RepairLocks {
+    private static final Logger logger = LoggerFactory.getLogger(RepairLocks.class);
+
+    private final CuratorFramework curator;
+    private final String basePath;
+    private final int maxConcurrentRepairs;
+
+    public RepairLocks(CuratorFramework curator, String basePath, int maxConcurrentRepairs) {
+        this.curator = curator;
+        this.basePath = basePath;
+        this.maxConcurrentRepairs = maxConcurrentRepairs;
+    }
+
+    /**
+     * Locks the replicas and takes a lease, waiting up to the timeout for all of them together.  Locks already taken
+     * are released if the rest can't be had in time.  The locks must be released by the thread that took them.
+     *
+     * @return the held locks, to be closed when the repair is done, or absent if they couldn't be had in time
+     */
+    public Optional<Held> acquire(Collection<String> replicas, long timeout, TimeUnit unit) throws Exception {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<InterProcessMutex> replicaLocks = Lists.newArrayList();
+        boolean acquired = false;
+        try {
+            // In a consistent order, so two nodes locking overlapping replicas don't each hold what the other waits for
+            for (String replica : ImmutableSortedSet.copyOf(replicas)) {
+                InterProcessMutex replicaLock = new InterProcessMutex(curator, basePath + "/_replicas/" + replica);
+                if (!replicaLock.acquire(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                    logger.info("replica {} is busy with another repair", replica);
+                    return Optional.absent();
+                }
+                replicaLocks.add(replicaLock);
+            }
+            InterProcessSemaphoreV2 semaphore = new InterProcessSemaphoreV2(curator, basePath + "/_leases", maxConcurrentRepairs);
+            Lease lease = semaphore.acquire(remaining(deadline), TimeUnit.NANOSECONDS);
+            if (lease == null) {
+                logger.info("{} repairs are already running", maxConcurrentRepairs);
+                return Optional.absent();
+            }
+            acquired = true;
+            return Optional.of(new Held(replicaLocks, lease));
+        } finally {
+            if (!acquired) {
+                release(replicaLocks);
+            }
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static void release(List<InterProcessMutex> replicaLocks) {
+        for (InterProcessMutex replicaLock : Lists.reverse(replicaLocks)) {
+            try {
+                replicaLock.release();
+            } catch (Exception e) {
+                logger.warn("Unable to release a replica lock", e);
+            }
+        }
+    }
+
+    /**
+     * The endpoints holding a replica of any range this node is primary for, ie. those a primary range repair of the
+     * keyspace involves.
+     */
+    public static SortedSet<String> replicas(Map<TokenRange, List<String>> rangeToEndpoints, Collection<String> localTokens) {
+        ImmutableSortedSet.Builder<String> replicas = ImmutableSortedSet.naturalOrder();
+        for (Map.Entry<TokenRange, List<String>> entry : rangeToEndpoints.entrySet()) {
+            if (localTokens.contains(entry.getKey().getEnd())) {
+                replicas.addAll(entry.getValue());
+            }
+        }
+        return replicas.build();
+    }
+
+    public static class Held implements Closeable {
+        private final List<InterProcessMutex> replicaLocks;
+        private final Lease lease;
+
+        private Held(List<InterProcessMutex> replicaLocks, Lease lease) {
+            this.replicaLocks = replicaLocks;
+            this.lease = lease;
+        }
+
+        @Override
+        public void close() {
+            try {
+                lease.close();
+            } catch (Exception e) {
+                logger.warn("Unable to return the repair lease", e);
+            }
+            release(replicaLocks);
+        }
+    }
+}
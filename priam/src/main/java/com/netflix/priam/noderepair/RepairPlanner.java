@@ -0,0 +1,177 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which column families a scheduled repair run covers, and in what order, from their gc_grace_seconds, size
+ * and when each was last repaired.  A deleted column that a replica missed must be repaired onto it before the
+ * tombstone is purged, gc_grace_seconds after the delete, or it comes back.  So each column family has a deadline of
+ * its last repair plus its gc_grace_seconds, and is due once {@code gcGraceFraction} of that has passed.
+ * <p/>
+ * Due column families are repaired least slack first, where slack is how long the last run that could still finish
+ * before the deadline is away.  Small column families of a keyspace are repaired together in one session.  Large ones
+ * are repaired a slice of the primary range per run, started early enough for every slice to be done in time.  A
+ * per-run budget of data to repair defers what can wait for a later run, but never what can't.
+ */
+public class RepairPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(RepairPlanner.class);
+    static final int MAX_SLICES = 64;
+
+    private final double gcGraceFraction;
+    private final long runIntervalMillis;
+    private final long smallTableBytes;
+    private final long largeTableBytes;
+    private final long budgetBytes;
+
+    /**
+     * @param runIntervalMillis how often repair runs
+     * @param budgetBytes       data to repair per run, 0 for no limit
+     */
+    public RepairPlanner(double gcGraceFraction, long runIntervalMillis, long smallTableBytes, long largeTableBytes,
+                         long budgetBytes) {
+        this.gcGraceFraction = gcGraceFraction;
+        this.runIntervalMillis = runIntervalMillis;
+        this.smallTableBytes = smallTableBytes;
+        this.largeTableBytes = largeTableBytes;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public List<Step> plan(Collection<RepairCandidate> candidates, Map<String, TableHistory> history, long now) {
+        List<Step> due = Lists.newArrayList();
+        for (RepairCandidate candidate : candidates) {
+            if (candidate.getGcGraceSeconds() <= 0) {
+                logger.debug("{}.{} keeps no tombstones to repair before they are purged, not planning it",
+                        candidate.getKeyspace(), candidate.getColumnFamily());
+                continue;
+            }
+            long gcGraceMillis = TimeUnit.SECONDS.toMillis(candidate.getGcGraceSeconds());
+            TableHistory table = history.get(RepairHistory.key(candidate.getKeyspace(), candidate.getColumnFamily()));
+            long lastRepairedAt = table != null ? table.getLastRepairedAt() : 0;
+            boolean inProgress = table != null && table.isInProgress();
+            int slices = inProgress ? table.getSlices() : slices(candidate.getSizeBytes(), gcGraceMillis);
+            int slice = inProgress ? table.getNextSlice() : 0;
+            int runsLeft = slices - slice;
+            // The last run that could repair the remaining slices, one per run, before the deadline
+            long latestStart = lastRepairedAt + gcGraceMillis - runsLeft * runIntervalMillis;
+            long dueAt = lastRepairedAt + (long) (gcGraceMillis * gcGraceFraction) - (runsLeft - 1) * runIntervalMillis;
+            if (inProgress || now >= dueAt) {
+                due.add(new Step(candidate, slice, slices, latestStart - now));
+            }
+        }
+        Collections.sort(due, new Comparator<Step>() {
+            @Override
+            public int compare(Step o1, Step o2) {
+                return Long.compare(o1.getSlackMillis(), o2.getSlackMillis());
+            }
+        });
+
+        List<Step> steps = Lists.newArrayList();
+        Map<String, Step> batches = Maps.newHashMap();
+        long planned = 0;
+        for (Step step : due) {
+            RepairCandidate candidate = step.candidates.get(0);
+            long bytes = candidate.getSizeBytes() / step.getSlices();
+            // Waiting for the next run would miss the deadline, so the budget doesn't apply
+            boolean urgent = step.getSlackMillis() < runIntervalMillis;
+            if (!urgent && budgetBytes > 0 && planned + bytes > budgetBytes) {
+                logger.info("deferring repair of {}.{} to a later run, {} of the {} byte budget is planned already",
+                        candidate.getKeyspace(), candidate.getColumnFamily(), planned, budgetBytes);
+                continue;
+            }
+            planned += bytes;
+            boolean small = step.getSlices() == 1 && candidate.getSizeBytes() <= smallTableBytes;
+            Step batch = small ? batches.get(candidate.getKeyspace()) : null;
+            if (batch != null) {
+                batch.candidates.add(candidate);
+            } else {
+                steps.add(step);
+                if (small) {
+                    batches.put(candidate.getKeyspace(), step);
+                }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Large column families are repaired in slices of about {@code largeTableBytes}, but no more slices than runs in
+     * the {@code gcGraceFraction} of gc_grace_seconds, so a pass ends before the next is due.
+     */
+    private int slices(long sizeBytes, long gcGraceMillis) {
+        if (largeTableBytes <= 0 || sizeBytes <= largeTableBytes) {
+            return 1;
+        }
+        long slices = (sizeBytes + largeTableBytes - 1) / largeTableBytes;
+        long runs = (long) (gcGraceMillis * gcGraceFraction) / Math.max(1, runIntervalMillis);
+        return (int) Math.max(1, Math.min(slices, Math.min(runs, MAX_SLICES)));
+    }
+
+    /**
+     * One repair session of the plan: a slice of the primary range of one column family, or the whole primary range of
+     * one or more column families of a keyspace.
+     */
+    public static class Step {
+        private final List<RepairCandidate> candidates = Lists.newArrayList();
+        private final int slice;
+        private final int slices;
+        private final long slackMillis;
+
+        Step(RepairCandidate candidate, int slice, int slices, long slackMillis) {
+            this.candidates.add(candidate);
+            this.slice = slice;
+            this.slices = slices;
+            this.slackMillis = slackMillis;
+        }
+
+        public String getKeyspace() {
+            return candidates.get(0).getKeyspace();
+        }
+
+        public List<String> getColumnFamilies() {
+            ImmutableList.Builder<String> columnFamilies = ImmutableList.builder();
+            for (RepairCandidate candidate : candidates) {
+                columnFamilies.add(candidate.getColumnFamily());
+            }
+            return columnFamilies.build();
+        }
+
+        /**
+         * Which slice of the primary range to repair, from 0.
+         */
+        public int getSlice() {
+            return slice;
+        }
+
+        /**
+         * How many slices the primary range is repaired in, 1 to repair it whole.
+         */
+        public int getSlices() {
+            return slices;
+        }
+
+        /**
+         * How long after the run the last run that could still repair the most urgent column family in time is.
+         * Negative when its deadline is already out of reach.
+         */
+        public long getSlackMillis() {
+            return slackMillis;
+        }
+
+        @Override
+        public String toString() {
+            String step = getKeyspace() + " " + getColumnFamilies();
+            return slices > 1 ? step + " slice " + (slice + 1) + " of " + slices : step;
+        }
+    }
+}
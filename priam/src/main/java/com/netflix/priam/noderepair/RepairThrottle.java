@@ -0,0 +1,181 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.RepairThrottleConfiguration;
+import com.netflix.priam.stats.ColumnFamilyMetrics;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.stats.NodeStatsSnapshot;
+import com.netflix.priam.stats.ThreadPoolStats;
+import com.netflix.priam.utils.Sleeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paces scheduled repair by the load of the node, so validation compactions and streaming use spare capacity rather
+ * than the capacity reads and writes need.  Before each unit of repair the latest stats snapshot is checked against
+ * high and low marks for pending compactions, dropped mutations and reads, blocked tasks and read latency.
+ * <p/>
+ * Over any high mark repair pauses until everything is back under the low marks, and later subranges are split
+ * finer so each session holds the node for less time.  Between the marks each unit waits a little first.  After a
+ * run of units under the low marks the subranges grow back.
+ * <p/>
+ * Without a recent snapshot, eg. with the collector disabled, repair runs unthrottled.
+ */
+@Singleton
+public class RepairThrottle {
+    private static final Logger logger = LoggerFactory.getLogger(RepairThrottle.class);
+    private static final List<String> FOREGROUND_MESSAGES = ImmutableList.of("MUTATION", "READ");
+
+    enum Load {UNDER, BETWEEN, OVER}
+
+    private final RepairThrottleConfiguration configuration;
+    private final NodeStatsCollector statsCollector;
+    private final Sleeper sleeper;
+
+    // Guarded by this
+    private boolean pausing;
+    private int splitFactor = 1;
+    private int healthyUnits;
+    private long lastSnapshotTimestamp;
+    private long lastDroppedTotal = -1;
+    private long lastDropped;
+
+    @Inject
+    public RepairThrottle(RepairThrottleConfiguration configuration, NodeStatsCollector statsCollector, Sleeper sleeper) {
+        this.configuration = configuration;
+        this.statsCollector = statsCollector;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Waits until the node has room for the next unit of repair.
+     *
+     * @return how many ways to split the next subrange, 1 to repair it whole
+     */
+    public synchronized int awaitCapacity() throws InterruptedException {
+        if (!configuration.isEnabled()) {
+            return 1;
+        }
+        long paused = 0;
+        while (true) {
+            Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot();
+            if (!snapshot.isPresent()) {
+                logger.debug("No recent stats, repairing unthrottled");
+                return splitFactor;
+            }
+            List<String> reasons = Lists.newArrayList();
+            Load load = assess(snapshot.get(), reasons);
+            if (pausing) {
+                if (load == Load.UNDER) {
+                    logger.info("Node load is back down after {}ms, resuming repair", paused);
+                    pausing = false;
+                    return splitFactor;
+                }
+                if (paused >= configuration.getMaxPauseMS()) {
+                    logger.warn("Node still loaded after pausing repair for {}ms ({}), carrying on",
+                            paused, Joiner.on(", ").join(reasons));
+                    return splitFactor;
+                }
+                sleeper.sleep(configuration.getPauseMS());
+                paused += configuration.getPauseMS();
+                continue;
+            }
+            switch (load) {
+                case OVER:
+                    pausing = true;
+                    healthyUnits = 0;
+                    splitFactor = Math.min(splitFactor * 2, Math.max(1, configuration.getMaxSplitFactor()));
+                    logger.info("Node is loaded ({}), pausing repair and splitting subranges {} ways",
+                            Joiner.on(", ").join(reasons), splitFactor);
+                    break;
+                case BETWEEN:
+                    healthyUnits = 0;
+                    sleeper.sleep(configuration.getYieldMS());
+                    return splitFactor;
+                default:
+                    if (++healthyUnits >= configuration.getHealthyUnitsToSpeedUp() && splitFactor > 1) {
+                        splitFactor /= 2;
+                        healthyUnits = 0;
+                        logger.info("Node has room, splitting subranges {} ways", splitFactor);
+                    }
+                    return splitFactor;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized Load assess(NodeStatsSnapshot snapshot, List<String> reasons) {
+        boolean over = false;
+        boolean under = true;
+
+        int pendingCompactions = snapshot.getCompactionStats().getPendingTasks();
+        if (pendingCompactions > configuration.getPendingCompactionsHigh()) {
+            over = true;
+            reasons.add(pendingCompactions + " pending compactions");
+        }
+        under &= pendingCompactions <= configuration.getPendingCompactionsLow();
+
+        long dropped = droppedSinceLastSnapshot(snapshot);
+        if (dropped > configuration.getDroppedMessagesHigh()) {
+            over = true;
+            reasons.add(dropped + " dropped mutations and reads");
+        }
+        under &= dropped == 0;
+
+        int blocked = 0;
+        for (ThreadPoolStats pool : snapshot.getTpStats().getThreadPools()) {
+            blocked += pool.getBlocked();
+        }
+        if (blocked > configuration.getBlockedTasksHigh()) {
+            over = true;
+            reasons.add(blocked + " blocked tasks");
+        }
+        under &= blocked == 0;
+
+        double readLatency = 0;
+        for (ColumnFamilyMetrics columnFamily : snapshot.getColumnFamilies()) {
+            // NaN when there were no reads, which the comparison skips
+            if (columnFamily.getRecentReadLatencyMicros() > readLatency) {
+                readLatency = columnFamily.getRecentReadLatencyMicros();
+            }
+        }
+        if (readLatency > configuration.getReadLatencyHighMicros()) {
+            over = true;
+            reasons.add(String.format("%.0fus read latency", readLatency));
+        }
+        under &= readLatency <= configuration.getReadLatencyLowMicros();
+
+        return over ? Load.OVER : under ? Load.UNDER : Load.BETWEEN;
+    }
+
+    /**
+     * Dropped message counts are totals since Cassandra started, so what matters is how they grew between snapshots.
+     */
+    private long droppedSinceLastSnapshot(NodeStatsSnapshot snapshot) {
+        if (snapshot.getTimestamp() == lastSnapshotTimestamp) {
+            return lastDropped;
+        }
+        long total = 0;
+        Map<String, Integer> droppedMessages = snapshot.getTpStats().getDroppedMessages();
+        for (String message : FOREGROUND_MESSAGES) {
+            Integer count = droppedMessages.get(message);
+            if (count != null) {
+                total += count;
+            }
+        }
+        // Nothing to compare the first snapshot with, and a restarted node counts from zero again
+        lastDropped = lastDroppedTotal >= 0 && total >= lastDroppedTotal ? total - lastDroppedTotal : 0;
+        lastDroppedTotal = total;
+        lastSnapshotTimestamp = snapshot.getTimestamp();
+        return lastDropped;
+    }
+}
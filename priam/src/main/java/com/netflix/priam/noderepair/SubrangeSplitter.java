@@ -0,0 +1,80 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.netflix.priam.utils.TokenManager;
+import com.netflix.priam.utils.TokenRange;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the primary ranges of a node into subranges that are each repaired as a session of their own, so a session
+ * builds Merkle trees over fewer keys, streams less of what didn't differ, and a failure costs one subrange.
+ * <p/>
+ * Each primary range is split into a fixed number of subranges, or, when keys per subrange is set, into as many as
+ * the estimated keys of the range call for.
+ */
+public class SubrangeSplitter {
+    // Past this the sessions cost more in overhead than they save
+    private static final int MAX_SUBRANGES = 1024;
+
+    private final TokenManager tokenManager;
+    private final int subranges;
+    private final long keysPerSubrange;
+
+    public SubrangeSplitter(TokenManager tokenManager, int subranges, long keysPerSubrange) {
+        this.tokenManager = tokenManager;
+        this.subranges = subranges;
+        this.keysPerSubrange = keysPerSubrange;
+    }
+
+    public boolean isSizedByKeys() {
+        return keysPerSubrange > 0;
+    }
+
+    /**
+     * @param rangeToEndpoints the replicas of every range of the keyspace, with tokens as Cassandra prints them
+     * @param localTokens      the tokens of this node, as Cassandra prints them
+     * @param localEndpoint    the address of this node as it appears among the replicas
+     * @param estimatedKeys    the keys this node holds for the keyspace, across every range it replicates
+     */
+    public List<TokenRange> split(Map<TokenRange, List<String>> rangeToEndpoints, Collection<String> localTokens,
+                                  String localEndpoint, long estimatedKeys) {
+        List<TokenRange> primaryRanges = Lists.newArrayList();
+        int replicatedRanges = 0;
+        for (Map.Entry<TokenRange, List<String>> entry : rangeToEndpoints.entrySet()) {
+            if (localTokens.contains(entry.getKey().getEnd())) {
+                primaryRanges.add(entry.getKey());
+            }
+            if (entry.getValue().contains(localEndpoint)) {
+                replicatedRanges++;
+            }
+        }
+        int count = subrangesPerRange(estimatedKeys / Math.max(1, replicatedRanges));
+
+        List<TokenRange> result = Lists.newArrayList();
+        for (TokenRange range : primaryRanges) {
+            String start = tokenManager.sanitizeToken(range.getStart());
+            String end = tokenManager.sanitizeToken(range.getEnd());
+            if (count == 1) {
+                result.add(new TokenRange(start, end));
+                continue;
+            }
+            List<String> boundaries = tokenManager.splitRange(start, end, count);
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                result.add(new TokenRange(boundaries.get(i), boundaries.get(i + 1)));
+            }
+        }
+        return ImmutableList.copyOf(result);
+    }
+
+    private int subrangesPerRange(long keysPerRange) {
+        if (!isSizedByKeys()) {
+            return Math.max(1, Math.min(subranges, MAX_SUBRANGES));
+        }
+        long count = (keysPerRange + keysPerSubrange - 1) / keysPerSubrange;
+        return (int) Math.max(1, Math.min(count, MAX_SUBRANGES));
+    }
+}
@@ -0,0 +1,68 @@
+package com.netflix.priam.noderepair;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * When the scheduled repair of one node last covered one column family, as kept in ZooKeeper.  Large column families
+ * are repaired a slice of the primary range per run, and only count as repaired, as of when the first slice started,
+ * once every slice is done.
+ */
+@JsonPropertyOrder({"lastRepairedAt", "passStartedAt", "slices", "nextSlice"})
+public class TableHistory {
+    @JsonProperty
+    private long lastRepairedAt;
+
+    @JsonProperty
+    private long passStartedAt;
+
+    @JsonProperty
+    private int slices;
+
+    @JsonProperty
+    private int nextSlice;
+
+    /**
+     * When the last complete repair started, or 0 if the column family was never repaired.
+     */
+    public long getLastRepairedAt() {
+        return lastRepairedAt;
+    }
+
+    public long getPassStartedAt() {
+        return passStartedAt;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    public int getNextSlice() {
+        return nextSlice;
+    }
+
+    /**
+     * Whether some but not all slices of the current pass are repaired.
+     */
+    @JsonIgnore
+    public boolean isInProgress() {
+        return nextSlice > 0 && nextSlice < slices;
+    }
+
+    /**
+     * Records that the slice of {@code slices}, which started at {@code startedAt}, was repaired.  Slice 0 starts a
+     * new pass.
+     */
+    public void repaired(int slice, int slices, long startedAt) {
+        if (slice == 0) {
+            this.passStartedAt = startedAt;
+            this.slices = slices;
+        }
+        nextSlice = slice + 1;
+        if (nextSlice >= this.slices) {
+            lastRepairedAt = passStartedAt;
+            nextSlice = 0;
+        }
+    }
+}
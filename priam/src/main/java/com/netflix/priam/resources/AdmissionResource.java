@@ -0,0 +1,33 @@
+package com.netflix.priam.resources;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.netflix.priam.jobs.AdmissionController;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The heavyweight maintenance operations holding or waiting for a slot on this node.
+ */
+@Path("/v1/admission")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdmissionResource {
+    private final AdmissionController admissionController;
+
+    @Inject
+    public AdmissionResource(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @GET
+    public Map<String, List<AdmissionController.Ticket>> get() {
+        return ImmutableMap.of(
+                "running", admissionController.getRunning(),
+                "waiting", admissionController.getWaiting());
+    }
+}
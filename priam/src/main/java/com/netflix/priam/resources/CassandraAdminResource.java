@@ -15,47 +15,83 @@
  */
 package com.netflix.priam.resources;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
 import com.google.inject.Inject;
 import com.netflix.priam.ICassandraProcess;
 import com.netflix.priam.PriamServer;
-import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.batch.BatchRequest;
+import com.netflix.priam.batch.BatchResult;
+import com.netflix.priam.batch.BatchRunner;
+import com.netflix.priam.batch.BatchStep;
 import com.netflix.priam.config.PriamConfiguration;
+import com.netflix.priam.gossip.EndpointGossipState;
+import com.netflix.priam.gossip.GossipInfoParser;
+import com.netflix.priam.jobs.AdminJob;
+import com.netflix.priam.jobs.AdmissionController;
+import com.netflix.priam.jobs.AdmissionRejectedException;
+import com.netflix.priam.jobs.JobDefinition;
+import com.netflix.priam.jobs.JobManager;
+import com.netflix.priam.jobs.Priority;
+import com.netflix.priam.jobs.ResourceClass;
+import com.netflix.priam.ring.NodeRequest;
+import com.netflix.priam.ring.NodeResult;
+import com.netflix.priam.ring.RingFanOut;
+import com.netflix.priam.stats.ColumnFamilyHistograms;
+import com.netflix.priam.stats.ColumnFamilyStats;
+import com.netflix.priam.stats.ColumnFamilyStatsWriter;
+import com.netflix.priam.stats.CompactionStats;
+import com.netflix.priam.stats.KeyEstimate;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.stats.NodeStatsSnapshot;
+import com.netflix.priam.stats.StreamFile;
+import com.netflix.priam.stats.StreamPeer;
+import com.netflix.priam.stats.StreamingSummary;
+import com.netflix.priam.stats.StreamingTracker;
+import com.netflix.priam.stats.TpStats;
+import com.netflix.priam.utils.EndpointTopologyCache;
+import com.netflix.priam.utils.JMXCallable;
 import com.netflix.priam.utils.JMXConnectionException;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.netflix.priam.utils.JMXNodeTool;
-import com.sun.jersey.api.client.Client;
+import com.netflix.priam.utils.RingEntry;
 import com.sun.jersey.api.client.GenericType;
-import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutorMBean;
-import org.apache.cassandra.db.ColumnFamilyStoreMBean;
-import org.apache.cassandra.db.compaction.CompactionManagerMBean;
+import com.sun.jersey.api.client.WebResource;
 import org.apache.cassandra.net.MessagingServiceMBean;
-import org.apache.cassandra.utils.EstimatedHistogram;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
-import java.text.DecimalFormat;
+import java.net.URI;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Do general operations. Start/Stop and some JMX node tool commands
@@ -64,37 +100,183 @@ import java.util.Set;
 @Produces(MediaType.APPLICATION_JSON)
 public class CassandraAdminResource {
     private static final Map<String, String> RESULT_OK = ImmutableMap.of("result", "ok");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // Not in JAX-RS 1.1
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * What makes a ring different for an ETag: who owns which token, and in what state.  Load and ownership drift all
+     * the time and are left out, which makes the tag a weak one.
+     */
+    private static final Function<List<RingEntry>, List<List<String>>> RING_TOPOLOGY =
+            new Function<List<RingEntry>, List<List<String>>>() {
+                @Override
+                public List<List<String>> apply(List<RingEntry> ring) {
+                    List<List<String>> topology = Lists.newArrayList();
+                    for (RingEntry entry : ring) {
+                        topology.add(Lists.newArrayList(entry.getEndpoint(), entry.getDataCenter(), entry.getRack(),
+                                entry.getStatus(), entry.getState(), entry.getToken()));
+                    }
+                    return topology;
+                }
+            };
+
+    /**
+     * What makes node info different for an ETag: its tokens, where it sits and whether it is serving.  Load, uptime
+     * and heap use change on every read and are left out, which makes the tag a weak one.
+     */
+    private static final List<String> INFO_IDENTITY = ImmutableList.of(
+            "token", "data_center", "rack", "gossip_active", "thrift_active", "generation_no");
+    private static final Function<Map<String, Object>, List<Object>> INFO_VERSION =
+            new Function<Map<String, Object>, List<Object>>() {
+                @Override
+                public List<Object> apply(Map<String, Object> info) {
+                    List<Object> version = Lists.newArrayList();
+                    for (String field : INFO_IDENTITY) {
+                        version.add(info.get(field));
+                    }
+                    return version;
+                }
+            };
 
     private static final Logger logger = LoggerFactory.getLogger(CassandraAdminResource.class);
 
     enum HintsState {OK, UNREACHABLE, ERROR}
 
     private final PriamServer priamServer;
-    private final CassandraConfiguration cassandraConfiguration;
+    private final JMXConnectionPool jmxConnectionPool;
     private final PriamConfiguration priamConfiguration;
     private final ICassandraProcess cassProcess;
-    private final Client jersey;
+    private final NodeStatsCollector statsCollector;
+    private final EndpointTopologyCache topologyCache;
+    private final RingFanOut ringFanOut;
+    private final JobManager jobManager;
+    private final StreamingTracker streamingTracker;
+    private final AdmissionController admissionController;
+    private final ResponseCache responseCache;
+    private final BatchRunner batchRunner;
 
     @Inject
-    public CassandraAdminResource(PriamServer priamServer, CassandraConfiguration cassandraConfiguration,
-                                  PriamConfiguration priamConfiguration, ICassandraProcess cassProcess, Client jersey) {
+    public CassandraAdminResource(PriamServer priamServer, JMXConnectionPool jmxConnectionPool,
+                                  PriamConfiguration priamConfiguration, ICassandraProcess cassProcess,
+                                  NodeStatsCollector statsCollector, EndpointTopologyCache topologyCache,
+                                  RingFanOut ringFanOut, JobManager jobManager, StreamingTracker streamingTracker,
+                                  AdmissionController admissionController, ResponseCache responseCache,
+                                  BatchRunner batchRunner) {
         this.priamServer = priamServer;
-        this.cassandraConfiguration = cassandraConfiguration;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.statsCollector = statsCollector;
+        this.topologyCache = topologyCache;
+        this.ringFanOut = ringFanOut;
+        this.jobManager = jobManager;
+        this.streamingTracker = streamingTracker;
+        this.admissionController = admissionController;
+        this.responseCache = responseCache;
+        this.batchRunner = batchRunner;
         this.priamConfiguration = priamConfiguration;
         this.cassProcess = cassProcess;
-        this.jersey = jersey;
     }
 
-    private JMXNodeTool getNodeTool() {
+    private <T> T jmx(JMXCallable<T> callable) throws Exception {
+        return jmx(callable, priamConfiguration.getJmxConfiguration().getCallTimeoutMS());
+    }
+
+    /**
+     * Runs a long-running maintenance operation such as compaction or repair, which gets a longer deadline than reads
+     * and runs apart from them.
+     */
+    private <T> T operation(JMXCallable<T> callable) throws Exception {
         try {
-            return JMXNodeTool.instance(cassandraConfiguration);
+            return jmxConnectionPool.executeOperation(callable);
         } catch (JMXConnectionException e) {
-            throw new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
-                    .entity("JMXConnectionException")
+            throw serviceUnavailable(e);
+        }
+    }
+
+    private <T> T jmx(JMXCallable<T> callable, long timeoutMillis) throws Exception {
+        try {
+            return jmxConnectionPool.execute(callable, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (JMXConnectionException e) {
+            throw serviceUnavailable(e);
+        }
+    }
+
+    /**
+     * Unreachable, hung or saturated.  Tell the client to back off instead of tying up a request thread.
+     */
+    private WebApplicationException serviceUnavailable(JMXConnectionException e) {
+        return new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, priamConfiguration.getJmxConfiguration().getRetryAfterSeconds())
+                .entity(e.getClass().getSimpleName())
+                .build());
+    }
+
+    private WebApplicationException tooManyRequests(AdmissionRejectedException e) {
+        return new WebApplicationException(Response.status(TOO_MANY_REQUESTS)
+                .entity(ImmutableMap.of("error", e.getMessage(), "blocking", e.getBlocking()))
+                .type(MediaType.APPLICATION_JSON)
+                .build());
+    }
+
+    private Priority priority(String priority) {
+        if (StringUtils.isBlank(priority)) {
+            return Priority.NORMAL;
+        }
+        try {
+            return Priority.valueOf(priority.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Unknown priority " + priority)
+                    .type(MediaType.TEXT_PLAIN)
                     .build());
         }
     }
 
+    private int parallelism(Integer parallelism) {
+        return parallelism != null ? parallelism : priamConfiguration.getJobsConfiguration().getDefaultParallelism();
+    }
+
+    private Response job(JobDefinition definition, boolean async) throws Exception {
+        return job(definition, async, false, null);
+    }
+
+    /**
+     * Submits a maintenance operation to the {@link JobManager}.  With {@code async} the job is returned right away
+     * for the client to poll under {@code /v1/jobs}.  Otherwise the request waits for the job to finish like it always
+     * has, but only for {@code jobs.syncWaitMS} so a compaction that takes hours doesn't hold an HTTP request thread.
+     * A job still running by then is returned the same way.
+     * <p/>
+     * Heavyweight operations the {@link AdmissionController} can't admit are rejected with 429 and the operations in
+     * the way, unless {@code queue} is set, in which case they wait their turn by {@code priority}.
+     */
+    private Response job(JobDefinition definition, boolean async, boolean queue, String priority) throws Exception {
+        AdminJob job;
+        try {
+            job = jobManager.submit(definition, priority(priority), queue);
+        } catch (AdmissionRejectedException e) {
+            throw tooManyRequests(e);
+        }
+        if (async || !job.await(priamConfiguration.getJobsConfiguration().getSyncWaitMS(), TimeUnit.MILLISECONDS)) {
+            return Response.status(Response.Status.ACCEPTED)
+                    .location(URI.create("/v1/jobs/" + job.getId()))
+                    .entity(job)
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+        }
+        if (job.getState() == AdminJob.State.CANCELLED) {
+            return Response.status(Response.Status.CONFLICT).entity(job).type(MediaType.APPLICATION_JSON).build();
+        }
+        Throwable failure = job.getFailure();
+        if (failure instanceof JMXConnectionException) {
+            throw serviceUnavailable((JMXConnectionException) failure);
+        }
+        if (failure != null) {
+            Throwables.propagateIfPossible(failure, Exception.class);
+            throw Throwables.propagate(failure);
+        }
+        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+    }
+
     @GET
     @Path("/start")
     public Response cassStart() throws IOException, InterruptedException {
@@ -111,33 +293,102 @@ public class CassandraAdminResource {
 
     @GET
     @Path("/refresh")
-    public Response cassRefresh(@QueryParam("keyspaces") String keyspaces) throws Exception {
+    public Response cassRefresh(@QueryParam("keyspaces") final String keyspaces) throws Exception {
         logger.info("node tool refresh is being called");
         if (StringUtils.isBlank(keyspaces)) {
             return Response.status(400).entity("Missing keyspace in request").build();
         }
 
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.refresh(Lists.newArrayList(keyspaces.split(",")));
+        operation(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodetool) throws Exception {
+                nodetool.refresh(Lists.newArrayList(keyspaces.split(",")));
+                return null;
+            }
+        });
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/info")
-    public Response cassInfo() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    public Response cassInfo(@QueryParam("maxStalenessMs") final Long maxStalenessMs, @Context Request request)
+            throws Exception {
+        ResponseCache.Entry<Map<String, Object>> info = responseCache.get("info",
+                priamConfiguration.getResponseCacheConfiguration().getInfoTtlMS(), maxStalenessMs,
+                new Callable<Map<String, Object>>() {
+                    @Override
+                    public Map<String, Object> call() throws Exception {
+                        return nodeInfo(maxStalenessMs);
+                    }
+                }, INFO_VERSION);
+        return responseCache.respond(request, info, Response.ok(info.getValue(), MediaType.APPLICATION_JSON).build());
+    }
+
+    @GET
+    @Path("/info/ring")
+    public Response cassInfoRing(@QueryParam("maxStalenessMs") final Long maxStalenessMs,
+                                 @QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        return fanOut("cassadmin/info", maxStalenessMs, new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() throws Exception {
+                return nodeInfo(maxStalenessMs);
+            }
+        }, timeoutMs);
+    }
+
+    private Map<String, Object> nodeInfo(Long maxStalenessMs) throws Exception {
+        Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot(maxStalenessMs);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getInfo();
+        }
         logger.info("node tool info being called");
-        return Response.ok(nodetool.info(), MediaType.APPLICATION_JSON).build();
+        return jmx(new JMXCallable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.info();
+            }
+        });
     }
 
     @GET
     @Path("/estimateKeys")
-    public Response estimateKeys(@QueryParam("keyspaces") String keyspaces) throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        Optional<Collection<String>> keyspaceCollection = StringUtils.isBlank(keyspaces) ?
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response estimateKeys(@QueryParam("keyspaces") String keyspaces, @QueryParam("format") String format)
+            throws Exception {
+        final Optional<Collection<String>> keyspaceCollection = splitList(keyspaces);
+        List<KeyEstimate> estimates = jmx(new JMXCallable<List<KeyEstimate>>() {
+            @Override
+            public List<KeyEstimate> call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.estimateKeys(keyspaceCollection);
+            }
+        });
+        return JsonStreamingOutput.rows(OBJECT_MAPPER, format, estimates).toResponse();
+    }
+
+    @GET
+    @Path("/cfstats")
+    public Response cfstats(@QueryParam("keyspaces") String keyspaces,
+                            @QueryParam("columnfamilies") String columnFamilies) throws Exception {
+        final Optional<Collection<String>> keyspaceCollection = splitList(keyspaces);
+        final Optional<Collection<String>> columnFamilyCollection = splitList(columnFamilies);
+        final List<ColumnFamilyStats> stats = jmx(new JMXCallable<List<ColumnFamilyStats>>() {
+            @Override
+            public List<ColumnFamilyStats> call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.columnFamilyStats(keyspaceCollection, columnFamilyCollection);
+            }
+        });
+        return Response.ok(new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                new ColumnFamilyStatsWriter(OBJECT_MAPPER).write(stats, output);
+            }
+        }, MediaType.APPLICATION_JSON).build();
+    }
+
+    private static Optional<Collection<String>> splitList(String values) {
+        return StringUtils.isBlank(values) ?
                 Optional.<Collection<String>>absent() :
-                Optional.<Collection<String>>of(Lists.newArrayList(keyspaces.split(",")));
-        return Response.ok(nodetool.estimateKeys(keyspaceCollection), MediaType.APPLICATION_JSON).build();
+                Optional.<Collection<String>>of(Lists.newArrayList(values.split(",")));
     }
 
     /**
@@ -148,49 +399,88 @@ public class CassandraAdminResource {
      */
     @GET
     @Path("/hints/ring")
-    public Response cassHintsInRing() throws Exception {
-        List<Map<String, Object>> ring = getNodeTool().ring();
-        List<Map<String, Object>> hintsInfo = Lists.newArrayList();
-        String selfIP = priamServer.getInstanceIdentity().getInstance().getHostIP();
-        for (Map<String, Object> node : ring) {
-            String endpoint = node.get("endpoint").toString();
+    public Response cassHintsInRing(@QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        List<NodeResult<Map<String, Object>>> results = fanOut(new NodeRequest<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> local() throws Exception {
+                return endpointsPendingHints();
+            }
 
-            try {
-                // Is this node down?
-                if (!node.get("status").toString().equalsIgnoreCase("up")) {
-                    hintsInfo.add(ImmutableMap.<String, Object>of(
-                            "endpoint", endpoint,
-                            "state", HintsState.UNREACHABLE));
-                    continue;
-                }
+            @Override
+            public Map<String, Object> remote(WebResource priam) throws Exception {
+                return priam.path("cassadmin/hints/node").get(new GenericType<Map<String, Object>>() {
+                });
+            }
+        }, timeoutMs);
 
-                Map<String, Object> fullNodeInfo = Maps.newLinkedHashMap();
-                // Do not make an outbound request to yourself
-                if (endpoint.equals(selfIP)) {
-                    Map<String, Object> nodeResponse = endpointsPendingHints();
-                    fullNodeInfo.putAll(nodeResponse);
-                } else {
-                    String url = String.format("http://%s:%s/v1/cassadmin/hints/node", endpoint,
-                            priamConfiguration.getHttpConfiguration().getPort());
-                    Map<String, Object> nodeResponse = jersey.resource(url)
-                            .get(new GenericType<Map<String, Object>>() {
-                            });
-
-                    fullNodeInfo.putAll(nodeResponse);
-                }
-                fullNodeInfo.put("endpoint", endpoint);
+        List<Map<String, Object>> hintsInfo = Lists.newArrayList();
+        for (NodeResult<Map<String, Object>> result : results) {
+            if (result.getStatus() == NodeResult.Status.DOWN) {
+                hintsInfo.add(ImmutableMap.<String, Object>of(
+                        "endpoint", result.getEndpoint(),
+                        "state", HintsState.UNREACHABLE));
+            } else if (!result.isSuccess()) {
+                hintsInfo.add(ImmutableMap.<String, Object>of(
+                        "endpoint", result.getEndpoint(),
+                        "state", HintsState.ERROR,
+                        "exception", result.getError()));
+            } else {
+                Map<String, Object> fullNodeInfo = Maps.newLinkedHashMap(result.getValue());
+                fullNodeInfo.put("endpoint", result.getEndpoint());
                 fullNodeInfo.put("state", HintsState.OK);
                 hintsInfo.add(fullNodeInfo);
+            }
+        }
+        return Response.ok(hintsInfo, MediaType.APPLICATION_JSON).build();
+    }
 
-            } catch (Exception e) {
-                hintsInfo.add(ImmutableMap.<String, Object>of(
-                        "endpoint", endpoint,
-                        "state", HintsState.ERROR,
-                        "exception", e.toString()));
+    /**
+     * Sends the request to every live node in the ring at once.  Down nodes are reported without being asked.
+     *
+     * @return one result per node, in ring order
+     */
+    private <T> List<NodeResult<T>> fanOut(NodeRequest<T> request, Long timeoutMs) throws Exception {
+        List<String> liveEndpoints = Lists.newArrayList();
+        Map<String, NodeResult<T>> results = Maps.newLinkedHashMap();
+        for (RingEntry node : ring(null, null)) {
+            String endpoint = node.getEndpoint();
+            if (node.isUp()) {
+                liveEndpoints.add(endpoint);
+                results.put(endpoint, null);
+            } else {
+                results.put(endpoint, NodeResult.<T>down(endpoint));
             }
         }
 
-        return Response.ok(hintsInfo, MediaType.APPLICATION_JSON).build();
+        String selfIP = priamServer.getInstanceIdentity().getInstance().getHostIP();
+        results.putAll(timeoutMs != null ?
+                ringFanOut.execute(liveEndpoints, selfIP, request, timeoutMs, TimeUnit.MILLISECONDS) :
+                ringFanOut.execute(liveEndpoints, selfIP, request));
+        return Lists.newArrayList(results.values());
+    }
+
+    /**
+     * Asks every node for one of the read-only {@code /v1/cassadmin} endpoints, answering for this node directly.
+     */
+    private Response fanOut(final String path, final Long maxStalenessMs, final Callable<?> local, Long timeoutMs)
+            throws Exception {
+        List<NodeResult<Object>> results = fanOut(new NodeRequest<Object>() {
+            @Override
+            public Object local() throws Exception {
+                return local.call();
+            }
+
+            @Override
+            public Object remote(WebResource priam) throws Exception {
+                WebResource resource = priam.path(path);
+                if (maxStalenessMs != null) {
+                    resource = resource.queryParam("maxStalenessMs", maxStalenessMs.toString());
+                }
+                return resource.get(new GenericType<Map<String, Object>>() {
+                });
+            }
+        }, timeoutMs);
+        return Response.ok(results, MediaType.APPLICATION_JSON).build();
     }
 
     /**
@@ -205,172 +495,279 @@ public class CassandraAdminResource {
     }
 
     public Map<String, Object> endpointsPendingHints() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        return ImmutableMap.<String, Object>of("totalEndpointsPendingHints", nodetool.totalEndpointsPendingHints());
+        long totalEndpointsPendingHints = jmx(new JMXCallable<Long>() {
+            @Override
+            public Long call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.totalEndpointsPendingHints();
+            }
+        });
+        return ImmutableMap.<String, Object>of("totalEndpointsPendingHints", totalEndpointsPendingHints);
     }
 
     @GET
     @Path("/ring/{keyspace}")
-    public Response cassRing(@PathParam("keyspace") String keyspace) throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response cassRing(@PathParam("keyspace") String keyspace, @QueryParam("format") String format)
+            throws Exception {
         logger.info("node tool ring being called");
-        return Response.ok(nodetool.ring(keyspace), MediaType.APPLICATION_JSON).build();
+        return JsonStreamingOutput.rows(OBJECT_MAPPER, format, ring(keyspace)).toResponse();
     }
 
     @GET
     @Path("/ring")
-    public Response cassRingAllKeyspaces(@PathParam("keyspace") String keyspace) throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response cassRingAllKeyspaces(@QueryParam("maxStalenessMs") final Long maxStalenessMs,
+                                         @QueryParam("format") String format, @Context Request request)
+            throws Exception {
+        ResponseCache.Entry<List<RingEntry>> ring = responseCache.get("ring",
+                priamConfiguration.getResponseCacheConfiguration().getRingTtlMS(), maxStalenessMs,
+                new Callable<List<RingEntry>>() {
+                    @Override
+                    public List<RingEntry> call() throws Exception {
+                        return ring(null, maxStalenessMs);
+                    }
+                }, RING_TOPOLOGY);
+        JsonStreamingOutput output = JsonStreamingOutput.rows(OBJECT_MAPPER, format, ring.getValue());
+        return responseCache.respond(request, ring, output.isNdjson() ? "ndjson" : "json", output.toResponse());
+    }
+
+    /**
+     * The collector only samples the ring across all keyspaces, so a keyspace-specific ring is always read live.
+     */
+    private List<RingEntry> ring(String keyspace, Long maxStalenessMs) throws Exception {
+        if (keyspace == null) {
+            Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot(maxStalenessMs);
+            if (snapshot.isPresent()) {
+                return snapshot.get().getRing();
+            }
+        }
         logger.info("node tool ring being called");
-        return Response.ok(nodetool.ring(), MediaType.APPLICATION_JSON).build();
+        return ring(keyspace);
+    }
+
+    private List<RingEntry> ring(final String keyspace) throws Exception {
+        return jmx(new JMXCallable<List<RingEntry>>() {
+            @Override
+            public List<RingEntry> call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.ring(keyspace, topologyCache);
+            }
+        });
     }
 
     @GET
     @Path("/flush")
-    public Response cassFlush() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    public Response cassFlush(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames,
+                              @QueryParam("parallelism") Integer parallelism, @QueryParam("async") boolean async)
+            throws Exception {
         logger.info("node tool flush being called");
-        nodetool.flush();
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return job(JobDefinition.flush(splitList(keyspaces), splitList(cfnames), parallelism(parallelism)), async);
     }
 
     @GET
     @Path("/compact")
-    public Response cassCompact() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    public Response cassCompact(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames,
+                                @QueryParam("parallelism") Integer parallelism, @QueryParam("async") boolean async,
+                                @QueryParam("queue") boolean queue, @QueryParam("priority") String priority)
+            throws Exception {
         logger.info("node tool compact being called");
-        nodetool.compact();
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return job(JobDefinition.compact(splitList(keyspaces), splitList(cfnames), parallelism(parallelism)), async,
+                queue, priority);
     }
 
     @GET
     @Path("/cleanup")
-    public Response cassCleanup() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    public Response cassCleanup(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames,
+                                @QueryParam("parallelism") Integer parallelism, @QueryParam("async") boolean async,
+                                @QueryParam("queue") boolean queue, @QueryParam("priority") String priority)
+            throws Exception {
         logger.info("node tool cleanup being called");
-        nodetool.cleanup();
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return job(JobDefinition.cleanup(splitList(keyspaces), splitList(cfnames), parallelism(parallelism)), async,
+                queue, priority);
     }
 
     @GET
     @Path("/repair")
     public Response cassRepair(@QueryParam("sequential") boolean isSequential,
                                @QueryParam("localDC") boolean localDCOnly,
-                               @QueryParam("primaryRange") boolean primaryRange) throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+                               @QueryParam("primaryRange") boolean primaryRange,
+                               @QueryParam("async") boolean async, @QueryParam("queue") boolean queue,
+                               @QueryParam("priority") String priority) throws Exception {
         logger.info("node tool repair being called");
-        nodetool.repair(isSequential, localDCOnly, primaryRange);
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return job(JobDefinition.repair(isSequential, localDCOnly, primaryRange), async, queue, priority);
     }
 
     @GET
     @Path("/version")
-    public Response version() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        return Response.ok(ImmutableMap.of("version", nodetool.getReleaseVersion()), MediaType.APPLICATION_JSON).build();
+    public Response version(@Context Request request) throws Exception {
+        ResponseCache.Entry<Map<String, String>> version = responseCache.get("version",
+                priamConfiguration.getResponseCacheConfiguration().getVersionTtlMS(), null,
+                new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() throws Exception {
+                        return nodeVersion();
+                    }
+                });
+        return responseCache.respond(request, version,
+                Response.ok(version.getValue(), MediaType.APPLICATION_JSON).build());
+    }
+
+    @GET
+    @Path("/version/ring")
+    public Response versionRing(@QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        return fanOut("cassadmin/version", null, new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() throws Exception {
+                return nodeVersion();
+            }
+        }, timeoutMs);
+    }
+
+    private Map<String, String> nodeVersion() throws Exception {
+        String releaseVersion = jmx(new JMXCallable<String>() {
+            @Override
+            public String call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.getReleaseVersion();
+            }
+        });
+        return ImmutableMap.of("version", releaseVersion);
     }
 
     @GET
     @Path("/tpstats")
-    public Response tpstats() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        Iterator<Map.Entry<String, JMXEnabledThreadPoolExecutorMBean>> threads = nodetool.getThreadPoolMBeanProxies();
-        List<Map<String, Object>> threadPoolArray = Lists.newArrayList();
-        while (threads.hasNext()) {
-            Entry<String, JMXEnabledThreadPoolExecutorMBean> thread = threads.next();
-            JMXEnabledThreadPoolExecutorMBean threadPoolProxy = thread.getValue();
-            Map<String, Object> tpObj = Maps.newLinkedHashMap();  // "Pool Name", "Active",
-            // "Pending", "Completed",
-            // "Blocked", "All time blocked"
-            tpObj.put("pool name", thread.getKey());
-            tpObj.put("active", threadPoolProxy.getActiveCount());
-            tpObj.put("pending", threadPoolProxy.getPendingTasks());
-            tpObj.put("completed", threadPoolProxy.getCompletedTasks());
-            tpObj.put("blocked", threadPoolProxy.getCurrentlyBlockedTasks());
-            tpObj.put("total blocked", threadPoolProxy.getTotalBlockedTasks());
-            threadPoolArray.add(tpObj);
-        }
-        Map<String, Object> droppedMsgs = Maps.newLinkedHashMap();
-        for (Entry<String, Integer> entry : nodetool.getDroppedMessages().entrySet()) {
-            droppedMsgs.put(entry.getKey(), entry.getValue());
-        }
+    public Response tpstats(@QueryParam("maxStalenessMs") Long maxStalenessMs) throws Exception {
+        return Response.ok(nodeTpStats(maxStalenessMs), MediaType.APPLICATION_JSON).build();
+    }
 
-        Map<String, Object> rootObj = Maps.newLinkedHashMap();
-        rootObj.put("thread pool", threadPoolArray);
-        rootObj.put("dropped messages", droppedMsgs);
+    @GET
+    @Path("/tpstats/ring")
+    public Response tpstatsRing(@QueryParam("maxStalenessMs") final Long maxStalenessMs,
+                                @QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        return fanOut("cassadmin/tpstats", maxStalenessMs, new Callable<TpStats>() {
+            @Override
+            public TpStats call() throws Exception {
+                return nodeTpStats(maxStalenessMs);
+            }
+        }, timeoutMs);
+    }
 
-        return Response.ok(rootObj, MediaType.APPLICATION_JSON).build();
+    private TpStats nodeTpStats(Long maxStalenessMs) throws Exception {
+        Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot(maxStalenessMs);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getTpStats();
+        }
+        return jmx(new JMXCallable<TpStats>() {
+            @Override
+            public TpStats call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.tpStats();
+            }
+        });
     }
 
     @GET
     @Path("/compactionstats")
-    public Response compactionStats() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        Map<String, Object> rootObj = Maps.newLinkedHashMap();
-        CompactionManagerMBean cm = nodetool.getCompactionManagerProxy();
-        rootObj.put("pending tasks", cm.getPendingTasks());
-        List<Map<String, Object>> compStats = Lists.newArrayList();
-        for (Map<String, String> c : cm.getCompactions()) {
-            Map<String, Object> cObj = Maps.newLinkedHashMap();
-            cObj.put("id", c.get("id"));
-            cObj.put("keyspace", c.get("keyspace"));
-            cObj.put("columnfamily", c.get("columnfamily"));
-            cObj.put("bytesComplete", c.get("bytesComplete"));
-            cObj.put("totalBytes", c.get("totalBytes"));
-            cObj.put("taskType", c.get("taskType"));
-            String percentComplete = new Long(c.get("totalBytes")) == 0 ? "n/a" : new DecimalFormat("0.00").format((double) new Long(c.get("bytesComplete")) / new Long(c.get("totalBytes")) * 100) + "%";
-            cObj.put("progress", percentComplete);
-            compStats.add(cObj);
+    public Response compactionStats(@QueryParam("maxStalenessMs") Long maxStalenessMs) throws Exception {
+        return Response.ok(nodeCompactionStats(maxStalenessMs), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/compactionstats/ring")
+    public Response compactionStatsRing(@QueryParam("maxStalenessMs") final Long maxStalenessMs,
+                                        @QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        return fanOut("cassadmin/compactionstats", maxStalenessMs, new Callable<CompactionStats>() {
+            @Override
+            public CompactionStats call() throws Exception {
+                return nodeCompactionStats(maxStalenessMs);
+            }
+        }, timeoutMs);
+    }
+
+    private CompactionStats nodeCompactionStats(Long maxStalenessMs) throws Exception {
+        Optional<NodeStatsSnapshot> snapshot = statsCollector.getSnapshot(maxStalenessMs);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getCompactionStats();
         }
-        rootObj.put("compaction stats", compStats);
-        return Response.ok(rootObj, MediaType.APPLICATION_JSON).build();
+        return jmx(new JMXCallable<CompactionStats>() {
+            @Override
+            public CompactionStats call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.compactionStats();
+            }
+        });
     }
 
     @GET
     @Path("/disablegossip")
     public Response disablegossip() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.stopGossiping();
+        jmx(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodetool) throws Exception {
+                nodetool.stopGossiping();
+                return null;
+            }
+        });
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/enablegossip")
     public Response enablegossip() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.startGossiping();
+        jmx(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodetool) throws Exception {
+                nodetool.startGossiping();
+                return null;
+            }
+        });
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/disablethrift")
     public Response disablethrift() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.stopThriftServer();
+        jmx(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodetool) throws Exception {
+                nodetool.stopThriftServer();
+                return null;
+            }
+        });
+        responseCache.invalidate("statusthrift");
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/enablethrift")
     public Response enablethrift() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.startThriftServer();
+        jmx(new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodetool) throws Exception {
+                nodetool.startThriftServer();
+                return null;
+            }
+        });
+        responseCache.invalidate("statusthrift");
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/statusthrift")
-    public Response statusthrift() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        return Response.ok(ImmutableMap.of("status", (nodetool.isThriftServerRunning() ? "running" : "not running")), MediaType.APPLICATION_JSON).build();
+    public Response statusthrift(@Context Request request) throws Exception {
+        ResponseCache.Entry<Map<String, String>> status = responseCache.get("statusthrift",
+                priamConfiguration.getResponseCacheConfiguration().getStatusThriftTtlMS(), null,
+                new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() throws Exception {
+                        return ImmutableMap.of("status", (isThriftServerRunning() ? "running" : "not running"));
+                    }
+                });
+        return responseCache.respond(request, status,
+                Response.ok(status.getValue(), MediaType.APPLICATION_JSON).build());
     }
 
     @GET
     @Path("/pingthrift")
     public Response pingthrift() throws IOException {
         try {
-            JMXNodeTool nodetool = getNodeTool();
-            if (nodetool.isThriftServerRunning()) {
+            if (isThriftServerRunning()) {
                 return Response.ok().build();
             }
         } catch (Exception e) {
@@ -379,190 +776,390 @@ public class CassandraAdminResource {
         return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
     }
 
+    private boolean isThriftServerRunning() throws Exception {
+        return jmx(new JMXCallable<Boolean>() {
+            @Override
+            public Boolean call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.isThriftServerRunning();
+            }
+        });
+    }
+
+    /**
+     * Returns the gossip state of each endpoint, keyed by endpoint.  In NDJSON each endpoint is a line with its address
+     * in the "endpoint" field.
+     */
     @GET
     @Path("/gossipinfo")
-    public Response gossipinfo() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        Map<String, Object> rootObj = Maps.newLinkedHashMap();
-        String[] ginfo = nodetool.getGossipInfo().split("/");
-        for (String info : ginfo) {
-            String[] data = info.split("\n");
-            String key = "";
-            Map<String, Object> obj = Maps.newLinkedHashMap();
-            for (String element : data) {
-                String[] kv = element.split(":");
-                if (kv.length == 1) {
-                    key = kv[0];
-                } else {
-                    obj.put(kv[0], kv[1]);
-                }
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response gossipinfo(@QueryParam("format") String format) throws Exception {
+        final String gossipInfo = jmx(new JMXCallable<String>() {
+            @Override
+            public String call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.getGossipInfo();
             }
-            if (StringUtils.isNotBlank(key)) {
-                rootObj.put(key, obj);
+        });
+        return new JsonStreamingOutput(OBJECT_MAPPER, format) {
+            @Override
+            protected void write(JsonGenerator generator) throws IOException {
+                if (!isNdjson()) {
+                    generator.writeStartObject();
+                }
+                for (EndpointGossipState state : GossipInfoParser.parse(gossipInfo)) {
+                    if (isNdjson()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("endpoint", state.getEndpoint());
+                    } else {
+                        generator.writeObjectFieldStart(state.getEndpoint());
+                    }
+                    generator.writeNumberField("generation", state.getGeneration());
+                    generator.writeNumberField("heartbeat", state.getHeartbeat());
+                    for (Map.Entry<String, String> entry : state.getApplicationStates().entrySet()) {
+                        generator.writeStringField(entry.getKey(), entry.getValue());
+                    }
+                    generator.writeEndObject();
+                    endRow(generator);
+                }
+                if (!isNdjson()) {
+                    generator.writeEndObject();
+                }
             }
-        }
-        return Response.ok(rootObj, MediaType.APPLICATION_JSON).build();
+        }.toResponse();
     }
 
+    /**
+     * Returns the streams to and from this node, with the progress of each file, the throughput and ETA of each peer,
+     * and the messaging activity.  The "hosts sending" and "hosts receiving" fields keep the file lists as Cassandra
+     * reports them.  In NDJSON the first line holds the mode and messaging activity and each following line one peer.
+     * <p/>
+     * With {@code summary=true} only the totals per direction are returned, from the collector's last sample when it
+     * is no older than {@code maxStalenessMs}.
+     */
     @GET
     @Path("/netstats")
-    public Response netstats(@QueryParam("host") String hostname) throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        Map<String, Object> rootObj = Maps.newLinkedHashMap();
-        rootObj.put("mode", nodetool.getOperationMode());
-        final InetAddress addr = (hostname == null) ? null : InetAddress.getByName(hostname);
-
-        // Collect Sending Netstats
-        Set<InetAddress> hosts = (addr == null) ? nodetool.getStreamDestinations() : ImmutableSet.of(addr);
-        if (hosts.size() == 0) {
-            rootObj.put("sending", "Not sending any streams.");
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response netstats(@QueryParam("host") final String hostname, @QueryParam("format") String format,
+                             @QueryParam("summary") boolean summary,
+                             @QueryParam("maxStalenessMs") Long maxStalenessMs) throws Exception {
+        if (summary) {
+            return Response.ok(streamingSummary(hostname, maxStalenessMs), MediaType.APPLICATION_JSON).build();
         }
-        Map<String, Object> hostSendStats = Maps.newLinkedHashMap();
-        for (InetAddress host : hosts) {
-            try {
-                List<String> files = nodetool.getFilesDestinedFor(host);
-                if (files.size() > 0) {
-                    List<String> fObj = Lists.newArrayList();
-                    for (String file : files) {
-                        fObj.add(file);
+        final NetStats netStats = jmx(new JMXCallable<NetStats>() {
+            @Override
+            public NetStats call(JMXNodeTool nodetool) throws Exception {
+                NetStats netStats = new NetStats();
+                netStats.timestamp = System.currentTimeMillis();
+                netStats.mode = nodetool.getOperationMode();
+                netStats.streams = nodetool.streams(hostname == null ? null : InetAddress.getByName(hostname));
+
+                // Collect Command and Response Activity
+                MessagingServiceMBean ms = nodetool.msProxy;
+                for (int n : ms.getCommandPendingTasks().values()) {
+                    netStats.commandsPending += n;
+                }
+                for (long n : ms.getCommandCompletedTasks().values()) {
+                    netStats.commandsCompleted += n;
+                }
+                for (int n : ms.getResponsePendingTasks().values()) {
+                    netStats.responsesPending += n;
+                }
+                for (long n : ms.getResponseCompletedTasks().values()) {
+                    netStats.responsesCompleted += n;
+                }
+                return netStats;
+            }
+        });
+        final List<StreamPeer> streams = streamingTracker.record(netStats.streams, netStats.timestamp, hostname == null);
+        return new JsonStreamingOutput(OBJECT_MAPPER, format) {
+            @Override
+            protected void write(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeStringField("mode", netStats.mode);
+                if (!isNdjson()) {
+                    writeHosts(generator, streams, StreamPeer.Direction.SENDING, "sending", "Not sending any streams.");
+                    writeHosts(generator, streams, StreamPeer.Direction.RECEIVING, "receiving", "Not receiving any streams.");
+                    generator.writeFieldName("streams");
+                    generator.writeObject(streams);
+                }
+                writeActivity(generator, "commands", netStats.commandsPending, netStats.commandsCompleted);
+                writeActivity(generator, "responses", netStats.responsesPending, netStats.responsesCompleted);
+                generator.writeEndObject();
+                endRow(generator);
+                if (isNdjson()) {
+                    for (StreamPeer peer : streams) {
+                        writeRow(generator, peer);
                     }
-                    hostSendStats.put(host.getHostAddress(), fObj);
                 }
-            } catch (IOException ex) {
-                hostSendStats.put(host.getHostAddress(), "Error retrieving file data");
             }
-        }
-        rootObj.put("hosts sending", hostSendStats);
 
-        // Collect Receiving Netstats
-        hosts = addr == null ? nodetool.getStreamSources() : ImmutableSet.of(addr);
-        if (hosts.size() == 0) {
-            rootObj.put("receiving", "Not receiving any streams.");
-        }
-        Map<String, Object> hostRecvStats = Maps.newLinkedHashMap();
-        for (InetAddress host : hosts) {
-            try {
-                List<String> files = nodetool.getIncomingFiles(host);
-                if (files.size() > 0) {
-                    List<String> fObj = Lists.newArrayList();
-                    for (String file : files) {
-                        fObj.add(file);
+            /**
+             * Writes the raw file lists of the peers in one direction, as nodetool netstats shows them.
+             */
+            private void writeHosts(JsonGenerator generator, List<StreamPeer> streams, StreamPeer.Direction direction,
+                                    String name, String none) throws IOException {
+                boolean any = false;
+                for (StreamPeer peer : streams) {
+                    any |= peer.getDirection() == direction;
+                }
+                if (!any) {
+                    generator.writeStringField(name, none);
+                }
+                generator.writeObjectFieldStart("hosts " + name);
+                for (StreamPeer peer : streams) {
+                    if (peer.getDirection() != direction || (peer.getError() == null && peer.getFiles().isEmpty())) {
+                        continue;
+                    }
+                    generator.writeFieldName(peer.getHost());
+                    if (peer.getError() != null) {
+                        generator.writeString(peer.getError());
+                    } else {
+                        generator.writeStartArray();
+                        for (StreamFile file : peer.getFiles()) {
+                            generator.writeString(file.getDescription());
+                        }
+                        generator.writeEndArray();
                     }
-                    hostRecvStats.put(host.getHostAddress(), fObj);
                 }
-            } catch (IOException ex) {
-                hostRecvStats.put(host.getHostAddress(), "Error retrieving file data");
+                generator.writeEndObject();
             }
+
+            private void writeActivity(JsonGenerator generator, String name, long pending, long completed)
+                    throws IOException {
+                generator.writeObjectFieldStart(name);
+                generator.writeStringField("active", "n/a");
+                generator.writeNumberField("pending", pending);
+                generator.writeNumberField("completed", completed);
+                generator.writeEndObject();
+            }
+        }.toResponse();
+    }
+
+    private Map<String, Object> streamingSummary(final String hostname, Long maxStalenessMs) throws Exception {
+        long maxStaleness = maxStalenessMs != null ? maxStalenessMs
+                : priamConfiguration.getStatsConfiguration().getDefaultMaxStalenessMS();
+        Optional<List<StreamPeer>> latest = hostname == null ? streamingTracker.getLatest(maxStaleness)
+                : Optional.<List<StreamPeer>>absent();
+        long timestamp = System.currentTimeMillis();
+        List<StreamPeer> streams;
+        if (latest.isPresent()) {
+            streams = latest.get();
+        } else {
+            streams = streamingTracker.record(jmx(new JMXCallable<List<StreamPeer>>() {
+                @Override
+                public List<StreamPeer> call(JMXNodeTool nodetool) throws Exception {
+                    return nodetool.streams(hostname == null ? null : InetAddress.getByName(hostname));
+                }
+            }), timestamp, hostname == null);
         }
-        rootObj.put("hosts receiving", hostRecvStats);
-
-        // Collect Command Activity
-        MessagingServiceMBean ms = nodetool.msProxy;
-        int pending;
-        long completed;
-        pending = 0;
-        for (int n : ms.getCommandPendingTasks().values()) {
-            pending += n;
-        }
-        completed = 0;
-        for (long n : ms.getCommandCompletedTasks().values()) {
-            completed += n;
-        }
-        Map<String, Object> cObj = Maps.newLinkedHashMap();
-        cObj.put("active", "n/a");
-        cObj.put("pending", pending);
-        cObj.put("completed", completed);
-        rootObj.put("commands", cObj);
-
-        // Collect Response Activity
-        pending = 0;
-        for (int n : ms.getResponsePendingTasks().values()) {
-            pending += n;
-        }
-        completed = 0;
-        for (long n : ms.getResponseCompletedTasks().values()) {
-            completed += n;
-        }
-        Map<String, Object> rObj = Maps.newLinkedHashMap();
-        rObj.put("active", "n/a");
-        rObj.put("pending", pending);
-        rObj.put("completed", completed);
-        rootObj.put("responses", rObj);
+        Map<String, Object> summary = Maps.newLinkedHashMap();
+        summary.put("sending", new StreamingSummary(streams, StreamPeer.Direction.SENDING));
+        summary.put("receiving", new StreamingSummary(streams, StreamPeer.Direction.RECEIVING));
+        return summary;
+    }
 
-        return Response.ok(rootObj, MediaType.APPLICATION_JSON).build();
+    /**
+     * What {@link #netstats} reads over JMX.
+     */
+    private static class NetStats {
+        private long timestamp;
+        private String mode;
+        private List<StreamPeer> streams;
+        private long commandsPending;
+        private long commandsCompleted;
+        private long responsesPending;
+        private long responsesCompleted;
     }
 
+    /**
+     * Moves this node to a new token.  The move streams data, so it needs a free streaming slot from the
+     * {@link AdmissionController} and is rejected with 429 otherwise.
+     */
     @GET
     @Path("/move")
-    public Response moveToken(@QueryParam("token") String newToken)
+    public Response moveToken(@QueryParam("token") final String newToken)
             throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        nodetool.move(newToken);
+        AdmissionController.Ticket ticket;
+        try {
+            ticket = admissionController.tryAcquire(ResourceClass.STREAMING, "move to " + newToken);
+        } catch (AdmissionRejectedException e) {
+            throw tooManyRequests(e);
+        }
+        try {
+            operation(new JMXCallable<Void>() {
+                @Override
+                public Void call(JMXNodeTool nodetool) throws Exception {
+                    nodetool.move(newToken);
+                    return null;
+                }
+            });
+        } finally {
+            ticket.close();
+        }
         priamServer.getInstanceIdentity().updateToken();
         return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/scrub")
-    public Response scrub(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames)
+    public Response scrub(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames,
+                          @QueryParam("async") boolean async, @QueryParam("queue") boolean queue,
+                          @QueryParam("priority") String priority) throws Exception {
+        String[] cfs = StringUtils.isNotBlank(cfnames) ? cfnames.split(",") : new String[0];
+        return job(JobDefinition.scrub(splitList(keyspaces), cfs), async, queue, priority);
+    }
+
+    /**
+     * Rewrites sstables in the current format, eg. after upgrading Cassandra.  Sstables already in the current format
+     * are skipped unless {@code all=true}.
+     */
+    @GET
+    @Path("/upgradesstables")
+    public Response upgradeSSTables(@QueryParam("keyspaces") String keyspaces, @QueryParam("cfnames") String cfnames,
+                                    @QueryParam("all") boolean all, @QueryParam("async") boolean async,
+                                    @QueryParam("queue") boolean queue, @QueryParam("priority") String priority)
             throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
-        String[] cfs = null;
-        if (StringUtils.isNotBlank(cfnames)) {
-            cfs = cfnames.split(",");
+        String[] cfs = StringUtils.isNotBlank(cfnames) ? cfnames.split(",") : new String[0];
+        return job(JobDefinition.upgradeSSTables(splitList(keyspaces), !all, cfs), async, queue, priority);
+    }
+
+    @GET
+    @Path("/cfhistograms")
+    @Produces({MediaType.APPLICATION_JSON, JsonStreamingOutput.NDJSON})
+    public Response cfhistograms(@QueryParam("keyspace") String keyspace, @QueryParam("cfname") String cfname,
+                                 @QueryParam("format") String format) throws Exception {
+        if (StringUtils.isBlank(keyspace) || StringUtils.isBlank(cfname)) {
+            return Response.status(400).entity("Missing keyspace/cfname in request").build();
         }
-        if (cfs == null) {
-            nodetool.scrub(false, keyspaces);
-        } else {
-            nodetool.scrub(false, keyspaces, cfs);
+        final ColumnFamilyHistograms histograms = cfHistograms(keyspace, cfname);
+        return new JsonStreamingOutput(OBJECT_MAPPER, format) {
+            @Override
+            protected void write(JsonGenerator generator) throws IOException {
+                if (!isNdjson()) {
+                    writeRow(generator, histograms);
+                    return;
+                }
+                for (int row = 0; row < histograms.getRowCount(); row++) {
+                    histograms.writeRow(generator, row, true);
+                    endRow(generator);
+                }
+            }
+        }.toResponse();
+    }
+
+    /**
+     * Returns the raw bucket counts of each histogram, which other nodes merge for {@link #cfHistogramsRing}.
+     */
+    @GET
+    @Path("/cfhistograms/buckets")
+    public Response cfHistogramBuckets(@QueryParam("keyspace") String keyspace, @QueryParam("cfname") String cfname)
+            throws Exception {
+        if (StringUtils.isBlank(keyspace) || StringUtils.isBlank(cfname)) {
+            return Response.status(400).entity("Missing keyspace/cfname in request").build();
         }
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return Response.ok(cfHistograms(keyspace, cfname).getBuckets(), MediaType.APPLICATION_JSON).build();
     }
 
     @GET
-    @Path("/cfhistograms")
-    public Response cfhistograms(@QueryParam("keyspace") String keyspace, @QueryParam("cfname") String cfname)
+    @Path("/cfhistograms/percentiles")
+    public Response cfHistogramPercentiles(@QueryParam("keyspace") String keyspace, @QueryParam("cfname") String cfname)
             throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
         if (StringUtils.isBlank(keyspace) || StringUtils.isBlank(cfname)) {
             return Response.status(400).entity("Missing keyspace/cfname in request").build();
         }
+        return Response.ok(cfHistograms(keyspace, cfname).getPercentiles(), MediaType.APPLICATION_JSON).build();
+    }
 
-        ColumnFamilyStoreMBean store = nodetool.getCfsProxy(keyspace, cfname);
-
-        // default is 90 offsets
-        long[] offsets = new EstimatedHistogram().getBucketOffsets();
-
-        long[] recentReadLatencyHistMicros = store.getRecentReadLatencyHistogramMicros();
-        long[] recentWriteLatencyHistMicros = store.getRecentWriteLatencyHistogramMicros();
-        long[] recentSSTablesPerReadHist = store.getRecentSSTablesPerReadHistogram();
-        long[] estimatedRowSizeHist = store.getEstimatedRowSizeHistogram();
-        long[] estimatedColumnCountHist = store.getEstimatedColumnCountHistogram();
-
-        Map<String, Object> rootObj = Maps.newLinkedHashMap();
-        List<String> columns = ImmutableList.of("offset", "sstables", "write latency", "read latency", "row size", "column count");
-        rootObj.put("columns", columns);
-        List<Object> values = Lists.newArrayList();
-        for (int i = 0; i < offsets.length; i++) {
-            List<Object> row = Lists.newArrayList();
-            row.add(offsets[i]);
-            row.add(i < recentSSTablesPerReadHist.length ? recentSSTablesPerReadHist[i] : "");
-            row.add(i < recentWriteLatencyHistMicros.length ? recentWriteLatencyHistMicros[i] : "");
-            row.add(i < recentReadLatencyHistMicros.length ? recentReadLatencyHistMicros[i] : "");
-            row.add(i < estimatedRowSizeHist.length ? estimatedRowSizeHist[i] : "");
-            row.add(i < estimatedColumnCountHist.length ? estimatedColumnCountHist[i] : "");
-            values.add(row);
+    /**
+     * Merges the histograms of every live node bucket-wise and returns the cluster-wide percentiles, along with the
+     * nodes that couldn't contribute.
+     */
+    @GET
+    @Path("/cfhistograms/ring")
+    public Response cfHistogramsRing(@QueryParam("keyspace") final String keyspace, @QueryParam("cfname") final String cfname,
+                                     @QueryParam("timeoutMs") Long timeoutMs) throws Exception {
+        if (StringUtils.isBlank(keyspace) || StringUtils.isBlank(cfname)) {
+            return Response.status(400).entity("Missing keyspace/cfname in request").build();
+        }
+        List<NodeResult<ColumnFamilyHistograms>> results = fanOut(new NodeRequest<ColumnFamilyHistograms>() {
+            @Override
+            public ColumnFamilyHistograms local() throws Exception {
+                return cfHistograms(keyspace, cfname);
+            }
+
+            @Override
+            public ColumnFamilyHistograms remote(WebResource priam) throws Exception {
+                Map<String, long[]> buckets = priam.path("cassadmin/cfhistograms/buckets")
+                        .queryParam("keyspace", keyspace)
+                        .queryParam("cfname", cfname)
+                        .get(new GenericType<Map<String, long[]>>() {
+                        });
+                return ColumnFamilyHistograms.fromBuckets(keyspace, cfname, buckets);
+            }
+        }, timeoutMs);
+
+        Map<String, String> nodes = Maps.newTreeMap();
+        ColumnFamilyHistograms merged = null;
+        for (NodeResult<ColumnFamilyHistograms> result : results) {
+            if (!result.isSuccess()) {
+                nodes.put(result.getEndpoint(), result.getError());
+                continue;
+            }
+            try {
+                merged = merged == null ? result.getValue() : merged.merge(result.getValue());
+                nodes.put(result.getEndpoint(), "ok");
+            } catch (IllegalArgumentException e) {
+                nodes.put(result.getEndpoint(), e.getMessage());
+            }
         }
-        rootObj.put("values", values);
-        return Response.ok(rootObj, MediaType.APPLICATION_JSON).build();
+
+        Map<String, Object> response = Maps.newLinkedHashMap();
+        response.put("nodes", nodes);
+        response.put("percentiles", merged != null ? merged.getPercentiles() : null);
+        return Response.ok(response, MediaType.APPLICATION_JSON).build();
+    }
+
+    private ColumnFamilyHistograms cfHistograms(final String keyspace, final String cfname) throws Exception {
+        return jmx(new JMXCallable<ColumnFamilyHistograms>() {
+            @Override
+            public ColumnFamilyHistograms call(JMXNodeTool nodetool) throws Exception {
+                return nodetool.cfHistograms(keyspace, cfname);
+            }
+        });
     }
 
     @GET
     @Path("/drain")
-    public Response cassDrain() throws Exception {
-        JMXNodeTool nodetool = getNodeTool();
+    public Response cassDrain(@QueryParam("async") boolean async) throws Exception {
         logger.debug("node tool drain being called");
-        nodetool.drain();
-        return Response.ok(RESULT_OK, MediaType.APPLICATION_JSON).build();
+        return job(JobDefinition.drain(), async);
+    }
+
+    /**
+     * Runs an ordered list of operations, eg. disablethrift, disablegossip, flush, drain and stop before a restart,
+     * in one request.  Returns the outcome and timing of each step, with 500 if any step failed.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response batch(BatchRequest request) {
+        if (request == null || request.getSteps() == null || request.getSteps().isEmpty()) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("No steps")
+                    .type(MediaType.TEXT_PLAIN)
+                    .build());
+        }
+        for (BatchStep step : request.getSteps()) {
+            if (step == null || step.getOperation() == null) {
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Every step needs an operation")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build());
+            }
+        }
+        logger.info("batch of {} steps being called", request.getSteps().size());
+        BatchResult result = batchRunner.run(request);
+        responseCache.invalidate("statusthrift");
+        Response.Status status = result.isSucceeded() ? Response.Status.OK : Response.Status.INTERNAL_SERVER_ERROR;
+        return Response.status(status).entity(result).type(MediaType.APPLICATION_JSON).build();
     }
 }
@@ -0,0 +1,40 @@
+package com.netflix.priam.resources;
+
+import com.google.inject.Inject;
+import com.netflix.priam.config.EventsConfiguration;
+import com.netflix.priam.events.CassandraEventBatch;
+import com.netflix.priam.events.CassandraEventBus;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Long-poll access to the JMX notifications published on the {@link CassandraEventBus}.
+ * <p/>
+ * Clients start with {@code since=0} and pass the {@code next} value of each response as the {@code since} of the
+ * following request.  A request blocks until an event newer than {@code since} is published or the timeout expires.
+ */
+@Path("/v1/events")
+@Produces(MediaType.APPLICATION_JSON)
+public class CassandraEventResource {
+    private final EventsConfiguration eventsConfiguration;
+    private final CassandraEventBus eventBus;
+
+    @Inject
+    public CassandraEventResource(EventsConfiguration eventsConfiguration, CassandraEventBus eventBus) {
+        this.eventsConfiguration = eventsConfiguration;
+        this.eventBus = eventBus;
+    }
+
+    @GET
+    public CassandraEventBatch poll(@QueryParam("since") @DefaultValue("0") long since,
+                                    @QueryParam("timeoutMs") Long timeoutMs) throws InterruptedException {
+        long maxTimeout = eventsConfiguration.getMaxPollTimeoutMS();
+        long timeout = timeoutMs != null ? Math.max(0, Math.min(timeoutMs, maxTimeout)) : maxTimeout;
+        return eventBus.poll(since, timeout);
+    }
+}
@@ -0,0 +1,48 @@
+package com.netflix.priam.resources;
+
+import com.google.inject.Inject;
+import com.netflix.priam.gossip.EndpointGossipState;
+import com.netflix.priam.gossip.GossipChange;
+import com.netflix.priam.gossip.GossipHealth;
+import com.netflix.priam.gossip.GossipMonitor;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * The typed gossip state of the ring as this node sees it, what changed recently, and what looks unhealthy.
+ */
+@Path("/v1/gossip")
+@Produces(MediaType.APPLICATION_JSON)
+public class GossipResource {
+    private final GossipMonitor gossipMonitor;
+
+    @Inject
+    public GossipResource(GossipMonitor gossipMonitor) {
+        this.gossipMonitor = gossipMonitor;
+    }
+
+    @GET
+    public List<EndpointGossipState> states(@QueryParam("maxStalenessMs") Long maxStalenessMs) throws Exception {
+        return gossipMonitor.getStates(maxStalenessMs);
+    }
+
+    /**
+     * Changes seen since Priam started, newest first, as far back as the configured history size.
+     */
+    @GET
+    @Path("/changes")
+    public List<GossipChange> changes(@QueryParam("endpoint") String endpoint, @QueryParam("sinceMs") Long sinceMs) {
+        return gossipMonitor.getChanges(endpoint, sinceMs != null ? sinceMs : 0);
+    }
+
+    @GET
+    @Path("/health")
+    public GossipHealth health() throws Exception {
+        return gossipMonitor.getHealth();
+    }
+}
@@ -0,0 +1,64 @@
+package com.netflix.priam.resources;
+
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.netflix.priam.jobs.AdminJob;
+import com.netflix.priam.jobs.JobManager;
+import com.netflix.priam.jobs.JobProgress;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+/**
+ * Status, progress and cancellation of the maintenance jobs started with {@code async=true} on the
+ * {@code /v1/cassadmin} endpoints.
+ */
+@Path("/v1/jobs")
+@Produces(MediaType.APPLICATION_JSON)
+public class JobResource {
+    private final JobManager jobManager;
+
+    @Inject
+    public JobResource(JobManager jobManager) {
+        this.jobManager = jobManager;
+    }
+
+    @GET
+    public List<AdminJob> list() {
+        return jobManager.list();
+    }
+
+    @GET
+    @Path("/{id}")
+    public AdminJob get(@PathParam("id") long id) {
+        return found(jobManager.get(id));
+    }
+
+    @GET
+    @Path("/{id}/progress")
+    public JobProgress progress(@PathParam("id") long id, @QueryParam("maxStalenessMs") Long maxStalenessMs)
+            throws Exception {
+        return jobManager.getProgress(found(jobManager.get(id)), maxStalenessMs);
+    }
+
+    @POST
+    @Path("/{id}/cancel")
+    public AdminJob cancel(@PathParam("id") long id) throws Exception {
+        return found(jobManager.cancel(id));
+    }
+
+    private AdminJob found(Optional<AdminJob> job) {
+        if (!job.isPresent()) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        return job.get();
+    }
+}
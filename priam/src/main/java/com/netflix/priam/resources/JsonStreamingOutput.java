@@ -0,0 +1,88 @@
+package com.netflix.priam.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a response straight through a {@link JsonGenerator}, so a large response is never held in memory as a tree of
+ * maps and lists on its way to Jersey.
+ * <p/>
+ * With {@code format=ndjson} the response is written as rows instead, one JSON object per line, for consumers that
+ * process it line by line.
+ */
+abstract class JsonStreamingOutput implements StreamingOutput {
+    static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectWriter objectWriter;
+    private final boolean ndjson;
+
+    JsonStreamingOutput(ObjectMapper objectMapper, String format) {
+        // Rows are flushed with the generator's buffer, not one by one
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.ndjson = "ndjson".equalsIgnoreCase(format);
+    }
+
+    /**
+     * A JSON array of the rows, or one row per line.
+     */
+    static JsonStreamingOutput rows(ObjectMapper objectMapper, String format, final Iterable<?> rows) {
+        return new JsonStreamingOutput(objectMapper, format) {
+            @Override
+            protected void write(JsonGenerator generator) throws IOException {
+                if (!isNdjson()) {
+                    generator.writeStartArray();
+                }
+                for (Object row : rows) {
+                    writeRow(generator, row);
+                }
+                if (!isNdjson()) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+    }
+
+    @Override
+    public final void write(OutputStream output) throws IOException {
+        JsonGenerator generator = objectWriter.getJsonFactory().createGenerator(output);
+        // NDJSON rows end with a newline rather than being separated by a space
+        generator.setRootValueSeparator(null);
+        write(generator);
+        generator.flush();
+    }
+
+    protected abstract void write(JsonGenerator generator) throws IOException;
+
+    protected boolean isNdjson() {
+        return ndjson;
+    }
+
+    /**
+     * Serializes a value as an array element, or as a line of its own in NDJSON.
+     */
+    protected void writeRow(JsonGenerator generator, Object row) throws IOException {
+        objectWriter.writeValue(generator, row);
+        endRow(generator);
+    }
+
+    /**
+     * Ends a row written field by field.
+     */
+    protected void endRow(JsonGenerator generator) throws IOException {
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    Response toResponse() {
+        return Response.ok(this, ndjson ? NDJSON : MediaType.APPLICATION_JSON).build();
+    }
+}
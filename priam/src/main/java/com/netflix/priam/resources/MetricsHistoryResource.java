@@ -0,0 +1,72 @@
+package com.netflix.priam.resources;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.netflix.priam.stats.HistoryBucket;
+import com.netflix.priam.stats.MetricsHistory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries the on-node {@link MetricsHistory}, eg. to see what the node looked like before an incident.
+ */
+@Path("/v1/history")
+@Produces(MediaType.APPLICATION_JSON)
+public class MetricsHistoryResource {
+    private static final long DEFAULT_RANGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final MetricsHistory metricsHistory;
+
+    @Inject
+    public MetricsHistoryResource(MetricsHistory metricsHistory) {
+        this.metricsHistory = metricsHistory;
+    }
+
+    /**
+     * Lists the recorded series, optionally only those starting with {@code prefix} (eg. {@code cf.myks.}).
+     */
+    @GET
+    @Path("/series")
+    public SortedSet<String> series(@QueryParam("prefix") String prefix) {
+        SortedSet<String> names = metricsHistory.getSeriesNames();
+        if (prefix == null) {
+            return names;
+        }
+        return names.subSet(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    /**
+     * Returns the named series between {@code from} and {@code to} (epoch millis, default the last hour), aggregated
+     * into min/max/avg buckets of {@code bucketMs} if given.
+     */
+    @GET
+    public Map<String, List<HistoryBucket>> query(@QueryParam("series") List<String> series,
+                                                  @QueryParam("from") Long from,
+                                                  @QueryParam("to") Long to,
+                                                  @QueryParam("bucketMs") Long bucketMs) {
+        if (series == null || series.isEmpty()) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("At least one series is required")
+                    .build());
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MILLIS;
+        long bucketMillis = bucketMs != null ? bucketMs : 0;
+
+        Map<String, List<HistoryBucket>> result = Maps.newLinkedHashMap();
+        for (String name : series) {
+            result.put(name, metricsHistory.query(name, start, end, bucketMillis));
+        }
+        return result;
+    }
+}
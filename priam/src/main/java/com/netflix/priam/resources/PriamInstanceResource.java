@@ -18,6 +18,7 @@ package com.netflix.priam.resources;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
 import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.ResponseCacheConfiguration;
 import com.netflix.priam.identity.IPriamInstanceRegistry;
 import com.netflix.priam.identity.PriamInstance;
 import org.slf4j.Logger;
@@ -31,11 +32,14 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Resource for manipulating priam instances.
@@ -47,27 +51,40 @@ public class PriamInstanceResource {
 
     private final CassandraConfiguration cassandraConfiguration;
     private final IPriamInstanceRegistry instanceRegistry;
+    private final ResponseCacheConfiguration responseCacheConfiguration;
+    private final ResponseCache responseCache;
 
     @Inject
-    public PriamInstanceResource(CassandraConfiguration cassandraConfiguration, IPriamInstanceRegistry instanceRegistry) {
+    public PriamInstanceResource(CassandraConfiguration cassandraConfiguration, IPriamInstanceRegistry instanceRegistry,
+                                 ResponseCacheConfiguration responseCacheConfiguration, ResponseCache responseCache) {
         this.cassandraConfiguration = cassandraConfiguration;
         this.instanceRegistry = instanceRegistry;
+        this.responseCacheConfiguration = responseCacheConfiguration;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Get the list of all priam instances
+     * Get the list of all priam instances.  The list is reused for a short while and carries an ETag over the
+     * instances and their update times, so pollers sending If-None-Match get a 304 until an instance changes.
      *
      * @return the list of all priam instances
      */
     @GET
-    public String getInstances() {
-        StringBuilder response = new StringBuilder();
-        List<PriamInstance> nodes = instanceRegistry.getAllIds(cassandraConfiguration.getClusterName());
-        for (PriamInstance node : Ordering.natural().sortedCopy(nodes)) {
-            response.append(node.toString());
-            response.append("\n");
-        }
-        return response.toString();
+    public Response getInstances(@Context Request request) throws Exception {
+        ResponseCache.Entry<String> instances = responseCache.get("instances",
+                responseCacheConfiguration.getInstancesTtlMS(), null, new Callable<String>() {
+                    @Override
+                    public String call() {
+                        StringBuilder response = new StringBuilder();
+                        List<PriamInstance> nodes = instanceRegistry.getAllIds(cassandraConfiguration.getClusterName());
+                        for (PriamInstance node : Ordering.natural().sortedCopy(nodes)) {
+                            response.append(node.toString());
+                            response.append("\n");
+                        }
+                        return response.toString();
+                    }
+                });
+        return responseCache.respond(request, instances, Response.ok(instances.getValue()).build());
     }
 
     /**
@@ -98,6 +115,7 @@ public class PriamInstanceResource {
         log.info("Creating instance [id={}, instanceId={}, hostname={}, ip={}, rack={}, token={}",
                 id, instanceID, hostname, ip, rack, token);
         PriamInstance instance = instanceRegistry.create(cassandraConfiguration.getClusterName(), id, instanceID, hostname, ip, rack, null, token);
+        responseCache.invalidate("instances");
         URI uri = UriBuilder.fromPath("/{id}").build(instance.getId());
         return Response.created(uri).build();
     }
@@ -114,6 +132,7 @@ public class PriamInstanceResource {
     public Response deleteInstance(@PathParam("id") int id) {
         PriamInstance instance = getByIdIfFound(id);
         instanceRegistry.delete(instance);
+        responseCache.invalidate("instances");
         return Response.noContent().build();
     }
 
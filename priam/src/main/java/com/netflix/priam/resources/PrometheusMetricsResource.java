@@ -0,0 +1,46 @@
+package com.netflix.priam.resources;
+
+import com.google.common.base.Charsets;
+import com.google.inject.Inject;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.stats.PrometheusTextWriter;
+import com.yammer.metrics.Metrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Exposes Cassandra and Priam metrics for Prometheus to scrape.  Served entirely from the {@link NodeStatsCollector}
+ * snapshot and the in-process metrics registry, so scrapes add no load on Cassandra.
+ */
+@Path("/metrics")
+public class PrometheusMetricsResource {
+    private final NodeStatsCollector nodeStatsCollector;
+    private final PrometheusTextWriter writer = new PrometheusTextWriter(Metrics.defaultRegistry());
+
+    @Inject
+    public PrometheusMetricsResource(NodeStatsCollector nodeStatsCollector) {
+        this.nodeStatsCollector = nodeStatsCollector;
+    }
+
+    @GET
+    @Produces(PrometheusTextWriter.CONTENT_TYPE)
+    public StreamingOutput metrics() {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException, WebApplicationException {
+                Writer out = new BufferedWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+                writer.write(nodeStatsCollector.getSnapshot(), out);
+                out.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.netflix.priam.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.inject.Singleton;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last response of slowly-changing admin endpoints for a short while, so a fleet of pollers costs one JMX
+ * or SimpleDB round trip per interval instead of one per request.  Each response carries an ETag derived from the
+ * data, and a client sending it back in If-None-Match gets a 304 until the data changes.
+ */
+@Singleton
+public class ResponseCache {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ConcurrentMap<String, Entry<?>> entries = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, Object> locks = Maps.newConcurrentMap();
+
+    /**
+     * Returns the value cached under {@code key}, loading it if it is older than {@code ttlMillis} or than
+     * {@code maxStalenessMillis} when given.  The ETag is a hash of the whole value.
+     */
+    public <T> Entry<T> get(String key, long ttlMillis, Long maxStalenessMillis, Callable<T> loader) throws Exception {
+        return get(key, ttlMillis, maxStalenessMillis, loader, Functions.identity(), false);
+    }
+
+    /**
+     * Like {@link #get(String, long, Long, Callable)}, but the ETag is a weak one over just the part of the value
+     * that {@code version} picks out, so fields that drift all the time don't defeat conditional requests.
+     */
+    public <T> Entry<T> get(String key, long ttlMillis, Long maxStalenessMillis, Callable<T> loader,
+                            Function<? super T, ?> version) throws Exception {
+        return get(key, ttlMillis, maxStalenessMillis, loader, version, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> get(String key, long ttlMillis, Long maxStalenessMillis, Callable<T> loader,
+                             Function<? super T, ?> version, boolean weak) throws Exception {
+        long maxAge = maxStalenessMillis != null ? Math.min(ttlMillis, maxStalenessMillis) : ttlMillis;
+        Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry != null && entry.getAge() < maxAge) {
+            return entry;
+        }
+        // Concurrent misses wait for one load instead of each going to Cassandra
+        synchronized (lock(key)) {
+            entry = (Entry<T>) entries.get(key);
+            if (entry != null && entry.getAge() < maxAge) {
+                return entry;
+            }
+            long loadedAt = System.currentTimeMillis();
+            T value = loader.call();
+            entry = new Entry<>(value, tag(version.apply(value), weak), loadedAt, ttlMillis);
+            entries.put(key, entry);
+            return entry;
+        }
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Answers 304 if the request's If-None-Match names the entry's ETag, otherwise {@code response}, with the ETag
+     * and a max-age of what is left of the entry's time to live.
+     */
+    public Response respond(Request request, Entry<?> entry, Response response) {
+        return respond(request, entry, entry.getTag(), response);
+    }
+
+    /**
+     * Like {@link #respond(Request, Entry, Response)}, for an entry served in more than one representation.  The ETag
+     * is the entry's qualified by {@code variant}, so the tag of one representation never matches another.
+     */
+    public Response respond(Request request, Entry<?> entry, String variant, Response response) {
+        EntityTag tag = entry.getTag();
+        return respond(request, entry, new EntityTag(tag.getValue() + "-" + variant, tag.isWeak()), response);
+    }
+
+    private Response respond(Request request, Entry<?> entry, EntityTag tag, Response response) {
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        if (builder == null) {
+            builder = Response.fromResponse(response);
+        }
+        CacheControl cacheControl = new CacheControl();
+        long remaining = entry.getTtl() - entry.getAge();
+        if (remaining > 0) {
+            cacheControl.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(remaining));
+        } else {
+            cacheControl.setNoCache(true);
+        }
+        return builder.tag(tag).cacheControl(cacheControl).build();
+    }
+
+    private Object lock(String key) {
+        Object lock = locks.get(key);
+        if (lock == null) {
+            Object existing = locks.putIfAbsent(key, lock = new Object());
+            if (existing != null) {
+                lock = existing;
+            }
+        }
+        return lock;
+    }
+
+    private static EntityTag tag(Object version, boolean weak) throws Exception {
+        return new EntityTag(Hashing.md5().hashBytes(OBJECT_MAPPER.writeValueAsBytes(version)).toString(), weak);
+    }
+
+    public static class Entry<T> {
+        private final T value;
+        private final EntityTag tag;
+        private final long loadedAt;
+        private final long ttl;
+
+        private Entry(T value, EntityTag tag, long loadedAt, long ttl) {
+            this.value = value;
+            this.tag = tag;
+            this.loadedAt = loadedAt;
+            this.ttl = ttl;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public EntityTag getTag() {
+            return tag;
+        }
+
+        public long getAge() {
+            return System.currentTimeMillis() - loadedAt;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+    }
+}
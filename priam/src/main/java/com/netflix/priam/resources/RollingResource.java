@@ -0,0 +1,106 @@
+package com.netflix.priam.resources;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.netflix.priam.rolling.NodeHealth;
+import com.netflix.priam.rolling.RollingOperation;
+import com.netflix.priam.rolling.RollingOrchestrator;
+import com.netflix.priam.rolling.RollingRun;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+/**
+ * Starts, follows and cancels operations that roll across the whole ring, and reports the health of this node to
+ * whichever node coordinates.
+ */
+@Path("/v1/rolling")
+@Produces(MediaType.APPLICATION_JSON)
+public class RollingResource {
+    private final RollingOrchestrator orchestrator;
+
+    @Inject
+    public RollingResource(RollingOrchestrator orchestrator) {
+        this.orchestrator = orchestrator;
+    }
+
+    /**
+     * Returns the current or last rolling operation.
+     */
+    @GET
+    public RollingRun get() throws Exception {
+        return found(available().get());
+    }
+
+    /**
+     * Starts {@code cleanup}, {@code compact}, {@code upgradesstables} or {@code restart} across the ring with this
+     * node as the coordinator.  The keyspaces, cfnames and parallelism parameters are passed on to each node.
+     */
+    @POST
+    @Path("/start/{operation}")
+    public Response start(@PathParam("operation") String operation, @QueryParam("byRack") boolean byRack,
+                          @QueryParam("dc") String dataCenter, @QueryParam("keyspaces") String keyspaces,
+                          @QueryParam("cfnames") String cfnames, @QueryParam("parallelism") Integer parallelism)
+            throws Exception {
+        RollingOperation rollingOperation;
+        try {
+            rollingOperation = RollingOperation.valueOf(operation.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        Map<String, String> parameters = Maps.newLinkedHashMap();
+        if (keyspaces != null) {
+            parameters.put("keyspaces", keyspaces);
+        }
+        if (cfnames != null) {
+            parameters.put("cfnames", cfnames);
+        }
+        if (parallelism != null) {
+            parameters.put("parallelism", parallelism.toString());
+        }
+        try {
+            RollingRun run = available().start(rollingOperation, parameters, byRack, dataCenter);
+            return Response.status(Response.Status.ACCEPTED).entity(run).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+        }
+    }
+
+    @POST
+    @Path("/cancel")
+    public RollingRun cancel() throws Exception {
+        return found(available().cancel());
+    }
+
+    @GET
+    @Path("/health")
+    public NodeHealth health() throws Exception {
+        return orchestrator.localHealth();
+    }
+
+    private RollingOrchestrator available() {
+        if (!orchestrator.isAvailable()) {
+            throw new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Rolling operations need ZooKeeper")
+                    .type(MediaType.TEXT_PLAIN)
+                    .build());
+        }
+        return orchestrator;
+    }
+
+    private RollingRun found(Optional<RollingRun> run) {
+        if (!run.isPresent()) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        return run.get();
+    }
+}
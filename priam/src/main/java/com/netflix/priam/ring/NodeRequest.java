@@ -0,0 +1,20 @@
+package com.netflix.priam.ring;
+
+import com.sun.jersey.api.client.WebResource;
+
+/**
+ * A request that {@link RingFanOut} sends to every node in the ring.
+ */
+public interface NodeRequest<T> {
+    /**
+     * Answers the request for this node directly, so Priam never makes HTTP requests to itself.
+     */
+    T local() throws Exception;
+
+    /**
+     * Answers the request for another node through its Priam REST API.
+     *
+     * @param priam the root of the node's API, eg. {@code http://10.0.0.1:8080/v1}
+     */
+    T remote(WebResource priam) throws Exception;
+}
@@ -0,0 +1,73 @@
+package com.netflix.priam.ring;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The outcome of a {@link NodeRequest} against one node: either a value or the reason there isn't one.
+ */
+@JsonPropertyOrder({"endpoint", "status", "value", "error"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NodeResult<T> {
+    public enum Status {
+        OK,
+        /** The ring reports the node down, so it wasn't asked. */
+        DOWN,
+        /** The node didn't answer in time, or its turn didn't come before the deadline. */
+        TIMED_OUT,
+        ERROR
+    }
+
+    private final String endpoint;
+    private final Status status;
+    private final T value;
+    private final String error;
+
+    public static <T> NodeResult<T> success(String endpoint, T value) {
+        return new NodeResult<>(endpoint, Status.OK, value, null);
+    }
+
+    public static <T> NodeResult<T> failure(String endpoint, String error) {
+        return new NodeResult<>(endpoint, Status.ERROR, null, error);
+    }
+
+    public static <T> NodeResult<T> timedOut(String endpoint, String error) {
+        return new NodeResult<>(endpoint, Status.TIMED_OUT, null, error);
+    }
+
+    public static <T> NodeResult<T> down(String endpoint) {
+        return new NodeResult<>(endpoint, Status.DOWN, null, "Down");
+    }
+
+    private NodeResult(String endpoint, Status status, T value, String error) {
+        this.endpoint = endpoint;
+        this.status = status;
+        this.value = value;
+        this.error = error;
+    }
+
+    @JsonProperty
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @JsonProperty
+    public Status getStatus() {
+        return status;
+    }
+
+    @JsonProperty
+    public T getValue() {
+        return value;
+    }
+
+    @JsonProperty
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+}
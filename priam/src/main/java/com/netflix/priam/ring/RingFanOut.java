@@ -0,0 +1,164 @@
+package com.netflix.priam.ring;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.netflix.priam.config.RingFanOutConfiguration;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.WebResource;
+import com.yammer.dropwizard.config.HttpConfiguration;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends a {@link NodeRequest} to a set of nodes in parallel and collects a result per node.  Nodes that fail or don't
+ * answer before the deadline are reported with an error instead of failing the whole request.
+ * <p/>
+ * At most {@link RingFanOutConfiguration#getMaxConcurrentRequests} requests are in flight at once, across all callers,
+ * so a large ring can't tie up hundreds of connections.  Each node gets its own timeout from the moment its request is
+ * sent, and the whole call gets an overall deadline, so one slow node costs at most its own timeout.  Remote calls go
+ * through a client of their own whose read timeout is sized from the node timeout, since the shared client's is
+ * shorter.
+ */
+@Singleton
+public class RingFanOut {
+    public static final String CLIENT = "ringFanOut";
+    private static final String NOT_SENT = "Not sent before the deadline";
+
+    private final Client jersey;
+    private final HttpConfiguration httpConfiguration;
+    private final RingFanOutConfiguration configuration;
+    private final ThreadPoolExecutor executor;
+
+    @Inject
+    public RingFanOut(@Named(CLIENT) Client jersey, HttpConfiguration httpConfiguration, RingFanOutConfiguration configuration) {
+        this.jersey = jersey;
+        this.httpConfiguration = httpConfiguration;
+        this.configuration = configuration;
+
+        int threads = Math.max(1, configuration.getMaxConcurrentRequests());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("RingFanOut-%d").setDaemon(true).build();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Same as {@link #execute(Collection, String, NodeRequest, long, TimeUnit)} with the configured deadline.
+     */
+    public <T> Map<String, NodeResult<T>> execute(Collection<String> endpoints, String localEndpoint,
+                                                 NodeRequest<T> request) throws InterruptedException {
+        return execute(endpoints, localEndpoint, request, configuration.getDeadlineMS(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param endpoints     the nodes to ask, duplicates (eg. one per vnode token) are asked once
+     * @param localEndpoint the address of this node, answered with {@link NodeRequest#local()}
+     * @param deadline      the time the whole call gets, on top of the per-node timeout
+     * @return one result per distinct endpoint, in the order given
+     */
+    public <T> Map<String, NodeResult<T>> execute(Collection<String> endpoints, String localEndpoint,
+                                                 NodeRequest<T> request, long deadline, TimeUnit unit)
+            throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(deadline);
+        Set<String> distinct = Sets.newLinkedHashSet(endpoints);
+        Map<String, NodeCall<T>> calls = Maps.newLinkedHashMap();
+        for (String endpoint : distinct) {
+            NodeCall<T> call = new NodeCall<>(endpoint, localEndpoint, request, deadlineNanos);
+            call.future = executor.submit(call);
+            calls.put(endpoint, call);
+        }
+
+        long nodeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getNodeTimeoutMS());
+        Map<String, NodeResult<T>> results = Maps.newLinkedHashMap();
+        try {
+            for (NodeCall<T> call : calls.values()) {
+                results.put(call.endpoint, await(call, deadlineNanos, nodeTimeoutNanos));
+            }
+        } catch (InterruptedException e) {
+            for (NodeCall<T> call : calls.values()) {
+                call.future.cancel(true);
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> NodeResult<T> await(NodeCall<T> call, long deadlineNanos, long nodeTimeoutNanos)
+            throws InterruptedException {
+        while (true) {
+            long waitUntil = call.deadline(deadlineNanos, nodeTimeoutNanos);
+            try {
+                T value = call.future.get(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return NodeResult.success(call.endpoint, value);
+            } catch (TimeoutException e) {
+                // A call that was still queued may have been sent while we waited
+                if (call.deadline(deadlineNanos, nodeTimeoutNanos) - System.nanoTime() <= 0) {
+                    boolean started = call.started;
+                    call.future.cancel(true);
+                    return NodeResult.timedOut(call.endpoint, started ? "Timed out" : NOT_SENT);
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    return NodeResult.timedOut(call.endpoint, e.getCause().getMessage());
+                }
+                return NodeResult.failure(call.endpoint, e.getCause().toString());
+            }
+        }
+    }
+
+    private class NodeCall<T> implements Callable<T> {
+        private final String endpoint;
+        private final String localEndpoint;
+        private final NodeRequest<T> request;
+        private final long deadlineNanos;
+        private volatile boolean started;
+        private volatile long startedNanos;
+        private Future<T> future;
+
+        NodeCall(String endpoint, String localEndpoint, NodeRequest<T> request, long deadlineNanos) {
+            this.endpoint = endpoint;
+            this.localEndpoint = localEndpoint;
+            this.request = request;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * The earlier of the overall deadline and the node's own timeout.  A request that hasn't been sent yet can't
+         * time out before a full node timeout from now.
+         */
+        long deadline(long deadlineNanos, long nodeTimeoutNanos) {
+            long nodeDeadline = (started ? startedNanos : System.nanoTime()) + nodeTimeoutNanos;
+            return nodeDeadline - deadlineNanos < 0 ? nodeDeadline : deadlineNanos;
+        }
+
+        @Override
+        public T call() throws Exception {
+            // Nobody is waiting for the answer any more
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                throw new TimeoutException(NOT_SENT);
+            }
+            startedNanos = System.nanoTime();
+            started = true;
+            if (endpoint.equals(localEndpoint)) {
+                return request.local();
+            }
+            String url = String.format("http://%s:%s/v1", endpoint, httpConfiguration.getPort());
+            WebResource priam = jersey.resource(url);
+            return request.remote(priam);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.netflix.priam.rolling;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.netflix.priam.ring.NodeResult;
+import com.netflix.priam.utils.RingEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides whether the ring is healthy enough for a rolling operation to move on to the next node or rack.
+ */
+public class HealthGates {
+    private static final String NORMAL = "Normal";
+
+    private HealthGates() {
+    }
+
+    /**
+     * Returns why the ring isn't ready, or an empty list when every gate is open: every node is up and in the Normal
+     * state, and no node has hints to deliver, more than {@code maxPendingCompactions} pending compactions, or streams
+     * in flight.
+     */
+    public static List<String> check(List<RingEntry> ring, Collection<NodeResult<NodeHealth>> health,
+                                     int maxPendingCompactions) {
+        List<String> reasons = Lists.newArrayList();
+        Set<String> seen = Sets.newHashSet();
+        for (RingEntry node : ring) {
+            if (!seen.add(node.getEndpoint())) {
+                continue;
+            }
+            if (!node.isUp()) {
+                reasons.add(node.getEndpoint() + " is down");
+            } else if (!NORMAL.equalsIgnoreCase(node.getState())) {
+                reasons.add(node.getEndpoint() + " is " + node.getState().toLowerCase());
+            }
+        }
+        for (NodeResult<NodeHealth> result : health) {
+            if (!result.isSuccess()) {
+                reasons.add(result.getEndpoint() + " didn't report its health: " + result.getError());
+                continue;
+            }
+            NodeHealth node = result.getValue();
+            if (node.getEndpointsPendingHints() > 0) {
+                reasons.add(result.getEndpoint() + " has hints pending for " + node.getEndpointsPendingHints() + " endpoints");
+            }
+            if (node.getPendingCompactions() > maxPendingCompactions) {
+                reasons.add(result.getEndpoint() + " has " + node.getPendingCompactions() + " pending compactions");
+            }
+            if (node.getStreamingPeers() > 0) {
+                reasons.add(result.getEndpoint() + " is streaming with " + node.getStreamingPeers() + " peers");
+            }
+        }
+        return reasons;
+    }
+
+    /**
+     * Splits the ring into the batches a rolling operation walks through in order: one node at a time in ring order,
+     * or one rack at a time in the order racks first appear in the ring.
+     *
+     * @param dataCenter only the nodes of this data center, or all nodes when null
+     */
+    public static List<List<String>> batches(List<RingEntry> ring, boolean byRack, String dataCenter) {
+        Map<String, List<String>> batches = Maps.newLinkedHashMap();
+        Set<String> seen = Sets.newHashSet();
+        for (RingEntry node : ring) {
+            if (dataCenter != null && !dataCenter.equals(node.getDataCenter())) {
+                continue;
+            }
+            if (!seen.add(node.getEndpoint())) {
+                continue;
+            }
+            String batch = byRack ? node.getDataCenter() + ":" + node.getRack() : node.getEndpoint();
+            if (!batches.containsKey(batch)) {
+                batches.put(batch, Lists.<String>newArrayList());
+            }
+            batches.get(batch).add(node.getEndpoint());
+        }
+        return Lists.newArrayList(batches.values());
+    }
+}
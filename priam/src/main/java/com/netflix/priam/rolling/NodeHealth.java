@@ -0,0 +1,37 @@
+package com.netflix.priam.rolling;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The work a node still has in flight, which a rolling operation waits on before moving to the next node.
+ */
+public class NodeHealth {
+    private final long endpointsPendingHints;
+    private final int pendingCompactions;
+    private final int streamingPeers;
+
+    @JsonCreator
+    public NodeHealth(@JsonProperty("endpointsPendingHints") long endpointsPendingHints,
+                      @JsonProperty("pendingCompactions") int pendingCompactions,
+                      @JsonProperty("streamingPeers") int streamingPeers) {
+        this.endpointsPendingHints = endpointsPendingHints;
+        this.pendingCompactions = pendingCompactions;
+        this.streamingPeers = streamingPeers;
+    }
+
+    @JsonProperty
+    public long getEndpointsPendingHints() {
+        return endpointsPendingHints;
+    }
+
+    @JsonProperty
+    public int getPendingCompactions() {
+        return pendingCompactions;
+    }
+
+    @JsonProperty
+    public int getStreamingPeers() {
+        return streamingPeers;
+    }
+}
@@ -0,0 +1,25 @@
+package com.netflix.priam.rolling;
+
+/**
+ * The operations the {@link RollingOrchestrator} can run across the ring.
+ */
+public enum RollingOperation {
+    CLEANUP("cassadmin/cleanup"),
+    COMPACT("cassadmin/compact"),
+    UPGRADESSTABLES("cassadmin/upgradesstables"),
+    RESTART(null);
+
+    private final String path;
+
+    RollingOperation(String path) {
+        this.path = path;
+    }
+
+    /**
+     * The {@code /v1} endpoint that runs the operation on a node as a job, or null for a restart, which drains, stops
+     * and starts Cassandra.
+     */
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,577 @@
+package com.netflix.priam.rolling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.netflix.priam.PriamServer;
+import com.netflix.priam.config.AmazonConfiguration;
+import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.RollingConfiguration;
+import com.netflix.priam.ring.NodeRequest;
+import com.netflix.priam.ring.NodeResult;
+import com.netflix.priam.ring.RingFanOut;
+import com.netflix.priam.utils.EndpointTopologyCache;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.netflix.priam.utils.RingEntry;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.GenericType;
+import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+import com.yammer.dropwizard.config.HttpConfiguration;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs cleanup, compaction, upgradesstables or a restart across the ring, one node or one rack at a time.
+ * <p/>
+ * Before each batch, and once more after the last, the orchestrator waits for the {@link HealthGates} to open, so the
+ * ring has caught up with the previous batch before the next one starts.  Each node runs the operation as a job under
+ * its own {@code /v1/jobs}, which the orchestrator polls.  Any Priam node can coordinate.  The progress lives in
+ * ZooKeeper and the coordinator holds a lock while it runs, so if it dies another node (or the same one after a
+ * restart) resumes the run with the batch it was on.  The resumed batch waits for the jobs the last coordinator
+ * submitted and skips the nodes it saw finish, so the operation isn't run twice on a node.
+ * <p/>
+ * A health check that fails counts as a closed gate until the gate timeout, since the coordinator may itself be in the
+ * batch whose Cassandra was just restarted.
+ */
+@Singleton
+public class RollingOrchestrator implements Managed {
+    public static final String CLIENT = "rolling";
+    private static final Logger logger = LoggerFactory.getLogger(RollingOrchestrator.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final RollingConfiguration rollingConfiguration;
+    private final CassandraConfiguration cassandraConfiguration;
+    private final AmazonConfiguration amazonConfiguration;
+    private final Optional<CuratorFramework> curator;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final EndpointTopologyCache topologyCache;
+    private final RingFanOut ringFanOut;
+    private final Client jersey;
+    private final HttpConfiguration httpConfiguration;
+    private final PriamServer priamServer;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService coordinator;
+
+    // Guarded by this
+    private RollingRun active;
+
+    @Inject
+    public RollingOrchestrator(RollingConfiguration rollingConfiguration, CassandraConfiguration cassandraConfiguration,
+                               AmazonConfiguration amazonConfiguration, Optional<CuratorFramework> curator,
+                               JMXConnectionPool jmxConnectionPool, EndpointTopologyCache topologyCache,
+                               RingFanOut ringFanOut, @Named(CLIENT) Client jersey,
+                               HttpConfiguration httpConfiguration, PriamServer priamServer) {
+        this.rollingConfiguration = rollingConfiguration;
+        this.cassandraConfiguration = cassandraConfiguration;
+        this.amazonConfiguration = amazonConfiguration;
+        this.curator = curator;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.topologyCache = topologyCache;
+        this.ringFanOut = ringFanOut;
+        this.jersey = jersey;
+        this.httpConfiguration = httpConfiguration;
+        this.priamServer = priamServer;
+
+        ThreadFactory schedulerFactory = new ThreadFactoryBuilder().setNameFormat("RollingOrchestrator-resume-%d").setDaemon(true).build();
+        scheduler = Executors.newSingleThreadScheduledExecutor(schedulerFactory);
+        ThreadFactory coordinatorFactory = new ThreadFactoryBuilder().setNameFormat("RollingOrchestrator-%d").setDaemon(true).build();
+        coordinator = Executors.newSingleThreadExecutor(coordinatorFactory);
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!curator.isPresent()) {
+            return;
+        }
+        long interval = rollingConfiguration.getResumeCheckMS();
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    resume();
+                } catch (Throwable t) {
+                    logger.warn("Unable to check for a rolling operation to resume: {}", t.toString());
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        scheduler.shutdownNow();
+        // The run stays RUNNING in ZooKeeper for another node to resume
+        coordinator.shutdownNow();
+    }
+
+    public boolean isAvailable() {
+        return curator.isPresent();
+    }
+
+    /**
+     * Starts a rolling operation coordinated by this node.
+     *
+     * @param parameters passed on to the operation's endpoint on every node, eg. {@code keyspaces}
+     * @param dataCenter only the nodes of this data center, or the whole ring when null
+     * @throws IllegalStateException if a rolling operation is already running
+     */
+    public synchronized RollingRun start(RollingOperation operation, Map<String, String> parameters, boolean byRack,
+                                         String dataCenter) throws Exception {
+        InterProcessSemaphoreMutex lock = newLock();
+        if (active != null || !lock.acquire(0, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("A rolling operation is already running");
+        }
+        try {
+            Optional<RollingRun> previous = load();
+            if (previous.isPresent() && previous.get().getState() == RollingRun.State.RUNNING) {
+                throw new IllegalStateException("Rolling operation " + previous.get().getId() + " is waiting to be resumed");
+            }
+            List<List<String>> batches = HealthGates.batches(ring(), byRack, dataCenter);
+            RollingRun run = new RollingRun(UUID.randomUUID().toString(), operation, parameters, byRack, batches,
+                    selfEndpoint());
+            if (curator.get().checkExists().forPath(cancelPath()) != null) {
+                curator.get().delete().forPath(cancelPath());
+            }
+            save(run);
+            logger.info("Rolling {} {} started over {} batches", operation, run.getId(), batches.size());
+            launch(run, lock);
+            return run;
+        } catch (Exception e) {
+            lock.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the latest rolling operation, whichever node coordinates it.
+     */
+    public Optional<RollingRun> get() throws Exception {
+        return load();
+    }
+
+    /**
+     * Asks the coordinator to stop.  It stops at its next check, cancelling the jobs of the batch that is running.
+     */
+    public Optional<RollingRun> cancel() throws Exception {
+        Optional<RollingRun> run = load();
+        if (run.isPresent() && run.get().getState() == RollingRun.State.RUNNING) {
+            try {
+                curator.get().create().creatingParentsIfNeeded().forPath(cancelPath());
+            } catch (KeeperException.NodeExistsException e) {
+                // Already requested
+            }
+            logger.info("Rolling {} {} cancel requested", run.get().getOperation(), run.get().getId());
+        }
+        return run;
+    }
+
+    /**
+     * The health of this node, for the gates of whichever node coordinates.
+     */
+    public NodeHealth localHealth() throws Exception {
+        return jmxConnectionPool.execute(new JMXCallable<NodeHealth>() {
+            @Override
+            public NodeHealth call(JMXNodeTool nodeTool) throws Exception {
+                return new NodeHealth(nodeTool.totalEndpointsPendingHints(),
+                        nodeTool.compactionStats().getPendingTasks(),
+                        nodeTool.getStreamDestinations().size() + nodeTool.getStreamSources().size());
+            }
+        });
+    }
+
+    /**
+     * Takes over a run whose coordinator went away, if no other node has already.
+     */
+    synchronized void resume() throws Exception {
+        if (active != null) {
+            return;
+        }
+        Optional<RollingRun> run = load();
+        if (!run.isPresent() || run.get().getState() != RollingRun.State.RUNNING) {
+            return;
+        }
+        InterProcessSemaphoreMutex lock = newLock();
+        if (!lock.acquire(0, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        // The previous coordinator may have finished while we took the lock
+        run = load();
+        if (!run.isPresent() || run.get().getState() != RollingRun.State.RUNNING) {
+            lock.release();
+            return;
+        }
+        logger.info("Resuming rolling {} {} at batch {} of {}, previously coordinated by {}", run.get().getOperation(),
+                run.get().getId(), run.get().getCompletedBatches() + 1, run.get().getBatches().size(),
+                run.get().getCoordinator());
+        run.get().setCoordinator(selfEndpoint());
+        save(run.get());
+        launch(run.get(), lock);
+    }
+
+    private void launch(final RollingRun run, final InterProcessSemaphoreMutex lock) {
+        active = run;
+        coordinator.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    coordinate(run);
+                } finally {
+                    synchronized (RollingOrchestrator.this) {
+                        active = null;
+                    }
+                    try {
+                        lock.release();
+                    } catch (Exception e) {
+                        // The lock node is ephemeral, it goes with the session
+                        logger.warn("Unable to release the rolling operation lock: {}", e.toString());
+                    }
+                }
+            }
+        });
+    }
+
+    private void coordinate(RollingRun run) {
+        try {
+            List<List<String>> batches = run.getBatches();
+            while (run.getCompletedBatches() < batches.size()) {
+                List<String> batch = batches.get(run.getCompletedBatches());
+                awaitGates(run);
+                logger.info("Rolling {} {} running on {}", run.getOperation(), run.getId(), batch);
+                runBatch(run, batch);
+                run.batchCompleted();
+                save(run);
+            }
+            // Wait for the ring to settle after the last batch too, eg. for the last node restarted to come back up
+            awaitGates(run);
+            run.finish(RollingRun.State.SUCCEEDED, null);
+            logger.info("Rolling {} {} succeeded", run.getOperation(), run.getId());
+        } catch (InterruptedException e) {
+            // Priam is stopping, leave the run for the next coordinator
+            logger.info("Rolling {} {} interrupted, it will be resumed", run.getOperation(), run.getId());
+            return;
+        } catch (CancellationException e) {
+            run.finish(RollingRun.State.CANCELLED, null);
+            logger.info("Rolling {} {} cancelled", run.getOperation(), run.getId());
+        } catch (Exception e) {
+            run.finish(RollingRun.State.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+            logger.error("Rolling {} {} failed", run.getOperation(), run.getId(), e);
+        }
+        try {
+            save(run);
+        } catch (Exception e) {
+            logger.error("Unable to save the outcome of rolling {} {}", run.getOperation(), run.getId(), e);
+        }
+    }
+
+    /**
+     * Waits until every health gate is open, or fails after the configured gate timeout.
+     */
+    private void awaitGates(RollingRun run) throws Exception {
+        long deadline = System.currentTimeMillis() + rollingConfiguration.getGateTimeoutMS();
+        while (true) {
+            checkCancelled();
+            List<String> reasons;
+            try {
+                reasons = checkGates();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                // Eg. the coordinator's own Cassandra is still starting after the restart of its batch
+                logger.debug("Rolling {} {} health check failed", run.getOperation(), run.getId(), e);
+                reasons = ImmutableList.of("Health check failed: " + e);
+            }
+            if (!reasons.equals(run.getWaitingFor())) {
+                run.setWaitingFor(reasons);
+                save(run);
+            }
+            if (reasons.isEmpty()) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Health gates still closed after " +
+                        rollingConfiguration.getGateTimeoutMS() + "ms: " + reasons);
+            }
+            logger.debug("Rolling {} {} waiting for {}", run.getOperation(), run.getId(), reasons);
+            Thread.sleep(rollingConfiguration.getGatePollMS());
+        }
+    }
+
+    private List<String> checkGates() throws Exception {
+        List<RingEntry> ring = ring();
+        List<String> liveEndpoints = Lists.newArrayList();
+        for (RingEntry node : ring) {
+            if (node.isUp()) {
+                liveEndpoints.add(node.getEndpoint());
+            }
+        }
+        Map<String, NodeResult<NodeHealth>> health = ringFanOut.execute(liveEndpoints, selfEndpoint(),
+                new NodeRequest<NodeHealth>() {
+                    @Override
+                    public NodeHealth local() throws Exception {
+                        return localHealth();
+                    }
+
+                    @Override
+                    public NodeHealth remote(WebResource priam) throws Exception {
+                        return priam.path("rolling/health").get(NodeHealth.class);
+                    }
+                });
+        return HealthGates.check(ring, health.values(), rollingConfiguration.getMaxPendingCompactions());
+    }
+
+    /**
+     * Runs the operation on every node of the batch at once and waits for all of them.
+     */
+    private void runBatch(final RollingRun run, List<String> batch) throws Exception {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("RollingOrchestrator-batch-%d")
+                .setDaemon(true)
+                .build();
+        ExecutorService workers = Executors.newFixedThreadPool(batch.size(), threadFactory);
+        try {
+            List<Future<Void>> futures = Lists.newArrayList();
+            for (final String endpoint : batch) {
+                futures.add(workers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        runOnNode(run, endpoint);
+                        return null;
+                    }
+                }));
+            }
+            // Let the other nodes of the batch finish, then report the first failure
+            Throwable failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, Exception.class);
+                throw Throwables.propagate(failure);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void runOnNode(RollingRun run, String endpoint) throws Exception {
+        if (run.getFinishedNodes().contains(endpoint)) {
+            logger.info("Rolling {} {} already finished on {}", run.getOperation(), run.getId(), endpoint);
+            return;
+        }
+        WebResource priam = jersey.resource(String.format("http://%s:%s/v1", endpoint, httpConfiguration.getPort()));
+        if (run.getOperation() == RollingOperation.RESTART) {
+            awaitJob(endpoint, priam, submitJob(run, endpoint, priam, priam.path("cassadmin/drain")));
+            restart(endpoint, priam);
+        } else {
+            WebResource resource = priam.path(run.getOperation().getPath());
+            for (Map.Entry<String, String> parameter : run.getParameters().entrySet()) {
+                resource = resource.queryParam(parameter.getKey(), parameter.getValue());
+            }
+            awaitJob(endpoint, priam, submitJob(run, endpoint, priam, resource));
+        }
+        synchronized (run) {
+            run.nodeFinished(endpoint);
+            save(run);
+        }
+    }
+
+    /**
+     * Stops and starts Cassandra on the drained node.  A stop that gets no answer may still be under way, so the node
+     * is started regardless.  The start is retried until the node answers, up to the gate timeout, so that a node is
+     * never left down because one call timed out.
+     */
+    private void restart(String endpoint, WebResource priam) throws Exception {
+        try {
+            priam.path("cassadmin/stop").get(String.class);
+        } catch (ClientHandlerException e) {
+            logger.warn("No answer to stopping Cassandra on {}, starting it regardless: {}", endpoint, e.toString());
+        }
+        long deadline = System.currentTimeMillis() + rollingConfiguration.getGateTimeoutMS();
+        while (true) {
+            try {
+                priam.path("cassadmin/start").get(String.class);
+                return;
+            } catch (ClientHandlerException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("No answer to starting Cassandra on " + endpoint + " after " +
+                            rollingConfiguration.getGateTimeoutMS() + "ms: " + e);
+                }
+                logger.warn("No answer to starting Cassandra on {}, retrying: {}", endpoint, e.toString());
+                Thread.sleep(rollingConfiguration.getJobPollMS());
+            }
+        }
+    }
+
+    /**
+     * Submits the operation as a job that waits for its turn if the node's admission limits are reached, and records
+     * its id in the run.  If the run already has a job on the node, submitted by a coordinator that went away, that
+     * job is returned instead, unless the node no longer knows it.
+     */
+    private long submitJob(RollingRun run, String endpoint, WebResource priam, WebResource resource) throws Exception {
+        Long submitted = run.getJobs().get(endpoint);
+        if (submitted != null) {
+            if (jobExists(endpoint, priam, submitted)) {
+                logger.info("Rolling {} {} waiting for job {} on {} submitted by the previous coordinator",
+                        run.getOperation(), run.getId(), submitted, endpoint);
+                return submitted;
+            }
+            logger.info("Job {} on {} is gone, submitting the operation again", submitted, endpoint);
+        }
+        Map<String, Object> job = resource.queryParam("async", "true").queryParam("queue", "true")
+                .get(new GenericType<Map<String, Object>>() {
+                });
+        long id = ((Number) job.get("id")).longValue();
+        synchronized (run) {
+            run.jobSubmitted(endpoint, id);
+            save(run);
+        }
+        return id;
+    }
+
+    /**
+     * Whether the node still has the job.  A node that can't be reached is assumed to, {@link #awaitJob} polls it
+     * until it answers.
+     */
+    private boolean jobExists(String endpoint, WebResource priam, long id) {
+        try {
+            priam.path("jobs/" + id).get(new GenericType<Map<String, Object>>() {
+            });
+            return true;
+        } catch (UniformInterfaceException e) {
+            if (e.getResponse().getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+                return false;
+            }
+            throw e;
+        } catch (ClientHandlerException e) {
+            logger.warn("Unable to check job {} on {}: {}", id, endpoint, e.toString());
+            return true;
+        }
+    }
+
+    /**
+     * Polls the job until it finishes.  A node that can't be reached is polled again, a job that disappeared (because
+     * Priam restarted) fails the batch.
+     */
+    private void awaitJob(String endpoint, WebResource priam, long id) throws Exception {
+        while (true) {
+            Thread.sleep(rollingConfiguration.getJobPollMS());
+            if (isCancelRequested()) {
+                try {
+                    priam.path("jobs/" + id + "/cancel").post();
+                } catch (Exception e) {
+                    logger.warn("Unable to cancel job {} on {}: {}", id, endpoint, e.toString());
+                }
+                throw new CancellationException();
+            }
+            Map<String, Object> job;
+            try {
+                job = priam.path("jobs/" + id).get(new GenericType<Map<String, Object>>() {
+                });
+            } catch (ClientHandlerException e) {
+                logger.warn("Unable to poll job {} on {}: {}", id, endpoint, e.toString());
+                continue;
+            }
+            String state = (String) job.get("state");
+            if ("SUCCEEDED".equals(state)) {
+                return;
+            }
+            if ("FAILED".equals(state) || "CANCELLED".equals(state)) {
+                throw new IllegalStateException(String.format("Job %d on %s %s: %s", id, endpoint,
+                        state.toLowerCase(), job.get("error")));
+            }
+        }
+    }
+
+    private void checkCancelled() throws Exception {
+        if (isCancelRequested()) {
+            throw new CancellationException();
+        }
+    }
+
+    private boolean isCancelRequested() throws Exception {
+        return curator.get().checkExists().forPath(cancelPath()) != null;
+    }
+
+    private List<RingEntry> ring() throws Exception {
+        return jmxConnectionPool.execute(new JMXCallable<List<RingEntry>>() {
+            @Override
+            public List<RingEntry> call(JMXNodeTool nodeTool) throws Exception {
+                return nodeTool.ring(topologyCache);
+            }
+        });
+    }
+
+    private Optional<RollingRun> load() throws Exception {
+        if (curator.get().checkExists().forPath(runPath()) == null) {
+            return Optional.absent();
+        }
+        return Optional.of(OBJECT_MAPPER.readValue(curator.get().getData().forPath(runPath()), RollingRun.class));
+    }
+
+    private void save(RollingRun run) throws Exception {
+        run.setUpdatedAt(System.currentTimeMillis());
+        byte[] data = OBJECT_MAPPER.writeValueAsBytes(run);
+        if (curator.get().checkExists().forPath(runPath()) == null) {
+            curator.get().create().creatingParentsIfNeeded().forPath(runPath(), data);
+        } else {
+            curator.get().setData().forPath(runPath(), data);
+        }
+    }
+
+    private InterProcessSemaphoreMutex newLock() {
+        if (!curator.isPresent()) {
+            throw new IllegalStateException("Rolling operations need ZooKeeper");
+        }
+        // Not tied to the thread that took it, since the coordinator thread releases it
+        return new InterProcessSemaphoreMutex(curator.get(), basePath() + "/lock");
+    }
+
+    private String selfEndpoint() {
+        return priamServer.getInstanceIdentity().getInstance().getHostIP();
+    }
+
+    private String runPath() {
+        return basePath() + "/run";
+    }
+
+    private String cancelPath() {
+        return basePath() + "/cancel";
+    }
+
+    private String basePath() {
+        return "/applications/priam/rolling/" + amazonConfiguration.getRegionName() + "/" + cassandraConfiguration.getClusterName();
+    }
+}
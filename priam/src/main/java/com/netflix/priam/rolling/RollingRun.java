@@ -0,0 +1,182 @@
+package com.netflix.priam.rolling;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The progress of a rolling operation, as kept in ZooKeeper so that a new coordinator can pick it up where the last
+ * one stopped.  A batch is done once every node in it finished the operation.  The jobs submitted for the current
+ * batch are kept too, so a new coordinator waits for them instead of running the operation on those nodes again.
+ */
+@JsonPropertyOrder({"id", "operation", "parameters", "byRack", "state", "coordinator", "startedAt", "updatedAt",
+        "completedBatches", "batches", "jobs", "finishedNodes", "waitingFor", "error"})
+public class RollingRun {
+    public static enum State {
+        RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    @JsonProperty
+    private String id;
+
+    @JsonProperty
+    private RollingOperation operation;
+
+    @JsonProperty
+    private Map<String, String> parameters = ImmutableMap.of();
+
+    @JsonProperty
+    private boolean byRack;
+
+    @JsonProperty
+    private State state;
+
+    @JsonProperty
+    private String coordinator;
+
+    @JsonProperty
+    private long startedAt;
+
+    @JsonProperty
+    private long updatedAt;
+
+    @JsonProperty
+    private int completedBatches;
+
+    @JsonProperty
+    private List<List<String>> batches = ImmutableList.of();
+
+    @JsonProperty
+    private Map<String, Long> jobs = ImmutableMap.of();
+
+    @JsonProperty
+    private Set<String> finishedNodes = ImmutableSet.of();
+
+    @JsonProperty
+    private List<String> waitingFor = ImmutableList.of();
+
+    @JsonProperty
+    private String error;
+
+    // For Jackson
+    RollingRun() {
+    }
+
+    RollingRun(String id, RollingOperation operation, Map<String, String> parameters, boolean byRack,
+               List<List<String>> batches, String coordinator) {
+        this.id = id;
+        this.operation = operation;
+        this.parameters = ImmutableMap.copyOf(parameters);
+        this.byRack = byRack;
+        this.batches = ImmutableList.copyOf(batches);
+        this.coordinator = coordinator;
+        this.state = State.RUNNING;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public RollingOperation getOperation() {
+        return operation;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public boolean isByRack() {
+        return byRack;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getCoordinator() {
+        return coordinator;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int getCompletedBatches() {
+        return completedBatches;
+    }
+
+    public List<List<String>> getBatches() {
+        return batches;
+    }
+
+    /**
+     * The id of the job running the operation on each node of the current batch, by endpoint.
+     */
+    public synchronized Map<String, Long> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * The nodes of the current batch that finished the operation.
+     */
+    public synchronized Set<String> getFinishedNodes() {
+        return finishedNodes;
+    }
+
+    /**
+     * The health gates holding up the next batch, empty while a batch runs.
+     */
+    public List<String> getWaitingFor() {
+        return waitingFor;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void setCoordinator(String coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    void setWaitingFor(List<String> waitingFor) {
+        this.waitingFor = ImmutableList.copyOf(waitingFor);
+    }
+
+    synchronized void jobSubmitted(String endpoint, long id) {
+        Map<String, Long> submitted = Maps.newHashMap(jobs);
+        submitted.put(endpoint, id);
+        jobs = ImmutableMap.copyOf(submitted);
+    }
+
+    synchronized void nodeFinished(String endpoint) {
+        finishedNodes = ImmutableSet.<String>builder().addAll(finishedNodes).add(endpoint).build();
+    }
+
+    synchronized void batchCompleted() {
+        completedBatches++;
+        jobs = ImmutableMap.of();
+        finishedNodes = ImmutableSet.of();
+    }
+
+    void finish(State state, String error) {
+        this.state = state;
+        this.error = error;
+        this.waitingFor = ImmutableList.of();
+    }
+}
@@ -16,6 +16,9 @@
 package com.netflix.priam.scheduler;
 
 import com.google.common.base.Throwables;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.TimerContext;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.Job;
 import org.quartz.JobBuilder;
@@ -31,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -79,17 +83,25 @@ public abstract class Task implements Job, TaskMBean {
      */
     public void execute(JobExecutionContext context) throws JobExecutionException {
         executions.incrementAndGet();
+        TimerContext timerContext = null;
         try {
             if (status == State.RUNNING) {
                 return;
             }
             status = State.RUNNING;
+            timerContext = Metrics.newTimer(new MetricName(Task.class, "execution", getName()),
+                    TimeUnit.MILLISECONDS, TimeUnit.SECONDS).time();
             execute();
 
         } catch (Throwable e) {
             status = State.ERROR;
             logger.error("Couldn't execute the task because of {}", e.toString(), e);
             errors.incrementAndGet();
+            Metrics.newMeter(new MetricName(Task.class, "errors", getName()), "errors", TimeUnit.SECONDS).mark();
+        } finally {
+            if (timerContext != null) {
+                timerContext.stop();
+            }
         }
         if (status != State.ERROR) {
             status = State.DONE;
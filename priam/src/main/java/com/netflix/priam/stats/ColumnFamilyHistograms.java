@@ -0,0 +1,213 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.apache.cassandra.utils.EstimatedHistogram;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The recent latency and lifetime size histograms of one column family, equivalent to "nodetool cfhistograms".
+ * <p/>
+ * Serializes as a table with one row per bucket offset, matching the historical format of the cfhistograms endpoint.
+ */
+@JsonSerialize(using = ColumnFamilyHistograms.TableSerializer.class)
+public class ColumnFamilyHistograms {
+    private static final List<String> COLUMNS = ImmutableList.of("offset", "sstables", "write latency", "read latency", "row size", "column count");
+
+    /** Names of the histograms in {@link #getBuckets()} and {@link #getPercentiles()}. */
+    public static final String SSTABLES = "sstables";
+    public static final String WRITE_LATENCY = "write_latency_micros";
+    public static final String READ_LATENCY = "read_latency_micros";
+    public static final String ROW_SIZE = "row_size";
+    public static final String COLUMN_COUNT = "column_count";
+
+    private final String keyspace;
+    private final String columnFamily;
+    private final long[] offsets;
+    private final long[] sstablesPerRead;
+    private final long[] writeLatencyMicros;
+    private final long[] readLatencyMicros;
+    private final long[] rowSize;
+    private final long[] columnCount;
+
+    public ColumnFamilyHistograms(String keyspace, String columnFamily, long[] sstablesPerRead, long[] writeLatencyMicros,
+                                  long[] readLatencyMicros, long[] rowSize, long[] columnCount) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        // default is 90 offsets
+        this.offsets = new EstimatedHistogram().getBucketOffsets();
+        this.sstablesPerRead = sstablesPerRead;
+        this.writeLatencyMicros = writeLatencyMicros;
+        this.readLatencyMicros = readLatencyMicros;
+        this.rowSize = rowSize;
+        this.columnCount = columnCount;
+    }
+
+    @JsonIgnore
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    @JsonIgnore
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    @JsonIgnore
+    public long[] getOffsets() {
+        return offsets;
+    }
+
+    @JsonIgnore
+    public long[] getSSTablesPerRead() {
+        return sstablesPerRead;
+    }
+
+    @JsonIgnore
+    public long[] getWriteLatencyMicros() {
+        return writeLatencyMicros;
+    }
+
+    @JsonIgnore
+    public long[] getReadLatencyMicros() {
+        return readLatencyMicros;
+    }
+
+    @JsonIgnore
+    public long[] getRowSize() {
+        return rowSize;
+    }
+
+    @JsonIgnore
+    public long[] getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * The raw bucket counts of each histogram, keyed by histogram name.  Unlike the table format these aren't
+     * truncated to 90 buckets, so they can be merged across nodes without losing the large row sizes.
+     */
+    @JsonIgnore
+    public Map<String, long[]> getBuckets() {
+        Map<String, long[]> buckets = Maps.newLinkedHashMap();
+        buckets.put(SSTABLES, sstablesPerRead);
+        buckets.put(WRITE_LATENCY, writeLatencyMicros);
+        buckets.put(READ_LATENCY, readLatencyMicros);
+        buckets.put(ROW_SIZE, rowSize);
+        buckets.put(COLUMN_COUNT, columnCount);
+        return buckets;
+    }
+
+    public static ColumnFamilyHistograms fromBuckets(String keyspace, String columnFamily, Map<String, long[]> buckets) {
+        return new ColumnFamilyHistograms(keyspace, columnFamily, bucketsOf(buckets, SSTABLES),
+                bucketsOf(buckets, WRITE_LATENCY), bucketsOf(buckets, READ_LATENCY), bucketsOf(buckets, ROW_SIZE),
+                bucketsOf(buckets, COLUMN_COUNT));
+    }
+
+    @JsonIgnore
+    public Map<String, HistogramPercentiles> getPercentiles() {
+        Map<String, HistogramPercentiles> percentiles = Maps.newLinkedHashMap();
+        for (Map.Entry<String, long[]> entry : getBuckets().entrySet()) {
+            percentiles.put(entry.getKey(), HistogramPercentiles.fromBuckets(entry.getValue()));
+        }
+        return percentiles;
+    }
+
+    /**
+     * Adds the histograms bucket-wise, giving the distribution across both sources.  Both must use the same bucket
+     * layout, which holds for nodes running the same Cassandra version.
+     */
+    public ColumnFamilyHistograms merge(ColumnFamilyHistograms other) {
+        return new ColumnFamilyHistograms(keyspace, columnFamily,
+                add(sstablesPerRead, other.sstablesPerRead, SSTABLES),
+                add(writeLatencyMicros, other.writeLatencyMicros, WRITE_LATENCY),
+                add(readLatencyMicros, other.readLatencyMicros, READ_LATENCY),
+                add(rowSize, other.rowSize, ROW_SIZE),
+                add(columnCount, other.columnCount, COLUMN_COUNT));
+    }
+
+    private static long[] add(long[] a, long[] b, String name) {
+        checkArgument(a.length == b.length, "Histogram %s has %s buckets, can't merge with %s buckets", name, a.length, b.length);
+        long[] sum = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    private static long[] bucketsOf(Map<String, long[]> buckets, String name) {
+        long[] values = buckets.get(name);
+        return values != null ? values : new long[0];
+    }
+
+    /**
+     * The number of rows of the cfhistograms table, one per bucket offset.
+     */
+    @JsonIgnore
+    public int getRowCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Writes one row of the cfhistograms table.  As an array, cells past the end of a histogram are empty strings.  As
+     * an object keyed by column name they are left out.
+     */
+    public void writeRow(JsonGenerator generator, int row, boolean asObject) throws IOException {
+        long[][] histograms = {offsets, sstablesPerRead, writeLatencyMicros, readLatencyMicros, rowSize, columnCount};
+        if (asObject) {
+            generator.writeStartObject();
+        } else {
+            generator.writeStartArray();
+        }
+        for (int column = 0; column < histograms.length; column++) {
+            long[] histogram = histograms[column];
+            if (asObject) {
+                if (row < histogram.length) {
+                    generator.writeNumberField(COLUMNS.get(column), histogram[row]);
+                }
+            } else if (row < histogram.length) {
+                generator.writeNumber(histogram[row]);
+            } else {
+                generator.writeString("");
+            }
+        }
+        if (asObject) {
+            generator.writeEndObject();
+        } else {
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the table straight to the generator, since it is large enough that building it as nested lists first
+     * would be most of the cost of the request.
+     */
+    static class TableSerializer extends JsonSerializer<ColumnFamilyHistograms> {
+        @Override
+        public void serialize(ColumnFamilyHistograms histograms, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (String column : COLUMNS) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("values");
+            for (int row = 0; row < histograms.getRowCount(); row++) {
+                histograms.writeRow(generator, row, false);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
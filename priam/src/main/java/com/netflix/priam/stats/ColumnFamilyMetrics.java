@@ -0,0 +1,130 @@
+package com.netflix.priam.stats;
+
+import java.util.Map;
+
+/**
+ * The per column family values sampled on every collection, read in the same bulk call as the recent latencies.
+ * <p/>
+ * This is deliberately a small subset of {@link ColumnFamilyStats}: attributes such as the row size or bloom filter
+ * stats walk every sstable on each read, which is too expensive to do on a fixed interval.
+ */
+public class ColumnFamilyMetrics {
+    public static final String[] ATTRIBUTES = {"LiveSSTableCount", "LiveDiskSpaceUsed", "TotalDiskSpaceUsed",
+            "MemtableDataSize", "ReadCount", "TotalReadLatencyMicros", "WriteCount", "TotalWriteLatencyMicros",
+            "PendingTasks", "RecentReadLatencyMicros", "RecentWriteLatencyMicros"};
+
+    private final String keyspace;
+    private final String columnFamily;
+    private final int sstableCount;
+    private final long liveDiskSpaceUsed;
+    private final long totalDiskSpaceUsed;
+    private final long memtableDataSize;
+    private final long readCount;
+    private final long totalReadLatencyMicros;
+    private final long writeCount;
+    private final long totalWriteLatencyMicros;
+    private final int pendingTasks;
+    private final double recentReadLatencyMicros;
+    private final double recentWriteLatencyMicros;
+
+    /**
+     * Builds the metrics from the {@link #ATTRIBUTES} of a column family store.  Counters that couldn't be read
+     * default to zero and latencies to {@code NaN}, which is also what Cassandra reports when there were no requests.
+     */
+    public static ColumnFamilyMetrics fromAttributes(String keyspace, String columnFamily, Map<String, Object> values) {
+        return new ColumnFamilyMetrics(keyspace, columnFamily,
+                (int) number(values, "LiveSSTableCount", 0),
+                (long) number(values, "LiveDiskSpaceUsed", 0),
+                (long) number(values, "TotalDiskSpaceUsed", 0),
+                (long) number(values, "MemtableDataSize", 0),
+                (long) number(values, "ReadCount", 0),
+                (long) number(values, "TotalReadLatencyMicros", 0),
+                (long) number(values, "WriteCount", 0),
+                (long) number(values, "TotalWriteLatencyMicros", 0),
+                (int) number(values, "PendingTasks", 0),
+                number(values, "RecentReadLatencyMicros", Double.NaN),
+                number(values, "RecentWriteLatencyMicros", Double.NaN));
+    }
+
+    private static double number(Map<String, Object> values, String attribute, double defaultValue) {
+        Object value = values.get(attribute);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    public ColumnFamilyMetrics(String keyspace, String columnFamily, int sstableCount, long liveDiskSpaceUsed,
+                               long totalDiskSpaceUsed, long memtableDataSize, long readCount,
+                               long totalReadLatencyMicros, long writeCount, long totalWriteLatencyMicros,
+                               int pendingTasks, double recentReadLatencyMicros, double recentWriteLatencyMicros) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.sstableCount = sstableCount;
+        this.liveDiskSpaceUsed = liveDiskSpaceUsed;
+        this.totalDiskSpaceUsed = totalDiskSpaceUsed;
+        this.memtableDataSize = memtableDataSize;
+        this.readCount = readCount;
+        this.totalReadLatencyMicros = totalReadLatencyMicros;
+        this.writeCount = writeCount;
+        this.totalWriteLatencyMicros = totalWriteLatencyMicros;
+        this.pendingTasks = pendingTasks;
+        this.recentReadLatencyMicros = recentReadLatencyMicros;
+        this.recentWriteLatencyMicros = recentWriteLatencyMicros;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public int getSstableCount() {
+        return sstableCount;
+    }
+
+    public long getLiveDiskSpaceUsed() {
+        return liveDiskSpaceUsed;
+    }
+
+    public long getTotalDiskSpaceUsed() {
+        return totalDiskSpaceUsed;
+    }
+
+    public long getMemtableDataSize() {
+        return memtableDataSize;
+    }
+
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public long getTotalReadLatencyMicros() {
+        return totalReadLatencyMicros;
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    public long getTotalWriteLatencyMicros() {
+        return totalWriteLatencyMicros;
+    }
+
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * Mean read latency since the previous collection, or {@code NaN} if there were no reads.
+     */
+    public double getRecentReadLatencyMicros() {
+        return recentReadLatencyMicros;
+    }
+
+    /**
+     * Mean write latency since the previous collection, or {@code NaN} if there were no writes.
+     */
+    public double getRecentWriteLatencyMicros() {
+        return recentWriteLatencyMicros;
+    }
+}
@@ -0,0 +1,231 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Map;
+
+/**
+ * The {@code nodetool cfstats} view of one column family, read from its {@code ColumnFamilyStoreMBean}.
+ */
+@JsonPropertyOrder({"column_family", "sstable_count", "space_used_live", "space_used_total", "memtable_columns_count",
+        "memtable_data_size", "memtable_switch_count", "read_count", "read_latency_micros", "write_count",
+        "write_latency_micros", "pending_tasks", "bloom_filter_false_positives", "bloom_filter_false_ratio",
+        "bloom_filter_space_used", "compression_ratio", "min_row_size", "max_row_size", "mean_row_size",
+        "droppable_tombstone_ratio"})
+public class ColumnFamilyStats {
+    public static final String[] ATTRIBUTES = {"LiveSSTableCount", "LiveDiskSpaceUsed", "TotalDiskSpaceUsed",
+            "MemtableColumnsCount", "MemtableDataSize", "MemtableSwitchCount", "ReadCount", "TotalReadLatencyMicros",
+            "WriteCount", "TotalWriteLatencyMicros", "PendingTasks", "BloomFilterFalsePositives",
+            "BloomFilterFalseRatio", "BloomFilterDiskSpaceUsed", "CompressionRatio", "MinRowSize", "MaxRowSize",
+            "MeanRowSize", "DroppableTombstoneRatio"};
+
+    private final String keyspace;
+    private final String columnFamily;
+    private final int sstableCount;
+    private final long liveDiskSpaceUsed;
+    private final long totalDiskSpaceUsed;
+    private final long memtableColumnsCount;
+    private final long memtableDataSize;
+    private final int memtableSwitchCount;
+    private final long readCount;
+    private final long totalReadLatencyMicros;
+    private final long writeCount;
+    private final long totalWriteLatencyMicros;
+    private final int pendingTasks;
+    private final long bloomFilterFalsePositives;
+    private final double bloomFilterFalseRatio;
+    private final long bloomFilterDiskSpaceUsed;
+    private final double compressionRatio;
+    private final long minRowSize;
+    private final long maxRowSize;
+    private final long meanRowSize;
+    private final double droppableTombstoneRatio;
+
+    /**
+     * Builds the stats from the {@link #ATTRIBUTES} of a column family store.  Attributes that couldn't be read
+     * default to zero.
+     */
+    public static ColumnFamilyStats fromAttributes(String keyspace, String columnFamily, Map<String, Object> values) {
+        return new ColumnFamilyStats(keyspace, columnFamily,
+                (int) number(values, "LiveSSTableCount"),
+                (long) number(values, "LiveDiskSpaceUsed"),
+                (long) number(values, "TotalDiskSpaceUsed"),
+                (long) number(values, "MemtableColumnsCount"),
+                (long) number(values, "MemtableDataSize"),
+                (int) number(values, "MemtableSwitchCount"),
+                (long) number(values, "ReadCount"),
+                (long) number(values, "TotalReadLatencyMicros"),
+                (long) number(values, "WriteCount"),
+                (long) number(values, "TotalWriteLatencyMicros"),
+                (int) number(values, "PendingTasks"),
+                (long) number(values, "BloomFilterFalsePositives"),
+                number(values, "BloomFilterFalseRatio"),
+                (long) number(values, "BloomFilterDiskSpaceUsed"),
+                number(values, "CompressionRatio"),
+                (long) number(values, "MinRowSize"),
+                (long) number(values, "MaxRowSize"),
+                (long) number(values, "MeanRowSize"),
+                number(values, "DroppableTombstoneRatio"));
+    }
+
+    private static double number(Map<String, Object> values, String attribute) {
+        Object value = values.get(attribute);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    public ColumnFamilyStats(String keyspace, String columnFamily, int sstableCount, long liveDiskSpaceUsed,
+                             long totalDiskSpaceUsed, long memtableColumnsCount, long memtableDataSize,
+                             int memtableSwitchCount, long readCount, long totalReadLatencyMicros, long writeCount,
+                             long totalWriteLatencyMicros, int pendingTasks, long bloomFilterFalsePositives,
+                             double bloomFilterFalseRatio, long bloomFilterDiskSpaceUsed, double compressionRatio,
+                             long minRowSize, long maxRowSize, long meanRowSize, double droppableTombstoneRatio) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.sstableCount = sstableCount;
+        this.liveDiskSpaceUsed = liveDiskSpaceUsed;
+        this.totalDiskSpaceUsed = totalDiskSpaceUsed;
+        this.memtableColumnsCount = memtableColumnsCount;
+        this.memtableDataSize = memtableDataSize;
+        this.memtableSwitchCount = memtableSwitchCount;
+        this.readCount = readCount;
+        this.totalReadLatencyMicros = totalReadLatencyMicros;
+        this.writeCount = writeCount;
+        this.totalWriteLatencyMicros = totalWriteLatencyMicros;
+        this.pendingTasks = pendingTasks;
+        this.bloomFilterFalsePositives = bloomFilterFalsePositives;
+        this.bloomFilterFalseRatio = bloomFilterFalseRatio;
+        this.bloomFilterDiskSpaceUsed = bloomFilterDiskSpaceUsed;
+        this.compressionRatio = compressionRatio;
+        this.minRowSize = minRowSize;
+        this.maxRowSize = maxRowSize;
+        this.meanRowSize = meanRowSize;
+        this.droppableTombstoneRatio = droppableTombstoneRatio;
+    }
+
+    @JsonIgnore
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    @JsonProperty("column_family")
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    @JsonProperty("sstable_count")
+    public int getSSTableCount() {
+        return sstableCount;
+    }
+
+    @JsonProperty("space_used_live")
+    public long getLiveDiskSpaceUsed() {
+        return liveDiskSpaceUsed;
+    }
+
+    @JsonProperty("space_used_total")
+    public long getTotalDiskSpaceUsed() {
+        return totalDiskSpaceUsed;
+    }
+
+    @JsonProperty("memtable_columns_count")
+    public long getMemtableColumnsCount() {
+        return memtableColumnsCount;
+    }
+
+    @JsonProperty("memtable_data_size")
+    public long getMemtableDataSize() {
+        return memtableDataSize;
+    }
+
+    @JsonProperty("memtable_switch_count")
+    public int getMemtableSwitchCount() {
+        return memtableSwitchCount;
+    }
+
+    @JsonProperty("read_count")
+    public long getReadCount() {
+        return readCount;
+    }
+
+    @JsonIgnore
+    public long getTotalReadLatencyMicros() {
+        return totalReadLatencyMicros;
+    }
+
+    /**
+     * Mean read latency since Cassandra started, or null if there were no reads.
+     */
+    @JsonProperty("read_latency_micros")
+    public Double getReadLatencyMicros() {
+        return mean(totalReadLatencyMicros, readCount);
+    }
+
+    @JsonProperty("write_count")
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    @JsonIgnore
+    public long getTotalWriteLatencyMicros() {
+        return totalWriteLatencyMicros;
+    }
+
+    /**
+     * Mean write latency since Cassandra started, or null if there were no writes.
+     */
+    @JsonProperty("write_latency_micros")
+    public Double getWriteLatencyMicros() {
+        return mean(totalWriteLatencyMicros, writeCount);
+    }
+
+    @JsonProperty("pending_tasks")
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    @JsonProperty("bloom_filter_false_positives")
+    public long getBloomFilterFalsePositives() {
+        return bloomFilterFalsePositives;
+    }
+
+    @JsonProperty("bloom_filter_false_ratio")
+    public double getBloomFilterFalseRatio() {
+        return bloomFilterFalseRatio;
+    }
+
+    @JsonProperty("bloom_filter_space_used")
+    public long getBloomFilterDiskSpaceUsed() {
+        return bloomFilterDiskSpaceUsed;
+    }
+
+    @JsonProperty("compression_ratio")
+    public double getCompressionRatio() {
+        return compressionRatio;
+    }
+
+    @JsonProperty("min_row_size")
+    public long getMinRowSize() {
+        return minRowSize;
+    }
+
+    @JsonProperty("max_row_size")
+    public long getMaxRowSize() {
+        return maxRowSize;
+    }
+
+    @JsonProperty("mean_row_size")
+    public long getMeanRowSize() {
+        return meanRowSize;
+    }
+
+    @JsonProperty("droppable_tombstone_ratio")
+    public double getDroppableTombstoneRatio() {
+        return droppableTombstoneRatio;
+    }
+
+    static Double mean(long total, long count) {
+        return count > 0 ? (double) total / count : null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Streams column family stats as JSON grouped by keyspace, the way {@code nodetool cfstats} prints them.  Each column
+ * family is serialized straight to the output so large schemas never build a whole JSON tree in memory.  Keyspace
+ * totals are accumulated on the way and written after the keyspace's column families.
+ */
+public class ColumnFamilyStatsWriter {
+    private final ObjectMapper objectMapper;
+
+    public ColumnFamilyStatsWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param stats column family stats sorted by keyspace
+     */
+    public void write(List<ColumnFamilyStats> stats, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartArray();
+        String keyspace = null;
+        long readCount = 0, readLatency = 0, writeCount = 0, writeLatency = 0, pendingTasks = 0;
+        for (ColumnFamilyStats cf : stats) {
+            if (!cf.getKeyspace().equals(keyspace)) {
+                if (keyspace != null) {
+                    writeKeyspaceTotals(generator, readCount, readLatency, writeCount, writeLatency, pendingTasks);
+                }
+                keyspace = cf.getKeyspace();
+                readCount = readLatency = writeCount = writeLatency = pendingTasks = 0;
+                generator.writeStartObject();
+                generator.writeStringField("keyspace", keyspace);
+                generator.writeArrayFieldStart("column_families");
+            }
+            objectMapper.writeValue(generator, cf);
+            readCount += cf.getReadCount();
+            readLatency += cf.getTotalReadLatencyMicros();
+            writeCount += cf.getWriteCount();
+            writeLatency += cf.getTotalWriteLatencyMicros();
+            pendingTasks += cf.getPendingTasks();
+        }
+        if (keyspace != null) {
+            writeKeyspaceTotals(generator, readCount, readLatency, writeCount, writeLatency, pendingTasks);
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    private void writeKeyspaceTotals(JsonGenerator generator, long readCount, long readLatency, long writeCount,
+                                     long writeLatency, long pendingTasks) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField("read_count", readCount);
+        writeNullableField(generator, "read_latency_micros", ColumnFamilyStats.mean(readLatency, readCount));
+        generator.writeNumberField("write_count", writeCount);
+        writeNullableField(generator, "write_latency_micros", ColumnFamilyStats.mean(writeLatency, writeCount));
+        generator.writeNumberField("pending_tasks", pendingTasks);
+        generator.writeEndObject();
+    }
+
+    private void writeNullableField(JsonGenerator generator, String name, Double value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value);
+        } else {
+            generator.writeNullField(name);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Snapshot of the compaction manager, equivalent to "nodetool compactionstats".
+ */
+@JsonPropertyOrder({"pending tasks", "compaction stats"})
+public class CompactionStats {
+    private final int pendingTasks;
+    private final List<CompactionTask> compactions;
+
+    public CompactionStats(int pendingTasks, List<CompactionTask> compactions) {
+        this.pendingTasks = pendingTasks;
+        this.compactions = ImmutableList.copyOf(compactions);
+    }
+
+    @JsonProperty("pending tasks")
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    @JsonProperty("compaction stats")
+    public List<CompactionTask> getCompactions() {
+        return compactions;
+    }
+}
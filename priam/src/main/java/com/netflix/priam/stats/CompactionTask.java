@@ -0,0 +1,72 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.text.DecimalFormat;
+import java.util.Map;
+
+/**
+ * Progress of one running compaction, validation, cleanup or similar task.
+ */
+@JsonPropertyOrder({"id", "keyspace", "columnfamily", "bytesComplete", "totalBytes", "taskType", "progress"})
+public class CompactionTask {
+    private final String id;
+    private final String keyspace;
+    private final String columnFamily;
+    private final long bytesComplete;
+    private final long totalBytes;
+    private final String taskType;
+
+    public CompactionTask(String id, String keyspace, String columnFamily, long bytesComplete, long totalBytes, String taskType) {
+        this.id = id;
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.bytesComplete = bytesComplete;
+        this.totalBytes = totalBytes;
+        this.taskType = taskType;
+    }
+
+    /**
+     * Parses one entry of {@code CompactionManagerMBean.getCompactions()}.
+     */
+    public static CompactionTask fromMap(Map<String, String> c) {
+        return new CompactionTask(c.get("id"), c.get("keyspace"), c.get("columnfamily"),
+                Long.parseLong(c.get("bytesComplete")), Long.parseLong(c.get("totalBytes")), c.get("taskType"));
+    }
+
+    @JsonProperty("id")
+    public String getId() {
+        return id;
+    }
+
+    @JsonProperty("keyspace")
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    @JsonProperty("columnfamily")
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    @JsonProperty("bytesComplete")
+    public long getBytesComplete() {
+        return bytesComplete;
+    }
+
+    @JsonProperty("totalBytes")
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @JsonProperty("taskType")
+    public String getTaskType() {
+        return taskType;
+    }
+
+    @JsonProperty("progress")
+    public String getProgress() {
+        return totalBytes == 0 ? "n/a" : new DecimalFormat("0.00").format((double) bytesComplete / totalBytes * 100) + "%";
+    }
+}
@@ -0,0 +1,121 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.cassandra.utils.EstimatedHistogram;
+
+/**
+ * Summary of one Cassandra {@link EstimatedHistogram}.  Values are bucket offsets, so they're upper bounds accurate
+ * to the histogram's ~20% bucket spacing.  Values that fall in the overflow bucket past the last offset are reported
+ * as null, with their number in {@code overflow}.
+ */
+@JsonPropertyOrder({"count", "min", "p50", "p75", "p95", "p99", "p999", "max", "overflow"})
+public class HistogramPercentiles {
+    private final long count;
+    private final Long min;
+    private final Long p50;
+    private final Long p75;
+    private final Long p95;
+    private final Long p99;
+    private final Long p999;
+    private final Long max;
+    private final long overflow;
+
+    /**
+     * @param buckets bucket counts as returned by Cassandra, one more than the number of offsets
+     */
+    public static HistogramPercentiles fromBuckets(long[] buckets) {
+        if (buckets.length < 2) {
+            return new HistogramPercentiles(new long[0], new long[1]);
+        }
+        long[] offsets = new EstimatedHistogram(buckets.length - 1).getBucketOffsets();
+        return new HistogramPercentiles(offsets, buckets);
+    }
+
+    private HistogramPercentiles(long[] offsets, long[] buckets) {
+        long total = 0;
+        for (long bucket : buckets) {
+            total += bucket;
+        }
+        count = total;
+        overflow = buckets[buckets.length - 1];
+
+        Long minValue = null;
+        for (int i = 0; i < offsets.length && minValue == null; i++) {
+            if (buckets[i] > 0) {
+                minValue = i == 0 ? 0 : offsets[i - 1] + 1;
+            }
+        }
+        min = minValue;
+        p50 = percentile(offsets, buckets, 0.5);
+        p75 = percentile(offsets, buckets, 0.75);
+        p95 = percentile(offsets, buckets, 0.95);
+        p99 = percentile(offsets, buckets, 0.99);
+        p999 = percentile(offsets, buckets, 0.999);
+        max = percentile(offsets, buckets, 1.0);
+    }
+
+    /**
+     * Same as {@link EstimatedHistogram#percentile(double)}, except that overflowed histograms still report the
+     * percentiles that fall below the overflow bucket.
+     */
+    private Long percentile(long[] offsets, long[] buckets, double percentile) {
+        long target = (long) Math.ceil(count * percentile);
+        if (target == 0) {
+            return null;
+        }
+        long elements = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            elements += buckets[i];
+            if (elements >= target) {
+                return offsets[i];
+            }
+        }
+        return null;
+    }
+
+    @JsonProperty
+    public long getCount() {
+        return count;
+    }
+
+    @JsonProperty
+    public Long getMin() {
+        return min;
+    }
+
+    @JsonProperty
+    public Long getP50() {
+        return p50;
+    }
+
+    @JsonProperty
+    public Long getP75() {
+        return p75;
+    }
+
+    @JsonProperty
+    public Long getP95() {
+        return p95;
+    }
+
+    @JsonProperty
+    public Long getP99() {
+        return p99;
+    }
+
+    @JsonProperty
+    public Long getP999() {
+        return p999;
+    }
+
+    @JsonProperty
+    public Long getMax() {
+        return max;
+    }
+
+    @JsonProperty
+    public long getOverflow() {
+        return overflow;
+    }
+}
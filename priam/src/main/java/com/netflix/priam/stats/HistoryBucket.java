@@ -0,0 +1,49 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Aggregate of the samples of one metric series that fall into a time bucket.
+ */
+@JsonPropertyOrder({"timestamp", "min", "max", "avg", "count"})
+public class HistoryBucket {
+    private final long timestamp;
+    private final double min;
+    private final double max;
+    private final double avg;
+    private final int count;
+
+    public HistoryBucket(long timestamp, double min, double max, double avg, int count) {
+        this.timestamp = timestamp;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+        this.count = count;
+    }
+
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public double getMin() {
+        return min;
+    }
+
+    @JsonProperty
+    public double getMax() {
+        return max;
+    }
+
+    @JsonProperty
+    public double getAvg() {
+        return avg;
+    }
+
+    @JsonProperty
+    public int getCount() {
+        return count;
+    }
+}
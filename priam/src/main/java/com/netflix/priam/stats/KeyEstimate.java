@@ -0,0 +1,35 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Estimated number of row keys in one column family.
+ */
+@JsonPropertyOrder({"keyspace", "column_family", "estimated_size"})
+public class KeyEstimate {
+    private final String keyspace;
+    private final String columnFamily;
+    private final long estimatedSize;
+
+    public KeyEstimate(String keyspace, String columnFamily, long estimatedSize) {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        this.estimatedSize = estimatedSize;
+    }
+
+    @JsonProperty("keyspace")
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    @JsonProperty("column_family")
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    @JsonProperty("estimated_size")
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+}
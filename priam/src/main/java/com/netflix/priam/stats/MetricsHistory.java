@@ -0,0 +1,123 @@
+package com.netflix.priam.stats;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.StatsConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Fixed-memory history of the numeric metrics sampled by the {@link NodeStatsCollector}.
+ * <p/>
+ * Every series shares one ring of sample timestamps and stores its values in a preallocated {@code double[]} of the
+ * same capacity, so memory is bounded by {@code maxSeries * capacity * 8} bytes no matter how long Priam runs.  Slots
+ * where a series had no value (eg. a column family created later, or no reads in the interval) hold NaN.  Series
+ * beyond the cap are not recorded.
+ */
+@Singleton
+public class MetricsHistory {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsHistory.class);
+
+    private final int capacity;
+    private final int maxSeries;
+    private final long[] timestamps;
+    private final Map<String, double[]> series = Maps.newHashMap();
+    private int next;
+    private int size;
+    private boolean overflowLogged;
+
+    @Inject
+    public MetricsHistory(StatsConfiguration statsConfiguration) {
+        this(Math.max(1, (int) (statsConfiguration.getHistoryRetentionMS() / statsConfiguration.getCollectionIntervalMS())),
+                statsConfiguration.getHistoryMaxSeries());
+    }
+
+    MetricsHistory(int capacity, int maxSeries) {
+        this.capacity = capacity;
+        this.maxSeries = maxSeries;
+        this.timestamps = new long[capacity];
+    }
+
+    public synchronized void record(long timestamp, Map<String, Double> values) {
+        int slot = next;
+        timestamps[slot] = timestamp;
+        for (double[] buffer : series.values()) {
+            buffer[slot] = Double.NaN;
+        }
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            double[] buffer = series.get(entry.getKey());
+            if (buffer == null) {
+                if (series.size() >= maxSeries) {
+                    if (!overflowLogged) {
+                        logger.warn("Metrics history is limited to {} series, not recording {} and later series", maxSeries, entry.getKey());
+                        overflowLogged = true;
+                    }
+                    continue;
+                }
+                buffer = new double[capacity];
+                Arrays.fill(buffer, Double.NaN);
+                series.put(entry.getKey(), buffer);
+            }
+            buffer[slot] = entry.getValue();
+        }
+        next = (slot + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    public synchronized SortedSet<String> getSeriesNames() {
+        return ImmutableSortedSet.copyOf(series.keySet());
+    }
+
+    /**
+     * Returns the samples of a series between {@code from} and {@code to} inclusive, in chronological order.  With a
+     * positive {@code bucketMillis} the samples are aggregated into min/max/avg buckets aligned to {@code from},
+     * otherwise every sample is returned as its own bucket.  Empty buckets are omitted.
+     */
+    public synchronized List<HistoryBucket> query(String name, long from, long to, long bucketMillis) {
+        double[] buffer = series.get(name);
+        if (buffer == null) {
+            return ImmutableList.of();
+        }
+
+        List<HistoryBucket> buckets = Lists.newArrayList();
+        long bucketStart = Long.MIN_VALUE;
+        double min = 0, max = 0, sum = 0;
+        int count = 0;
+        int oldest = (next - size + capacity) % capacity;
+        for (int i = 0; i < size; i++) {
+            int slot = (oldest + i) % capacity;
+            long timestamp = timestamps[slot];
+            double value = buffer[slot];
+            if (timestamp < from || timestamp > to || Double.isNaN(value)) {
+                continue;
+            }
+            long start = bucketMillis > 0 ? from + (timestamp - from) / bucketMillis * bucketMillis : timestamp;
+            if (start != bucketStart) {
+                if (count > 0) {
+                    buckets.add(new HistoryBucket(bucketStart, min, max, sum / count, count));
+                }
+                bucketStart = start;
+                min = max = sum = value;
+                count = 1;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+                count++;
+            }
+        }
+        if (count > 0) {
+            buckets.add(new HistoryBucket(bucketStart, min, max, sum / count, count));
+        }
+        return buckets;
+    }
+}
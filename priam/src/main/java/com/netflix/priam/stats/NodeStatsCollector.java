@@ -0,0 +1,168 @@
+package com.netflix.priam.stats;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.StatsConfiguration;
+import com.netflix.priam.utils.EndpointTopologyCache;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Polls the Cassandra MBeans on a fixed interval and publishes the results as an immutable {@link NodeStatsSnapshot}.
+ * <p/>
+ * Admin endpoints serve from the latest snapshot, so the JMX load on Cassandra stays constant no matter how many
+ * clients poll Priam.  Callers that need fresher data than the snapshot can provide fall back to a live JMX read.
+ */
+@Singleton
+public class NodeStatsCollector implements Managed {
+    private static final Logger logger = LoggerFactory.getLogger(NodeStatsCollector.class);
+
+    private final StatsConfiguration statsConfiguration;
+    private final JMXConnectionPool jmxConnectionPool;
+    private final EndpointTopologyCache topologyCache;
+    private final MetricsHistory metricsHistory;
+    private final StreamingTracker streamingTracker;
+    private final ScheduledExecutorService executor;
+    private final AtomicReference<NodeStatsSnapshot> snapshot = new AtomicReference<>();
+
+    @Inject
+    public NodeStatsCollector(StatsConfiguration statsConfiguration, JMXConnectionPool jmxConnectionPool,
+                              EndpointTopologyCache topologyCache, MetricsHistory metricsHistory,
+                              StreamingTracker streamingTracker) {
+        this.statsConfiguration = statsConfiguration;
+        this.jmxConnectionPool = jmxConnectionPool;
+        this.topologyCache = topologyCache;
+        this.metricsHistory = metricsHistory;
+        this.streamingTracker = streamingTracker;
+
+        String nameFormat = "NodeStatsCollector-%d";
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!statsConfiguration.isCollectorEnabled()) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    collect();
+                } catch (Throwable t) {
+                    // Keep serving the previous snapshot, it will age out if Cassandra stays unreachable.
+                    logger.debug("Unable to collect Cassandra stats: {}", t.toString());
+                }
+            }
+        }, 0, statsConfiguration.getCollectionIntervalMS(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Returns the latest snapshot if it is no older than {@code maxStalenessMillis}, or the configured default when
+     * that is null.  An absent result means the caller should read live from JMX.
+     */
+    public Optional<NodeStatsSnapshot> getSnapshot(Long maxStalenessMillis) {
+        NodeStatsSnapshot current = snapshot.get();
+        long maxStaleness = maxStalenessMillis != null ? maxStalenessMillis : statsConfiguration.getDefaultMaxStalenessMS();
+        if (current == null || current.getAgeMillis() > maxStaleness) {
+            return Optional.absent();
+        }
+        return Optional.of(current);
+    }
+
+    public Optional<NodeStatsSnapshot> getSnapshot() {
+        return getSnapshot(null);
+    }
+
+    void collect() throws Exception {
+        NodeStatsSnapshot collected = jmxConnectionPool.execute(new JMXCallable<NodeStatsSnapshot>() {
+            @Override
+            public NodeStatsSnapshot call(JMXNodeTool nodeTool) throws Exception {
+                long timestamp = System.currentTimeMillis();
+                TpStats tpStats = nodeTool.tpStats();
+                CompactionStats compactionStats = nodeTool.compactionStats();
+                List<ColumnFamilyMetrics> columnFamilies = sampleColumnFamilies(nodeTool);
+                List<StreamPeer> streams = streamingTracker.record(nodeTool.streams(null), timestamp, true);
+                Map<String, Double> metrics = sampleMetrics(nodeTool, tpStats, compactionStats, columnFamilies, streams);
+                return new NodeStatsSnapshot(timestamp, nodeTool.info(), nodeTool.ring(topologyCache),
+                        tpStats, compactionStats, columnFamilies, metrics);
+            }
+        });
+        snapshot.set(collected);
+        metricsHistory.record(collected.getTimestamp(), collected.getMetrics());
+    }
+
+    /**
+     * Reads every column family in one bulk call.  The "recent" latencies cover the time since the previous read,
+     * which is the collection interval.
+     */
+    private List<ColumnFamilyMetrics> sampleColumnFamilies(JMXNodeTool nodeTool) throws IOException, JMException {
+        List<ColumnFamilyMetrics> columnFamilies = Lists.newArrayList();
+        for (Map.Entry<ObjectName, Map<String, Object>> entry : nodeTool.getColumnFamilyAttributes(ColumnFamilyMetrics.ATTRIBUTES).entrySet()) {
+            ObjectName name = entry.getKey();
+            columnFamilies.add(ColumnFamilyMetrics.fromAttributes(name.getKeyProperty("keyspace"),
+                    name.getKeyProperty("columnfamily"), entry.getValue()));
+        }
+        return columnFamilies;
+    }
+
+    private Map<String, Double> sampleMetrics(JMXNodeTool nodeTool, TpStats tpStats, CompactionStats compactionStats,
+                                              List<ColumnFamilyMetrics> columnFamilies, List<StreamPeer> streams)
+            throws IOException, JMException {
+        Map<String, Double> metrics = Maps.newHashMap();
+        MemoryUsage heap = nodeTool.getHeapMemoryUsage();
+        metrics.put("heap.used_bytes", (double) heap.getUsed());
+        metrics.put("heap.max_bytes", (double) heap.getMax());
+        metrics.put("compaction.pending_tasks", (double) compactionStats.getPendingTasks());
+        StreamingSummary sending = new StreamingSummary(streams, StreamPeer.Direction.SENDING);
+        StreamingSummary receiving = new StreamingSummary(streams, StreamPeer.Direction.RECEIVING);
+        metrics.put("streaming.outbound_peers", (double) sending.getPeers());
+        metrics.put("streaming.inbound_peers", (double) receiving.getPeers());
+        metrics.put("streaming.outbound_bytes_per_second", sending.getBytesPerSecond());
+        metrics.put("streaming.inbound_bytes_per_second", receiving.getBytesPerSecond());
+        for (ThreadPoolStats pool : tpStats.getThreadPools()) {
+            metrics.put("threadpool." + pool.getPoolName() + ".pending", (double) pool.getPending());
+            metrics.put("threadpool." + pool.getPoolName() + ".blocked", (double) pool.getBlocked());
+        }
+        for (Map.Entry<String, Integer> entry : tpStats.getDroppedMessages().entrySet()) {
+            metrics.put("dropped." + entry.getKey(), (double) entry.getValue());
+        }
+        for (ColumnFamilyMetrics cf : columnFamilies) {
+            String prefix = "cf." + cf.getKeyspace() + "." + cf.getColumnFamily() + ".";
+            metrics.put(prefix + "read_latency_us", cf.getRecentReadLatencyMicros());
+            metrics.put(prefix + "write_latency_us", cf.getRecentWriteLatencyMicros());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,69 @@
+package com.netflix.priam.stats;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.priam.utils.RingEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the local Cassandra node captured in a single pass by the {@link NodeStatsCollector}.
+ */
+public class NodeStatsSnapshot {
+    private final long timestamp;
+    private final Map<String, Object> info;
+    private final List<RingEntry> ring;
+    private final TpStats tpStats;
+    private final CompactionStats compactionStats;
+    private final List<ColumnFamilyMetrics> columnFamilies;
+    private final Map<String, Double> metrics;
+
+    public NodeStatsSnapshot(long timestamp, Map<String, Object> info, List<RingEntry> ring,
+                             TpStats tpStats, CompactionStats compactionStats,
+                             List<ColumnFamilyMetrics> columnFamilies, Map<String, Double> metrics) {
+        this.timestamp = timestamp;
+        this.info = ImmutableMap.copyOf(info);
+        this.ring = ImmutableList.copyOf(ring);
+        this.tpStats = tpStats;
+        this.compactionStats = compactionStats;
+        this.columnFamilies = ImmutableList.copyOf(columnFamilies);
+        this.metrics = ImmutableMap.copyOf(metrics);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - timestamp;
+    }
+
+    public Map<String, Object> getInfo() {
+        return info;
+    }
+
+    public List<RingEntry> getRing() {
+        return ring;
+    }
+
+    public TpStats getTpStats() {
+        return tpStats;
+    }
+
+    public CompactionStats getCompactionStats() {
+        return compactionStats;
+    }
+
+    public List<ColumnFamilyMetrics> getColumnFamilies() {
+        return columnFamilies;
+    }
+
+    /**
+     * Numeric samples keyed by series name, eg. {@code threadpool.ReadStage.pending} or
+     * {@code cf.ks.users.read_latency_us}.  These are the values recorded in the {@link MetricsHistory}.
+     */
+    public Map<String, Double> getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,440 @@
+package com.netflix.priam.stats;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricPredicate;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.stats.Snapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the latest {@link NodeStatsSnapshot} and Priam's own metrics in the Prometheus text exposition format.
+ * <p/>
+ * Everything is written straight to the output from data that is already in memory, so a scrape never makes a JMX
+ * call and its cost doesn't depend on how often Prometheus polls.  Cassandra metrics are left out while there is no
+ * fresh snapshot, which {@code cassandra_stats_available} reports.
+ */
+public class PrometheusTextWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99, 0.999};
+    private static final MetricPredicate PRIAM_METRICS = new MetricPredicate() {
+        @Override
+        public boolean matches(MetricName name, Metric metric) {
+            return name.getGroup().startsWith("com.netflix.priam");
+        }
+    };
+
+    private final MetricsRegistry registry;
+    private final ConcurrentMap<MetricName, String> names = Maps.newConcurrentMap();
+
+    public PrometheusTextWriter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void write(Optional<NodeStatsSnapshot> snapshot, Writer out) throws IOException {
+        header(out, "cassandra_stats_available", "Whether a fresh Cassandra stats snapshot is available", "gauge");
+        sample(out, "cassandra_stats_available", snapshot.isPresent() ? 1 : 0);
+        if (snapshot.isPresent()) {
+            writeSnapshot(snapshot.get(), out);
+        }
+        writeRegistry(out);
+    }
+
+    private void writeSnapshot(NodeStatsSnapshot snapshot, Writer out) throws IOException {
+        header(out, "cassandra_stats_age_seconds", "Age of the Cassandra stats snapshot", "gauge");
+        sample(out, "cassandra_stats_age_seconds", snapshot.getAgeMillis() / 1000.0);
+
+        Map<String, Object> info = snapshot.getInfo();
+        gauge(out, "cassandra_gossip_active", "Whether gossip is running", info.get("gossip_active"));
+        gauge(out, "cassandra_thrift_active", "Whether the Thrift server is running", info.get("thrift_active"));
+        gauge(out, "cassandra_uptime_seconds", "Cassandra process uptime", info.get("uptime"));
+
+        Map<String, Double> metrics = snapshot.getMetrics();
+        gauge(out, "cassandra_heap_used_bytes", "Used JVM heap", metrics.get("heap.used_bytes"));
+        gauge(out, "cassandra_heap_max_bytes", "Maximum JVM heap", metrics.get("heap.max_bytes"));
+
+        for (ThreadPoolMetric metric : ThreadPoolMetric.values()) {
+            header(out, metric.metricName, metric.help, metric.type);
+            for (ThreadPoolStats pool : snapshot.getTpStats().getThreadPools()) {
+                sample(out, metric.metricName, "pool", pool.getPoolName(), metric.value(pool));
+            }
+        }
+
+        header(out, "cassandra_dropped_messages_total", "Messages dropped because they timed out", "counter");
+        for (Map.Entry<String, Integer> entry : snapshot.getTpStats().getDroppedMessages().entrySet()) {
+            sample(out, "cassandra_dropped_messages_total", "type", entry.getKey(), entry.getValue());
+        }
+
+        CompactionStats compactionStats = snapshot.getCompactionStats();
+        long remainingBytes = 0;
+        for (CompactionTask task : compactionStats.getCompactions()) {
+            remainingBytes += Math.max(0, task.getTotalBytes() - task.getBytesComplete());
+        }
+        header(out, "cassandra_compaction_pending_tasks", "Estimated compactions still to run", "gauge");
+        sample(out, "cassandra_compaction_pending_tasks", compactionStats.getPendingTasks());
+        header(out, "cassandra_compaction_active_tasks", "Compactions currently running", "gauge");
+        sample(out, "cassandra_compaction_active_tasks", compactionStats.getCompactions().size());
+        header(out, "cassandra_compaction_remaining_bytes", "Bytes left to process by running compactions", "gauge");
+        sample(out, "cassandra_compaction_remaining_bytes", remainingBytes);
+
+        header(out, "cassandra_streaming_peers", "Peers this node is streaming with", "gauge");
+        sample(out, "cassandra_streaming_peers", "direction", "outbound", value(metrics.get("streaming.outbound_peers")));
+        sample(out, "cassandra_streaming_peers", "direction", "inbound", value(metrics.get("streaming.inbound_peers")));
+        header(out, "cassandra_streaming_bytes_per_second", "Streaming throughput over the sampling window", "gauge");
+        sample(out, "cassandra_streaming_bytes_per_second", "direction", "outbound",
+                value(metrics.get("streaming.outbound_bytes_per_second")));
+        sample(out, "cassandra_streaming_bytes_per_second", "direction", "inbound",
+                value(metrics.get("streaming.inbound_bytes_per_second")));
+
+        for (ColumnFamilyMetric metric : ColumnFamilyMetric.values()) {
+            header(out, metric.metricName, metric.help, metric.type);
+            for (ColumnFamilyMetrics cf : snapshot.getColumnFamilies()) {
+                sample(out, metric.metricName, "keyspace", cf.getKeyspace(), "columnfamily", cf.getColumnFamily(), metric.value(cf));
+            }
+        }
+    }
+
+    private void writeRegistry(Writer out) throws IOException {
+        String previous = null;
+        for (SortedMap<MetricName, Metric> group : registry.groupedMetrics(PRIAM_METRICS).values()) {
+            for (Map.Entry<MetricName, Metric> entry : group.entrySet()) {
+                MetricName metricName = entry.getKey();
+                Metric metric = entry.getValue();
+                String name = name(metricName, metric);
+                String scope = metricName.getScope();
+
+                if (metric instanceof Timer) {
+                    Timer timer = (Timer) metric;
+                    double toSeconds = timer.durationUnit().toNanos(1) / (double) TimeUnit.SECONDS.toNanos(1);
+                    if (!name.equals(previous)) {
+                        header(out, name, metricName.getType() + " " + metricName.getName(), "summary");
+                    }
+                    summary(out, name, scope, timer.getSnapshot(), toSeconds, timer.sum() * toSeconds, timer.count());
+                } else if (metric instanceof Histogram) {
+                    Histogram histogram = (Histogram) metric;
+                    if (!name.equals(previous)) {
+                        header(out, name, metricName.getType() + " " + metricName.getName(), "summary");
+                    }
+                    summary(out, name, scope, histogram.getSnapshot(), 1, histogram.sum(), histogram.count());
+                } else if (metric instanceof Meter) {
+                    if (!name.equals(previous)) {
+                        header(out, name, metricName.getType() + " " + metricName.getName(), "counter");
+                    }
+                    scopedSample(out, name, scope, ((Meter) metric).count());
+                } else if (metric instanceof Counter) {
+                    // Metrics counters can go down, so they are gauges as far as Prometheus is concerned
+                    if (!name.equals(previous)) {
+                        header(out, name, metricName.getType() + " " + metricName.getName(), "gauge");
+                    }
+                    scopedSample(out, name, scope, ((Counter) metric).count());
+                } else if (metric instanceof Gauge) {
+                    Object value = ((Gauge<?>) metric).value();
+                    if (!(value instanceof Number) && !(value instanceof Boolean)) {
+                        continue;
+                    }
+                    if (!name.equals(previous)) {
+                        header(out, name, metricName.getType() + " " + metricName.getName(), "gauge");
+                    }
+                    scopedSample(out, name, scope, value(value));
+                } else {
+                    continue;
+                }
+                previous = name;
+            }
+        }
+    }
+
+    private void summary(Writer out, String name, String scope, Snapshot snapshot, double scale, double sum, long count)
+            throws IOException {
+        for (double quantile : QUANTILES) {
+            out.write(name);
+            out.write('{');
+            if (scope != null) {
+                label(out, "scope", scope);
+                out.write(',');
+            }
+            label(out, "quantile", Double.toString(quantile));
+            out.write("} ");
+            number(out, snapshot.getValue(quantile) * scale);
+            out.write('\n');
+        }
+        scopedSample(out, name + "_sum", scope, sum);
+        scopedSample(out, name + "_count", scope, count);
+    }
+
+    /**
+     * Maps a Metrics name such as {@code JMXConnectionPool.call-failures} to
+     * {@code priam_jmx_connection_pool_call_failures_total}.  Names are cached since the set of metrics is small and
+     * fixed.
+     */
+    private String name(MetricName metricName, Metric metric) {
+        String name = names.get(metricName);
+        if (name == null) {
+            name = "priam_" + snakeCase(metricName.getType()) + "_" + snakeCase(metricName.getName());
+            if (metric instanceof Timer) {
+                name += "_seconds";
+            } else if (metric instanceof Meter) {
+                name += "_total";
+            }
+            names.put(metricName, name);
+        }
+        return name;
+    }
+
+    static String snakeCase(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                boolean afterLower = i > 0 && Character.isLowerCase(name.charAt(i - 1));
+                boolean endOfAcronym = i > 0 && Character.isUpperCase(name.charAt(i - 1))
+                        && i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+                if (afterLower || endOfAcronym) {
+                    builder.append('_');
+                }
+                builder.append(Character.toLowerCase(c));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                builder.append(c);
+            } else {
+                builder.append('_');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void header(Writer out, String name, String help, String type) throws IOException {
+        out.write("# HELP ");
+        out.write(name);
+        out.write(' ');
+        out.write(help);
+        out.write("\n# TYPE ");
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write('\n');
+    }
+
+    private static void gauge(Writer out, String name, String help, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        header(out, name, help, "gauge");
+        sample(out, name, value(value));
+    }
+
+    private static void sample(Writer out, String name, double value) throws IOException {
+        out.write(name);
+        out.write(' ');
+        number(out, value);
+        out.write('\n');
+    }
+
+    private static void scopedSample(Writer out, String name, String scope, double value) throws IOException {
+        if (scope == null) {
+            sample(out, name, value);
+        } else {
+            sample(out, name, "scope", scope, value);
+        }
+    }
+
+    private static void sample(Writer out, String name, String labelName, String labelValue, double value)
+            throws IOException {
+        out.write(name);
+        out.write('{');
+        label(out, labelName, labelValue);
+        out.write("} ");
+        number(out, value);
+        out.write('\n');
+    }
+
+    private static void sample(Writer out, String name, String labelName1, String labelValue1,
+                               String labelName2, String labelValue2, double value) throws IOException {
+        out.write(name);
+        out.write('{');
+        label(out, labelName1, labelValue1);
+        out.write(',');
+        label(out, labelName2, labelValue2);
+        out.write("} ");
+        number(out, value);
+        out.write('\n');
+    }
+
+    private static void label(Writer out, String name, String value) throws IOException {
+        out.write(name);
+        out.write("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.write('\\');
+                out.write(c);
+            } else if (c == '\n') {
+                out.write("\\n");
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static void number(Writer out, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            out.write("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.write(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.write(Long.toString((long) value));
+        } else {
+            out.write(Double.toString(value));
+        }
+    }
+
+    private static double value(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return Double.NaN;
+    }
+
+    private static enum ThreadPoolMetric {
+        ACTIVE("cassandra_threadpool_active_tasks", "Tasks being executed by the thread pool", "gauge") {
+            @Override
+            double value(ThreadPoolStats pool) {
+                return pool.getActive();
+            }
+        },
+        PENDING("cassandra_threadpool_pending_tasks", "Tasks queued on the thread pool", "gauge") {
+            @Override
+            double value(ThreadPoolStats pool) {
+                return pool.getPending();
+            }
+        },
+        COMPLETED("cassandra_threadpool_completed_tasks_total", "Tasks completed by the thread pool", "counter") {
+            @Override
+            double value(ThreadPoolStats pool) {
+                return pool.getCompleted();
+            }
+        },
+        BLOCKED("cassandra_threadpool_blocked_tasks", "Tasks currently blocked on a full thread pool queue", "gauge") {
+            @Override
+            double value(ThreadPoolStats pool) {
+                return pool.getBlocked();
+            }
+        },
+        TOTAL_BLOCKED("cassandra_threadpool_blocked_tasks_total", "Tasks ever blocked on a full thread pool queue", "counter") {
+            @Override
+            double value(ThreadPoolStats pool) {
+                return pool.getTotalBlocked();
+            }
+        };
+
+        final String metricName;
+        final String help;
+        final String type;
+
+        ThreadPoolMetric(String metricName, String help, String type) {
+            this.metricName = metricName;
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract double value(ThreadPoolStats pool);
+    }
+
+    private static enum ColumnFamilyMetric {
+        LIVE_SSTABLES("cassandra_cf_live_sstables", "Live sstables", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getSstableCount();
+            }
+        },
+        LIVE_DISK_SPACE("cassandra_cf_live_disk_space_bytes", "Disk space used by live sstables", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getLiveDiskSpaceUsed();
+            }
+        },
+        TOTAL_DISK_SPACE("cassandra_cf_total_disk_space_bytes", "Disk space used including obsolete sstables", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getTotalDiskSpaceUsed();
+            }
+        },
+        MEMTABLE_DATA_SIZE("cassandra_cf_memtable_data_bytes", "Data size of the current memtable", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getMemtableDataSize();
+            }
+        },
+        PENDING_TASKS("cassandra_cf_pending_tasks", "Pending column family tasks", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getPendingTasks();
+            }
+        },
+        READS("cassandra_cf_reads_total", "Local reads", "counter") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getReadCount();
+            }
+        },
+        READ_LATENCY("cassandra_cf_read_latency_seconds_total", "Total local read latency", "counter") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getTotalReadLatencyMicros() / 1e6;
+            }
+        },
+        RECENT_READ_LATENCY("cassandra_cf_recent_read_latency_seconds", "Mean local read latency over the last collection interval", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getRecentReadLatencyMicros() / 1e6;
+            }
+        },
+        WRITES("cassandra_cf_writes_total", "Local writes", "counter") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getWriteCount();
+            }
+        },
+        WRITE_LATENCY("cassandra_cf_write_latency_seconds_total", "Total local write latency", "counter") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getTotalWriteLatencyMicros() / 1e6;
+            }
+        },
+        RECENT_WRITE_LATENCY("cassandra_cf_recent_write_latency_seconds", "Mean local write latency over the last collection interval", "gauge") {
+            @Override
+            double value(ColumnFamilyMetrics cf) {
+                return cf.getRecentWriteLatencyMicros() / 1e6;
+            }
+        };
+
+        final String metricName;
+        final String help;
+        final String type;
+
+        ColumnFamilyMetric(String metricName, String help, String type) {
+            this.metricName = metricName;
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract double value(ColumnFamilyMetrics cf);
+    }
+}
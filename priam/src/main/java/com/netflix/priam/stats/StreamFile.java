@@ -0,0 +1,89 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Progress of one file being streamed to or from a peer.
+ */
+@JsonPropertyOrder({"keyspace", "file", "sections", "bytesTransferred", "totalBytes"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StreamFile {
+    // PendingFile.toString(): "<file> sections=<n> progress=<bytes>/<size> - <percent>%"
+    private static final Pattern PENDING_FILE = Pattern.compile("(.*) sections=(\\d+) progress=(\\d+)/(\\d+) - -?\\d+%");
+
+    private final String description;
+    private final String keyspace;
+    private final String file;
+    private final int sections;
+    private final long bytesTransferred;
+    private final long totalBytes;
+
+    public StreamFile(String description, String keyspace, String file, int sections, long bytesTransferred,
+                      long totalBytes) {
+        this.description = description;
+        this.keyspace = keyspace;
+        this.file = file;
+        this.sections = sections;
+        this.bytesTransferred = bytesTransferred;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Parses one entry of StreamingServiceMBean.getOutgoingFiles or getIncomingFiles.  Incoming files are prefixed
+     * with their keyspace.  Entries in an unknown format are kept with no progress.
+     */
+    public static StreamFile parse(String description, boolean incoming) {
+        String keyspace = null;
+        String rest = description;
+        int separator = description.indexOf(": ");
+        if (incoming && separator >= 0) {
+            keyspace = description.substring(0, separator);
+            rest = description.substring(separator + 2);
+        }
+        Matcher matcher = PENDING_FILE.matcher(rest);
+        if (!matcher.matches()) {
+            return new StreamFile(description, keyspace, rest, 0, 0, 0);
+        }
+        return new StreamFile(description, keyspace, matcher.group(1), Integer.parseInt(matcher.group(2)),
+                Long.parseLong(matcher.group(3)), Long.parseLong(matcher.group(4)));
+    }
+
+    /**
+     * The entry as Cassandra reported it.
+     */
+    @JsonIgnore
+    public String getDescription() {
+        return description;
+    }
+
+    @JsonProperty
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    @JsonProperty
+    public String getFile() {
+        return file;
+    }
+
+    @JsonProperty
+    public int getSections() {
+        return sections;
+    }
+
+    @JsonProperty
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @JsonProperty
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
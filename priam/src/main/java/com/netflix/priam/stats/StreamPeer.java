@@ -0,0 +1,113 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The files streaming to or from one peer.  Cassandra 1.2 keeps one streaming session per peer and direction, so this
+ * is also the session.
+ */
+@JsonPropertyOrder({"direction", "host", "bytesTransferred", "totalBytes", "bytesPerSecond", "etaSeconds", "error",
+        "files"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StreamPeer {
+    public enum Direction {SENDING, RECEIVING}
+
+    private final Direction direction;
+    private final String host;
+    private final List<StreamFile> files;
+    private final String error;
+    private final long bytesTransferred;
+    private final long totalBytes;
+    private final Double bytesPerSecond;
+    private final Long etaSeconds;
+
+    public StreamPeer(Direction direction, String host, List<StreamFile> files) {
+        this(direction, host, files, null, null, null);
+    }
+
+    /**
+     * A peer whose files couldn't be read.
+     */
+    public static StreamPeer failed(Direction direction, String host, String error) {
+        return new StreamPeer(direction, host, ImmutableList.<StreamFile>of(), error, null, null);
+    }
+
+    private StreamPeer(Direction direction, String host, List<StreamFile> files, String error, Double bytesPerSecond,
+                       Long etaSeconds) {
+        this.direction = direction;
+        this.host = host;
+        this.files = ImmutableList.copyOf(files);
+        this.error = error;
+        this.bytesPerSecond = bytesPerSecond;
+        this.etaSeconds = etaSeconds;
+        long transferred = 0;
+        long total = 0;
+        for (StreamFile file : files) {
+            transferred += file.getBytesTransferred();
+            total += file.getTotalBytes();
+        }
+        this.bytesTransferred = transferred;
+        this.totalBytes = total;
+    }
+
+    public StreamPeer withRate(Double bytesPerSecond, Long etaSeconds) {
+        return new StreamPeer(direction, host, files, error, bytesPerSecond, etaSeconds);
+    }
+
+    @JsonProperty
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @JsonProperty
+    public String getHost() {
+        return host;
+    }
+
+    @JsonProperty
+    public List<StreamFile> getFiles() {
+        return files;
+    }
+
+    @JsonProperty
+    public String getError() {
+        return error;
+    }
+
+    @JsonProperty
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @JsonProperty
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @JsonIgnore
+    public long getRemainingBytes() {
+        return totalBytes - bytesTransferred;
+    }
+
+    /**
+     * The throughput over the sampling window, or null until there are two samples to compare.
+     */
+    @JsonProperty
+    public Double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * The time left at the sampled throughput, or null while the rate is unknown or zero.
+     */
+    @JsonProperty
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+}
@@ -0,0 +1,82 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Totals across the peers streaming in one direction, for dashboards that don't need the files.
+ */
+@JsonPropertyOrder({"peers", "files", "bytesTransferred", "totalBytes", "bytesPerSecond", "etaSeconds"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StreamingSummary {
+    private final int peers;
+    private final int files;
+    private final long bytesTransferred;
+    private final long totalBytes;
+    private final double bytesPerSecond;
+    private final Long etaSeconds;
+
+    public StreamingSummary(List<StreamPeer> streams, StreamPeer.Direction direction) {
+        int peers = 0;
+        int files = 0;
+        long transferred = 0;
+        long total = 0;
+        double rate = 0;
+        Long eta = null;
+        for (StreamPeer peer : streams) {
+            if (peer.getDirection() != direction) {
+                continue;
+            }
+            peers++;
+            files += peer.getFiles().size();
+            transferred += peer.getBytesTransferred();
+            total += peer.getTotalBytes();
+            if (peer.getBytesPerSecond() != null) {
+                rate += peer.getBytesPerSecond();
+            }
+            // Streaming is done when the slowest peer is done
+            if (peer.getEtaSeconds() != null && (eta == null || peer.getEtaSeconds() > eta)) {
+                eta = peer.getEtaSeconds();
+            }
+        }
+        this.peers = peers;
+        this.files = files;
+        this.bytesTransferred = transferred;
+        this.totalBytes = total;
+        this.bytesPerSecond = rate;
+        this.etaSeconds = eta;
+    }
+
+    @JsonProperty
+    public int getPeers() {
+        return peers;
+    }
+
+    @JsonProperty
+    public int getFiles() {
+        return files;
+    }
+
+    @JsonProperty
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @JsonProperty
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @JsonProperty
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @JsonProperty
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+}
@@ -0,0 +1,112 @@
+package com.netflix.priam.stats;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.StatsConfiguration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out streaming throughput by comparing successive samples of each peer's remaining bytes.
+ * <p/>
+ * Remaining bytes are used rather than bytes transferred because Cassandra drops finished files from the session,
+ * which makes the transferred total go down.  Samples older than the window are dropped, so the rate follows the
+ * recent throughput.  Samples come from the {@link NodeStatsCollector} and from netstats requests.
+ */
+@Singleton
+public class StreamingTracker {
+    private final StatsConfiguration statsConfiguration;
+
+    // Guarded by this
+    private final Map<String, Deque<Sample>> samples = Maps.newHashMap();
+    private List<StreamPeer> latest = ImmutableList.of();
+    private long latestTimestamp;
+
+    @Inject
+    public StreamingTracker(StatsConfiguration statsConfiguration) {
+        this.statsConfiguration = statsConfiguration;
+    }
+
+    /**
+     * Adds a sample for each peer and returns the peers with their throughput and ETA.
+     *
+     * @param allPeers whether these are all the peers, rather than the ones of one host.  Only then are peers that
+     *                 finished forgotten and the sample kept for {@link #getLatest}.
+     */
+    public synchronized List<StreamPeer> record(List<StreamPeer> peers, long timestamp, boolean allPeers) {
+        List<StreamPeer> rated = Lists.newArrayListWithCapacity(peers.size());
+        Set<String> seen = Sets.newHashSet();
+        for (StreamPeer peer : peers) {
+            String key = peer.getDirection() + "/" + peer.getHost();
+            seen.add(key);
+            if (peer.getError() != null) {
+                rated.add(peer);
+                continue;
+            }
+
+            Deque<Sample> window = samples.get(key);
+            if (window == null) {
+                window = new ArrayDeque<>();
+                samples.put(key, window);
+            }
+            // More to send than before means a new session, whose rate has nothing to do with the old one
+            if (!window.isEmpty() && peer.getRemainingBytes() > window.getLast().remainingBytes) {
+                window.clear();
+            }
+            if (window.isEmpty() || timestamp > window.getLast().timestamp) {
+                window.addLast(new Sample(timestamp, peer.getRemainingBytes()));
+            }
+            while (window.size() > 2 && timestamp - window.getFirst().timestamp > statsConfiguration.getStreamingRateWindowMS()) {
+                window.removeFirst();
+            }
+            rated.add(rate(peer, window));
+        }
+
+        if (allPeers) {
+            samples.keySet().retainAll(seen);
+            latest = ImmutableList.copyOf(rated);
+            latestTimestamp = timestamp;
+        }
+        return rated;
+    }
+
+    /**
+     * Returns the peers from the last complete sample if it is no older than {@code maxStalenessMillis}.
+     */
+    public synchronized Optional<List<StreamPeer>> getLatest(long maxStalenessMillis) {
+        if (latestTimestamp == 0 || System.currentTimeMillis() - latestTimestamp > maxStalenessMillis) {
+            return Optional.absent();
+        }
+        return Optional.of(latest);
+    }
+
+    private static StreamPeer rate(StreamPeer peer, Deque<Sample> window) {
+        if (window.size() < 2) {
+            return peer;
+        }
+        Sample first = window.getFirst();
+        Sample last = window.getLast();
+        double bytesPerSecond = (first.remainingBytes - last.remainingBytes) * 1000.0 / (last.timestamp - first.timestamp);
+        Long etaSeconds = bytesPerSecond > 0 ? (long) Math.ceil(peer.getRemainingBytes() / bytesPerSecond) : null;
+        return peer.withRate(bytesPerSecond, etaSeconds);
+    }
+
+    private static class Sample {
+        private final long timestamp;
+        private final long remainingBytes;
+
+        Sample(long timestamp, long remainingBytes) {
+            this.timestamp = timestamp;
+            this.remainingBytes = remainingBytes;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Point-in-time counters for one Cassandra thread pool stage.
+ */
+@JsonPropertyOrder({"pool name", "active", "pending", "completed", "blocked", "total blocked"})
+public class ThreadPoolStats {
+    private final String poolName;
+    private final int active;
+    private final long pending;
+    private final long completed;
+    private final int blocked;
+    private final int totalBlocked;
+
+    public ThreadPoolStats(String poolName, int active, long pending, long completed, int blocked, int totalBlocked) {
+        this.poolName = poolName;
+        this.active = active;
+        this.pending = pending;
+        this.completed = completed;
+        this.blocked = blocked;
+        this.totalBlocked = totalBlocked;
+    }
+
+    @JsonProperty("pool name")
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @JsonProperty("active")
+    public int getActive() {
+        return active;
+    }
+
+    @JsonProperty("pending")
+    public long getPending() {
+        return pending;
+    }
+
+    @JsonProperty("completed")
+    public long getCompleted() {
+        return completed;
+    }
+
+    @JsonProperty("blocked")
+    public int getBlocked() {
+        return blocked;
+    }
+
+    @JsonProperty("total blocked")
+    public int getTotalBlocked() {
+        return totalBlocked;
+    }
+}
@@ -0,0 +1,33 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of every thread pool stage and the dropped message counts, equivalent to "nodetool tpstats".
+ */
+@JsonPropertyOrder({"thread pool", "dropped messages"})
+public class TpStats {
+    private final List<ThreadPoolStats> threadPools;
+    private final Map<String, Integer> droppedMessages;
+
+    public TpStats(List<ThreadPoolStats> threadPools, Map<String, Integer> droppedMessages) {
+        this.threadPools = ImmutableList.copyOf(threadPools);
+        this.droppedMessages = ImmutableMap.copyOf(droppedMessages);
+    }
+
+    @JsonProperty("thread pool")
+    public List<ThreadPoolStats> getThreadPools() {
+        return threadPools;
+    }
+
+    @JsonProperty("dropped messages")
+    public Map<String, Integer> getDroppedMessages() {
+        return droppedMessages;
+    }
+}
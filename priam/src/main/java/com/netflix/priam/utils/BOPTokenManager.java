@@ -17,6 +17,7 @@ package com.netflix.priam.utils;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
 import org.apache.cassandra.dht.ByteOrderedPartitioner;
@@ -149,6 +150,23 @@ public class BOPTokenManager extends TokenManager {
         return jmxTokenString;
     }
 
+    /**
+     * Splits over the whole space of tokenLength-byte tokens, not just the configured bounds, since the range of a node
+     * whose token is the lowest wraps around past the maximum.
+     */
+    @Override
+    public List<String> splitRange(String startToken, String endToken, int count) {
+        Token.TokenFactory<byte[]> tf = partitioner.getTokenFactory();
+        BigInteger start = new BigInteger(1, tf.fromString(checkTokenString(startToken)).token);
+        BigInteger end = new BigInteger(1, tf.fromString(checkTokenString(endToken)).token);
+        BigInteger maximum = BigInteger.ONE.shiftLeft(tokenLength * 8).subtract(BigInteger.ONE);
+        List<String> boundaries = Lists.newArrayList();
+        for (BigInteger boundary : splitRange(start, end, BigInteger.ZERO, maximum, count)) {
+            boundaries.add(tf.toString(numberToToken(boundary)));
+        }
+        return boundaries;
+    }
+
     private String checkTokenString(String token) {
         checkArgument(token.length() == tokenLength * 2,
                 "Token string should be %s characters long (%s bytes): %s", tokenLength * 2, tokenLength, token);
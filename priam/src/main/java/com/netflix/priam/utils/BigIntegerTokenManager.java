@@ -102,4 +102,14 @@ public class BigIntegerTokenManager extends TokenManager {
         // BigIntegerToken.toString() returns BigInteger.toString() which is the format expected by the RandomPartitioner.
         return jmxTokenString;
     }
+
+    @Override
+    public List<String> splitRange(String startToken, String endToken, int count) {
+        List<String> boundaries = Lists.newArrayList();
+        for (BigInteger boundary : splitRange(new BigInteger(startToken), new BigInteger(endToken), minimumToken,
+                maximumToken, count)) {
+            boundaries.add(boundary.toString());
+        }
+        return boundaries;
+    }
 }
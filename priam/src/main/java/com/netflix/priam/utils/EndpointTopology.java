@@ -0,0 +1,46 @@
+package com.netflix.priam.utils;
+
+import com.google.common.base.Objects;
+
+/**
+ * Where a Cassandra endpoint sits in the cluster, as reported by the snitch.
+ */
+public class EndpointTopology {
+    private final String endpoint;
+    private final String dataCenter;
+    private final String rack;
+    private final String hostId;
+
+    public EndpointTopology(String endpoint, String dataCenter, String rack, String hostId) {
+        this.endpoint = endpoint;
+        this.dataCenter = dataCenter;
+        this.rack = rack;
+        this.hostId = hostId;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getDataCenter() {
+        return dataCenter;
+    }
+
+    public String getRack() {
+        return rack;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("endpoint", endpoint)
+                .add("dataCenter", dataCenter)
+                .add("rack", rack)
+                .add("hostId", hostId)
+                .toString();
+    }
+}
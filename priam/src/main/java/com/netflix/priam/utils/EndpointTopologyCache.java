@@ -0,0 +1,65 @@
+package com.netflix.priam.utils;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.inject.Singleton;
+import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
+
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the data center and rack of each endpoint so building the ring doesn't cost two snitch round trips per
+ * token.  The host ID map is cheap to read in bulk, so it's used to detect gossip membership changes: entries are
+ * dropped when an endpoint leaves the ring and re-resolved when an address is taken over by a new host.
+ */
+@Singleton
+public class EndpointTopologyCache {
+    private final ConcurrentMap<String, EndpointTopology> cache = Maps.newConcurrentMap();
+
+    /**
+     * Returns the topology of every endpoint in {@code hostIds}, resolving only endpoints that are new or whose host
+     * ID has changed since they were cached.
+     */
+    public Map<String, EndpointTopology> resolve(JMXNodeTool nodeTool, Map<String, String> hostIds) {
+        cache.keySet().retainAll(hostIds.keySet());
+
+        Map<String, EndpointTopology> topology = Maps.newHashMapWithExpectedSize(hostIds.size());
+        EndpointSnitchInfoMBean snitch = null;
+        for (Map.Entry<String, String> entry : hostIds.entrySet()) {
+            String endpoint = entry.getKey();
+            String hostId = entry.getValue();
+            EndpointTopology cached = cache.get(endpoint);
+            if (cached == null || !Objects.equal(cached.getHostId(), hostId)) {
+                if (snitch == null) {
+                    snitch = nodeTool.getEndpointSnitchInfoProxy();
+                }
+                cached = new EndpointTopology(endpoint, getDatacenter(snitch, endpoint), getRack(snitch, endpoint), hostId);
+                cache.put(endpoint, cached);
+            }
+            topology.put(endpoint, cached);
+        }
+        return topology;
+    }
+
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private static String getDatacenter(EndpointSnitchInfoMBean snitch, String endpoint) {
+        try {
+            return snitch.getDatacenter(endpoint);
+        } catch (UnknownHostException e) {
+            return "Unknown";
+        }
+    }
+
+    private static String getRack(EndpointSnitchInfoMBean snitch, String endpoint) {
+        try {
+            return snitch.getRack(endpoint);
+        } catch (UnknownHostException e) {
+            return "Unknown";
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.netflix.priam.utils;
+
+/**
+ * A unit of work against Cassandra's JMX interface, run on a connection borrowed from the {@link JMXConnectionPool}.
+ */
+public interface JMXCallable<T> {
+    T call(JMXNodeTool nodeTool) throws Exception;
+}
@@ -0,0 +1,332 @@
+package com.netflix.priam.utils;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.yammer.dropwizard.lifecycle.Managed;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.core.TimerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains a small pool of JMX connections to the local Cassandra process.
+ * <p/>
+ * Connections are checked for liveness by a background thread instead of on the request path.  Dead connections are
+ * re-established with a bounded exponential backoff so a Cassandra restart doesn't cause a reconnect storm.
+ * <p/>
+ * Calls run on a bounded executor with a deadline, so a hung or GC-paused Cassandra ties up at most a fixed number of
+ * threads.  Callers get a {@link JMXTimeoutException} or {@link JMXRejectedException} instead of blocking forever.
+ * <p/>
+ * Long-running operations such as repair, compaction, cleanup, drain and move run on an executor of their own, see
+ * {@link #executeOperation}, so however many are in progress the reads behind liveness checks, stats collection and
+ * the admin endpoints never wait behind them.
+ */
+@Singleton
+public class JMXConnectionPool implements Managed {
+    private static final Logger logger = LoggerFactory.getLogger(JMXConnectionPool.class);
+
+    private final CassandraConfiguration cassandraConfiguration;
+    private final JMXConfiguration jmxConfiguration;
+    private final Connection[] connections;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService executor;
+    private final ThreadPoolExecutor callExecutor;
+    private final ThreadPoolExecutor operationExecutor;
+
+    private final Timer connectTimer = Metrics.newTimer(JMXConnectionPool.class, "connect", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+    private final Timer callTimer = Metrics.newTimer(JMXConnectionPool.class, "call", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+    private final Meter connectFailures = Metrics.newMeter(JMXConnectionPool.class, "connect-failures", "failures", TimeUnit.SECONDS);
+    private final Meter callFailures = Metrics.newMeter(JMXConnectionPool.class, "call-failures", "failures", TimeUnit.SECONDS);
+    private final Meter callTimeouts = Metrics.newMeter(JMXConnectionPool.class, "call-timeouts", "timeouts", TimeUnit.SECONDS);
+    private final Meter callRejections = Metrics.newMeter(JMXConnectionPool.class, "call-rejections", "rejections", TimeUnit.SECONDS);
+
+    @Inject
+    public JMXConnectionPool(CassandraConfiguration cassandraConfiguration, JMXConfiguration jmxConfiguration) {
+        this.cassandraConfiguration = cassandraConfiguration;
+        this.jmxConfiguration = jmxConfiguration;
+
+        connections = new Connection[Math.max(1, jmxConfiguration.getConnectionPoolSize())];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = new Connection(i);
+        }
+
+        String nameFormat = "JMXConnectionPool-%d";
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        int callThreads = Math.max(1, jmxConfiguration.getExecutorThreads());
+        ThreadFactory callThreadFactory = new ThreadFactoryBuilder().setNameFormat("JMXConnectionPool-call-%d").setDaemon(true).build();
+        callExecutor = new ThreadPoolExecutor(callThreads, callThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, jmxConfiguration.getExecutorQueueSize())), callThreadFactory);
+        callExecutor.allowCoreThreadTimeOut(true);
+
+        int operationThreads = Math.max(1, jmxConfiguration.getOperationThreads());
+        ThreadFactory operationThreadFactory = new ThreadFactoryBuilder().setNameFormat("JMXConnectionPool-operation-%d").setDaemon(true).build();
+        operationExecutor = new ThreadPoolExecutor(operationThreads, operationThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, jmxConfiguration.getExecutorQueueSize())), operationThreadFactory);
+        operationExecutor.allowCoreThreadTimeOut(true);
+
+        Metrics.newGauge(JMXConnectionPool.class, "active-calls", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return callExecutor.getActiveCount();
+            }
+        });
+        Metrics.newGauge(JMXConnectionPool.class, "active-operations", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return operationExecutor.getActiveCount();
+            }
+        });
+        Metrics.newGauge(JMXConnectionPool.class, "live-connections", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getLiveConnectionCount();
+            }
+        });
+    }
+
+    @Override
+    public void start() throws Exception {
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (Connection connection : connections) {
+                    connection.check();
+                }
+            }
+        }, 0, jmxConfiguration.getHealthCheckIntervalMS(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        callExecutor.shutdownNow();
+        operationExecutor.shutdownNow();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+        for (Connection connection : connections) {
+            connection.invalidate();
+        }
+    }
+
+    /**
+     * Runs the callable with the configured default deadline, which suits quick reads.  Long-running operations such
+     * as compaction or repair should use {@link #executeOperation}.
+     */
+    public <T> T execute(JMXCallable<T> callable) throws Exception {
+        return execute(callable, jmxConfiguration.getCallTimeoutMS(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the callable against a live pooled connection on the bounded executor, recording call latency.  If the
+     * call fails the connection it used is re-checked in the background so a dead connection is replaced before the
+     * next request.  If the deadline passes the call is cancelled, although an RMI call blocked in a socket read only
+     * releases its thread once the read returns.
+     */
+    public <T> T execute(JMXCallable<T> callable, long timeout, TimeUnit unit) throws Exception {
+        return execute(callExecutor, callable, timeout, unit);
+    }
+
+    /**
+     * Runs a long-running operation with the configured operation deadline.
+     */
+    public <T> T executeOperation(JMXCallable<T> callable) throws Exception {
+        return executeOperation(callable, jmxConfiguration.getOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Like {@link #execute(JMXCallable, long, TimeUnit)}, but on the executor for long-running operations, so the
+     * operation holds none of the threads that reads need.
+     */
+    public <T> T executeOperation(JMXCallable<T> callable, long timeout, TimeUnit unit) throws Exception {
+        return execute(operationExecutor, callable, timeout, unit);
+    }
+
+    private <T> T execute(ThreadPoolExecutor executor, final JMXCallable<T> callable, long timeout, TimeUnit unit)
+            throws Exception {
+        Future<T> future;
+        try {
+            future = executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    JMXNodeTool nodeTool = borrow();
+                    TimerContext context = callTimer.time();
+                    try {
+                        return callable.call(nodeTool);
+                    } catch (Exception e) {
+                        callFailures.mark();
+                        recheck(nodeTool);
+                        throw e;
+                    } finally {
+                        context.stop();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            callRejections.mark();
+            throw new JMXRejectedException("Too many JMX calls in progress", e);
+        }
+
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            callTimeouts.mark();
+            throw new JMXTimeoutException("JMX call did not complete within " + unit.toMillis(timeout) + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), Exception.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public int getLiveConnectionCount() {
+        int live = 0;
+        for (Connection connection : connections) {
+            if (connection.tool != null) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private JMXNodeTool borrow() throws JMXConnectionException {
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length;
+        for (int i = 0; i < connections.length; i++) {
+            JMXNodeTool nodeTool = connections[(start + i) % connections.length].tool;
+            if (nodeTool != null) {
+                return nodeTool;
+            }
+        }
+
+        // Nothing is live.  Make a single connect attempt on the caller's thread, but only if the backoff window has
+        // passed and no other thread is already connecting, so callers fail fast while Cassandra is down.  Always use
+        // the first connection so every caller shares the same backoff window.
+        JMXNodeTool nodeTool = connections[0].tryConnect();
+        if (nodeTool != null) {
+            return nodeTool;
+        }
+        throw new JMXConnectionException("No live JMX connection to Cassandra on port " + cassandraConfiguration.getJmxPort());
+    }
+
+    private void recheck(JMXNodeTool nodeTool) {
+        for (final Connection connection : connections) {
+            if (connection.tool != nodeTool) {
+                continue;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        connection.check();
+                    }
+                });
+            } catch (Exception e) {
+                // The pool is shutting down
+            }
+        }
+    }
+
+    private class Connection {
+        private final int id;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile JMXNodeTool tool;
+        private long reconnectDelay;
+        private long nextConnectAttempt;
+
+        private Connection(int id) {
+            this.id = id;
+            this.reconnectDelay = jmxConfiguration.getMinReconnectDelayMS();
+        }
+
+        /**
+         * Pings a live connection, or reconnects a dead one if its backoff has expired.  Runs on the pool thread.
+         */
+        void check() {
+            JMXNodeTool current = tool;
+            if (current != null) {
+                try {
+                    current.isInitialized();
+                    return;
+                } catch (Throwable t) {
+                    logger.info("JMX connection {} failed its liveness check: {}", id, t.toString());
+                    invalidate();
+                }
+            }
+            tryConnect();
+        }
+
+        JMXNodeTool tryConnect() {
+            if (!lock.tryLock()) {
+                return null;
+            }
+            try {
+                if (tool != null) {
+                    return tool;
+                }
+                if (System.currentTimeMillis() < nextConnectAttempt) {
+                    return null;
+                }
+                TimerContext context = connectTimer.time();
+                try {
+                    tool = new JMXNodeTool("localhost", cassandraConfiguration.getJmxPort());
+                    reconnectDelay = jmxConfiguration.getMinReconnectDelayMS();
+                    nextConnectAttempt = 0;
+                    logger.info("JMX connection {} established", id);
+                    return tool;
+                } catch (Exception e) {
+                    connectFailures.mark();
+                    nextConnectAttempt = System.currentTimeMillis() + reconnectDelay;
+                    logger.debug("JMX connection {} could not connect, next attempt in {}ms: {}", id, reconnectDelay, e.toString());
+                    reconnectDelay = Math.min(reconnectDelay * 2, jmxConfiguration.getMaxReconnectDelayMS());
+                    return null;
+                } finally {
+                    context.stop();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void invalidate() {
+            JMXNodeTool current = tool;
+            tool = null;
+            if (current != null) {
+                try {
+                    Closeables.close(current, true);
+                } catch (IOException e) {
+                    // Can't happen, swallowIOException is true
+                }
+            }
+        }
+    }
+}
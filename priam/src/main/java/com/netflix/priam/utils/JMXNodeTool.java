@@ -18,152 +18,268 @@ package com.netflix.priam.utils;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.io.Closeables;
-import com.google.inject.Inject;
-import com.google.inject.Singleton;
-import com.netflix.priam.config.CassandraConfiguration;
+import com.google.common.collect.Sets;
+import com.netflix.priam.stats.ColumnFamilyHistograms;
+import com.netflix.priam.stats.ColumnFamilyStats;
+import com.netflix.priam.stats.CompactionStats;
+import com.netflix.priam.stats.CompactionTask;
+import com.netflix.priam.stats.KeyEstimate;
+import com.netflix.priam.stats.StreamFile;
+import com.netflix.priam.stats.StreamPeer;
+import com.netflix.priam.stats.ThreadPoolStats;
+import com.netflix.priam.stats.TpStats;
 import org.apache.cassandra.db.ColumnFamilyStoreMBean;
 import org.apache.cassandra.db.HintedHandOffManagerMBean;
 import org.apache.cassandra.tools.NodeProbe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
 import javax.management.JMX;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
+import javax.management.NotificationBroadcaster;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.management.MemoryUsage;
 import java.lang.reflect.Field;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 
 /**
  * Class to get data out of Cassandra JMX
  */
-@Singleton
 public class JMXNodeTool extends NodeProbe implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(JMXNodeTool.class);
-    private static volatile JMXNodeTool tool = null;
-    private MBeanServerConnection mbeanServerConn = null;
+    private static final String CFS_PATTERN = "org.apache.cassandra.db:type=ColumnFamilies,*";
+    private static final String CFS_NAME_FORMAT = "org.apache.cassandra.db:type=ColumnFamilies,keyspace=%s,columnfamily=%s";
+    private static final String[] THREAD_POOL_PATTERNS = {"org.apache.cassandra.request:type=*", "org.apache.cassandra.internal:type=*"};
+    private static final String STORAGE_SERVICE_NAME = "org.apache.cassandra.db:type=StorageService";
+    private static final String[] RING_ATTRIBUTES = {"TokenToEndpointMap", "HostIdMap", "LiveNodes", "UnreachableNodes",
+            "JoiningNodes", "LeavingNodes", "MovingNodes", "LoadMap", "Ownership"};
+    private static final String STREAM_ERROR = "Error retrieving file data";
+    private static final String[] THREAD_POOL_ATTRIBUTES = {"ActiveCount", "PendingTasks", "CompletedTasks", "CurrentlyBlockedTasks", "TotalBlockedTasks"};
+
+    private final MBeanServerConnection mbeanServerConn;
 
     /**
      * Hostname and Port to talk to will be same server for now optionally we
      * might want the ip to poll.
      * <p/>
-     * NOTE: This class shouldn't be a singleton and this shouldn't be cached.
+     * Instances are created and health-checked by {@link JMXConnectionPool}, don't cache them elsewhere.
      * <p/>
      * This will work only if cassandra runs.
      */
     public JMXNodeTool(String host, int port) throws IOException, InterruptedException {
         super(host, port);
+        try {
+            Field field = NodeProbe.class.getDeclaredField("mbeanServerConn");
+            field.setAccessible(true);
+            mbeanServerConn = (MBeanServerConnection) field.get(this);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to access the JMX connection", e);
+        }
     }
 
-    @Inject
-    public JMXNodeTool(CassandraConfiguration cassandraConfiguration) throws IOException, InterruptedException {
-        super("localhost", cassandraConfiguration.getJmxPort());
+    /**
+     * Reads the named attributes of every MBean matching the pattern using one {@code getAttributes} round trip per
+     * MBean, instead of one round trip per attribute through an MBean proxy.  MBeans that disappear between the query
+     * and the read (eg. a dropped column family) are skipped.
+     */
+    public Map<ObjectName, Map<String, Object>> getAttributes(String pattern, String... attributes) throws IOException, JMException {
+        Map<ObjectName, Map<String, Object>> result = Maps.newTreeMap();
+        for (ObjectName name : mbeanServerConn.queryNames(new ObjectName(pattern), null)) {
+            try {
+                result.put(name, getAttributes(name, attributes));
+            } catch (InstanceNotFoundException e) {
+                logger.debug("MBean {} was unregistered before its attributes could be read", name);
+            }
+        }
+        return result;
     }
 
     /**
-     * try to create if it is null.
+     * Reads the named attributes of every column family store in bulk, keyed by MBean name.  The keyspace and column
+     * family are the {@code keyspace} and {@code columnfamily} properties of the name.
      */
-    public static JMXNodeTool instance(CassandraConfiguration config) throws JMXConnectionException {
-        if (!testConnection()) {
-            reconnect(config);
-        }
-        return tool;
+    public Map<ObjectName, Map<String, Object>> getColumnFamilyAttributes(String... attributes) throws IOException, JMException {
+        return getAttributes(CFS_PATTERN, attributes);
     }
 
     /**
-     * This method will test if you can connect and query something before handing over the connection,
-     * This is required for our retry logic.
+     * Reads the named attributes of a single MBean in one round trip.  Attributes that can't be read are omitted.
      */
-    private static boolean testConnection() {
-        // connecting first time hence return false.
-        if (tool == null) {
-            return false;
+    public Map<String, Object> getAttributes(ObjectName name, String... attributes) throws IOException, JMException {
+        AttributeList list = mbeanServerConn.getAttributes(name, attributes);
+        Map<String, Object> values = Maps.newHashMapWithExpectedSize(list.size());
+        for (Attribute attribute : list.asList()) {
+            values.put(attribute.getName(), attribute.getValue());
         }
+        return values;
+    }
 
-        try {
-            tool.isInitialized();
-        } catch (Throwable ex) {
-            try {
-                Closeables.close(tool, true);
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
-            return false;
-        }
-        return true;
+    public Object invoke(ObjectName name, String operation) throws IOException, JMException {
+        return mbeanServerConn.invoke(name, operation, new Object[0], new String[0]);
     }
 
-    private static synchronized void reconnect(CassandraConfiguration config) throws JMXConnectionException {
-        // Recheck connection in case we were beaten to the punch by another reconnect call.
-        if (testConnection()) {
-            return;
+    /**
+     * Subscribes to notifications from the named MBean.  Returns false if the MBean doesn't emit notifications.  The
+     * subscription lives as long as this connection, so it must be re-established after a reconnect.
+     */
+    public boolean addNotificationListener(ObjectName name, NotificationListener listener) throws IOException, JMException {
+        if (!mbeanServerConn.isInstanceOf(name, NotificationBroadcaster.class.getName())) {
+            return false;
         }
-        tool = connect(config);
+        mbeanServerConn.addNotificationListener(name, listener, null, null);
+        return true;
     }
 
-    public static synchronized JMXNodeTool connect(final CassandraConfiguration config) throws JMXConnectionException {
-        try {
-            return new BoundedExponentialRetryCallable<JMXNodeTool>() {
-                @Override
-                public JMXNodeTool retriableCall() throws Exception {
-                    JMXNodeTool nodetool = new JMXNodeTool("localhost", config.getJmxPort());
-                    Field fields[] = NodeProbe.class.getDeclaredFields();
-                    for (Field field : fields) {
-                        if (!field.getName().equals("mbeanServerConn")) {
-                            continue;
-                        }
-                        field.setAccessible(true);
-                        nodetool.mbeanServerConn = (MBeanServerConnection) field.get(nodetool);
-                    }
-                    return nodetool;
+    /**
+     * You must do the compaction before running this to get an accurate number.  Otherwise the result
+     * will likely significantly overestimate the actual number of keys.
+     */
+    public List<KeyEstimate> estimateKeys(Optional<Collection<String>> keyspaces) throws IOException, JMException {
+        List<KeyEstimate> list = Lists.newArrayList();
+        // The keyspace and column family are part of the MBean name, so only estimateKeys() itself needs a round trip.
+        for (ObjectName name : mbeanServerConn.queryNames(new ObjectName(CFS_PATTERN), null)) {
+            String keyspace = name.getKeyProperty("keyspace");
+            if (!keyspaces.isPresent() || keyspaces.get().contains(keyspace)) {
+                try {
+                    list.add(new KeyEstimate(keyspace, name.getKeyProperty("columnfamily"), (Long) invoke(name, "estimateKeys")));
+                } catch (InstanceNotFoundException e) {
+                    logger.debug("MBean {} was unregistered before its keys could be estimated", name);
                 }
-            }.call();
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-            throw new JMXConnectionException(e.toString());
+            }
         }
+        Collections.sort(list, new Comparator<KeyEstimate>() {
+            @Override
+            public int compare(KeyEstimate o1, KeyEstimate o2) {
+                return ComparisonChain.start()
+                        .compare(o1.getKeyspace(), o2.getKeyspace())
+                        .compare(o1.getColumnFamily(), o2.getColumnFamily())
+                        .result();
+            }
+        });
+        return list;
     }
 
     /**
-     * You must do the compaction before running this to get an accurate number.  Otherwise the result
-     * will likely significantly overestimate the actual number of keys.
+     * Reads the {@code cfstats} attributes of each column family store, one bulk read per column family, optionally
+     * limited to some keyspaces and column families.  The result is sorted by keyspace then column family.
      */
-    public List<Map<String, Object>> estimateKeys(Optional<Collection<String>> keyspaces) {
-        Iterator<Entry<String, ColumnFamilyStoreMBean>> it = getColumnFamilyStoreMBeanProxies();
-        List<Map<String, Object>> list = Lists.newArrayList();
-        while (it.hasNext()) {
-            Entry<String, ColumnFamilyStoreMBean> entry = it.next();
-            if (!keyspaces.isPresent() || keyspaces.get().contains(entry.getKey())) {
-                list.add(ImmutableMap.<String, Object>builder()
-                        .put("keyspace", entry.getKey())
-                        .put("column_family", entry.getValue().getColumnFamilyName())
-                        .put("estimated_size", entry.getValue().estimateKeys())
-                        .build());
+    public List<ColumnFamilyStats> columnFamilyStats(Optional<Collection<String>> keyspaces,
+                                                     Optional<Collection<String>> columnFamilies) throws IOException, JMException {
+        List<ColumnFamilyStats> list = Lists.newArrayList();
+        for (ObjectName name : mbeanServerConn.queryNames(new ObjectName(CFS_PATTERN), null)) {
+            String keyspace = name.getKeyProperty("keyspace");
+            String columnFamily = name.getKeyProperty("columnfamily");
+            if ((keyspaces.isPresent() && !keyspaces.get().contains(keyspace)) ||
+                    (columnFamilies.isPresent() && !columnFamilies.get().contains(columnFamily))) {
+                continue;
+            }
+            try {
+                list.add(ColumnFamilyStats.fromAttributes(keyspace, columnFamily, getAttributes(name, ColumnFamilyStats.ATTRIBUTES)));
+            } catch (InstanceNotFoundException e) {
+                logger.debug("MBean {} was unregistered before its attributes could be read", name);
             }
         }
+        Collections.sort(list, new Comparator<ColumnFamilyStats>() {
+            @Override
+            public int compare(ColumnFamilyStats o1, ColumnFamilyStats o2) {
+                return ComparisonChain.start()
+                        .compare(o1.getKeyspace(), o2.getKeyspace())
+                        .compare(o1.getColumnFamily(), o2.getColumnFamily())
+                        .result();
+            }
+        });
         return list;
     }
 
+    public TpStats tpStats() throws IOException, JMException {
+        List<ThreadPoolStats> threadPools = Lists.newArrayList();
+        for (String pattern : THREAD_POOL_PATTERNS) {
+            for (Entry<ObjectName, Map<String, Object>> entry : getAttributes(pattern, THREAD_POOL_ATTRIBUTES).entrySet()) {
+                Map<String, Object> values = entry.getValue();
+                threadPools.add(new ThreadPoolStats(entry.getKey().getKeyProperty("type"),
+                        intValue(values.get("ActiveCount")),
+                        longValue(values.get("PendingTasks")),
+                        longValue(values.get("CompletedTasks")),
+                        intValue(values.get("CurrentlyBlockedTasks")),
+                        intValue(values.get("TotalBlockedTasks"))));
+            }
+        }
+        return new TpStats(threadPools, getDroppedMessages());
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompactionStats compactionStats() throws IOException, JMException {
+        Map<String, Object> values = getAttributes(new ObjectName("org.apache.cassandra.db:type=CompactionManager"), "PendingTasks", "Compactions");
+        List<CompactionTask> compactions = Lists.newArrayList();
+        List<Map<String, String>> running = (List<Map<String, String>>) values.get("Compactions");
+        if (running != null) {
+            for (Map<String, String> c : running) {
+                compactions.add(CompactionTask.fromMap(c));
+            }
+        }
+        return new CompactionStats(intValue(values.get("PendingTasks")), compactions);
+    }
+
+    public ColumnFamilyHistograms cfHistograms(String keyspace, String columnFamily) throws IOException, JMException {
+        ObjectName name = new ObjectName(String.format(CFS_NAME_FORMAT, keyspace, columnFamily));
+        Map<String, Object> values = getAttributes(name,
+                "RecentSSTablesPerReadHistogram", "RecentWriteLatencyHistogramMicros", "RecentReadLatencyHistogramMicros",
+                "EstimatedRowSizeHistogram", "EstimatedColumnCountHistogram");
+        return new ColumnFamilyHistograms(keyspace, columnFamily,
+                longArrayValue(values.get("RecentSSTablesPerReadHistogram")),
+                longArrayValue(values.get("RecentWriteLatencyHistogramMicros")),
+                longArrayValue(values.get("RecentReadLatencyHistogramMicros")),
+                longArrayValue(values.get("EstimatedRowSizeHistogram")),
+                longArrayValue(values.get("EstimatedColumnCountHistogram")));
+    }
+
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<K, V> mapValue(Object value) {
+        return value != null ? (Map<K, V>) value : Collections.<K, V>emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> setValue(Object value) {
+        return value != null ? Sets.newHashSet((Collection<String>) value) : Collections.<String>emptySet();
+    }
+
+    private static long[] longArrayValue(Object value) {
+        return value != null ? (long[]) value : new long[0];
+    }
+
     @SuppressWarnings("unchecked")
     public Map<String, Object> info() {
-        logger.info("JMX info being called");
+        logger.debug("JMX info being called");
         Map<String, Object> object = Maps.newLinkedHashMap();
         object.put("gossip_active", isInitialized());
         object.put("thrift_active", isThriftServerRunning());
@@ -177,7 +293,7 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
         object.put("heap_memory_mb", memUsed + "/" + memMax);
         object.put("data_center", getDataCenter());
         object.put("rack", getRack());
-        logger.info(object.toString());
+        logger.debug(object.toString());
         return object;
     }
 
@@ -191,47 +307,86 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
         return totalEndpointsPendingHints;
     }
 
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> ring() {
-        return ring(null);
+    /**
+     * Returns the peers this node streams to and from, with the progress of each file.  Only the given host when it
+     * isn't null.  Peers whose files can't be read, typically because the session just finished, carry the error.
+     */
+    public List<StreamPeer> streams(InetAddress host) throws IOException {
+        List<StreamPeer> peers = Lists.newArrayList();
+        Set<InetAddress> destinations = host == null ? getStreamDestinations() : Collections.singleton(host);
+        for (InetAddress destination : destinations) {
+            List<StreamFile> files = Lists.newArrayList();
+            try {
+                for (String file : getFilesDestinedFor(destination)) {
+                    files.add(StreamFile.parse(file, false));
+                }
+                peers.add(new StreamPeer(StreamPeer.Direction.SENDING, destination.getHostAddress(), files));
+            } catch (IOException e) {
+                peers.add(StreamPeer.failed(StreamPeer.Direction.SENDING, destination.getHostAddress(), STREAM_ERROR));
+            }
+        }
+        Set<InetAddress> sources = host == null ? getStreamSources() : Collections.singleton(host);
+        for (InetAddress source : sources) {
+            List<StreamFile> files = Lists.newArrayList();
+            try {
+                for (String file : getIncomingFiles(source)) {
+                    files.add(StreamFile.parse(file, true));
+                }
+                peers.add(new StreamPeer(StreamPeer.Direction.RECEIVING, source.getHostAddress(), files));
+            } catch (IOException e) {
+                peers.add(StreamPeer.failed(StreamPeer.Direction.RECEIVING, source.getHostAddress(), STREAM_ERROR));
+            }
+        }
+        return peers;
     }
 
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> ring(String keyspace) {
-        logger.info("JMX ring being called");
-        List<Map<String, Object>> ring = Lists.newArrayList();
-        Map<String, String> tokenToEndpoint = getTokenToEndpointMap();
-        List<String> sortedTokens = new ArrayList<>(tokenToEndpoint.keySet());
-
-        Collection<String> liveNodes = getLiveNodes();
-        Collection<String> deadNodes = getUnreachableNodes();
-        Collection<String> joiningNodes = getJoiningNodes();
-        Collection<String> leavingNodes = getLeavingNodes();
-        Collection<String> movingNodes = getMovingNodes();
-        Map<String, String> loadMap = getLoadMap();
-
-        // Calculate per-token ownership of the ring
+    public List<RingEntry> ring(EndpointTopologyCache topologyCache) throws IOException, JMException {
+        return ring(null, topologyCache);
+    }
+
+    /**
+     * Builds the ring from one bulk read of the StorageService attributes, plus the effective ownership when a
+     * keyspace is given.  Data center and rack come from the topology cache instead of per-token snitch calls.
+     */
+    public List<RingEntry> ring(String keyspace, EndpointTopologyCache topologyCache) throws IOException, JMException {
+        logger.debug("JMX ring being called");
+        Map<String, Object> attributes = getAttributes(new ObjectName(STORAGE_SERVICE_NAME), RING_ATTRIBUTES);
+        Map<String, String> tokenToEndpoint = mapValue(attributes.get("TokenToEndpointMap"));
+        Map<String, String> loadMap = mapValue(attributes.get("LoadMap"));
+        Set<String> liveNodes = setValue(attributes.get("LiveNodes"));
+        Set<String> deadNodes = setValue(attributes.get("UnreachableNodes"));
+        Set<String> joiningNodes = setValue(attributes.get("JoiningNodes"));
+        Set<String> leavingNodes = setValue(attributes.get("LeavingNodes"));
+        Set<String> movingNodes = setValue(attributes.get("MovingNodes"));
+
+        // Endpoints that haven't gossiped a host ID yet are still part of the ring
+        Map<String, String> hostIdMap = mapValue(attributes.get("HostIdMap"));
+        Map<String, String> hostIds = Maps.newHashMap(hostIdMap);
+        for (String endpoint : tokenToEndpoint.values()) {
+            if (!hostIds.containsKey(endpoint)) {
+                hostIds.put(endpoint, null);
+            }
+        }
+        Map<String, EndpointTopology> topology = topologyCache.resolve(this, hostIds);
+
+        // Ownership is keyed by address, the rest of the ring by the address string
         Map<InetAddress, Float> ownerships;
         if (Strings.isNullOrEmpty(keyspace)) {
-            ownerships = getOwnership();
+            ownerships = mapValue(attributes.get("Ownership"));
         } else {
             ownerships = effectiveOwnership(keyspace);
         }
+        Map<String, Float> ownershipByEndpoint = Maps.newHashMap();
+        for (Entry<InetAddress, Float> entry : ownerships.entrySet()) {
+            ownershipByEndpoint.put(entry.getKey().getHostAddress(), entry.getValue());
+        }
 
-        for (String token : sortedTokens) {
-            String primaryEndpoint = tokenToEndpoint.get(token);
-            String dataCenter;
-            try {
-                dataCenter = getEndpointSnitchInfoProxy().getDatacenter(primaryEndpoint);
-            } catch (UnknownHostException e) {
-                dataCenter = "Unknown";
-            }
-            String rack;
-            try {
-                rack = getEndpointSnitchInfoProxy().getRack(primaryEndpoint);
-            } catch (UnknownHostException e) {
-                rack = "Unknown";
-            }
+        List<RingEntry> ring = Lists.newArrayListWithCapacity(tokenToEndpoint.size());
+        DecimalFormat percentFormat = new DecimalFormat("##0.00%");
+        for (Entry<String, String> entry : tokenToEndpoint.entrySet()) {
+            String token = entry.getKey();
+            String primaryEndpoint = entry.getValue();
+            EndpointTopology endpointTopology = topology.get(primaryEndpoint);
             String status = liveNodes.contains(primaryEndpoint)
                     ? "Up"
                     : deadNodes.contains(primaryEndpoint)
@@ -249,27 +404,13 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
             }
 
             String load = Objects.firstNonNull(loadMap.get(primaryEndpoint), "?");
-            // TODO: ownerships is keyed by InetAddress, lookup is by String
-            String owns = new DecimalFormat("##0.00%").format(Objects.firstNonNull(ownerships.get(primaryEndpoint), 0.0F));
-            ring.add(createJson(primaryEndpoint, dataCenter, rack, status, state, load, owns, token));
+            String owns = percentFormat.format(Objects.firstNonNull(ownershipByEndpoint.get(primaryEndpoint), 0.0F));
+            ring.add(new RingEntry(primaryEndpoint, endpointTopology.getDataCenter(), endpointTopology.getRack(),
+                    status, state, load, owns, token));
         }
-        logger.info(ring.toString());
         return ring;
     }
 
-    private Map<String, Object> createJson(String primaryEndpoint, String dataCenter, String rack, String status, String state, String load, String owns, String token) {
-        Map<String, Object> object = Maps.newLinkedHashMap();
-        object.put("endpoint", primaryEndpoint);
-        object.put("dc", dataCenter);
-        object.put("rack", rack);
-        object.put("status", status);
-        object.put("state", state);
-        object.put("load", load);
-        object.put("owns", owns);
-        object.put("token", token);
-        return object;
-    }
-
     public void compact() throws IOException, ExecutionException, InterruptedException {
         for (String keyspace : getKeyspaces()) {
             forceTableCompaction(keyspace);
@@ -290,6 +431,40 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
         }
     }
 
+    /**
+     * Repairs the primary range of just some column families of the keyspace, as one repair session.
+     */
+    public void repair(String keyspace, Collection<String> columnFamilies, boolean isSequential,
+                       boolean localDataCenterOnly) throws IOException {
+        forceTableRepairPrimaryRange(keyspace, isSequential, localDataCenterOnly,
+                columnFamilies.toArray(new String[columnFamilies.size()]));
+    }
+
+    /**
+     * Repairs just the token range of the keyspace, or of some of its column families, as one repair session.
+     */
+    public void repairRange(String keyspace, TokenRange range, boolean isSequential, boolean localDataCenterOnly,
+                            String... columnFamilies) throws IOException {
+        forceTableRepairRange(range.getStart(), range.getEnd(), keyspace, isSequential, localDataCenterOnly,
+                columnFamilies);
+    }
+
+    /**
+     * The replica endpoints of each token range of the keyspace.  Tokens are as Cassandra prints them, see
+     * {@link TokenManager#sanitizeToken(String)}.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<TokenRange, List<String>> getRangeToEndpointMap(String keyspace) throws IOException, JMException {
+        Map<List<String>, List<String>> ranges = (Map<List<String>, List<String>>) mbeanServerConn.invoke(
+                new ObjectName(STORAGE_SERVICE_NAME), "getRangeToEndpointMap",
+                new Object[]{keyspace}, new String[]{String.class.getName()});
+        Map<TokenRange, List<String>> result = Maps.newLinkedHashMap();
+        for (Entry<List<String>, List<String>> entry : ranges.entrySet()) {
+            result.put(new TokenRange(entry.getKey().get(0), entry.getKey().get(1)), entry.getValue());
+        }
+        return result;
+    }
+
     public void cleanup() throws IOException, ExecutionException, InterruptedException {
         for (String keyspace : getKeyspaces()) {
             if ("system".equalsIgnoreCase(keyspace)) {
@@ -305,6 +480,18 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
         }
     }
 
+    /**
+     * Stops every running compaction of the given type, eg. {@code CLEANUP}.  Compactions don't support finer-grained
+     * cancellation.
+     */
+    public void stopCompaction(String type) {
+        getCompactionManagerProxy().stopCompaction(type);
+    }
+
+    public void forceTerminateAllRepairSessions() throws IOException, JMException {
+        invoke(new ObjectName(STORAGE_SERVICE_NAME), "forceTerminateAllRepairSessions");
+    }
+
     public void refresh(List<String> keyspaces) throws IOException {
         Iterator<Entry<String, ColumnFamilyStoreMBean>> it = getColumnFamilyStoreMBeanProxies();
         while (it.hasNext()) {
@@ -315,12 +502,4 @@ public class JMXNodeTool extends NodeProbe implements Closeable {
             }
         }
     }
-
-    @Override
-    public void close() throws IOException {
-        synchronized (JMXNodeTool.class) {
-            tool = null;
-            super.close();
-        }
-    }
 }
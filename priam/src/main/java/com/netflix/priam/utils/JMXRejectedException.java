@@ -0,0 +1,13 @@
+package com.netflix.priam.utils;
+
+/**
+ * Thrown when the {@link JMXConnectionPool} executor is saturated and can't accept another call.
+ */
+public class JMXRejectedException extends JMXConnectionException {
+
+    private static final long serialVersionUID = 446L;
+
+    public JMXRejectedException(String message, Exception e) {
+        super(message, e);
+    }
+}
@@ -0,0 +1,13 @@
+package com.netflix.priam.utils;
+
+/**
+ * Thrown when a JMX call doesn't complete within its deadline, eg. because Cassandra is in a long GC pause.
+ */
+public class JMXTimeoutException extends JMXConnectionException {
+
+    private static final long serialVersionUID = 445L;
+
+    public JMXTimeoutException(String message) {
+        super(message);
+    }
+}
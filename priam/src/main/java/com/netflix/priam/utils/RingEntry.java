@@ -0,0 +1,81 @@
+package com.netflix.priam.utils;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * One token of the ring as {@code nodetool ring} prints it.  With vnodes every endpoint owns many of these, so they
+ * are plain fields rather than a map per token.
+ */
+@JsonPropertyOrder({"endpoint", "dc", "rack", "status", "state", "load", "owns", "token"})
+public class RingEntry {
+    private final String endpoint;
+    private final String dataCenter;
+    private final String rack;
+    private final String status;
+    private final String state;
+    private final String load;
+    private final String owns;
+    private final String token;
+
+    public RingEntry(String endpoint, String dataCenter, String rack, String status, String state, String load,
+                     String owns, String token) {
+        this.endpoint = endpoint;
+        this.dataCenter = dataCenter;
+        this.rack = rack;
+        this.status = status;
+        this.state = state;
+        this.load = load;
+        this.owns = owns;
+        this.token = token;
+    }
+
+    @JsonProperty
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @JsonProperty("dc")
+    public String getDataCenter() {
+        return dataCenter;
+    }
+
+    @JsonProperty
+    public String getRack() {
+        return rack;
+    }
+
+    /**
+     * Up, Down or ? when gossip doesn't know yet.
+     */
+    @JsonProperty
+    public String getStatus() {
+        return status;
+    }
+
+    @JsonProperty
+    public String getState() {
+        return state;
+    }
+
+    @JsonProperty
+    public String getLoad() {
+        return load;
+    }
+
+    @JsonProperty
+    public String getOwns() {
+        return owns;
+    }
+
+    @JsonProperty
+    public String getToken() {
+        return token;
+    }
+
+    @JsonIgnore
+    public boolean isUp() {
+        return "Up".equalsIgnoreCase(status);
+    }
+}
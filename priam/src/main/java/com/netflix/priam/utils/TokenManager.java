@@ -15,6 +15,11 @@
  */
 package com.netflix.priam.utils;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import java.math.BigInteger;
 import java.util.List;
 
 public abstract class TokenManager {
@@ -39,6 +44,36 @@ public abstract class TokenManager {
      */
     public abstract String sanitizeToken(String jmxTokenString);
 
+    /**
+     * Splits the token range (startToken, endToken] into {@code count} contiguous subranges of about equal width,
+     * wrapping around the ring when endToken is not after startToken.  Returns the boundaries, starting with startToken
+     * and ending with endToken, so subrange i is (boundaries[i], boundaries[i + 1]].  Ranges holding fewer than
+     * {@code count} tokens are split into fewer subranges.
+     */
+    public abstract List<String> splitRange(String startToken, String endToken, int count);
+
+    protected static List<BigInteger> splitRange(BigInteger start, BigInteger end, BigInteger minimum,
+                                                 BigInteger maximum, int count) {
+        Preconditions.checkArgument(count > 0, "count must be > 0");
+        BigInteger ringSize = maximum.subtract(minimum).add(BigInteger.ONE);
+        BigInteger width = end.subtract(start);
+        if (width.signum() <= 0) {
+            width = width.add(ringSize);
+        }
+        List<BigInteger> boundaries = Lists.newArrayList(start);
+        for (int i = 1; i < count; i++) {
+            BigInteger boundary = start.add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count)));
+            if (boundary.compareTo(maximum) > 0) {
+                boundary = boundary.subtract(ringSize);
+            }
+            if (!boundary.equals(Iterables.getLast(boundaries))) {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(end);
+        return boundaries;
+    }
+
     /**
      * Create an offset to add to token values by hashing the region name.
      */
@@ -0,0 +1,51 @@
+package com.netflix.priam.utils;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+
+/**
+ * The token range (start, end], wrapping around the ring when end is not after start.
+ */
+public class TokenRange {
+    private final String start;
+    private final String end;
+
+    @JsonCreator
+    public TokenRange(@JsonProperty("start") String start, @JsonProperty("end") String end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    @JsonProperty
+    public String getStart() {
+        return start;
+    }
+
+    @JsonProperty
+    public String getEnd() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenRange)) {
+            return false;
+        }
+        TokenRange that = (TokenRange) o;
+        return start.equals(that.start) && end.equals(that.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + start + "," + end + "]";
+    }
+}
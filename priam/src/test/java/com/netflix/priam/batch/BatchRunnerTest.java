@@ -0,0 +1,174 @@
+package com.netflix.priam.batch;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.ICassandraProcess;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.netflix.priam.utils.JMXTimeoutException;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import mockit.VerificationsInOrder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRunnerTest {
+    private
+    @Mocked
+    JMXConnectionPool jmxConnectionPool;
+    private
+    @Mocked
+    JMXNodeTool nodeTool;
+    private
+    @Mocked
+    ICassandraProcess cassProcess;
+
+    private BatchRunner newBatchRunner() {
+        return new BatchRunner(jmxConnectionPool, new JMXConfiguration(), cassProcess);
+    }
+
+    private static BatchRequest request(boolean continueOnError, BatchOperation... operations) {
+        ImmutableList.Builder<BatchStep> steps = ImmutableList.builder();
+        for (BatchOperation operation : operations) {
+            steps.add(new BatchStep(operation));
+        }
+        return new BatchRequest(steps.build(), continueOnError);
+    }
+
+    private static void assertStatuses(BatchResult result, BatchStepResult.Status... expected) {
+        List<BatchStepResult> steps = result.getSteps();
+        assertEquals(expected.length, steps.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(steps.get(i).getOperation() + " status", expected[i], steps.get(i).getStatus());
+        }
+    }
+
+    @Test
+    public void runsConsecutiveJmxStepsInOneSession() throws Exception {
+        expectJmxCalls();
+
+        BatchResult result = newBatchRunner().run(request(false, BatchOperation.DISABLETHRIFT,
+                BatchOperation.DISABLEGOSSIP, BatchOperation.DRAIN, BatchOperation.STOP));
+
+        assertTrue(result.isSucceeded());
+        assertStatuses(result, BatchStepResult.Status.OK, BatchStepResult.Status.OK, BatchStepResult.Status.OK,
+                BatchStepResult.Status.OK);
+        new VerificationsInOrder() {
+            {
+                nodeTool.stopThriftServer();
+                nodeTool.stopGossiping();
+                nodeTool.drain();
+                cassProcess.stop();
+            }
+        };
+        new Verifications() {
+            {
+                jmxConnectionPool.executeOperation((JMXCallable<?>) any, anyLong, (TimeUnit) any);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void stopsAtFirstFailure() throws Exception {
+        expectJmxCalls();
+        new NonStrictExpectations() {
+            {
+                nodeTool.stopGossiping();
+                result = new IllegalStateException("gossip");
+            }
+        };
+
+        BatchResult result = newBatchRunner().run(request(false, BatchOperation.DISABLETHRIFT,
+                BatchOperation.DISABLEGOSSIP, BatchOperation.DRAIN, BatchOperation.STOP));
+
+        assertFalse(result.isSucceeded());
+        assertStatuses(result, BatchStepResult.Status.OK, BatchStepResult.Status.FAILED,
+                BatchStepResult.Status.SKIPPED, BatchStepResult.Status.SKIPPED);
+        assertEquals("gossip", result.getSteps().get(1).getError());
+        new Verifications() {
+            {
+                nodeTool.drain();
+                times = 0;
+                cassProcess.stop();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void continuesPastFailureWhenAsked() throws Exception {
+        expectJmxCalls();
+        new NonStrictExpectations() {
+            {
+                nodeTool.drain();
+                result = new IOException("drain");
+            }
+        };
+
+        BatchResult result = newBatchRunner().run(request(true, BatchOperation.DISABLEGOSSIP, BatchOperation.DRAIN,
+                BatchOperation.STOP, BatchOperation.START, BatchOperation.ENABLEGOSSIP));
+
+        assertFalse(result.isSucceeded());
+        assertStatuses(result, BatchStepResult.Status.OK, BatchStepResult.Status.FAILED, BatchStepResult.Status.OK,
+                BatchStepResult.Status.OK, BatchStepResult.Status.OK);
+        new Verifications() {
+            {
+                cassProcess.stop();
+                cassProcess.start(true);
+                nodeTool.startGossiping();
+            }
+        };
+    }
+
+    @Test
+    public void failsStepSessionWasOnWhenSessionFails() throws Exception {
+        new NonStrictExpectations() {
+            {
+                jmxConnectionPool.executeOperation((JMXCallable<?>) any, anyLong, (TimeUnit) any);
+                result = new JMXTimeoutException("deadline");
+            }
+        };
+
+        BatchResult result = newBatchRunner().run(request(false, BatchOperation.DISABLETHRIFT, BatchOperation.DRAIN,
+                BatchOperation.STOP));
+
+        assertFalse(result.isSucceeded());
+        assertStatuses(result, BatchStepResult.Status.FAILED, BatchStepResult.Status.SKIPPED,
+                BatchStepResult.Status.SKIPPED);
+        assertEquals("deadline", result.getSteps().get(0).getError());
+        new Verifications() {
+            {
+                cassProcess.stop();
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Runs JMX callables directly against the mocked node tool.
+     */
+    private void expectJmxCalls() throws Exception {
+        new NonStrictExpectations() {
+            {
+                jmxConnectionPool.executeOperation((JMXCallable<?>) any, anyLong, (TimeUnit) any);
+                result = new Delegate<Object>() {
+                    @SuppressWarnings("unused")
+                    Object execute(JMXCallable<?> callable, long timeout, TimeUnit unit) throws Exception {
+                        return callable.call(nodeTool);
+                    }
+                };
+            }
+        };
+    }
+}
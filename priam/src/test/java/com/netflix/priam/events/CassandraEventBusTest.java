@@ -0,0 +1,80 @@
+package com.netflix.priam.events;
+
+import com.netflix.priam.config.EventsConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CassandraEventBusTest {
+    private CassandraEventBus eventBus;
+
+    @Before
+    public void setUp() {
+        EventsConfiguration eventsConfiguration = new EventsConfiguration();
+        eventsConfiguration.setHistorySize(3);
+        eventBus = new CassandraEventBus(eventsConfiguration);
+    }
+
+    @Test
+    public void pollTimesOutWithoutEvents() throws InterruptedException {
+        CassandraEventBatch batch = eventBus.poll(0, 10);
+        assertTrue(batch.getEvents().isEmpty());
+        assertEquals(0, batch.getNext());
+    }
+
+    @Test
+    public void pollReturnsEventsAfterCursor() throws InterruptedException {
+        eventBus.publish("source", CassandraEvent.REPAIR, "one", null);
+        eventBus.publish("source", CassandraEvent.REPAIR, "two", null);
+
+        CassandraEventBatch batch = eventBus.poll(1, 0);
+        assertEquals(1, batch.getEvents().size());
+        assertEquals("two", batch.getEvents().get(0).getMessage());
+        assertEquals(2, batch.getNext());
+        assertFalse(batch.isMissed());
+    }
+
+    @Test
+    public void pollWakesUpOnPublish() throws InterruptedException {
+        Thread publisher = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+                eventBus.publish("source", CassandraEvent.REPAIR, "late", null);
+            }
+        };
+        publisher.start();
+
+        CassandraEventBatch batch = eventBus.poll(0, 10000);
+        assertEquals(1, batch.getEvents().size());
+        publisher.join();
+    }
+
+    @Test
+    public void reportsEvictedEvents() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            eventBus.publish("source", CassandraEvent.REPAIR, Integer.toString(i), null);
+        }
+
+        CassandraEventBatch batch = eventBus.poll(0, 0);
+        assertEquals(3, batch.getEvents().size());
+        assertEquals(3, batch.getEvents().get(0).getSequence());
+        assertTrue(batch.isMissed());
+    }
+
+    @Test
+    public void cursorFromBeforeRestartReturnsHistory() throws InterruptedException {
+        eventBus.publish("source", CassandraEvent.REPAIR, "one", null);
+
+        CassandraEventBatch batch = eventBus.poll(100, 0);
+        assertEquals(1, batch.getEvents().size());
+        assertFalse(batch.isMissed());
+    }
+}
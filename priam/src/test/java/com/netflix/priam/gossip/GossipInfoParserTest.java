@@ -0,0 +1,57 @@
+package com.netflix.priam.gossip;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GossipInfoParserTest {
+    @Test
+    public void parsesEndpointStates() {
+        List<EndpointGossipState> states = GossipInfoParser.parse("" +
+                "/10.0.0.1\n" +
+                "  generation:1400000000\n" +
+                "  heartbeat:1234\n" +
+                "  STATUS:NORMAL,-9223372036854775808\n" +
+                "  LOAD:1.2345E10\n" +
+                "  SCHEMA:59adb24e-f3cd-3e02-97f0-5b395827453f\n" +
+                "  DC:us-east\n" +
+                "  RACK:1a\n" +
+                "  RELEASE_VERSION:1.2.18\n" +
+                "  RPC_ADDRESS:0:0:0:0:0:0:0:1\n" +
+                "cassandra-2.example.com/10.0.0.2\n" +
+                "  generation:1400000100\n" +
+                "  heartbeat:7\n" +
+                "  STATUS:LEAVING,0\n");
+
+        assertEquals(2, states.size());
+        EndpointGossipState first = states.get(0);
+        assertEquals("10.0.0.1", first.getEndpoint());
+        assertEquals(1400000000, first.getGeneration());
+        assertEquals(1234, first.getHeartbeat());
+        assertEquals("NORMAL", first.getStatus());
+        assertEquals(1.2345E10, first.getLoad(), 0);
+        assertEquals("59adb24e-f3cd-3e02-97f0-5b395827453f", first.getSchema());
+        assertEquals("us-east", first.getDataCenter());
+        assertEquals("1a", first.getRack());
+        assertEquals("1.2.18", first.getReleaseVersion());
+        assertEquals("0:0:0:0:0:0:0:1", first.getApplicationState("RPC_ADDRESS"));
+
+        EndpointGossipState second = states.get(1);
+        assertEquals("10.0.0.2", second.getEndpoint());
+        assertEquals("LEAVING", second.getStatus());
+        assertNull(second.getLoad());
+        assertNull(second.getSchema());
+    }
+
+    @Test
+    public void parsesIpv6Endpoints() {
+        List<EndpointGossipState> states = GossipInfoParser.parse("/0:0:0:0:0:0:0:1\n  heartbeat:3\n");
+
+        assertEquals(1, states.size());
+        assertEquals("0:0:0:0:0:0:0:1", states.get(0).getEndpoint());
+        assertEquals(3, states.get(0).getHeartbeat());
+    }
+}
@@ -0,0 +1,129 @@
+package com.netflix.priam.gossip;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.netflix.priam.config.GossipConfiguration;
+import com.netflix.priam.utils.JMXConnectionPool;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GossipMonitorTest {
+    private static final String SCHEMA_A = "59adb24e-f3cd-3e02-97f0-5b395827453f";
+    private static final String SCHEMA_B = "8f0a4c2e-1b6d-3a5e-9c7f-2d4b6a8c0e1f";
+
+    private
+    @Mocked
+    JMXConnectionPool jmxConnectionPool;
+
+    private GossipConfiguration gossipConfiguration;
+    private GossipMonitor monitor;
+
+    @Before
+    public void setUp() {
+        gossipConfiguration = new GossipConfiguration();
+        gossipConfiguration.setFlapThreshold(2);
+        gossipConfiguration.setFlapWindowMS(60000);
+        gossipConfiguration.setHeartbeatStallMS(30000);
+        monitor = new GossipMonitor(gossipConfiguration, jmxConnectionPool);
+    }
+
+    @Test
+    public void recordsChangesAfterBaseline() {
+        monitor.update(ImmutableList.of(state("10.0.0.1", 1, 10, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), 1000);
+        assertTrue(monitor.getChanges(null, 0).isEmpty());
+
+        monitor.update(ImmutableList.of(
+                state("10.0.0.1", 1, 20, "LEAVING", SCHEMA_A),
+                state("10.0.0.2", 5, 1, "NORMAL", SCHEMA_A)), ImmutableSet.of("10.0.0.1"), 2000);
+
+        List<GossipChange> changes = monitor.getChanges(null, 0);
+        assertEquals(3, changes.size());
+        assertEquals("10.0.0.2", changes.get(0).getEndpoint());
+        assertEquals(GossipChange.ENDPOINT, changes.get(0).getField());
+        assertEquals(EndpointGossipState.STATUS, changes.get(1).getField());
+        assertEquals("NORMAL,0", changes.get(1).getPrevious());
+        assertEquals("LEAVING,0", changes.get(1).getCurrent());
+        assertEquals(GossipChange.LIVENESS, changes.get(2).getField());
+        assertEquals("DOWN", changes.get(2).getCurrent());
+        assertEquals(2, monitor.getChanges("10.0.0.1", 0).size());
+        assertEquals(0, monitor.getChanges(null, 3000).size());
+    }
+
+    @Test
+    public void keepsBoundedHistory() {
+        gossipConfiguration.setHistorySize(2);
+        for (int i = 0; i < 5; i++) {
+            monitor.update(ImmutableList.of(state("10.0.0.1", i, 1, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), i * 1000);
+        }
+
+        List<GossipChange> changes = monitor.getChanges(null, 0);
+        assertEquals(2, changes.size());
+        assertEquals("4", changes.get(0).getCurrent());
+        assertEquals("3", changes.get(1).getCurrent());
+    }
+
+    @Test
+    public void reportsFlappingEndpoints() {
+        monitor.update(ImmutableList.of(state("10.0.0.1", 1, 1, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), 1000);
+        monitor.update(ImmutableList.of(state("10.0.0.1", 1, 2, "NORMAL", SCHEMA_A)), ImmutableSet.of("10.0.0.1"), 2000);
+        assertTrue(monitor.getHealth(2000).getFlapping().isEmpty());
+
+        monitor.update(ImmutableList.of(state("10.0.0.1", 2, 1, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), 3000);
+        GossipHealth health = monitor.getHealth(3000);
+        assertEquals(1, health.getFlapping().size());
+        assertEquals("10.0.0.1", health.getFlapping().get(0).getEndpoint());
+        // Down, then up again after a restart
+        assertEquals(3, health.getFlapping().get(0).getTransitions());
+
+        assertTrue(monitor.getHealth(3000 + 60001).getFlapping().isEmpty());
+    }
+
+    @Test
+    public void reportsStalledHeartbeats() {
+        monitor.update(ImmutableList.of(
+                state("10.0.0.1", 1, 100, "NORMAL", SCHEMA_A),
+                state("10.0.0.2", 1, 100, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), 0);
+        monitor.update(ImmutableList.of(
+                state("10.0.0.1", 1, 130, "NORMAL", SCHEMA_A),
+                state("10.0.0.2", 1, 100, "NORMAL", SCHEMA_A)), ImmutableSet.<String>of(), 30000);
+
+        GossipHealth health = monitor.getHealth(30000);
+        assertEquals(1, health.getStalledHeartbeats().size());
+        GossipHealth.StalledEndpoint stalled = health.getStalledHeartbeats().get(0);
+        assertEquals("10.0.0.2", stalled.getEndpoint());
+        assertEquals(30000, stalled.getStalledMillis());
+        assertTrue(stalled.isUp());
+    }
+
+    @Test
+    public void reportsSchemaDisagreementAmongLiveEndpoints() {
+        monitor.update(ImmutableList.of(
+                state("10.0.0.1", 1, 1, "NORMAL", SCHEMA_A),
+                state("10.0.0.2", 1, 1, "NORMAL", SCHEMA_A),
+                state("10.0.0.3", 1, 1, "NORMAL", SCHEMA_B)), ImmutableSet.of("10.0.0.3"), 1000);
+        assertTrue(monitor.getHealth(1000).isSchemaAgreement());
+
+        monitor.update(ImmutableList.of(
+                state("10.0.0.1", 1, 2, "NORMAL", SCHEMA_A),
+                state("10.0.0.2", 1, 2, "NORMAL", SCHEMA_A),
+                state("10.0.0.3", 1, 2, "NORMAL", SCHEMA_B)), ImmutableSet.<String>of(), 2000);
+        GossipHealth health = monitor.getHealth(2000);
+        assertFalse(health.isSchemaAgreement());
+        assertEquals(ImmutableList.of("10.0.0.1", "10.0.0.2"), health.getSchemaVersions().get(SCHEMA_A));
+        assertEquals(ImmutableList.of("10.0.0.3"), health.getSchemaVersions().get(SCHEMA_B));
+    }
+
+    private static EndpointGossipState state(String endpoint, int generation, int heartbeat, String status, String schema) {
+        return new EndpointGossipState(endpoint, generation, heartbeat, ImmutableMap.of(
+                EndpointGossipState.STATUS, status + ",0",
+                EndpointGossipState.SCHEMA, schema));
+    }
+}
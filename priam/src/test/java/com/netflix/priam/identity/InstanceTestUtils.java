@@ -5,8 +5,10 @@ import com.netflix.priam.FakePriamInstanceRegistry;
 import com.netflix.priam.TestAmazonConfiguration;
 import com.netflix.priam.TestBackupConfiguration;
 import com.netflix.priam.TestCassandraConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
 import com.netflix.priam.utils.BigIntegerTokenManager;
 import com.netflix.priam.utils.FakeSleeper;
+import com.netflix.priam.utils.JMXConnectionPool;
 import com.netflix.priam.utils.Sleeper;
 import com.netflix.priam.utils.TokenManager;
 import org.junit.Before;
@@ -27,6 +29,7 @@ public abstract class InstanceTestUtils {
     InstanceIdentity identity;
     TokenManager tokenManager;
     Sleeper sleeper;
+    JMXConnectionPool jmxConnectionPool;
 
     @Before
     public void setup() {
@@ -47,6 +50,7 @@ public abstract class InstanceTestUtils {
         instanceRegistry = new FakePriamInstanceRegistry(amazonConfiguration);
         tokenManager = BigIntegerTokenManager.forRandomPartitioner();
         sleeper = new FakeSleeper();
+        jmxConnectionPool = new JMXConnectionPool(cassandraConfiguration, new JMXConfiguration());
     }
 
     public void createInstances() throws Exception {
@@ -67,6 +71,6 @@ public abstract class InstanceTestUtils {
         amazonConfiguration.setAvailabilityZone(zone);
         amazonConfiguration.setInstanceID(instanceId);
         amazonConfiguration.setPrivateHostName(instanceId);
-        return new InstanceIdentity(cassandraConfiguration, amazonConfiguration, instanceRegistry, membership, tokenManager, sleeper);
+        return new InstanceIdentity(cassandraConfiguration, amazonConfiguration, instanceRegistry, membership, tokenManager, sleeper, jmxConnectionPool);
     }
 }
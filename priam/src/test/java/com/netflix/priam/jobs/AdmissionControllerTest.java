@@ -0,0 +1,160 @@
+package com.netflix.priam.jobs;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.netflix.priam.config.AdmissionConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdmissionControllerTest {
+    private final AdmissionController controller = new AdmissionController(new AdmissionConfiguration());
+
+    @Test
+    public void rejectsNamingTheBlockingOperation() throws Exception {
+        controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        try {
+            controller.tryAcquire(ResourceClass.COMPACTION, "COMPACT job 2");
+            fail();
+        } catch (AdmissionRejectedException e) {
+            assertEquals(ResourceClass.COMPACTION, e.getResourceClass());
+            assertEquals(ImmutableList.of("CLEANUP job 1"), e.getBlocking());
+        }
+    }
+
+    @Test
+    public void enforcesTotalLimitAcrossClasses() throws Exception {
+        controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        AdmissionController.Ticket repair = controller.tryAcquire(ResourceClass.VALIDATION, "REPAIR job 2");
+        try {
+            controller.tryAcquire(ResourceClass.STREAMING, "move");
+            fail();
+        } catch (AdmissionRejectedException e) {
+            assertEquals(ImmutableList.of("CLEANUP job 1", "REPAIR job 2"), e.getBlocking());
+        }
+
+        repair.close();
+        repair.close();
+        controller.tryAcquire(ResourceClass.STREAMING, "move");
+        assertEquals(2, controller.getRunning().size());
+    }
+
+    @Test
+    public void letsWaitingOperationsInByPriority() throws Exception {
+        AdmissionController.Ticket running = controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        final List<String> admitted = Collections.synchronizedList(Lists.<String>newArrayList());
+        List<Thread> threads = Lists.newArrayList();
+        for (Priority priority : ImmutableList.of(Priority.LOW, Priority.HIGH, Priority.NORMAL)) {
+            threads.add(waitFor(ResourceClass.COMPACTION, priority.toString(), priority, admitted));
+            // Queue them in a known order
+            while (controller.getWaiting().size() < threads.size()) {
+                Thread.sleep(5);
+            }
+        }
+        assertEquals("HIGH", controller.getWaiting().get(0).getOperation());
+
+        running.close();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals(ImmutableList.of("HIGH", "NORMAL", "LOW"), admitted);
+    }
+
+    @Test
+    public void waitingOperationDoesNotHoldUpAnotherClass() throws Exception {
+        controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        List<String> admitted = Collections.synchronizedList(Lists.<String>newArrayList());
+        waitFor(ResourceClass.COMPACTION, "COMPACT job 2", Priority.HIGH, admitted);
+        while (controller.getWaiting().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        controller.acquire(ResourceClass.VALIDATION, "REPAIR job 3", Priority.LOW);
+        assertTrue(admitted.isEmpty());
+    }
+
+    @Test
+    public void interruptedWaitHoldsNoSlot() throws Exception {
+        AdmissionController.Ticket running = controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    controller.acquire(ResourceClass.COMPACTION, "COMPACT job 2", Priority.NORMAL);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        thread.start();
+        while (controller.getWaiting().isEmpty()) {
+            Thread.sleep(5);
+        }
+        thread.interrupt();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(controller.getWaiting().isEmpty());
+        running.close();
+        assertTrue(controller.getRunning().isEmpty());
+    }
+
+    @Test
+    public void handsEnqueuedOperationsTheirTicketWhenASlotFrees() throws Exception {
+        AdmissionController.Ticket running = controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        ListenableFuture<AdmissionController.Ticket> low = controller.enqueue(ResourceClass.COMPACTION, "COMPACT job 2", Priority.LOW);
+        ListenableFuture<AdmissionController.Ticket> high = controller.enqueue(ResourceClass.COMPACTION, "COMPACT job 3", Priority.HIGH);
+        assertFalse(low.isDone());
+        assertFalse(high.isDone());
+
+        running.close();
+        assertTrue(high.isDone());
+        assertFalse(low.isDone());
+        assertEquals("COMPACT job 3", Iterables.getOnlyElement(controller.getRunning()).getOperation());
+
+        high.get().close();
+        assertEquals("COMPACT job 2", low.get(5, TimeUnit.SECONDS).getOperation());
+    }
+
+    @Test
+    public void cancelledEnqueuedOperationGivesUpItsPlace() throws Exception {
+        AdmissionController.Ticket running = controller.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 1");
+        ListenableFuture<AdmissionController.Ticket> first = controller.enqueue(ResourceClass.COMPACTION, "COMPACT job 2", Priority.NORMAL);
+        ListenableFuture<AdmissionController.Ticket> second = controller.enqueue(ResourceClass.COMPACTION, "COMPACT job 3", Priority.NORMAL);
+
+        first.cancel(true);
+        assertEquals(1, controller.getWaiting().size());
+        running.close();
+        assertEquals("COMPACT job 3", second.get(5, TimeUnit.SECONDS).getOperation());
+        assertEquals(1, controller.getRunning().size());
+    }
+
+    private Thread waitFor(final ResourceClass resourceClass, final String operation, final Priority priority,
+                           final List<String> admitted) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    AdmissionController.Ticket ticket = controller.acquire(resourceClass, operation, priority);
+                    admitted.add(operation);
+                    ticket.close();
+                } catch (InterruptedException e) {
+                    // Test over
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,374 @@
+package com.netflix.priam.jobs;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.priam.TestCassandraConfiguration;
+import com.netflix.priam.config.AdmissionConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import com.netflix.priam.config.JobsConfiguration;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import mockit.VerificationsInOrder;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobManagerTest {
+    private
+    @Mocked
+    JMXConnectionPool jmxConnectionPool;
+    private
+    @Mocked
+    JMXNodeTool nodeTool;
+    private
+    @Mocked
+    NodeStatsCollector statsCollector;
+    private static final Optional<Collection<String>> ALL = Optional.absent();
+
+    private JobManager jobManager;
+    private AdmissionController admissionController;
+
+    @After
+    public void tearDown() throws Exception {
+        if (jobManager != null) {
+            jobManager.stop();
+        }
+    }
+
+    @Test
+    public void runsColumnFamiliesLargestFirst() throws Exception {
+        jobManager = newJobManager(1, 10, 4);
+        expectJmxCalls();
+
+        AdminJob job = jobManager.submit(JobDefinition.cleanup(ALL, ALL, 1));
+
+        assertTrue(job.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, job.getState());
+        assertEquals(3, job.getTotalSteps());
+        assertEquals(3, job.getCompletedSteps());
+        new VerificationsInOrder() {
+            {
+                nodeTool.forceTableCleanup("ks1", "b");
+                nodeTool.forceTableCleanup("ks2", "c");
+                nodeTool.forceTableCleanup("ks1", "a");
+            }
+        };
+        new Verifications() {
+            {
+                nodeTool.forceTableCleanup("system", withAny(""));
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void filtersKeyspacesAndColumnFamilies() throws Exception {
+        jobManager = newJobManager(1, 10, 4);
+        expectJmxCalls();
+
+        AdminJob job = jobManager.submit(JobDefinition.flush(
+                Optional.<Collection<String>>of(ImmutableList.of("ks1")), Optional.<Collection<String>>of(ImmutableList.of("a")), 1));
+
+        assertTrue(job.await(5, TimeUnit.SECONDS));
+        assertEquals(1, job.getCompletedSteps());
+        new Verifications() {
+            {
+                nodeTool.forceTableFlush("ks1", "a");
+                nodeTool.forceTableFlush(anyString, withAny(""));
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void runsStepsInParallel() throws Exception {
+        jobManager = newJobManager(1, 10, 2);
+        expectJmxCalls();
+        // Both steps must be running at the same time for either to pass the barrier
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        new NonStrictExpectations() {
+            {
+                nodeTool.forceTableCompaction(anyString, withAny(""));
+                result = new Delegate<Void>() {
+                    @SuppressWarnings("unused")
+                    void forceTableCompaction(String keyspace, String... columnFamilies) throws Exception {
+                        barrier.await(5, TimeUnit.SECONDS);
+                    }
+                };
+            }
+        };
+
+        AdminJob job = jobManager.submit(JobDefinition.compact(Optional.<Collection<String>>of(ImmutableList.of("ks1")), ALL, 4));
+
+        assertTrue(job.await(10, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, job.getState());
+        assertEquals(2, job.getCompletedSteps());
+    }
+
+    @Test
+    public void capsParallelismAtConcurrentCompactors() {
+        jobManager = newJobManager(1, 10, 2);
+        assertEquals(2, jobManager.getParallelism(JobDefinition.compact(ALL, ALL, 8)));
+        assertEquals(1, jobManager.getParallelism(JobDefinition.compact(ALL, ALL, 1)));
+    }
+
+    @Test
+    public void capsStepsAcrossJobs() throws Exception {
+        JMXConfiguration jmxConfiguration = new JMXConfiguration();
+        jmxConfiguration.setOperationThreads(2);
+        AdmissionConfiguration admissionConfiguration = new AdmissionConfiguration();
+        admissionConfiguration.setCompactionLimit(2);
+        jobManager = newJobManager(2, 10, 4, jmxConfiguration, admissionConfiguration);
+        expectJmxCalls();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        new NonStrictExpectations() {
+            {
+                nodeTool.forceTableCompaction(anyString, withAny(""));
+                result = new Delegate<Void>() {
+                    @SuppressWarnings("unused")
+                    void forceTableCompaction(String keyspace, String... columnFamilies) throws Exception {
+                        int now = running.incrementAndGet();
+                        while (now > maxRunning.get()) {
+                            maxRunning.compareAndSet(maxRunning.get(), now);
+                        }
+                        Thread.sleep(50);
+                        running.decrementAndGet();
+                    }
+                };
+            }
+        };
+
+        AdminJob first = jobManager.submit(JobDefinition.compact(ALL, ALL, 4));
+        AdminJob second = jobManager.submit(JobDefinition.compact(ALL, ALL, 4));
+
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, first.getState());
+        assertEquals(AdminJob.State.SUCCEEDED, second.getState());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void reportsFailedStep() throws Exception {
+        jobManager = newJobManager(1, 10, 4);
+        expectJmxCalls();
+        new NonStrictExpectations() {
+            {
+                nodeTool.forceTableFlush("ks2", "c");
+                result = new IOException("Disk full");
+            }
+        };
+
+        AdminJob job = jobManager.submit(JobDefinition.flush(ALL, ALL, 1));
+
+        assertTrue(job.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.FAILED, job.getState());
+        assertEquals(1, job.getCompletedSteps());
+        assertEquals("java.io.IOException: Disk full", job.getError());
+    }
+
+    @Test
+    public void cancelsQueuedJob() throws Exception {
+        jobManager = newJobManager(1, 10, 4);
+        expectJmxCalls();
+        final CountDownLatch release = new CountDownLatch(1);
+        new NonStrictExpectations() {
+            {
+                nodeTool.drain();
+                result = new Delegate<Void>() {
+                    @SuppressWarnings("unused")
+                    void drain() throws InterruptedException {
+                        release.await();
+                    }
+                };
+            }
+        };
+
+        AdminJob running = jobManager.submit(JobDefinition.drain());
+        AdminJob queued = jobManager.submit(JobDefinition.compact(ALL, ALL, 1));
+        jobManager.cancel(queued.getId());
+        release.countDown();
+
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.CANCELLED, queued.getState());
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, running.getState());
+        new Verifications() {
+            {
+                nodeTool.forceTableCompaction(anyString, withAny(""));
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void rejectsOrQueuesJobsOverAdmissionLimit() throws Exception {
+        jobManager = newJobManager(2, 10, 4);
+        expectJmxCalls();
+        AdmissionController.Ticket cleanup = admissionController.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 99");
+
+        try {
+            jobManager.submit(JobDefinition.compact(ALL, ALL, 1));
+            fail();
+        } catch (AdmissionRejectedException e) {
+            assertEquals(ImmutableList.of("CLEANUP job 99"), e.getBlocking());
+        }
+        AdminJob queued = jobManager.submit(JobDefinition.compact(ALL, ALL, 1), Priority.HIGH, true);
+        while (admissionController.getWaiting().isEmpty()) {
+            Thread.sleep(5);
+        }
+        assertEquals(AdminJob.State.QUEUED, queued.getState());
+
+        cleanup.close();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, queued.getState());
+        assertTrue(admissionController.getRunning().isEmpty());
+    }
+
+    @Test
+    public void queuedJobsDoNotHoldExecutorThreads() throws Exception {
+        jobManager = newJobManager(1, 10, 4);
+        expectJmxCalls();
+        AdmissionController.Ticket cleanup = admissionController.tryAcquire(ResourceClass.COMPACTION, "CLEANUP job 99");
+
+        AdminJob queued = jobManager.submit(JobDefinition.compact(ALL, ALL, 1), Priority.NORMAL, true);
+        AdminJob flush = jobManager.submit(JobDefinition.flush(ALL, ALL, 1));
+
+        assertTrue(flush.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, flush.getState());
+        assertEquals(AdminJob.State.QUEUED, queued.getState());
+
+        cleanup.close();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, queued.getState());
+    }
+
+    @Test
+    public void drainsWhileCompactionsHoldEveryThreadAndStepPermit() throws Exception {
+        AdmissionConfiguration admissionConfiguration = new AdmissionConfiguration();
+        admissionConfiguration.setCompactionLimit(2);
+        // The two step permits of the default four operation threads
+        jobManager = newJobManager(2, 10, 4, new JMXConfiguration(), admissionConfiguration);
+        expectJmxCalls();
+        final CountDownLatch compacting = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        new NonStrictExpectations() {
+            {
+                nodeTool.forceTableCompaction(anyString, withAny(""));
+                result = new Delegate<Void>() {
+                    @SuppressWarnings("unused")
+                    void forceTableCompaction(String keyspace, String... columnFamilies) throws Exception {
+                        compacting.countDown();
+                        release.await();
+                    }
+                };
+            }
+        };
+
+        AdminJob first = jobManager.submit(JobDefinition.compact(ALL, ALL, 1));
+        AdminJob second = jobManager.submit(JobDefinition.compact(ALL, ALL, 1));
+        assertTrue(compacting.await(5, TimeUnit.SECONDS));
+        AdminJob drain = jobManager.submit(JobDefinition.drain());
+
+        assertTrue(drain.await(5, TimeUnit.SECONDS));
+        assertEquals(AdminJob.State.SUCCEEDED, drain.getState());
+        assertEquals(AdminJob.State.RUNNING, first.getState());
+        assertEquals(AdminJob.State.RUNNING, second.getState());
+
+        release.countDown();
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void keepsBoundedHistory() throws Exception {
+        jobManager = newJobManager(1, 2, 4);
+        expectJmxCalls();
+
+        AdminJob last = null;
+        for (int i = 0; i < 5; i++) {
+            last = jobManager.submit(JobDefinition.flush(ALL, ALL, 1));
+        }
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, jobManager.list().size());
+        assertEquals(last.getId(), jobManager.list().get(0).getId());
+        assertFalse(jobManager.get(1).isPresent());
+    }
+
+    private JobManager newJobManager(int threads, int historySize, int concurrentCompactors) {
+        return newJobManager(threads, historySize, concurrentCompactors, new JMXConfiguration());
+    }
+
+    private JobManager newJobManager(int threads, int historySize, int concurrentCompactors,
+                                     JMXConfiguration jmxConfiguration) {
+        return newJobManager(threads, historySize, concurrentCompactors, jmxConfiguration, new AdmissionConfiguration());
+    }
+
+    private JobManager newJobManager(int threads, int historySize, int concurrentCompactors,
+                                     JMXConfiguration jmxConfiguration, AdmissionConfiguration admissionConfiguration) {
+        JobsConfiguration jobsConfiguration = new JobsConfiguration();
+        jobsConfiguration.setExecutorThreads(threads);
+        jobsConfiguration.setHistorySize(historySize);
+        TestCassandraConfiguration cassandraConfiguration = new TestCassandraConfiguration("fake-app");
+        cassandraConfiguration.setConcurrentCompactors(concurrentCompactors);
+        admissionController = new AdmissionController(admissionConfiguration);
+        return new JobManager(jobsConfiguration, cassandraConfiguration, jmxConfiguration, jmxConnectionPool,
+                statsCollector, admissionController);
+    }
+
+    private static ObjectName cfName(String keyspace, String columnFamily) throws MalformedObjectNameException {
+        return new ObjectName("org.apache.cassandra.db:type=ColumnFamilies,keyspace=" + keyspace + ",columnfamily=" + columnFamily);
+    }
+
+    /**
+     * Runs JMX callables directly against the mocked node tool.
+     */
+    private void expectJmxCalls() throws Exception {
+        new NonStrictExpectations() {
+            {
+                nodeTool.getColumnFamilyAttributes("LiveDiskSpaceUsed");
+                result = ImmutableMap.of(
+                        cfName("ks1", "a"), ImmutableMap.<String, Object>of("LiveDiskSpaceUsed", 10L),
+                        cfName("ks1", "b"), ImmutableMap.<String, Object>of("LiveDiskSpaceUsed", 30L),
+                        cfName("ks2", "c"), ImmutableMap.<String, Object>of("LiveDiskSpaceUsed", 20L),
+                        cfName("system", "local"), ImmutableMap.<String, Object>of("LiveDiskSpaceUsed", 5L));
+                jmxConnectionPool.execute((JMXCallable<?>) any);
+                result = new Delegate<Object>() {
+                    @SuppressWarnings("unused")
+                    Object execute(JMXCallable<?> callable) throws Exception {
+                        return callable.call(nodeTool);
+                    }
+                };
+                jmxConnectionPool.executeOperation((JMXCallable<?>) any, anyLong, (TimeUnit) any);
+                result = new Delegate<Object>() {
+                    @SuppressWarnings("unused")
+                    Object execute(JMXCallable<?> callable, long timeout, TimeUnit unit) throws Exception {
+                        return callable.call(nodeTool);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.netflix.priam.noderepair;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.utils.TokenRange;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RepairCheckpointTest {
+    private static final long RUN = 10000;
+    private static final long NEXT_RUN = 20000;
+    private static final TokenRange FIRST = new TokenRange("0", "50");
+    private static final TokenRange SECOND = new TokenRange("50", "100");
+
+    @Test
+    public void rangesCountAsRepairedForTheirRunOnly() {
+        RepairCheckpoint checkpoint = new RepairCheckpoint("ks");
+        checkpoint.repaired(FIRST, RUN, RUN + 500);
+
+        assertTrue(checkpoint.isRepaired(FIRST, RUN));
+        assertFalse(checkpoint.isRepaired(FIRST, NEXT_RUN));
+        assertFalse(checkpoint.isRepaired(SECOND, RUN));
+        assertFalse(checkpoint.isRepaired(null, RUN));
+    }
+
+    @Test
+    public void dropsRangesOfEarlierRuns() {
+        RepairCheckpoint checkpoint = new RepairCheckpoint("ks");
+        checkpoint.repaired(FIRST, RUN, RUN + 100);
+        checkpoint.repaired(SECOND, RUN, RUN + 500);
+        assertEquals(RUN, checkpoint.getStartedAt());
+
+        checkpoint.repaired(FIRST, RUN, RUN + 900);
+        assertEquals(2, checkpoint.getRepaired().size());
+
+        checkpoint.repaired(SECOND, NEXT_RUN, NEXT_RUN + 100);
+        assertEquals(1, checkpoint.getRepaired().size());
+        assertEquals(NEXT_RUN, checkpoint.getStartedAt());
+        assertEquals(NEXT_RUN + 100, checkpoint.getUpdatedAt());
+    }
+
+    @Test
+    public void keepsThePlanOfItsRunOnly() {
+        RepairCheckpoint checkpoint = new RepairCheckpoint("ks");
+        assertFalse(checkpoint.getPlanned(RUN).isPresent());
+
+        checkpoint.planned(ImmutableList.of(FIRST, SECOND), RUN, RUN + 100);
+        checkpoint.repaired(FIRST, RUN, RUN + 500);
+        assertEquals(ImmutableList.of(FIRST, SECOND), checkpoint.getPlanned(RUN).get());
+        assertFalse(checkpoint.getPlanned(NEXT_RUN).isPresent());
+
+        // The next run repairs the keyspace whole
+        checkpoint.repaired(null, NEXT_RUN, NEXT_RUN + 100);
+        assertFalse(checkpoint.getPlanned(NEXT_RUN).isPresent());
+    }
+
+    @Test
+    public void roundTripsThroughJson() throws Exception {
+        RepairCheckpoint checkpoint = new RepairCheckpoint("ks");
+        checkpoint.planned(ImmutableList.of(FIRST, SECOND), RUN, RUN + 50);
+        checkpoint.repaired(FIRST, RUN, RUN + 100);
+        checkpoint.repaired(null, RUN, RUN + 200);
+
+        ObjectMapper mapper = new ObjectMapper();
+        RepairCheckpoint copy = mapper.readValue(mapper.writeValueAsBytes(checkpoint), RepairCheckpoint.class);
+
+        assertEquals("ks", copy.getKeyspace());
+        assertEquals(ImmutableList.of(FIRST, SECOND), copy.getPlanned(RUN).get());
+        assertTrue(copy.isRepaired(FIRST, RUN));
+        assertTrue(copy.isRepaired(null, RUN));
+        assertFalse(copy.isRepaired(SECOND, RUN));
+    }
+}
@@ -0,0 +1,86 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.utils.TokenRange;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RepairCheckpointsTest {
+    private static final String PATH = "/repair/_checkpoints/10.0.0.1";
+    private static final long RESUME = TimeUnit.DAYS.toMillis(1);
+    private static final TokenRange RANGE = new TokenRange("0", "50");
+    private static final TokenRange NEXT_RANGE = new TokenRange("50", "100");
+
+    private TestingServer server;
+    private CuratorFramework curator;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer();
+        curator = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        curator.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        curator.close();
+        server.close();
+    }
+
+    @Test
+    public void resumesAnInterruptedRun() throws Exception {
+        RepairCheckpoints interrupted = new RepairCheckpoints(curator, PATH, RESUME);
+        interrupted.begin();
+        interrupted.planned("ks", ImmutableList.of(RANGE, NEXT_RANGE));
+        interrupted.repaired("ks", RANGE);
+        interrupted.repaired("ks", null);
+        Thread.sleep(10);
+
+        RepairCheckpoints resumed = new RepairCheckpoints(curator, PATH, RESUME);
+        resumed.begin();
+        assertEquals(ImmutableList.of(RANGE, NEXT_RANGE), resumed.getPlanned("ks").get());
+        assertFalse(resumed.getPlanned("other").isPresent());
+        assertTrue(resumed.isRepaired("ks", RANGE));
+        assertTrue(resumed.isRepaired("ks", null));
+        assertFalse(resumed.isRepaired("other", RANGE));
+    }
+
+    @Test
+    public void repairsEverythingAgainAfterAFinishedRun() throws Exception {
+        RepairCheckpoints finished = new RepairCheckpoints(curator, PATH, RESUME);
+        finished.begin();
+        finished.planned("ks", ImmutableList.of(RANGE, NEXT_RANGE));
+        finished.repaired("ks", RANGE);
+        finished.finish();
+        Thread.sleep(10);
+
+        // However soon the next run starts
+        RepairCheckpoints next = new RepairCheckpoints(curator, PATH, RESUME);
+        next.begin();
+        assertFalse(next.getPlanned("ks").isPresent());
+        assertFalse(next.isRepaired("ks", RANGE));
+    }
+
+    @Test
+    public void startsOverOnceAnInterruptedRunIsTooOld() throws Exception {
+        RepairCheckpoints interrupted = new RepairCheckpoints(curator, PATH, 5);
+        interrupted.begin();
+        interrupted.repaired("ks", RANGE);
+        Thread.sleep(20);
+
+        RepairCheckpoints next = new RepairCheckpoints(curator, PATH, 5);
+        next.begin();
+        assertFalse(next.isRepaired("ks", RANGE));
+    }
+}
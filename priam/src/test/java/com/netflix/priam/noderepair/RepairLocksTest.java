@@ -0,0 +1,132 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.netflix.priam.utils.TokenRange;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RepairLocksTest {
+    // Four nodes with RF 2, each range replicated to its owner and the next node
+    private static final Map<TokenRange, List<String>> RANGES = ImmutableMap.<TokenRange, List<String>>of(
+            new TokenRange("0", "100"), ImmutableList.of("b", "c"),
+            new TokenRange("100", "200"), ImmutableList.of("c", "d"),
+            new TokenRange("200", "300"), ImmutableList.of("d", "a"),
+            new TokenRange("300", "0"), ImmutableList.of("a", "b"));
+    private static final String PATH = "/repair";
+    private static final long TIMEOUT_MS = 200;
+
+    private TestingServer server;
+    private CuratorFramework curator;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer();
+        curator = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        curator.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        curator.close();
+        server.close();
+    }
+
+    @Test
+    public void replicasOfPrimaryRanges() {
+        assertEquals(ImmutableSet.of("b", "c"), RepairLocks.replicas(RANGES, ImmutableList.of("100")));
+        assertEquals(ImmutableSet.of("d", "a"), RepairLocks.replicas(RANGES, ImmutableList.of("300")));
+    }
+
+    @Test
+    public void replicasOfEveryLocalToken() {
+        assertEquals(ImmutableSet.of("a", "b", "c"), RepairLocks.replicas(RANGES, ImmutableList.of("100", "0")));
+    }
+
+    @Test
+    public void disjointReplicasRepairTogether() throws Exception {
+        RepairLocks locks = new RepairLocks(curator, PATH, 4);
+        Optional<RepairLocks.Held> first = locks.acquire(ImmutableSet.of("a", "b"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Optional<RepairLocks.Held> second = locks.acquire(ImmutableSet.of("c", "d"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        first.get().close();
+        second.get().close();
+    }
+
+    @Test
+    public void overlappingReplicasExcludeEachOther() throws Exception {
+        RepairLocks locks = new RepairLocks(curator, PATH, 4);
+        Optional<RepairLocks.Held> first = locks.acquire(ImmutableSet.of("a", "b"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(first.isPresent());
+
+        assertFalse(locks.acquire(ImmutableSet.of("b", "c"), TIMEOUT_MS, TimeUnit.MILLISECONDS).isPresent());
+
+        first.get().close();
+        Optional<RepairLocks.Held> second = locks.acquire(ImmutableSet.of("b", "c"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(second.isPresent());
+        second.get().close();
+    }
+
+    @Test
+    public void capsConcurrentRepairsAtTheLeases() throws Exception {
+        RepairLocks locks = new RepairLocks(curator, PATH, 1);
+        Optional<RepairLocks.Held> first = locks.acquire(ImmutableSet.of("a"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(first.isPresent());
+
+        assertFalse(locks.acquire(ImmutableSet.of("c"), TIMEOUT_MS, TimeUnit.MILLISECONDS).isPresent());
+
+        first.get().close();
+        Optional<RepairLocks.Held> second = locks.acquire(ImmutableSet.of("c"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(second.isPresent());
+        second.get().close();
+    }
+
+    @Test
+    public void timeoutReleasesWhatWasHeld() throws Exception {
+        RepairLocks locks = new RepairLocks(curator, PATH, 4);
+        Optional<RepairLocks.Held> busy = locks.acquire(ImmutableSet.of("b"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(busy.isPresent());
+
+        // Takes a, then times out waiting for b
+        assertFalse(locks.acquire(ImmutableSet.of("a", "b"), TIMEOUT_MS, TimeUnit.MILLISECONDS).isPresent());
+
+        Optional<RepairLocks.Held> next = locks.acquire(ImmutableSet.of("a"), 0, TimeUnit.MILLISECONDS);
+        assertTrue(next.isPresent());
+        next.get().close();
+        busy.get().close();
+    }
+
+    @Test
+    public void oneTimeoutCoversEveryLockAndTheLease() throws Exception {
+        RepairLocks locks = new RepairLocks(curator, PATH, 1);
+        Optional<RepairLocks.Held> busy = locks.acquire(ImmutableSet.of("d"), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(busy.isPresent());
+
+        // a, b and c are free but the only lease is taken, so the wait for it gets what is left of the timeout
+        long start = System.currentTimeMillis();
+        assertFalse(locks.acquire(ImmutableSet.of("a", "b", "c"), TIMEOUT_MS, TimeUnit.MILLISECONDS).isPresent());
+        assertTrue(System.currentTimeMillis() - start < 2 * TIMEOUT_MS);
+
+        busy.get().close();
+        Optional<RepairLocks.Held> next = locks.acquire(ImmutableSet.of("a", "b", "c"), 0, TimeUnit.MILLISECONDS);
+        assertTrue(next.isPresent());
+        next.get().close();
+    }
+}
@@ -0,0 +1,113 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RepairPlannerTest {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long GB = 1024L * 1024 * 1024;
+    private static final int TEN_DAYS = (int) TimeUnit.DAYS.toSeconds(10);
+    private static final long NOW = 1000 * DAY;
+
+    // Daily runs, due at half of gc_grace, batches up to 1GB, slices of 100GB
+    private final RepairPlanner planner = new RepairPlanner(0.5, DAY, GB, 100 * GB, 0);
+
+    @Test
+    public void plansDueColumnFamiliesMostUrgentFirst() {
+        List<RepairPlanner.Step> steps = planner.plan(ImmutableList.of(
+                new RepairCandidate("ks1", "later", TEN_DAYS, GB),
+                new RepairCandidate("ks2", "urgent", TEN_DAYS, 10 * GB),
+                new RepairCandidate("ks2", "notdue", TEN_DAYS, 10 * GB),
+                new RepairCandidate("ks3", "nogcgrace", 0, 10 * GB)),
+                ImmutableMap.of(
+                        "ks1.later", repairedAt(NOW - 6 * DAY),
+                        "ks2.urgent", repairedAt(NOW - 9 * DAY),
+                        "ks2.notdue", repairedAt(NOW - 2 * DAY)),
+                NOW);
+
+        assertEquals(2, steps.size());
+        assertEquals("ks2 [urgent]", steps.get(0).toString());
+        assertEquals(0, steps.get(0).getSlackMillis());
+        assertEquals("ks1 [later]", steps.get(1).toString());
+        assertEquals(3 * DAY, steps.get(1).getSlackMillis());
+    }
+
+    @Test
+    public void batchesSmallColumnFamiliesOfAKeyspace() {
+        List<RepairPlanner.Step> steps = planner.plan(ImmutableList.of(
+                new RepairCandidate("ks1", "a", (int) TimeUnit.DAYS.toSeconds(1), GB / 2),
+                new RepairCandidate("ks1", "b", TEN_DAYS, GB / 2),
+                new RepairCandidate("ks1", "big", (int) TimeUnit.DAYS.toSeconds(5), 10 * GB),
+                new RepairCandidate("ks2", "x", (int) TimeUnit.DAYS.toSeconds(2), GB / 2)),
+                ImmutableMap.<String, TableHistory>of(), NOW);
+
+        assertEquals(ImmutableList.of("ks1 [a, b]", "ks2 [x]", "ks1 [big]"), names(steps));
+    }
+
+    @Test
+    public void spreadsLargeColumnFamiliesAcrossRuns() {
+        List<RepairCandidate> candidates = ImmutableList.of(
+                new RepairCandidate("ks1", "large", TEN_DAYS, 300 * GB),
+                new RepairCandidate("ks1", "huge", TEN_DAYS, 1000 * GB));
+
+        List<RepairPlanner.Step> steps = planner.plan(candidates, ImmutableMap.<String, TableHistory>of(), NOW);
+
+        // No more slices than runs in half of gc_grace, and the one needing more runs is the more urgent
+        assertEquals(ImmutableList.of("ks1 [huge] slice 1 of 5", "ks1 [large] slice 1 of 3"), names(steps));
+
+        TableHistory large = new TableHistory();
+        large.repaired(0, 3, NOW);
+        assertTrue(large.isInProgress());
+        Map<String, TableHistory> history = ImmutableMap.of("ks1.large", large);
+
+        steps = planner.plan(candidates.subList(0, 1), history, NOW + DAY);
+        assertEquals(ImmutableList.of("ks1 [large] slice 2 of 3"), names(steps));
+
+        large.repaired(1, 3, NOW + DAY);
+        large.repaired(2, 3, NOW + 2 * DAY);
+        assertFalse(large.isInProgress());
+        assertEquals(NOW, large.getLastRepairedAt());
+        assertEquals(ImmutableList.<String>of(), names(planner.plan(candidates.subList(0, 1), history, NOW + 2 * DAY)));
+    }
+
+    @Test
+    public void defersWhatCanWaitBeyondTheBudget() {
+        RepairPlanner budgeted = new RepairPlanner(0.5, DAY, GB, 100 * GB, 2 * GB);
+
+        List<RepairPlanner.Step> steps = budgeted.plan(ImmutableList.of(
+                new RepairCandidate("ks1", "urgent", TEN_DAYS, GB),
+                new RepairCandidate("ks1", "deferred", TEN_DAYS, GB + GB / 2),
+                new RepairCandidate("ks2", "fits", TEN_DAYS, GB / 2)),
+                ImmutableMap.of(
+                        "ks1.urgent", repairedAt(NOW - 9 * DAY),
+                        "ks1.deferred", repairedAt(NOW - 7 * DAY),
+                        "ks2.fits", repairedAt(NOW - 6 * DAY)),
+                NOW);
+
+        assertEquals(ImmutableList.of("ks1 [urgent]", "ks2 [fits]"), names(steps));
+    }
+
+    private static TableHistory repairedAt(long timestamp) {
+        TableHistory history = new TableHistory();
+        history.repaired(0, 1, timestamp);
+        return history;
+    }
+
+    private static List<String> names(List<RepairPlanner.Step> steps) {
+        List<String> names = Lists.newArrayList();
+        for (RepairPlanner.Step step : steps) {
+            names.add(step.toString());
+        }
+        return names;
+    }
+}
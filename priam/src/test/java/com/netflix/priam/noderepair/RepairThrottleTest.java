@@ -0,0 +1,147 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.netflix.priam.config.RepairThrottleConfiguration;
+import com.netflix.priam.stats.ColumnFamilyMetrics;
+import com.netflix.priam.stats.CompactionStats;
+import com.netflix.priam.stats.CompactionTask;
+import com.netflix.priam.stats.NodeStatsCollector;
+import com.netflix.priam.stats.NodeStatsSnapshot;
+import com.netflix.priam.stats.ThreadPoolStats;
+import com.netflix.priam.stats.TpStats;
+import com.netflix.priam.utils.RingEntry;
+import com.netflix.priam.utils.Sleeper;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RepairThrottleTest {
+    private
+    @Mocked
+    NodeStatsCollector statsCollector;
+
+    private final List<Long> sleeps = Lists.newArrayList();
+    private RepairThrottle throttle;
+
+    @Before
+    public void setUp() {
+        RepairThrottleConfiguration configuration = new RepairThrottleConfiguration();
+        configuration.setPauseMS(1000);
+        configuration.setMaxPauseMS(3000);
+        configuration.setYieldMS(100);
+        configuration.setMaxSplitFactor(4);
+        configuration.setHealthyUnitsToSpeedUp(2);
+        throttle = new RepairThrottle(configuration, statsCollector, new Sleeper() {
+            @Override
+            public void sleep(long waitTimeMs) {
+                sleeps.add(waitTimeMs);
+            }
+
+            @Override
+            public void sleepQuietly(long waitTimeMs) {
+                sleeps.add(waitTimeMs);
+            }
+        });
+    }
+
+    @Test
+    public void assessesLoadAgainstHighAndLowMarks() {
+        assertEquals(RepairThrottle.Load.UNDER, throttle.assess(snapshot(1, 5, 0, 0, Double.NaN), Lists.<String>newArrayList()));
+        assertEquals(RepairThrottle.Load.BETWEEN, throttle.assess(snapshot(2, 20, 0, 0, 1000), Lists.<String>newArrayList()));
+        assertEquals(RepairThrottle.Load.BETWEEN, throttle.assess(snapshot(3, 5, 0, 0, 30000), Lists.<String>newArrayList()));
+        assertEquals(RepairThrottle.Load.OVER, throttle.assess(snapshot(4, 40, 0, 0, 1000), Lists.<String>newArrayList()));
+        assertEquals(RepairThrottle.Load.OVER, throttle.assess(snapshot(5, 5, 0, 1, 1000), Lists.<String>newArrayList()));
+        assertEquals(RepairThrottle.Load.OVER, throttle.assess(snapshot(6, 5, 0, 0, 60000), Lists.<String>newArrayList()));
+    }
+
+    @Test
+    public void countsDroppedMessagesSincePreviousSnapshot() {
+        List<String> reasons = Lists.newArrayList();
+
+        // Drops from before the first snapshot don't count, nor do the same drops seen again
+        assertEquals(RepairThrottle.Load.UNDER, throttle.assess(snapshot(1, 0, 100, 0, 0), reasons));
+        assertEquals(RepairThrottle.Load.UNDER, throttle.assess(snapshot(2, 0, 100, 0, 0), reasons));
+        assertEquals(RepairThrottle.Load.OVER, throttle.assess(snapshot(3, 0, 103, 0, 0), reasons));
+        assertEquals(RepairThrottle.Load.OVER, throttle.assess(snapshot(3, 0, 103, 0, 0), reasons));
+        assertEquals(ImmutableList.of("3 dropped mutations and reads", "3 dropped mutations and reads"), reasons);
+    }
+
+    @Test
+    public void pausesUntilLoadDropsAndSplitsFiner() throws Exception {
+        new NonStrictExpectations() {
+            {
+                statsCollector.getSnapshot();
+                returns(Optional.of(snapshot(1, 40, 0, 0, 0)), Optional.of(snapshot(2, 20, 0, 0, 0)),
+                        Optional.of(snapshot(3, 5, 0, 0, 0)));
+            }
+        };
+
+        assertEquals(2, throttle.awaitCapacity());
+        assertEquals(ImmutableList.of(1000L), sleeps);
+    }
+
+    @Test
+    public void carriesOnAfterMaxPause() throws Exception {
+        new NonStrictExpectations() {
+            {
+                statsCollector.getSnapshot();
+                result = Optional.of(snapshot(1, 40, 0, 0, 0));
+            }
+        };
+
+        assertEquals(2, throttle.awaitCapacity());
+        assertEquals(ImmutableList.of(1000L, 1000L, 1000L), sleeps);
+    }
+
+    @Test
+    public void speedsBackUpAfterHealthyUnits() throws Exception {
+        new NonStrictExpectations() {
+            {
+                statsCollector.getSnapshot();
+                returns(Optional.of(snapshot(1, 40, 0, 0, 0)), Optional.of(snapshot(2, 5, 0, 0, 0)),
+                        Optional.of(snapshot(3, 5, 0, 0, 0)), Optional.of(snapshot(4, 20, 0, 0, 0)),
+                        Optional.of(snapshot(5, 5, 0, 0, 0)), Optional.of(snapshot(6, 5, 0, 0, 0)));
+            }
+        };
+
+        assertEquals(2, throttle.awaitCapacity());
+        assertEquals(2, throttle.awaitCapacity());
+        // A unit between the marks yields and starts the count of healthy units over
+        assertEquals(2, throttle.awaitCapacity());
+        assertEquals(2, throttle.awaitCapacity());
+        assertEquals(1, throttle.awaitCapacity());
+        assertEquals(ImmutableList.of(100L), sleeps);
+    }
+
+    @Test
+    public void runsUnthrottledWithoutStats() throws Exception {
+        new NonStrictExpectations() {
+            {
+                statsCollector.getSnapshot();
+                result = Optional.absent();
+            }
+        };
+
+        assertEquals(1, throttle.awaitCapacity());
+        assertEquals(ImmutableList.<Long>of(), sleeps);
+    }
+
+    private static NodeStatsSnapshot snapshot(long timestamp, int pendingCompactions, int droppedMutations,
+                                              int blocked, double readLatencyMicros) {
+        TpStats tpStats = new TpStats(ImmutableList.of(new ThreadPoolStats("MutationStage", 0, 0, 0, blocked, 0)),
+                ImmutableMap.of("MUTATION", droppedMutations, "READ", 0));
+        ColumnFamilyMetrics columnFamily = new ColumnFamilyMetrics("ks", "cf", 1, 0, 0, 0, 0, 0, 0, 0, 0,
+                readLatencyMicros, Double.NaN);
+        return new NodeStatsSnapshot(timestamp, ImmutableMap.<String, Object>of(), ImmutableList.<RingEntry>of(),
+                tpStats, new CompactionStats(pendingCompactions, ImmutableList.<CompactionTask>of()), ImmutableList.of(columnFamily),
+                ImmutableMap.<String, Double>of());
+    }
+}
@@ -0,0 +1,62 @@
+package com.netflix.priam.noderepair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.priam.utils.BigIntegerTokenManager;
+import com.netflix.priam.utils.TokenManager;
+import com.netflix.priam.utils.TokenRange;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubrangeSplitterTest {
+    private static final TokenManager TOKEN_MANAGER = BigIntegerTokenManager.forMurmur3Partitioner();
+
+    // Three nodes with RF 2: a owns (200,0], b owns (0,100], c owns (100,200]
+    private static final Map<TokenRange, List<String>> RANGES = ImmutableMap.<TokenRange, List<String>>of(
+            new TokenRange("0", "100"), ImmutableList.of("b", "c"),
+            new TokenRange("100", "200"), ImmutableList.of("c", "a"),
+            new TokenRange("200", "0"), ImmutableList.of("a", "b"));
+
+    @Test
+    public void keepsPrimaryRangeWholeWithOneSubrange() {
+        SubrangeSplitter splitter = new SubrangeSplitter(TOKEN_MANAGER, 1, 0);
+
+        assertEquals(ImmutableList.of(new TokenRange("0", "100")),
+                splitter.split(RANGES, ImmutableList.of("100"), "b", 0));
+    }
+
+    @Test
+    public void splitsPrimaryRangeIntoFixedCount() {
+        SubrangeSplitter splitter = new SubrangeSplitter(TOKEN_MANAGER, 4, 0);
+
+        assertEquals(ImmutableList.of(new TokenRange("0", "25"), new TokenRange("25", "50"),
+                new TokenRange("50", "75"), new TokenRange("75", "100")),
+                splitter.split(RANGES, ImmutableList.of("100"), "b", 0));
+    }
+
+    @Test
+    public void sizesSubrangesFromEstimatedKeys() {
+        SubrangeSplitter splitter = new SubrangeSplitter(TOKEN_MANAGER, 0, 500);
+
+        // b holds 3000 keys over the 2 ranges it replicates, so 1500 in its primary range
+        assertEquals(ImmutableList.of(new TokenRange("0", "33"), new TokenRange("33", "66"),
+                new TokenRange("66", "100")),
+                splitter.split(RANGES, ImmutableList.of("100"), "b", 3000));
+    }
+
+    @Test
+    public void splitsWrappingPrimaryRange() {
+        SubrangeSplitter splitter = new SubrangeSplitter(TOKEN_MANAGER, 2, 0);
+
+        List<TokenRange> subranges = splitter.split(RANGES, ImmutableList.of("0"), "a", 0);
+
+        assertEquals(2, subranges.size());
+        assertEquals("200", subranges.get(0).getStart());
+        assertEquals(subranges.get(0).getEnd(), subranges.get(1).getStart());
+        assertEquals("0", subranges.get(1).getEnd());
+    }
+}
@@ -0,0 +1,47 @@
+package com.netflix.priam.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.utils.RingEntry;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonStreamingOutputTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<RingEntry> ring = ImmutableList.of(
+            new RingEntry("10.0.0.1", "us-east", "1a", "Up", "Normal", "1 GB", "50.00%", "0"),
+            new RingEntry("10.0.0.2", "us-east", "1b", "Down", "Normal", "2 GB", "50.00%", "100"));
+
+    @Test
+    public void writesRowsAsArray() throws Exception {
+        assertEquals("[" +
+                "{\"endpoint\":\"10.0.0.1\",\"dc\":\"us-east\",\"rack\":\"1a\",\"status\":\"Up\",\"state\":\"Normal\",\"load\":\"1 GB\",\"owns\":\"50.00%\",\"token\":\"0\"}," +
+                "{\"endpoint\":\"10.0.0.2\",\"dc\":\"us-east\",\"rack\":\"1b\",\"status\":\"Down\",\"state\":\"Normal\",\"load\":\"2 GB\",\"owns\":\"50.00%\",\"token\":\"100\"}" +
+                "]", write(JsonStreamingOutput.rows(OBJECT_MAPPER, null, ring)));
+    }
+
+    @Test
+    public void writesRowsAsNdjson() throws Exception {
+        assertEquals(
+                "{\"endpoint\":\"10.0.0.1\",\"dc\":\"us-east\",\"rack\":\"1a\",\"status\":\"Up\",\"state\":\"Normal\",\"load\":\"1 GB\",\"owns\":\"50.00%\",\"token\":\"0\"}\n" +
+                "{\"endpoint\":\"10.0.0.2\",\"dc\":\"us-east\",\"rack\":\"1b\",\"status\":\"Down\",\"state\":\"Normal\",\"load\":\"2 GB\",\"owns\":\"50.00%\",\"token\":\"100\"}\n",
+                write(JsonStreamingOutput.rows(OBJECT_MAPPER, "ndjson", ring)));
+    }
+
+    @Test
+    public void writesEmptyRows() throws Exception {
+        assertEquals("[]", write(JsonStreamingOutput.rows(OBJECT_MAPPER, "json", ImmutableList.of())));
+        assertEquals("", write(JsonStreamingOutput.rows(OBJECT_MAPPER, "ndjson", ImmutableList.of())));
+    }
+
+    private static String write(JsonStreamingOutput output) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return out.toString("UTF-8");
+    }
+}
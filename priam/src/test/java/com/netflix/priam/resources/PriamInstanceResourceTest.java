@@ -2,6 +2,7 @@ package com.netflix.priam.resources;
 
 import com.google.common.collect.ImmutableList;
 import com.netflix.priam.config.CassandraConfiguration;
+import com.netflix.priam.config.ResponseCacheConfiguration;
 import com.netflix.priam.identity.IPriamInstanceRegistry;
 import com.netflix.priam.identity.PriamInstance;
 import mockit.Expectations;
@@ -10,6 +11,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.util.List;
 
@@ -26,15 +29,19 @@ public class PriamInstanceResourceTest {
     private
     @Mocked
     IPriamInstanceRegistry instanceRegistry;
+    private
+    @Mocked
+    Request request;
     private PriamInstanceResource resource;
 
     @Before
     public void setUp() {
-        resource = new PriamInstanceResource(cassandraConfiguration, instanceRegistry);
+        resource = new PriamInstanceResource(cassandraConfiguration, instanceRegistry,
+                new ResponseCacheConfiguration(), new ResponseCache());
     }
 
     @Test
-    public void getInstances() {
+    public void getInstances() throws Exception {
         new Expectations() {
             PriamInstance instance1
                     ,
@@ -54,10 +61,14 @@ public class PriamInstanceResourceTest {
                 result = "instance2";
                 instance3.toString();
                 result = "instance3";
+                request.evaluatePreconditions((EntityTag) any);
+                result = null;
             }
         };
 
-        assertEquals("instance1\ninstance2\ninstance3\n", resource.getInstances());
+        Response response = resource.getInstances(request);
+        assertEquals(200, response.getStatus());
+        assertEquals("instance1\ninstance2\ninstance3\n", response.getEntity());
     }
 
     @Test
@@ -0,0 +1,137 @@
+package com.netflix.priam.resources;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import org.junit.Test;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+    private static final Function<Map<String, Object>, Object> TOKEN = new Function<Map<String, Object>, Object>() {
+        @Override
+        public Object apply(Map<String, Object> info) {
+            return info.get("token");
+        }
+    };
+
+    private
+    @Mocked
+    Request request;
+
+    private final ResponseCache cache = new ResponseCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Callable<Map<String, Object>> loader(final String token) {
+        return new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() {
+                return ImmutableMap.<String, Object>of("token", token, "load", loads.incrementAndGet());
+            }
+        };
+    }
+
+    @Test
+    public void reusesValueWithinTtl() throws Exception {
+        ResponseCache.Entry<Map<String, Object>> first = cache.get("info", 60000, null, loader("0"));
+        ResponseCache.Entry<Map<String, Object>> second = cache.get("info", 60000, null, loader("0"));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertFalse(first.getTag().isWeak());
+    }
+
+    @Test
+    public void reloadsWhenStalerThanAllowed() throws Exception {
+        ResponseCache.Entry<Map<String, Object>> first = cache.get("info", 60000, null, loader("0"));
+        Thread.sleep(5);
+        ResponseCache.Entry<Map<String, Object>> second = cache.get("info", 60000, 1L, loader("0"));
+
+        assertEquals(2, loads.get());
+        // The load counter differs, so the whole-value tag does too
+        assertNotEquals(first.getTag(), second.getTag());
+    }
+
+    @Test
+    public void reloadsAfterInvalidate() throws Exception {
+        cache.get("instances", 60000, null, loader("0"));
+        cache.invalidate("instances");
+        cache.get("instances", 60000, null, loader("0"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void weakTagFollowsVersionOnly() throws Exception {
+        ResponseCache.Entry<Map<String, Object>> first = cache.get("ring", 0, null, loader("0"), TOKEN);
+        ResponseCache.Entry<Map<String, Object>> second = cache.get("ring", 0, null, loader("0"), TOKEN);
+        ResponseCache.Entry<Map<String, Object>> moved = cache.get("ring", 0, null, loader("1"), TOKEN);
+
+        assertEquals(3, loads.get());
+        assertTrue(first.getTag().isWeak());
+        assertEquals(first.getTag(), second.getTag());
+        assertNotEquals(first.getTag(), moved.getTag());
+    }
+
+    @Test
+    public void respondsNotModifiedWhenTagMatches() throws Exception {
+        final ResponseCache.Entry<Map<String, Object>> entry = cache.get("info", 60000, null, loader("0"));
+        new NonStrictExpectations() {{
+            request.evaluatePreconditions(entry.getTag());
+            result = Response.notModified();
+        }};
+
+        Response response = cache.respond(request, entry, Response.ok(entry.getValue()).build());
+
+        assertEquals(304, response.getStatus());
+        assertEquals(entry.getTag(), response.getMetadata().getFirst("ETag"));
+        assertTrue(response.getMetadata().getFirst("Cache-Control").toString().contains("max-age="));
+    }
+
+    @Test
+    public void respondsWithEntityOtherwise() throws Exception {
+        final ResponseCache.Entry<Map<String, Object>> entry = cache.get("info", 0, null, loader("0"));
+        new NonStrictExpectations() {{
+            request.evaluatePreconditions(entry.getTag());
+            result = null;
+        }};
+
+        Response response = cache.respond(request, entry, Response.ok(entry.getValue()).build());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(entry.getValue(), response.getEntity());
+        assertEquals(entry.getTag(), response.getMetadata().getFirst("ETag"));
+        assertTrue(response.getMetadata().getFirst("Cache-Control").toString().contains("no-cache"));
+    }
+
+    @Test
+    public void tagsEachRepresentationApart() throws Exception {
+        final ResponseCache.Entry<Map<String, Object>> entry = cache.get("ring", 60000, null, loader("0"), TOKEN);
+        new NonStrictExpectations() {{
+            request.evaluatePreconditions((EntityTag) any);
+            result = null;
+        }};
+
+        Response json = cache.respond(request, entry, "json", Response.ok(entry.getValue()).build());
+        Response ndjson = cache.respond(request, entry, "ndjson", Response.ok(entry.getValue()).build());
+
+        EntityTag jsonTag = (EntityTag) json.getMetadata().getFirst("ETag");
+        EntityTag ndjsonTag = (EntityTag) ndjson.getMetadata().getFirst("ETag");
+        assertNotEquals(jsonTag, ndjsonTag);
+        assertTrue(jsonTag.isWeak());
+        assertTrue(ndjsonTag.isWeak());
+        assertEquals(1, loads.get());
+    }
+}
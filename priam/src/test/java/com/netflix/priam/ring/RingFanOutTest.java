@@ -0,0 +1,153 @@
+package com.netflix.priam.ring;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.config.RingFanOutConfiguration;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.WebResource;
+import com.yammer.dropwizard.config.HttpConfiguration;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RingFanOutTest {
+    private final RingFanOut fanOut = newFanOut(new RingFanOutConfiguration());
+
+    @Test
+    public void collectsPartialResults() throws Exception {
+        Map<String, NodeResult<String>> results = fanOut.execute(
+                ImmutableList.of("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.1"), "10.0.0.1",
+                new NodeRequest<String>() {
+                    @Override
+                    public String local() throws Exception {
+                        return "local";
+                    }
+
+                    @Override
+                    public String remote(WebResource priam) throws Exception {
+                        if (priam.getURI().getHost().equals("10.0.0.3")) {
+                            throw new Exception("Connection refused");
+                        }
+                        return priam.getURI().toString();
+                    }
+                }, 10, TimeUnit.SECONDS);
+
+        assertEquals(3, results.size());
+        assertEquals("local", results.get("10.0.0.1").getValue());
+        assertEquals("http://10.0.0.2:8080/v1", results.get("10.0.0.2").getValue());
+        assertFalse(results.get("10.0.0.3").isSuccess());
+        assertTrue(results.get("10.0.0.3").getError().contains("Connection refused"));
+    }
+
+    @Test
+    public void reportsSlowNodesAsTimedOut() throws Exception {
+        Map<String, NodeResult<String>> results = fanOut.execute(ImmutableList.of("10.0.0.1", "10.0.0.2"), "10.0.0.1",
+                new NodeRequest<String>() {
+                    @Override
+                    public String local() throws Exception {
+                        return "local";
+                    }
+
+                    @Override
+                    public String remote(WebResource priam) throws Exception {
+                        Thread.sleep(10000);
+                        return "remote";
+                    }
+                }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(results.get("10.0.0.1").isSuccess());
+        assertEquals(NodeResult.Status.TIMED_OUT, results.get("10.0.0.2").getStatus());
+        assertEquals("Timed out", results.get("10.0.0.2").getError());
+    }
+
+    @Test
+    public void timesOutSlowNodeWithoutWaitingForDeadline() throws Exception {
+        RingFanOutConfiguration configuration = new RingFanOutConfiguration();
+        configuration.setNodeTimeoutMS(100);
+        long start = System.currentTimeMillis();
+        Map<String, NodeResult<String>> results = newFanOut(configuration).execute(
+                ImmutableList.of("10.0.0.1", "10.0.0.2", "10.0.0.3"), "10.0.0.1", new NodeRequest<String>() {
+                    @Override
+                    public String local() throws Exception {
+                        return "local";
+                    }
+
+                    @Override
+                    public String remote(WebResource priam) throws Exception {
+                        if (priam.getURI().getHost().equals("10.0.0.2")) {
+                            Thread.sleep(10000);
+                        }
+                        return "remote";
+                    }
+                }, 10, TimeUnit.SECONDS);
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(results.get("10.0.0.1").isSuccess());
+        assertEquals(NodeResult.Status.TIMED_OUT, results.get("10.0.0.2").getStatus());
+        assertEquals("remote", results.get("10.0.0.3").getValue());
+    }
+
+    @Test
+    public void capsConcurrentRequests() throws Exception {
+        RingFanOutConfiguration configuration = new RingFanOutConfiguration();
+        configuration.setMaxConcurrentRequests(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Map<String, NodeResult<String>> results = newFanOut(configuration).execute(
+                ImmutableList.of("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.4", "10.0.0.5"), "10.0.0.9",
+                new NodeRequest<String>() {
+                    @Override
+                    public String local() throws Exception {
+                        return "local";
+                    }
+
+                    @Override
+                    public String remote(WebResource priam) throws Exception {
+                        int now = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), now));
+                        }
+                        Thread.sleep(50);
+                        running.decrementAndGet();
+                        return "remote";
+                    }
+                }, 10, TimeUnit.SECONDS);
+
+        assertEquals(5, results.size());
+        for (NodeResult<String> result : results.values()) {
+            assertTrue(result.isSuccess());
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void reportsNodesNotReachedBeforeDeadline() throws Exception {
+        RingFanOutConfiguration configuration = new RingFanOutConfiguration();
+        configuration.setMaxConcurrentRequests(1);
+        Map<String, NodeResult<String>> results = newFanOut(configuration).execute(
+                ImmutableList.of("10.0.0.1", "10.0.0.2"), "10.0.0.9", new NodeRequest<String>() {
+                    @Override
+                    public String local() throws Exception {
+                        return "local";
+                    }
+
+                    @Override
+                    public String remote(WebResource priam) throws Exception {
+                        Thread.sleep(10000);
+                        return "remote";
+                    }
+                }, 100, TimeUnit.MILLISECONDS);
+
+        assertEquals("Timed out", results.get("10.0.0.1").getError());
+        assertEquals("Not sent before the deadline", results.get("10.0.0.2").getError());
+    }
+
+    private static RingFanOut newFanOut(RingFanOutConfiguration configuration) {
+        return new RingFanOut(Client.create(), new HttpConfiguration(), configuration);
+    }
+}
@@ -0,0 +1,72 @@
+package com.netflix.priam.rolling;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.ring.NodeResult;
+import com.netflix.priam.utils.RingEntry;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HealthGatesTest {
+    private static final List<RingEntry> RING = ImmutableList.of(
+            node("10.0.0.1", "us-east", "1a", "Up", "Normal"),
+            node("10.0.0.2", "us-east", "1b", "Up", "Normal"),
+            node("10.0.0.3", "us-east", "1a", "Up", "Normal"),
+            node("10.0.0.1", "us-east", "1a", "Up", "Normal"),
+            node("10.0.1.1", "eu-west", "1a", "Up", "Normal"));
+
+    @Test
+    public void opensWhenRingIsIdle() {
+        List<NodeResult<NodeHealth>> health = ImmutableList.of(
+                NodeResult.success("10.0.0.1", new NodeHealth(0, 3, 0)),
+                NodeResult.success("10.0.0.2", new NodeHealth(0, 20, 0)));
+
+        assertTrue(HealthGates.check(RING, health, 20).isEmpty());
+    }
+
+    @Test
+    public void reportsEveryClosedGate() {
+        List<RingEntry> ring = ImmutableList.of(
+                node("10.0.0.1", "us-east", "1a", "Up", "Normal"),
+                node("10.0.0.2", "us-east", "1b", "Down", "Normal"),
+                node("10.0.0.3", "us-east", "1c", "Up", "Joining"));
+        List<NodeResult<NodeHealth>> health = ImmutableList.of(
+                NodeResult.success("10.0.0.1", new NodeHealth(2, 21, 1)),
+                NodeResult.<NodeHealth>failure("10.0.0.3", "Connection refused"));
+
+        assertEquals(ImmutableList.of(
+                "10.0.0.2 is down",
+                "10.0.0.3 is joining",
+                "10.0.0.1 has hints pending for 2 endpoints",
+                "10.0.0.1 has 21 pending compactions",
+                "10.0.0.1 is streaming with 1 peers",
+                "10.0.0.3 didn't report its health: Connection refused"),
+                HealthGates.check(ring, health, 20));
+    }
+
+    @Test
+    public void batchesOneNodeAtATimeInRingOrder() {
+        assertEquals(ImmutableList.of(
+                ImmutableList.of("10.0.0.1"),
+                ImmutableList.of("10.0.0.2"),
+                ImmutableList.of("10.0.0.3"),
+                ImmutableList.of("10.0.1.1")),
+                HealthGates.batches(RING, false, null));
+    }
+
+    @Test
+    public void batchesByRackWithinDataCenter() {
+        assertEquals(ImmutableList.of(
+                ImmutableList.of("10.0.0.1", "10.0.0.3"),
+                ImmutableList.of("10.0.0.2")),
+                HealthGates.batches(RING, true, "us-east"));
+        assertEquals(3, HealthGates.batches(RING, true, null).size());
+    }
+
+    private static RingEntry node(String endpoint, String dc, String rack, String status, String state) {
+        return new RingEntry(endpoint, dc, rack, status, state, "1 GB", "25%", "0");
+    }
+}
@@ -0,0 +1,237 @@
+package com.netflix.priam.rolling;
+
+import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.netflix.priam.PriamServer;
+import com.netflix.priam.TestAmazonConfiguration;
+import com.netflix.priam.TestCassandraConfiguration;
+import com.netflix.priam.config.RollingConfiguration;
+import com.netflix.priam.identity.InstanceIdentity;
+import com.netflix.priam.identity.PriamInstance;
+import com.netflix.priam.ring.NodeRequest;
+import com.netflix.priam.ring.NodeResult;
+import com.netflix.priam.ring.RingFanOut;
+import com.netflix.priam.utils.EndpointTopologyCache;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionException;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.JMXNodeTool;
+import com.netflix.priam.utils.RingEntry;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.yammer.dropwizard.config.HttpConfiguration;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollingOrchestratorTest {
+    private static final String NODE = "127.0.0.1";
+
+    private
+    @Mocked
+    JMXConnectionPool jmxConnectionPool;
+    private
+    @Mocked
+    JMXNodeTool nodeTool;
+    private
+    @Mocked
+    RingFanOut ringFanOut;
+    private
+    @Mocked
+    EndpointTopologyCache topologyCache;
+    private
+    @Mocked
+    PriamServer priamServer;
+    private
+    @Mocked
+    InstanceIdentity instanceIdentity;
+    private
+    @Mocked
+    PriamInstance instance;
+
+    private final List<String> calls = Collections.synchronizedList(Lists.<String>newArrayList());
+    private final AtomicInteger startsToIgnore = new AtomicInteger();
+    private final AtomicInteger ringReadsToFail = new AtomicInteger();
+
+    private TestingServer zooKeeper;
+    private CuratorFramework curator;
+    private HttpServer priam;
+    private ExecutorService priamExecutor;
+    private RollingOrchestrator orchestrator;
+
+    @Before
+    public void setUp() throws Exception {
+        zooKeeper = new TestingServer();
+        curator = CuratorFrameworkFactory.newClient(zooKeeper.getConnectString(), new RetryOneTime(100));
+        curator.start();
+
+        // The one node of the ring, which is also the coordinator
+        priam = HttpServer.create(new InetSocketAddress(NODE, 0), 0);
+        priamExecutor = Executors.newCachedThreadPool();
+        priam.setExecutor(priamExecutor);
+        priam.createContext("/v1/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                calls.add(path);
+                try {
+                    if (path.equals("/v1/cassadmin/drain")) {
+                        respond(exchange, "{\"id\":1,\"state\":\"QUEUED\"}");
+                    } else if (path.equals("/v1/jobs/1")) {
+                        respond(exchange, "{\"id\":1,\"state\":\"SUCCEEDED\"}");
+                    } else if (path.equals("/v1/cassadmin/stop")) {
+                        // Cassandra is down until a while after it is started again
+                        ringReadsToFail.set(3);
+                        respond(exchange, "{\"result\":\"ok\"}");
+                    } else if (path.equals("/v1/cassadmin/start")) {
+                        if (startsToIgnore.getAndDecrement() > 0) {
+                            Thread.sleep(1000);
+                        }
+                        respond(exchange, "{\"result\":\"ok\"}");
+                    } else {
+                        exchange.sendResponseHeaders(404, -1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        priam.start();
+
+        DefaultClientConfig clientConfig = new DefaultClientConfig();
+        clientConfig.getSingletons().add(new JacksonJsonProvider());
+        Client jersey = Client.create(clientConfig);
+        jersey.setReadTimeout(300);
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+        httpConfiguration.setPort(priam.getAddress().getPort());
+        RollingConfiguration rollingConfiguration = new RollingConfiguration();
+        rollingConfiguration.setGatePollMS(10);
+        rollingConfiguration.setJobPollMS(10);
+        rollingConfiguration.setGateTimeoutMS(10000);
+
+        orchestrator = new RollingOrchestrator(rollingConfiguration, new TestCassandraConfiguration("fake-app"),
+                new TestAmazonConfiguration("fake-app", "fake-region", "az1", "fakeInstance1"), Optional.of(curator),
+                jmxConnectionPool, topologyCache, ringFanOut, jersey, httpConfiguration, priamServer);
+        expectRing();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        orchestrator.stop();
+        priam.stop(0);
+        priamExecutor.shutdownNow();
+        curator.close();
+        zooKeeper.close();
+    }
+
+    @Test
+    public void restartsTheCoordinatorsOwnNode() throws Exception {
+        // The first start gets no answer in time, so it is retried
+        startsToIgnore.set(1);
+
+        RollingRun run = orchestrator.start(RollingOperation.RESTART, ImmutableMap.<String, String>of(), false, null);
+        run = await(run);
+
+        assertEquals(run.getError(), RollingRun.State.SUCCEEDED, run.getState());
+        assertEquals(1, run.getCompletedBatches());
+        assertEquals(ImmutableList.of("/v1/cassadmin/drain", "/v1/jobs/1", "/v1/cassadmin/stop",
+                "/v1/cassadmin/start", "/v1/cassadmin/start"), ImmutableList.copyOf(calls));
+        // The gates were checked while the local Cassandra was still starting
+        assertTrue(ringReadsToFail.get() < 0);
+    }
+
+    private RollingRun await(RollingRun run) throws Exception {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (run.getState() == RollingRun.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            run = orchestrator.get().get();
+        }
+        return run;
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(Charsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Runs JMX callables directly against the mocked node tool, a single healthy node whose ring can't be read while
+     * its Cassandra is down.
+     */
+    private void expectRing() throws Exception {
+        new NonStrictExpectations() {
+            {
+                priamServer.getInstanceIdentity();
+                result = instanceIdentity;
+                instanceIdentity.getInstance();
+                result = instance;
+                instance.getHostIP();
+                result = NODE;
+                jmxConnectionPool.execute((JMXCallable<?>) any);
+                result = new Delegate<Object>() {
+                    @SuppressWarnings("unused")
+                    Object execute(JMXCallable<?> callable) throws Exception {
+                        return callable.call(nodeTool);
+                    }
+                };
+                nodeTool.ring(topologyCache);
+                result = new Delegate<List<RingEntry>>() {
+                    @SuppressWarnings("unused")
+                    List<RingEntry> ring(EndpointTopologyCache topologyCache) throws Exception {
+                        if (ringReadsToFail.getAndDecrement() > 0) {
+                            throw new JMXConnectionException("Connection refused");
+                        }
+                        return ImmutableList.of(new RingEntry(NODE, "us-east", "1a", "Up", "Normal", "1 GB", "100%", "0"));
+                    }
+                };
+                ringFanOut.execute((Collection<String>) any, anyString, (NodeRequest<?>) any);
+                result = new Delegate<Map<String, NodeResult<NodeHealth>>>() {
+                    @SuppressWarnings("unused")
+                    Map<String, NodeResult<NodeHealth>> execute(Collection<String> endpoints, String localEndpoint,
+                                                                NodeRequest<NodeHealth> request) {
+                        Map<String, NodeResult<NodeHealth>> health = Maps.newLinkedHashMap();
+                        for (String endpoint : endpoints) {
+                            health.put(endpoint, NodeResult.success(endpoint, new NodeHealth(0, 0, 0)));
+                        }
+                        return health;
+                    }
+                };
+            }
+        };
+    }
+}
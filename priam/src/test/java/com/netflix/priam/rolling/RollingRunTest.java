@@ -0,0 +1,55 @@
+package com.netflix.priam.rolling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollingRunTest {
+    @Test
+    public void survivesRoundTripThroughZooKeeperFormat() throws Exception {
+        RollingRun run = new RollingRun("id", RollingOperation.CLEANUP, ImmutableMap.of("keyspaces", "ks"), true,
+                ImmutableList.<List<String>>of(ImmutableList.of("10.0.0.1", "10.0.0.3"),
+                        ImmutableList.of("10.0.0.2")), "10.0.0.1");
+        run.batchCompleted();
+        run.setWaitingFor(ImmutableList.of("10.0.0.2 is down"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        RollingRun copy = mapper.readValue(mapper.writeValueAsBytes(run), RollingRun.class);
+
+        assertEquals(RollingOperation.CLEANUP, copy.getOperation());
+        assertEquals(RollingRun.State.RUNNING, copy.getState());
+        assertEquals(ImmutableMap.of("keyspaces", "ks"), copy.getParameters());
+        assertEquals(run.getBatches(), copy.getBatches());
+        assertEquals(1, copy.getCompletedBatches());
+        assertEquals(ImmutableList.of("10.0.0.2 is down"), copy.getWaitingFor());
+        assertEquals("10.0.0.1", copy.getCoordinator());
+    }
+
+    @Test
+    public void keepsTheJobsOfTheCurrentBatch() throws Exception {
+        RollingRun run = new RollingRun("id", RollingOperation.COMPACT, ImmutableMap.<String, String>of(), false,
+                ImmutableList.<List<String>>of(ImmutableList.of("10.0.0.1", "10.0.0.2"), ImmutableList.of("10.0.0.3")),
+                "10.0.0.1");
+        run.jobSubmitted("10.0.0.1", 7);
+        run.jobSubmitted("10.0.0.2", 3);
+        run.nodeFinished("10.0.0.1");
+
+        ObjectMapper mapper = new ObjectMapper();
+        RollingRun copy = mapper.readValue(mapper.writeValueAsBytes(run), RollingRun.class);
+
+        assertEquals(ImmutableMap.of("10.0.0.1", 7L, "10.0.0.2", 3L), copy.getJobs());
+        assertEquals(ImmutableSet.of("10.0.0.1"), copy.getFinishedNodes());
+
+        copy.batchCompleted();
+        copy.jobSubmitted("10.0.0.3", 8);
+        assertEquals(ImmutableMap.of("10.0.0.3", 8L), copy.getJobs());
+        assertTrue(copy.getFinishedNodes().isEmpty());
+    }
+}
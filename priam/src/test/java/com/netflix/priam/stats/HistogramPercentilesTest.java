@@ -0,0 +1,67 @@
+package com.netflix.priam.stats;
+
+import org.apache.cassandra.utils.EstimatedHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HistogramPercentilesTest {
+
+    @Test
+    public void matchesCassandraPercentiles() {
+        EstimatedHistogram histogram = new EstimatedHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.add(i);
+        }
+
+        HistogramPercentiles percentiles = HistogramPercentiles.fromBuckets(histogram.getBuckets(false));
+        assertEquals(1000, percentiles.getCount());
+        assertEquals(histogram.min(), (long) percentiles.getMin());
+        assertEquals(histogram.percentile(0.5), (long) percentiles.getP50());
+        assertEquals(histogram.percentile(0.99), (long) percentiles.getP99());
+        assertEquals(histogram.max(), (long) percentiles.getMax());
+        assertEquals(0, percentiles.getOverflow());
+    }
+
+    @Test
+    public void emptyHistogram() {
+        HistogramPercentiles percentiles = HistogramPercentiles.fromBuckets(new EstimatedHistogram().getBuckets(false));
+        assertEquals(0, percentiles.getCount());
+        assertNull(percentiles.getMin());
+        assertNull(percentiles.getP50());
+        assertNull(percentiles.getMax());
+    }
+
+    @Test
+    public void overflowedValuesHaveNoUpperBound() {
+        EstimatedHistogram histogram = new EstimatedHistogram(10);
+        histogram.add(1);
+        histogram.add(Long.MAX_VALUE);
+
+        HistogramPercentiles percentiles = HistogramPercentiles.fromBuckets(histogram.getBuckets(false));
+        assertEquals(1, (long) percentiles.getP50());
+        assertNull(percentiles.getMax());
+        assertEquals(1, percentiles.getOverflow());
+    }
+
+    @Test
+    public void mergesBucketWise() {
+        long[] a = {1, 2, 3};
+        long[] b = {4, 5, 6};
+        ColumnFamilyHistograms first = new ColumnFamilyHistograms("ks", "cf", a, a, a, a, a);
+        ColumnFamilyHistograms second = new ColumnFamilyHistograms("ks", "cf", b, b, b, b, b);
+
+        ColumnFamilyHistograms merged = first.merge(second);
+        assertArrayEquals(new long[]{5, 7, 9}, merged.getReadLatencyMicros());
+        assertArrayEquals(new long[]{5, 7, 9}, merged.getBuckets().get(ColumnFamilyHistograms.ROW_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesToMergeDifferentLayouts() {
+        long[] a = {1, 2, 3};
+        long[] b = {1, 2};
+        new ColumnFamilyHistograms("ks", "cf", a, a, a, a, a).merge(new ColumnFamilyHistograms("ks", "cf", b, b, b, b, b));
+    }
+}
@@ -0,0 +1,78 @@
+package com.netflix.priam.stats;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsHistoryTest {
+
+    @Test
+    public void returnsRawSamplesInOrder() {
+        MetricsHistory history = new MetricsHistory(10, 10);
+        for (int i = 0; i < 5; i++) {
+            history.record(i * 10, ImmutableMap.of("a", (double) i));
+        }
+
+        List<HistoryBucket> samples = history.query("a", 10, 30, 0);
+        assertEquals(3, samples.size());
+        assertEquals(10, samples.get(0).getTimestamp());
+        assertEquals(1.0, samples.get(0).getAvg(), 0);
+        assertEquals(3.0, samples.get(2).getAvg(), 0);
+    }
+
+    @Test
+    public void overwritesOldestSamplesWhenFull() {
+        MetricsHistory history = new MetricsHistory(3, 10);
+        for (int i = 0; i < 5; i++) {
+            history.record(i * 10, ImmutableMap.of("a", (double) i));
+        }
+
+        List<HistoryBucket> samples = history.query("a", 0, Long.MAX_VALUE, 0);
+        assertEquals(3, samples.size());
+        assertEquals(20, samples.get(0).getTimestamp());
+        assertEquals(40, samples.get(2).getTimestamp());
+    }
+
+    @Test
+    public void aggregatesBuckets() {
+        MetricsHistory history = new MetricsHistory(10, 10);
+        double[] values = {1, 5, 3, 10, 20};
+        for (int i = 0; i < values.length; i++) {
+            history.record(i * 10, ImmutableMap.of("a", values[i]));
+        }
+
+        List<HistoryBucket> buckets = history.query("a", 0, 100, 30);
+        assertEquals(2, buckets.size());
+        assertEquals(0, buckets.get(0).getTimestamp());
+        assertEquals(1.0, buckets.get(0).getMin(), 0);
+        assertEquals(5.0, buckets.get(0).getMax(), 0);
+        assertEquals(3.0, buckets.get(0).getAvg(), 0);
+        assertEquals(3, buckets.get(0).getCount());
+        assertEquals(30, buckets.get(1).getTimestamp());
+        assertEquals(15.0, buckets.get(1).getAvg(), 0);
+    }
+
+    @Test
+    public void skipsMissingSamples() {
+        MetricsHistory history = new MetricsHistory(10, 10);
+        history.record(0, ImmutableMap.of("a", 1.0));
+        history.record(10, ImmutableMap.of("b", 1.0));
+        history.record(20, ImmutableMap.of("a", Double.NaN, "b", 2.0));
+
+        assertEquals(1, history.query("a", 0, 100, 0).size());
+        assertEquals(2, history.query("b", 0, 100, 0).size());
+    }
+
+    @Test
+    public void limitsNumberOfSeries() {
+        MetricsHistory history = new MetricsHistory(10, 2);
+        history.record(0, ImmutableMap.of("a", 1.0, "b", 1.0, "c", 1.0));
+
+        assertEquals(2, history.getSeriesNames().size());
+        assertTrue(history.query("unknown", 0, 100, 0).isEmpty());
+    }
+}
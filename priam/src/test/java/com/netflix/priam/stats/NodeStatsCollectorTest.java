@@ -0,0 +1,90 @@
+package com.netflix.priam.stats;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.priam.config.StatsConfiguration;
+import com.netflix.priam.utils.EndpointTopologyCache;
+import com.netflix.priam.utils.JMXCallable;
+import com.netflix.priam.utils.JMXConnectionPool;
+import com.netflix.priam.utils.RingEntry;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodeStatsCollectorTest {
+    private
+    @Mocked
+    JMXConnectionPool jmxConnectionPool;
+    private NodeStatsCollector collector;
+
+    @Before
+    public void setUp() {
+        StatsConfiguration statsConfiguration = new StatsConfiguration();
+        statsConfiguration.setDefaultMaxStalenessMS(60000);
+        collector = new NodeStatsCollector(statsConfiguration, jmxConnectionPool, new EndpointTopologyCache(),
+                new MetricsHistory(statsConfiguration), new StreamingTracker(statsConfiguration));
+    }
+
+    @Test
+    public void noSnapshotBeforeFirstCollection() {
+        assertFalse(collector.getSnapshot().isPresent());
+    }
+
+    @Test
+    public void servesSnapshotWithinStalenessBound() throws Exception {
+        final NodeStatsSnapshot snapshot = snapshot(System.currentTimeMillis() - 5000);
+        new Expectations() {
+            {
+                jmxConnectionPool.execute((JMXCallable<?>) any);
+                result = snapshot;
+            }
+        };
+
+        collector.collect();
+
+        assertSame(snapshot, collector.getSnapshot().get());
+        assertSame(snapshot, collector.getSnapshot(10000L).get());
+        assertFalse(collector.getSnapshot(1000L).isPresent());
+    }
+
+    @Test
+    public void keepsPreviousSnapshotWhenCollectionFails() throws Exception {
+        final NodeStatsSnapshot snapshot = snapshot(System.currentTimeMillis());
+        new Expectations() {
+            {
+                jmxConnectionPool.execute((JMXCallable<?>) any);
+                result = snapshot;
+                jmxConnectionPool.execute((JMXCallable<?>) any);
+                result = new Exception("Cassandra is down");
+            }
+        };
+
+        collector.collect();
+        try {
+            collector.collect();
+        } catch (Exception e) {
+            // Expected
+        }
+
+        assertTrue(collector.getSnapshot().isPresent());
+        assertSame(snapshot, collector.getSnapshot().get());
+    }
+
+    private NodeStatsSnapshot snapshot(long timestamp) {
+        Map<String, Object> info = ImmutableMap.<String, Object>of("gossip_active", true);
+        List<RingEntry> ring = Collections.emptyList();
+        TpStats tpStats = new TpStats(ImmutableList.<ThreadPoolStats>of(), ImmutableMap.<String, Integer>of());
+        CompactionStats compactionStats = new CompactionStats(0, ImmutableList.<CompactionTask>of());
+        return new NodeStatsSnapshot(timestamp, info, ring, tpStats, compactionStats,
+                ImmutableList.<ColumnFamilyMetrics>of(), ImmutableMap.of("heap.used_bytes", 1.0));
+    }
+}
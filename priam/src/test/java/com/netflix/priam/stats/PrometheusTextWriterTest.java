@@ -0,0 +1,99 @@
+package com.netflix.priam.stats;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.priam.utils.RingEntry;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusTextWriterTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final PrometheusTextWriter writer = new PrometheusTextWriter(registry);
+
+    @Test
+    public void rendersSnapshot() throws Exception {
+        String text = render(Optional.of(snapshot()));
+
+        assertTrue(text.contains("cassandra_stats_available 1\n"));
+        assertTrue(text.contains("# TYPE cassandra_threadpool_pending_tasks gauge\n"));
+        assertTrue(text.contains("cassandra_threadpool_pending_tasks{pool=\"ReadStage\"} 2\n"));
+        assertTrue(text.contains("cassandra_dropped_messages_total{type=\"MUTATION\"} 7\n"));
+        assertTrue(text.contains("cassandra_compaction_remaining_bytes 75\n"));
+        assertTrue(text.contains("cassandra_streaming_peers{direction=\"outbound\"} 1\n"));
+        assertTrue(text.contains("cassandra_gossip_active 1\n"));
+        assertTrue(text.contains("cassandra_cf_live_disk_space_bytes{keyspace=\"ks\",columnfamily=\"users\"} 4096\n"));
+        assertTrue(text.contains("cassandra_cf_read_latency_seconds_total{keyspace=\"ks\",columnfamily=\"users\"} 1.5\n"));
+        assertTrue(text.contains("cassandra_cf_recent_write_latency_seconds{keyspace=\"ks\",columnfamily=\"users\"} NaN\n"));
+    }
+
+    @Test
+    public void omitsCassandraMetricsWithoutSnapshot() throws Exception {
+        String text = render(Optional.<NodeStatsSnapshot>absent());
+
+        assertTrue(text.contains("cassandra_stats_available 0\n"));
+        assertFalse(text.contains("cassandra_threadpool"));
+    }
+
+    @Test
+    public void rendersPriamMetricsAsOneFamilyPerName() throws Exception {
+        registry.newMeter(new MetricName("com.netflix.priam.utils", "JMXConnectionPool", "call-failures"), "failures", TimeUnit.SECONDS).mark(3);
+        registry.newTimer(new MetricName("com.netflix.priam.scheduler", "Task", "execution", "repair"), TimeUnit.MILLISECONDS, TimeUnit.SECONDS).update(500, TimeUnit.MILLISECONDS);
+        registry.newTimer(new MetricName("com.netflix.priam.scheduler", "Task", "execution", "tune"), TimeUnit.MILLISECONDS, TimeUnit.SECONDS).update(1, TimeUnit.SECONDS);
+        registry.newCounter(new MetricName("org.eclipse.jetty", "Server", "requests"));
+
+        String text = render(Optional.<NodeStatsSnapshot>absent());
+
+        assertTrue(text.contains("# TYPE priam_jmx_connection_pool_call_failures_total counter\npriam_jmx_connection_pool_call_failures_total 3\n"));
+        assertEquals(1, occurrences(text, "# TYPE priam_task_execution_seconds summary\n"));
+        assertTrue(text.contains("priam_task_execution_seconds_sum{scope=\"repair\"} 0.5\n"));
+        assertTrue(text.contains("priam_task_execution_seconds_count{scope=\"tune\"} 1\n"));
+        assertTrue(text.contains("priam_task_execution_seconds{scope=\"tune\",quantile=\"0.5\"} 1\n"));
+        assertFalse(text.contains("jetty"));
+    }
+
+    @Test
+    public void convertsNamesToSnakeCase() {
+        assertEquals("jmx_connection_pool", PrometheusTextWriter.snakeCase("JMXConnectionPool"));
+        assertEquals("call_failures", PrometheusTextWriter.snakeCase("call-failures"));
+        assertEquals("task", PrometheusTextWriter.snakeCase("Task"));
+    }
+
+    private String render(Optional<NodeStatsSnapshot> snapshot) throws Exception {
+        StringWriter out = new StringWriter();
+        writer.write(snapshot, out);
+        return out.toString();
+    }
+
+    private NodeStatsSnapshot snapshot() {
+        Map<String, Object> info = ImmutableMap.<String, Object>of("gossip_active", true, "uptime", 60L);
+        TpStats tpStats = new TpStats(
+                ImmutableList.of(new ThreadPoolStats("ReadStage", 1, 2, 3, 0, 0)),
+                ImmutableMap.of("MUTATION", 7));
+        CompactionStats compactionStats = new CompactionStats(1, ImmutableList.of(
+                new CompactionTask("abc", "ks", "users", 25, 100, "COMPACTION")));
+        ColumnFamilyMetrics users = ColumnFamilyMetrics.fromAttributes("ks", "users", ImmutableMap.<String, Object>of(
+                "LiveDiskSpaceUsed", 4096L, "ReadCount", 10L, "TotalReadLatencyMicros", 1500000L));
+        return new NodeStatsSnapshot(System.currentTimeMillis(), info, Collections.<RingEntry>emptyList(),
+                tpStats, compactionStats, ImmutableList.of(users),
+                ImmutableMap.of("streaming.outbound_peers", 1.0, "streaming.inbound_peers", 0.0));
+    }
+
+    private int occurrences(String text, String substring) {
+        int count = 0;
+        for (int i = text.indexOf(substring); i >= 0; i = text.indexOf(substring, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,86 @@
+package com.netflix.priam.stats;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The typed snapshots must serialize exactly like the maps the admin endpoints used to build by hand.
+ */
+public class StatsSerializationTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void tpStats() throws Exception {
+        TpStats tpStats = new TpStats(
+                ImmutableList.of(new ThreadPoolStats("ReadStage", 1, 2, 3, 4, 5)),
+                ImmutableMap.of("MUTATION", 7));
+
+        assertEquals("{\"thread pool\":[{\"pool name\":\"ReadStage\",\"active\":1,\"pending\":2,\"completed\":3," +
+                "\"blocked\":4,\"total blocked\":5}],\"dropped messages\":{\"MUTATION\":7}}",
+                mapper.writeValueAsString(tpStats));
+    }
+
+    @Test
+    public void compactionStats() throws Exception {
+        CompactionStats compactionStats = new CompactionStats(3, ImmutableList.of(CompactionTask.fromMap(ImmutableMap.<String, String>builder()
+                .put("id", "abc").put("keyspace", "ks").put("columnfamily", "cf")
+                .put("bytesComplete", "25").put("totalBytes", "100").put("taskType", "COMPACTION")
+                .build())));
+
+        assertEquals("{\"pending tasks\":3,\"compaction stats\":[{\"id\":\"abc\",\"keyspace\":\"ks\",\"columnfamily\":\"cf\"," +
+                "\"bytesComplete\":25,\"totalBytes\":100,\"taskType\":\"COMPACTION\",\"progress\":\"25.00%\"}]}",
+                mapper.writeValueAsString(compactionStats));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cfHistogramsPadShortHistograms() throws Exception {
+        ColumnFamilyHistograms histograms = new ColumnFamilyHistograms("ks", "cf",
+                new long[]{1}, new long[]{2}, new long[]{3}, new long[]{4}, new long[0]);
+
+        Map<String, Object> json = mapper.readValue(mapper.writeValueAsString(histograms), Map.class);
+        List<List<Object>> values = (List<List<Object>>) json.get("values");
+        assertEquals(histograms.getOffsets().length, values.size());
+        assertEquals(ImmutableList.<Object>of(1, 1, 2, 3, 4, ""), values.get(0));
+        assertEquals(ImmutableList.<Object>of(2, "", "", "", "", ""), values.get(1));
+    }
+
+    @Test
+    public void columnFamilyStatsGroupedByKeyspace() throws Exception {
+        List<ColumnFamilyStats> stats = ImmutableList.of(
+                cfStats("ks1", "a", 10, 100, 0),
+                cfStats("ks1", "b", 30, 500, 2),
+                cfStats("ks2", "c", 0, 0, 0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ColumnFamilyStatsWriter(mapper).write(stats, out);
+
+        JsonNode keyspaces = mapper.readTree(out.toByteArray());
+        assertEquals(2, keyspaces.size());
+        JsonNode ks1 = keyspaces.get(0);
+        assertEquals("ks1", ks1.get("keyspace").asText());
+        assertEquals(2, ks1.get("column_families").size());
+        assertEquals("a", ks1.get("column_families").get(0).get("column_family").asText());
+        assertEquals(10.0, ks1.get("column_families").get(0).get("read_latency_micros").asDouble(), 0);
+        assertFalse(ks1.get("column_families").get(0).has("keyspace"));
+        assertEquals(40, ks1.get("read_count").asLong());
+        assertEquals(15.0, ks1.get("read_latency_micros").asDouble(), 0);
+        assertEquals(2, ks1.get("pending_tasks").asLong());
+        assertTrue(keyspaces.get(1).get("read_latency_micros").isNull());
+    }
+
+    private ColumnFamilyStats cfStats(String keyspace, String columnFamily, long reads, long readLatency, int pending) {
+        return ColumnFamilyStats.fromAttributes(keyspace, columnFamily, ImmutableMap.<String, Object>of(
+                "ReadCount", reads, "TotalReadLatencyMicros", readLatency, "PendingTasks", pending));
+    }
+}
@@ -0,0 +1,38 @@
+package com.netflix.priam.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StreamFileTest {
+    @Test
+    public void parsesOutgoingFile() {
+        StreamFile file = StreamFile.parse("/var/lib/cassandra/data/ks/users/ks-users-ic-12-Data.db sections=3 progress=1024/4096 - 25%", false);
+
+        assertNull(file.getKeyspace());
+        assertEquals("/var/lib/cassandra/data/ks/users/ks-users-ic-12-Data.db", file.getFile());
+        assertEquals(3, file.getSections());
+        assertEquals(1024, file.getBytesTransferred());
+        assertEquals(4096, file.getTotalBytes());
+    }
+
+    @Test
+    public void parsesIncomingFileWithKeyspace() {
+        StreamFile file = StreamFile.parse("ks: /var/lib/cassandra/data/ks/users/ks-users-ic-7-Data.db sections=1 progress=0/100 - 0%", true);
+
+        assertEquals("ks", file.getKeyspace());
+        assertEquals("/var/lib/cassandra/data/ks/users/ks-users-ic-7-Data.db", file.getFile());
+        assertEquals(0, file.getBytesTransferred());
+        assertEquals(100, file.getTotalBytes());
+    }
+
+    @Test
+    public void keepsUnknownFormatWithoutProgress() {
+        StreamFile file = StreamFile.parse("something else", false);
+
+        assertEquals("something else", file.getDescription());
+        assertEquals("something else", file.getFile());
+        assertEquals(0, file.getTotalBytes());
+    }
+}
@@ -0,0 +1,97 @@
+package com.netflix.priam.stats;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.priam.config.StatsConfiguration;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingTrackerTest {
+    private final StatsConfiguration statsConfiguration = new StatsConfiguration();
+    private final StreamingTracker tracker = new StreamingTracker(statsConfiguration);
+
+    @Test
+    public void computesRateAndEtaFromSuccessiveSamples() {
+        StreamPeer first = tracker.record(sending("10.0.0.2", 0, 10000), 1000, true).get(0);
+        assertNull(first.getBytesPerSecond());
+        assertNull(first.getEtaSeconds());
+
+        StreamPeer second = tracker.record(sending("10.0.0.2", 2000, 10000), 3000, true).get(0);
+        assertEquals(1000.0, second.getBytesPerSecond(), 0.001);
+        assertEquals(8L, (long) second.getEtaSeconds());
+    }
+
+    @Test
+    public void countsFinishedFilesDroppingOutOfTheSession() {
+        tracker.record(sending("10.0.0.2", 500, 1000), 0, true);
+        // The first file finished and left the session, the second is half done
+        StreamPeer peer = tracker.record(sending("10.0.0.2", 250, 500), 1000, true).get(0);
+
+        assertEquals(250.0, peer.getBytesPerSecond(), 0.001);
+        assertEquals(1L, (long) peer.getEtaSeconds());
+    }
+
+    @Test
+    public void restartsWindowForNewSession() {
+        tracker.record(sending("10.0.0.2", 900, 1000), 0, true);
+        StreamPeer peer = tracker.record(sending("10.0.0.2", 0, 5000), 1000, true).get(0);
+
+        assertNull(peer.getBytesPerSecond());
+    }
+
+    @Test
+    public void dropsSamplesOutsideTheWindow() {
+        statsConfiguration.setStreamingRateWindowMS(10000);
+        tracker.record(sending("10.0.0.2", 0, 100000), 0, true);
+        tracker.record(sending("10.0.0.2", 50000, 100000), 1000, true);
+        tracker.record(sending("10.0.0.2", 51000, 100000), 20000, true);
+        StreamPeer peer = tracker.record(sending("10.0.0.2", 52000, 100000), 21000, true).get(0);
+
+        // Only the samples at 20s and 21s are left
+        assertEquals(1000.0, peer.getBytesPerSecond(), 0.001);
+    }
+
+    @Test
+    public void servesLatestOnlyForCompleteSamples() {
+        assertFalse(tracker.getLatest(60000).isPresent());
+
+        tracker.record(sending("10.0.0.2", 0, 100), System.currentTimeMillis(), false);
+        assertFalse(tracker.getLatest(60000).isPresent());
+
+        tracker.record(sending("10.0.0.2", 0, 100), System.currentTimeMillis(), true);
+        assertTrue(tracker.getLatest(60000).isPresent());
+        assertEquals(1, tracker.getLatest(60000).get().size());
+    }
+
+    @Test
+    public void summarizesPerDirection() {
+        List<StreamPeer> peers = ImmutableList.of(
+                new StreamPeer(StreamPeer.Direction.SENDING, "10.0.0.2", ImmutableList.of(file(100, 400), file(0, 100)))
+                        .withRate(50.0, 8L),
+                new StreamPeer(StreamPeer.Direction.SENDING, "10.0.0.3", ImmutableList.of(file(300, 400)))
+                        .withRate(25.0, 4L),
+                new StreamPeer(StreamPeer.Direction.RECEIVING, "10.0.0.4", ImmutableList.of(file(0, 10))));
+
+        StreamingSummary summary = new StreamingSummary(peers, StreamPeer.Direction.SENDING);
+        assertEquals(2, summary.getPeers());
+        assertEquals(3, summary.getFiles());
+        assertEquals(400, summary.getBytesTransferred());
+        assertEquals(900, summary.getTotalBytes());
+        assertEquals(75.0, summary.getBytesPerSecond(), 0.001);
+        assertEquals(8L, (long) summary.getEtaSeconds());
+    }
+
+    private static List<StreamPeer> sending(String host, long transferred, long total) {
+        return ImmutableList.of(new StreamPeer(StreamPeer.Direction.SENDING, host,
+                ImmutableList.of(file(transferred, total))));
+    }
+
+    private static StreamFile file(long transferred, long total) {
+        return new StreamFile("", null, "ks-users-ic-1-Data.db", 1, transferred, total);
+    }
+}
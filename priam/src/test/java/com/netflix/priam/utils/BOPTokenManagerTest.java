@@ -274,6 +274,18 @@ public class BOPTokenManagerTest {
         assertEquals(token, new ByteOrderedPartitioner().getTokenFactory().fromString(string));
     }
 
+    @Test
+    public void splitRange_evenly() {
+        BOPTokenManager tokenManager = newBOPTokenManager(1);
+        assertEquals(ImmutableList.of("00", "40", "80"), tokenManager.splitRange("00", "80", 2));
+    }
+
+    @Test
+    public void splitRange_wrapsAroundMaximumToken() {
+        BOPTokenManager tokenManager = newBOPTokenManager(1);
+        assertEquals(ImmutableList.of("f0", "00", "10"), tokenManager.splitRange("f0", "10", 2));
+    }
+
     private BOPTokenManager newBOPTokenManager(int tokenLength) {
         return new BOPTokenManager(tokenLength, Strings.repeat("00", tokenLength), Strings.repeat("ff", tokenLength));
     }
@@ -0,0 +1,88 @@
+package com.netflix.priam.utils;
+
+import com.google.common.collect.ImmutableMap;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EndpointTopologyCacheTest {
+    private
+    @Mocked
+    JMXNodeTool nodeTool;
+    private
+    @Mocked
+    EndpointSnitchInfoMBean snitch;
+
+    @Test
+    public void resolvesEachEndpointOnce() throws Exception {
+        new Expectations() {
+            {
+                nodeTool.getEndpointSnitchInfoProxy();
+                result = snitch;
+                snitch.getDatacenter("10.0.0.1");
+                result = "us-east";
+                snitch.getRack("10.0.0.1");
+                result = "1a";
+                times = 1;
+            }
+        };
+
+        EndpointTopologyCache cache = new EndpointTopologyCache();
+        Map<String, String> hostIds = ImmutableMap.of("10.0.0.1", "host-1");
+        cache.resolve(nodeTool, hostIds);
+        Map<String, EndpointTopology> topology = cache.resolve(nodeTool, hostIds);
+
+        assertEquals("us-east", topology.get("10.0.0.1").getDataCenter());
+        assertEquals("1a", topology.get("10.0.0.1").getRack());
+        assertEquals("host-1", topology.get("10.0.0.1").getHostId());
+    }
+
+    @Test
+    public void reresolvesWhenHostIdChanges() throws Exception {
+        new NonStrictExpectations() {
+            {
+                nodeTool.getEndpointSnitchInfoProxy();
+                result = snitch;
+                snitch.getDatacenter("10.0.0.1");
+                returns("us-east", "us-west");
+                snitch.getRack("10.0.0.1");
+                returns("1a", "2b");
+            }
+        };
+
+        EndpointTopologyCache cache = new EndpointTopologyCache();
+        cache.resolve(nodeTool, ImmutableMap.of("10.0.0.1", "host-1"));
+        Map<String, EndpointTopology> topology = cache.resolve(nodeTool, ImmutableMap.of("10.0.0.1", "host-2"));
+
+        assertEquals("us-west", topology.get("10.0.0.1").getDataCenter());
+        assertEquals("2b", topology.get("10.0.0.1").getRack());
+    }
+
+    @Test
+    public void dropsEndpointsThatLeftTheRing() throws Exception {
+        new NonStrictExpectations() {
+            {
+                nodeTool.getEndpointSnitchInfoProxy();
+                result = snitch;
+                snitch.getDatacenter(anyString);
+                result = "us-east";
+                snitch.getRack(anyString);
+                result = "1a";
+            }
+        };
+
+        EndpointTopologyCache cache = new EndpointTopologyCache();
+        cache.resolve(nodeTool, ImmutableMap.of("10.0.0.1", "host-1", "10.0.0.2", "host-2"));
+        Map<String, EndpointTopology> topology = cache.resolve(nodeTool, ImmutableMap.of("10.0.0.1", "host-1"));
+
+        assertEquals(1, topology.size());
+        assertNull(topology.get("10.0.0.2"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.netflix.priam.utils;
+
+import com.google.common.collect.Lists;
+import com.netflix.priam.TestCassandraConfiguration;
+import com.netflix.priam.config.JMXConfiguration;
+import mockit.Mocked;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JMXConnectionPoolTest {
+
+    @Test
+    public void failsFastWhenCassandraIsDown() throws Exception {
+        TestCassandraConfiguration cassandraConfiguration = new TestCassandraConfiguration("fake-app");
+        cassandraConfiguration.setJmxPort(unusedPort());
+        JMXConfiguration jmxConfiguration = new JMXConfiguration();
+        jmxConfiguration.setMinReconnectDelayMS(60000);
+        JMXConnectionPool pool = new JMXConnectionPool(cassandraConfiguration, jmxConfiguration);
+
+        assertConnectionFails(pool);
+
+        // The failed attempt starts the backoff window, so the next caller doesn't try to connect at all.
+        long start = System.currentTimeMillis();
+        assertConnectionFails(pool);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(0, pool.getLiveConnectionCount());
+    }
+
+    @Test
+    public void timesOutSlowCalls(@Mocked JMXNodeTool nodeTool) throws Exception {
+        JMXConnectionPool pool = new JMXConnectionPool(new TestCassandraConfiguration("fake-app"), new JMXConfiguration());
+        try {
+            pool.execute(blockingCall(new CountDownLatch(1)), 50, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (JMXTimeoutException e) {
+            // Expected
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void rejectsCallsWhenSaturated(@Mocked JMXNodeTool nodeTool) throws Exception {
+        JMXConfiguration jmxConfiguration = new JMXConfiguration();
+        jmxConfiguration.setExecutorThreads(1);
+        jmxConfiguration.setExecutorQueueSize(1);
+        final JMXConnectionPool pool = new JMXConnectionPool(new TestCassandraConfiguration("fake-app"), jmxConfiguration);
+
+        // Occupy the only thread and the only queue slot
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Thread> callers = Lists.newArrayList();
+        for (int i = 0; i < 2; i++) {
+            Thread caller = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        pool.execute(blockingCall(release), 10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        // Ignore
+                    }
+                }
+            };
+            caller.start();
+            callers.add(caller);
+            Thread.sleep(100);
+        }
+
+        try {
+            pool.execute(blockingCall(release), 10, TimeUnit.SECONDS);
+            fail();
+        } catch (JMXRejectedException e) {
+            // Expected
+        } finally {
+            release.countDown();
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void readsDoNotWaitBehindOperations(@Mocked JMXNodeTool nodeTool) throws Exception {
+        JMXConfiguration jmxConfiguration = new JMXConfiguration();
+        jmxConfiguration.setOperationThreads(1);
+        jmxConfiguration.setExecutorQueueSize(1);
+        final JMXConnectionPool pool = new JMXConnectionPool(new TestCassandraConfiguration("fake-app"), jmxConfiguration);
+
+        // Occupy the only operation thread
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread operation = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    pool.executeOperation(blockingCall(release), 10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    // Ignore
+                }
+            }
+        };
+        operation.start();
+        Thread.sleep(100);
+
+        try {
+            assertEquals("ok", pool.execute(new JMXCallable<String>() {
+                @Override
+                public String call(JMXNodeTool nodeTool) throws Exception {
+                    return "ok";
+                }
+            }, 1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            operation.join();
+            pool.stop();
+        }
+    }
+
+    private JMXCallable<Void> blockingCall(final CountDownLatch release) {
+        return new JMXCallable<Void>() {
+            @Override
+            public Void call(JMXNodeTool nodeTool) throws Exception {
+                release.await();
+                return null;
+            }
+        };
+    }
+
+    private void assertConnectionFails(JMXConnectionPool pool) throws Exception {
+        try {
+            pool.execute(new JMXCallable<String>() {
+                @Override
+                public String call(JMXNodeTool nodeTool) throws Exception {
+                    return nodeTool.getReleaseVersion();
+                }
+            });
+            fail();
+        } catch (JMXConnectionException e) {
+            // Expected
+        }
+    }
+
+    private int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -188,4 +188,20 @@ public class Murmur3PartitionerTokenManagerTest {
 
         assertEquals(token, new RandomPartitioner().getTokenFactory().fromString(string));
     }
+
+    @Test
+    public void splitRange_evenly() {
+        assertEquals(ImmutableList.of("0", "25", "50", "75", "100"), tokenManager.splitRange("0", "100", 4));
+    }
+
+    @Test
+    public void splitRange_wrapsAroundMaximumToken() {
+        assertEquals(ImmutableList.of("9223372036854775800", "-9223372036854775808", "-9223372036854775800"),
+                tokenManager.splitRange("9223372036854775800", "-9223372036854775800", 2));
+    }
+
+    @Test
+    public void splitRange_fewerTokensThanSubranges() {
+        assertEquals(ImmutableList.of("0", "1", "2"), tokenManager.splitRange("0", "2", 4));
+    }
 }